@@ -121,11 +121,15 @@ public class Codec implements MessageCodec<Message, Response> {
           .build())
       .build();
 
+  // encoders and decoders are not thread-safe but are cheap to reset, so each thread reuses its own
+  private final ThreadLocal<StructEncoder<Void>> encoder = ThreadLocal.withInitial(struct::encoder);
+  private final ThreadLocal<StructDecoder<Void>> decoder = ThreadLocal.withInitial(struct::decoder);
+
   @Override
   public byte[] encodeMessage(Message message) throws MessageCodecException {
     LOGGER.trace("encodeMessage({})", message);
     try {
-      return struct.encoder()
+      return encoder.get().reset()
           .enm("type", message.getType())
           .encode()
           .array();
@@ -137,7 +141,7 @@ public class Codec implements MessageCodec<Message, Response> {
   @Override
   public Message decodeMessage(byte[] bytes) throws MessageCodecException {
     try {
-      final Message message = new Message(struct.decoder(ByteBuffer.wrap(bytes)).<Type>enm("type").get());
+      final Message message = new Message(decoder.get().wrap(ByteBuffer.wrap(bytes)).<Type>enm("type").get());
       LOGGER.trace("decodeMessage(): {}", message);
       return message;
     } catch (RuntimeException e) {
@@ -150,7 +154,7 @@ public class Codec implements MessageCodec<Message, Response> {
     LOGGER.trace("encodeResponse({})", response);
     try {
       Type type = response.getType();
-      StructEncoder<Void> encoder = struct.encoder();
+      StructEncoder<Void> encoder = this.encoder.get().reset();
       encoder.enm("type", type);
       switch (type) {
         case REQ_LICENSE: {
@@ -243,7 +247,7 @@ public class Codec implements MessageCodec<Message, Response> {
   @Override
   public Response decodeResponse(byte[] bytes) throws MessageCodecException {
     try {
-      StructDecoder<Void> decoder = struct.decoder(ByteBuffer.wrap(bytes));
+      StructDecoder<Void> decoder = this.decoder.get().wrap(ByteBuffer.wrap(bytes));
       Type type = decoder.<Type>enm("type").get();
       LOGGER.trace("decodeResponse({})", type);
       switch (type) {
@@ -35,9 +35,15 @@ public class LeaseAcquirerCodec implements MessageCodec<LeaseMessage, LeaseRespo
   private static final Struct messageStruct = createMessageStruct();
   private static final Struct responseStruct = createResponseStruct();
 
+  // encoders and decoders are not thread-safe but are cheap to reset, so each thread reuses its own
+  private static final ThreadLocal<StructEncoder<Void>> messageEncoder = ThreadLocal.withInitial(messageStruct::encoder);
+  private static final ThreadLocal<StructDecoder<Void>> messageDecoder = ThreadLocal.withInitial(messageStruct::decoder);
+  private static final ThreadLocal<StructEncoder<Void>> responseEncoder = ThreadLocal.withInitial(responseStruct::encoder);
+  private static final ThreadLocal<StructDecoder<Void>> responseDecoder = ThreadLocal.withInitial(responseStruct::decoder);
+
   @Override
   public byte[] encodeMessage(LeaseMessage leaseMessage) throws MessageCodecException {
-    StructEncoder<Void> encoder = messageStruct.encoder();
+    StructEncoder<Void> encoder = messageEncoder.get().reset();
     encoder.enm("messageType", leaseMessage.getType());
     leaseMessage.encode(encoder);
     return encoder.encode().array();
@@ -45,14 +51,14 @@ public class LeaseAcquirerCodec implements MessageCodec<LeaseMessage, LeaseRespo
 
   @Override
   public LeaseMessage decodeMessage(byte[] bytes) throws MessageCodecException {
-    StructDecoder<Void> decoder = messageStruct.decoder(ByteBuffer.wrap(bytes));
+    StructDecoder<Void> decoder = messageDecoder.get().wrap(ByteBuffer.wrap(bytes));
     LeaseMessageType type = decoder.<LeaseMessageType>enm("messageType").get();
     return type.decode(decoder);
   }
 
   @Override
   public byte[] encodeResponse(LeaseResponse leaseResponse) throws MessageCodecException {
-    StructEncoder<Void> encoder = responseStruct.encoder();
+    StructEncoder<Void> encoder = responseEncoder.get().reset();
     encoder.enm("responseType", leaseResponse.getType());
     leaseResponse.encode(encoder);
     return encoder.encode().array();
@@ -60,7 +66,7 @@ public class LeaseAcquirerCodec implements MessageCodec<LeaseMessage, LeaseRespo
 
   @Override
   public LeaseResponse decodeResponse(byte[] bytes) throws MessageCodecException {
-    StructDecoder<Void> decoder = responseStruct.decoder(ByteBuffer.wrap(bytes));
+    StructDecoder<Void> decoder = responseDecoder.get().wrap(ByteBuffer.wrap(bytes));
     LeaseResponseType type = decoder.<LeaseResponseType>enm("responseType").get();
     return type.decode(decoder);
   }
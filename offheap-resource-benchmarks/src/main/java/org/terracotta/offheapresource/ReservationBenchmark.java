@@ -0,0 +1,217 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.offheapresource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terracotta.common.struct.Measure;
+import org.terracotta.common.struct.MemoryUnit;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Reserve/release pairs of a page size on one resource shared by all the benchmark threads, far below the usage
+ * thresholds as storage engines mostly are. It lives in the plugin package to reach the package-private
+ * {@link OffHeapResourceImpl}, and compares it with the accounting it replaced: a compare-and-set of an immutable
+ * state object, evaluating the usage listeners on every update. {@code ATOMIC_LONG} delivers the usage events on the
+ * reserving thread; {@code PROVIDER} gets the resource from an {@link OffHeapResourcesProvider}, which delivers them
+ * and samples the memory usage on its own executor, as a server does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationBenchmark {
+
+  private static final long PAGE_SIZE = 4096;
+
+  public enum Accounting {
+    IMMUTABLE_STATE,
+    ATOMIC_LONG,
+    PROVIDER
+  }
+
+  @Param
+  public Accounting accounting;
+
+  private OffHeapResource resource;
+  private OffHeapResourcesProvider provider;
+
+  @Setup
+  public void setUp() {
+    long capacity = 1024 * 1024 * 1024L;
+    switch (accounting) {
+      case IMMUTABLE_STATE:
+        resource = new ImmutableStateResource(capacity);
+        break;
+      case ATOMIC_LONG:
+        resource = new OffHeapResourceImpl("benchmark", capacity);
+        break;
+      case PROVIDER:
+        provider = new OffHeapResourcesProvider(Collections.singletonMap("benchmark", Measure.of(capacity, MemoryUnit.B)));
+        resource = provider.getOffHeapResource(OffHeapResourceIdentifier.identifier("benchmark"));
+        break;
+      default:
+        throw new AssertionError(accounting);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (provider != null) {
+      provider.close();
+    } else if (resource instanceof OffHeapResourceImpl) {
+      ((OffHeapResourceImpl) resource).close();
+    }
+  }
+
+  @Benchmark
+  public boolean reserveRelease() {
+    boolean reserved = resource.reserve(PAGE_SIZE);
+    if (reserved) {
+      resource.release(PAGE_SIZE);
+    }
+    return reserved;
+  }
+
+  /**
+   * The accounting of the previous releases, with the same two default listeners.
+   */
+  static class ImmutableStateResource implements OffHeapResource {
+
+    private final AtomicReference<State> state;
+    private final Map<UUID, OffHeapUsageListener> listeners = new ConcurrentHashMap<>();
+
+    ImmutableStateResource(long capacity) {
+      state = new AtomicReference<>(new State(capacity, 0));
+      addUsageListener(UUID.randomUUID(), 0.9f, event -> { });
+      addUsageListener(UUID.randomUUID(), 0.75f, event -> { });
+    }
+
+    @Override
+    public boolean reserve(long size) {
+      while (true) {
+        State current = state.get();
+        State next = new State(current.capacity, current.used + size);
+        if (next.used > next.capacity) {
+          return false;
+        }
+        if (state.compareAndSet(current, next)) {
+          updated(next);
+          return true;
+        }
+      }
+    }
+
+    @Override
+    public void release(long size) {
+      while (true) {
+        State current = state.get();
+        State next = new State(current.capacity, current.used - size);
+        if (state.compareAndSet(current, next)) {
+          updated(next);
+          return;
+        }
+      }
+    }
+
+    private void updated(State state) {
+      float occupancy = (state.used * 1.0f) / state.capacity;
+      for (OffHeapUsageListener listener : listeners.values()) {
+        if (listener.isFired() != (Float.compare(listener.getThreshold(), occupancy) <= 0)) {
+          listener.setFiringStatus(!listener.isFired());
+        }
+      }
+    }
+
+    @Override
+    public long available() {
+      State current = state.get();
+      return current.capacity - current.used;
+    }
+
+    @Override
+    public long capacity() {
+      return state.get().capacity;
+    }
+
+    @Override
+    public boolean setCapacity(long size) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addUsageListener(UUID listenerUUID, float threshold, Consumer<OffHeapUsageEvent> consumer) {
+      listeners.put(listenerUUID, new OffHeapUsageListener(threshold, consumer));
+    }
+
+    @Override
+    public void removeUsageListener(UUID listenerUUID) {
+      listeners.remove(listenerUUID);
+    }
+
+    @Override
+    public boolean reserve(long size, long timeout, TimeUnit unit) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletionStage<Boolean> reserveAsync(long size) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public OffHeapSubAccount createSubAccount(String consumerId, long quota, OffHeapQuotaType quotaType) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<OffHeapSubAccount> getSubAccounts() {
+      return Collections.emptyList();
+    }
+
+    private static final class State {
+      final long capacity;
+      final long used;
+
+      State(long capacity, long used) {
+        this.capacity = capacity;
+        this.used = used;
+      }
+    }
+  }
+}
@@ -14,23 +14,21 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.terracotta.runnel.encoding.dataholders;
+package org.terracotta.offheapresource;
 
-import org.terracotta.runnel.utils.WriteBuffer;
+import com.tc.classloader.CommonComponent;
 
 /**
- * @author Ludovic Orban
+ * How the quota of an {@link OffHeapSubAccount} is enforced.
  */
-public interface DataHolder {
-
+@CommonComponent
+public enum OffHeapQuotaType {
   /**
-   * Return the byte size of this data holder. Note that this value is cached
-   * on first calculation. Memoized, even.
-   * @param withIndex
-   * @return byte size.
+   * Reservations that would take the account beyond its quota fail.
    */
-  int size(boolean withIndex);
-
-  void encode(WriteBuffer writeBuffer, boolean withIndex);
-
+  HARD,
+  /**
+   * Reservations can take the account beyond its quota, as long as the resource has room, but the overrun is logged.
+   */
+  SOFT
 }
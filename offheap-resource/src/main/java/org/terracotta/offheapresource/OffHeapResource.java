@@ -18,7 +18,10 @@ package org.terracotta.offheapresource;
 
 import com.tc.classloader.CommonComponent;
 
+import java.util.Collection;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -27,6 +30,9 @@ import java.util.function.Consumer;
  * <p>
  * Reservation and release calls perform no allocations, and therefore rely on
  * the cooperation of callers to achieve control over the 'real' resource usage.
+ * <p>
+ * Consumers sharing a resource can each reserve through their own {@link OffHeapSubAccount}, so that their usage is
+ * tracked, and optionally bound, separately.
  */
 @CommonComponent
 public interface OffHeapResource {
@@ -44,6 +50,36 @@ public interface OffHeapResource {
    */
   boolean reserve(long size) throws IllegalArgumentException;
 
+  /**
+   * Reserves the given amount of this resource, waiting up to the given time for enough of it to be released.
+   * <p>
+   * Waiting reservations are granted in arrival order, by the releasing threads: a reservation does not get ahead of
+   * the ones already waiting, even if it would fit.  Only {@link #reserve(long)}, which never waits, does, using what is
+   * available, but what gets released while reservations are waiting is handed to them first.
+   *
+   * @param size reservation size
+   * @param timeout maximum time to wait
+   * @param unit unit of the timeout
+   * @return {@code true} if the reservation succeeded, {@code false} if it timed out or can never fit
+   * @throws IllegalArgumentException if the reservation size is negative
+   * @throws InterruptedException if interrupted while waiting, in which case nothing is reserved
+   */
+  boolean reserve(long size, long timeout, TimeUnit unit) throws IllegalArgumentException, InterruptedException;
+
+  /**
+   * Reserves the given amount of this resource once enough of it is released, like {@link #reserve(long, long, TimeUnit)}
+   * but without a timeout.
+   * <p>
+   * Cancelling the returned stage, through {@link java.util.concurrent.CompletableFuture#cancel(boolean)}, withdraws the
+   * reservation.
+   *
+   * @param size reservation size
+   * @return a stage completed with {@code true} once the reservation succeeded, or {@code false} if it can never fit
+   * in the capacity of this resource or the resource is closed
+   * @throws IllegalArgumentException if the reservation size is negative
+   */
+  CompletionStage<Boolean> reserveAsync(long size) throws IllegalArgumentException;
+
   /**
    * Releases the given amount of resource back to this pool.
    *
@@ -77,4 +113,32 @@ public interface OffHeapResource {
   void addUsageListener(UUID listenerUUID, float threshold, Consumer<OffHeapUsageEvent> consumer);
 
   void removeUsageListener(UUID listenerUUID) throws IllegalArgumentException;
+
+  /**
+   * Creates an account through which the given consumer reserves this resource, with a hard quota.
+   *
+   * @param consumerId identifier of the consumer
+   * @param quota maximum size the consumer can reserve, {@link OffHeapSubAccount#UNLIMITED} for no quota
+   * @return the account of the consumer
+   * @throws IllegalArgumentException if the quota is negative, or the consumer already has an account
+   */
+  default OffHeapSubAccount createSubAccount(String consumerId, long quota) throws IllegalArgumentException {
+    return createSubAccount(consumerId, quota, OffHeapQuotaType.HARD);
+  }
+
+  /**
+   * Creates an account through which the given consumer reserves this resource.
+   *
+   * @param consumerId identifier of the consumer
+   * @param quota size the consumer is expected to reserve at most, {@link OffHeapSubAccount#UNLIMITED} for no quota
+   * @param quotaType how the quota is enforced
+   * @return the account of the consumer
+   * @throws IllegalArgumentException if the quota is negative, or the consumer already has an account
+   */
+  OffHeapSubAccount createSubAccount(String consumerId, long quota, OffHeapQuotaType quotaType) throws IllegalArgumentException;
+
+  /**
+   * @return the accounts of the consumers of this resource, that are not closed
+   */
+  Collection<OffHeapSubAccount> getSubAccounts();
 }
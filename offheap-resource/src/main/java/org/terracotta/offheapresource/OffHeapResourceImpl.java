@@ -24,15 +24,50 @@ import org.terracotta.tripwire.TripwireFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * An implementation of {@link OffHeapResource}.
+ * <p>
+ * The reservations are accounted with a single {@code AtomicLong} holding the remaining size, so reserving and
+ * releasing allocate nothing. The usage listeners are indexed by threshold, and only the ones whose threshold got
+ * crossed are touched, when the used size crosses the closest threshold above or below it. Their events are then
+ * delivered by a dispatcher instead of the reserving thread, which only hands it work when a threshold got crossed.
+ * The memory usage is sampled periodically, by the provider, rather than on every reservation.
+ * <p>
+ * The sub-accounts reserve from this resource, so their reservations count against its capacity and trigger its usage
+ * events like any other.
+ * <p>
+ * The reservations and releases are counted in {@link ReservationStatistics}, exposed through the management binding.
+ * <p>
+ * The reservations that wait for room are queued in arrival order. The releasing threads grant them from the head of the
+ * queue, for as long as they fit, instead of waking them up to compete for the released size.
  */
 class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
 
@@ -43,7 +78,14 @@ class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
   private static final String OFFHEAP_WARN_KEY = "offheap.warn";
   private static final String DEFAULT_MESSAGE = "Offheap allocation for resource \"{}\" reached {}%, you may run out of memory if allocation continues.";
   private static final Properties MESSAGE_PROPERTIES;
+
+  /**
+   * The occupancies at which usage events are sent, unless configured otherwise: an info is logged at the lowest one,
+   * and a warning at the highest one.
+   */
+  static final List<Float> DEFAULT_USAGE_THRESHOLDS = Collections.unmodifiableList(Arrays.asList(0.75f, 0.9f));
   private final Map<UUID, OffHeapUsageListener> listenerMap = new ConcurrentHashMap<>();
+  private final Map<String, OffHeapSubAccountImpl> subAccounts = new ConcurrentHashMap<>();
 
   static {
     Properties defaults = new Properties();
@@ -66,9 +108,31 @@ class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
     }
   }
 
-  private final AtomicReference<OffHeapResourceState> state;
+  private final AtomicLong remaining;
+  // only changed by setCapacity, the capacity is reserved from or released to the remaining size first
+  private volatile long capacity;
+  // odd while setCapacity moves the capacity in or out of the remaining size, so that the threads computing the used
+  // size without holding the lock can tell when capacity and remaining do not match
+  private volatile long capacityVersion;
+  // used sizes at which the listeners have to be evaluated again
+  private volatile long risingMark = Long.MAX_VALUE;
+  private volatile long fallingMark = Long.MIN_VALUE;
+  // listeners by threshold, and occupancy they were last evaluated against, guarded by this
+  private final NavigableMap<Float, List<OffHeapUsageListener>> thresholds = new TreeMap<>();
+  private float occupancy;
+  // events are handed to the dispatcher, coalesced until it runs
+  private final Executor dispatcher;
+  private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+  private final Queue<OffHeapUsageListener> crossedListeners = new ConcurrentLinkedQueue<>();
+  // reservations waiting for room, in arrival order, guarded by itself
+  private final Deque<Waiter> waiters = new ArrayDeque<>();
+  // only written under the waiters lock, read by the releasing threads before they release
+  private volatile int waiting;
+  private boolean closed;
+  private final ReservationStatistics statistics = new ReservationStatistics(() -> waiting, this::used);
   private final String identifier;
   private final CapacityChangeHandler onCapacityChanged;
+  private final Consumer<OffHeapResourceImpl> onSubAccountsChanged;
   private final OffHeapResourceBinding managementBinding;
   private final MemoryMonitor monitor;
 
@@ -77,23 +141,57 @@ class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
    *
    * @param identifier
    * @param size size of the resource
+   * @param usageThresholds occupancies, between 0 and 1, at which usage events are sent to {@code onReservationThresholdReached}
    * @param onReservationThresholdReached event consumer - will receive events regarding usage thresholds
    * @param onCapacityChanged event consumer - will receive an event when the capacity changes
-   * @throws IllegalArgumentException if the size is negative
+   * @param onSubAccountsChanged event consumer - will receive this resource when a sub-account is created or closed
+   * @param dispatcher executor delivering the usage events, off the reserving threads
+   * @throws IllegalArgumentException if the size is negative, or a threshold not in the (0, 1] range
    */
-  OffHeapResourceImpl(String identifier, long size, Consumer<OffHeapUsageEvent> onReservationThresholdReached, CapacityChangeHandler onCapacityChanged) throws IllegalArgumentException {
+  OffHeapResourceImpl(String identifier, long size, Collection<Float> usageThresholds, Consumer<OffHeapUsageEvent> onReservationThresholdReached,
+                      CapacityChangeHandler onCapacityChanged, Consumer<OffHeapResourceImpl> onSubAccountsChanged, Executor dispatcher) throws IllegalArgumentException {
     this.onCapacityChanged = onCapacityChanged;
-    this.managementBinding = new OffHeapResourceBinding(identifier, this);
+    this.onSubAccountsChanged = onSubAccountsChanged;
+    this.managementBinding = new OffHeapResourceBinding(identifier, this, statistics);
     if (size < 0) {
       throw new IllegalArgumentException("Resource size cannot be negative");
     }
+    for (float threshold : usageThresholds) {
+      if (!(threshold > 0 && threshold <= 1)) {
+        throw new IllegalArgumentException("Usage threshold must be in the (0, 1] range: " + threshold);
+      }
+    }
 
-    this.state = new AtomicReference<>(new OffHeapResourceState(size));
+    this.remaining = new AtomicLong(size);
+    this.capacity = size;
+    this.occupancy = 0.0f / size;
+    this.dispatcher = dispatcher;
     this.identifier = identifier;
     monitor = TripwireFactory.createMemoryMonitor(identifier);
     monitor.register();
-    addUsageListener(UUID.randomUUID(), 0.9f, onReservationThresholdReached);
-    addUsageListener(UUID.randomUUID(), 0.75f, onReservationThresholdReached);
+    TreeSet<Float> sortedThresholds = new TreeSet<>(usageThresholds);
+    for (float threshold : sortedThresholds) {
+      boolean highest = threshold == sortedThresholds.last();
+      boolean lowest = threshold == sortedThresholds.first();
+      addUsageListener(UUID.randomUUID(), threshold, event -> {
+        logUsage(event, highest, lowest);
+        onReservationThresholdReached.accept(event);
+      });
+    }
+  }
+
+  /**
+   * Creates a resource of the given initial size, with the default usage thresholds, delivering the events on the
+   * reserving threads.
+   *
+   * @param identifier
+   * @param size size of the resource
+   * @param onReservationThresholdReached event consumer - will receive events regarding usage thresholds
+   * @param onCapacityChanged event consumer - will receive an event when the capacity changes
+   * @throws IllegalArgumentException if the size is negative
+   */
+  OffHeapResourceImpl(String identifier, long size, Consumer<OffHeapUsageEvent> onReservationThresholdReached, CapacityChangeHandler onCapacityChanged) throws IllegalArgumentException {
+    this(identifier, size, DEFAULT_USAGE_THRESHOLDS, onReservationThresholdReached, onCapacityChanged, r -> {}, Runnable::run);
   }
 
   /**
@@ -123,10 +221,30 @@ class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
   public OffHeapResourceBinding getManagementBinding() {
     return managementBinding;
   }
-  
+
+  String getIdentifier() {
+    return identifier;
+  }
+
   @Override
   public void close() {
     monitor.unregister();
+    List<Waiter> failed;
+    long handedOver = 0;
+    synchronized (waiters) {
+      closed = true;
+      failed = new ArrayList<>(waiters);
+      for (Waiter waiter : failed) {
+        handedOver += waiter.handedOver;
+      }
+      waiters.clear();
+      waiting = 0;
+    }
+    remaining.addAndGet(handedOver);
+    for (Waiter waiter : failed) {
+      statistics.failed();
+      waiter.complete(Boolean.FALSE);
+    }
   }
 
   /**
@@ -139,64 +257,309 @@ class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
       throw new IllegalArgumentException("Reservation size cannot be negative");
     }
 
-    while (true) {
-      OffHeapResourceState currentState = state.get();
-      OffHeapResourceState newState = currentState.reserve(size);
+    return ReservationStatistics.sampleLatency() ? reserveTimed(size) : reserveNow(size);
+  }
 
-      if (newState.isOverflowed()) {
-        return false;
-      }
+  private boolean reserveTimed(long size) {
+    long start = System.nanoTime();
+    try {
+      return reserveNow(size);
+    } finally {
+      statistics.getReservationLatency().record(System.nanoTime() - start);
+    }
+  }
 
-      if (state.compareAndSet(currentState, newState)) {
-        stateUpdated(currentState, newState);
-        return true;
+  private boolean reserveNow(long size) {
+    if (!tryReserve(size)) {
+      statistics.failed();
+      return false;
+    }
+    statistics.reserved(size);
+    usageChanged();
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   * @throws IllegalArgumentException {@inheritDoc}
+   * @throws InterruptedException {@inheritDoc}
+   */
+  @Override
+  public boolean reserve(long size, long timeout, TimeUnit unit) throws IllegalArgumentException, InterruptedException {
+    Waiter waiter = enqueue(size);
+    try {
+      return waiter.get(timeout, unit);
+    } catch (TimeoutException e) {
+      // granted in the meantime if it is no longer queued
+      return !abandon(waiter) && waiter.join();
+    } catch (InterruptedException e) {
+      if (!abandon(waiter) && waiter.join()) {
+        release(size);
       }
+      throw e;
+    } catch (ExecutionException e) {
+      throw new AssertionError(e);
     }
   }
 
-  private void stateUpdated(OffHeapResourceState prevState, OffHeapResourceState newState) {
-    long capacity = newState.getCapacity();
-    long used = newState.getUsed();
-    long prevUsed = prevState.getUsed();
-    long prevCapacity = prevState.getCapacity();
+  /**
+   * {@inheritDoc}
+   * @throws IllegalArgumentException {@inheritDoc}
+   */
+  @Override
+  public CompletionStage<Boolean> reserveAsync(long size) throws IllegalArgumentException {
+    return enqueue(size);
+  }
 
-    if (used > prevUsed || capacity < prevCapacity) {
-      // check for rising event.
-      float occupancy = (used * 1.0f) / capacity;
-      OffHeapUsageEvent offHeapUsageEvent = null;
-      for (OffHeapUsageListener offHeapUsageListener : listenerMap.values()) {
-        if (!offHeapUsageListener.isFired() && (Float.compare(offHeapUsageListener.getThreshold(), occupancy) <= 0)) {
-          if (offHeapUsageEvent == null) {
-            offHeapUsageEvent = new OffHeapUsageEventImpl(used, newState.getRemaining(), capacity, OffHeapUsageEventType.RISING);
-          }
-          if (Float.compare(offHeapUsageListener.getThreshold(), 0.9f) == 0) {
-            LOGGER.warn(MESSAGE_PROPERTIES.getProperty(OFFHEAP_WARN_KEY), identifier, (used * 100L) / capacity);
-          } else if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
-            LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, (used * 100L) / capacity);
-          }
-          offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
-          offHeapUsageListener.setFiringStatus(true);
+  private Waiter enqueue(long size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Reservation size cannot be negative");
+    }
+
+    Waiter waiter = new Waiter(size);
+    if (waiting == 0 && tryReserve(size)) {
+      statistics.reserved(size);
+      usageChanged();
+      waiter.complete(Boolean.TRUE);
+      return waiter;
+    }
+    boolean queued = false;
+    synchronized (waiters) {
+      if (!closed && size <= capacity) {
+        queued = waiters.add(waiter);
+        waiting = waiters.size();
+      }
+    }
+    if (!queued) {
+      statistics.failed();
+      waiter.complete(Boolean.FALSE);
+    } else {
+      // the room may have been released before the waiter got queued
+      grantWaiters(0);
+    }
+    return waiter;
+  }
+
+  /**
+   * Hands the released size to the waiters at the head of the queue, reserves what they still miss for as long as they
+   * fit, and completes them. The head waiter keeps what was handed to it if that is not enough, so that the released
+   * size is not taken again by {@link #reserve(long)} before it fits. The ones that can no longer fit in the capacity
+   * fail, and give back what they were handed. What no waiter needs is made available.
+   *
+   * @param released size released, not yet made available
+   */
+  private void grantWaiters(long released) {
+    List<Waiter> granted = new ArrayList<>();
+    List<Waiter> failed = new ArrayList<>();
+    synchronized (waiters) {
+      Waiter waiter;
+      while ((waiter = waiters.peek()) != null) {
+        if (waiter.size > capacity) {
+          released += waiter.handedOver;
+          waiter.handedOver = 0;
+          failed.add(waiters.poll());
+          continue;
+        }
+        long missing = waiter.size - waiter.handedOver;
+        if (released >= missing) {
+          released -= missing;
+        } else if (tryReserve(missing - released)) {
+          released = 0;
+        } else {
+          waiter.handedOver += released;
+          released = 0;
+          break;
         }
+        waiter.handedOver = waiter.size;
+        granted.add(waiters.poll());
       }
-    } else if (used < prevUsed || capacity > prevCapacity) {
-      // check for falling event.
-      float occupancy = (used * 1.0f) / capacity;
-      OffHeapUsageEvent offHeapUsageEvent = null;
-      for (OffHeapUsageListener offHeapUsageListener : listenerMap.values()) {
-        if (offHeapUsageListener.isFired() && (Float.compare(offHeapUsageListener.getThreshold(), occupancy) > 0)) {
-          if (offHeapUsageEvent == null) {
-            offHeapUsageEvent = new OffHeapUsageEventImpl(used, newState.getRemaining(), capacity, OffHeapUsageEventType.FALLING);
-          }
-          if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
-            LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, (used * 100L) / capacity);
-          }
-          offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
-          offHeapUsageListener.setFiringStatus(false);
+      waiting = waiters.size();
+      if (released > 0) {
+        remaining.addAndGet(released);
+      }
+    }
+    for (Waiter waiter : failed) {
+      statistics.failed();
+      waiter.complete(Boolean.FALSE);
+    }
+    if (!granted.isEmpty()) {
+      usageChanged();
+      for (Waiter waiter : granted) {
+        statistics.reserved(waiter.size);
+        statistics.getWaitTimes().record(System.nanoTime() - waiter.since);
+        if (!waiter.complete(Boolean.TRUE)) {
+          // cancelled while being granted
+          release(waiter.size);
         }
       }
     }
+  }
+
+  /**
+   * Removes the waiter from the queue, unless it got granted already, and lets the ones behind it in if they fit.
+   *
+   * @return {@code true} if the waiter was still queued
+   */
+  private boolean abandon(Waiter waiter) {
+    boolean removed;
+    long handedOver = 0;
+    synchronized (waiters) {
+      removed = waiters.remove(waiter);
+      if (removed) {
+        handedOver = waiter.handedOver;
+        waiter.handedOver = 0;
+      }
+      waiting = waiters.size();
+    }
+    if (removed) {
+      statistics.failed();
+      statistics.getWaitTimes().record(System.nanoTime() - waiter.since);
+      waiter.complete(Boolean.FALSE);
+      grantWaiters(handedOver);
+    }
+    return removed;
+  }
+
+  private boolean tryReserve(long size) {
+    while (true) {
+      long current = remaining.get();
+      if (current < size) {
+        return false;
+      }
+      if (remaining.compareAndSet(current, current - size)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @return the size reserved, computed from a capacity and a remaining size that match
+   */
+  private long used() {
+    while (true) {
+      long version = capacityVersion;
+      long used = capacity - remaining.get();
+      if ((version & 1) == 0 && version == capacityVersion) {
+        return used;
+      }
+      Thread.yield();
+    }
+  }
+
+  private void usageChanged() {
+    long used = used();
+    statistics.usageChanged(used);
+    if (used >= risingMark || used < fallingMark) {
+      updateListeners();
+      scheduleDispatch();
+    }
+  }
+
+  /**
+   * Flips the firing status of the listeners whose threshold got crossed since the last evaluation, then moves the
+   * marks to the next thresholds. This is repeated when the usage crossed the new marks in the meantime, since
+   * concurrent reservations could have been checked against the previous ones.
+   */
+  private synchronized void updateListeners() {
+    long capacity;
+    long used;
+    long current;
+    do {
+      capacity = this.capacity;
+      used = capacity - remaining.get();
+      float newOccupancy = (used * 1.0f) / capacity;
+      int direction = Float.compare(newOccupancy, occupancy);
+      if (direction > 0) {
+        setFiringStatus(thresholds.subMap(occupancy, false, newOccupancy, true), true);
+      } else if (direction < 0) {
+        setFiringStatus(thresholds.subMap(newOccupancy, false, occupancy, true), false);
+      }
+      occupancy = newOccupancy;
+      updateMarks(capacity);
+      current = this.capacity - remaining.get();
+    } while (this.capacity != capacity || (current != used && (current >= risingMark || current < fallingMark)));
+  }
+
+  private void setFiringStatus(Map<Float, List<OffHeapUsageListener>> crossed, boolean fired) {
+    for (List<OffHeapUsageListener> listeners : crossed.values()) {
+      for (OffHeapUsageListener listener : listeners) {
+        listener.setFiringStatus(fired);
+        crossedListeners.add(listener);
+      }
+    }
+  }
+
+  private void updateMarks(long capacity) {
+    // the marks only trigger an evaluation, so they are widened beyond the float rounding of the occupancy
+    long slack = (capacity >>> 20) + 1;
+    Float above = thresholds.higherKey(occupancy);
+    Float below = thresholds.floorKey(occupancy);
+    risingMark = above == null ? Long.MAX_VALUE : (long) (above * (double) capacity) - slack;
+    fallingMark = below == null ? Long.MIN_VALUE : (long) (below * (double) capacity) + slack;
+  }
+
+  private void scheduleDispatch() {
+    if (crossedListeners.isEmpty()) {
+      // moved the marks without crossing any threshold
+      return;
+    }
+    if (!dispatchScheduled.get() && dispatchScheduled.compareAndSet(false, true)) {
+      try {
+        dispatcher.execute(this::dispatch);
+      } catch (RejectedExecutionException e) {
+        // the provider is closed, there is no one left to notify
+        dispatchScheduled.set(false);
+      }
+    }
+  }
+
+  /**
+   * Delivers the current status of the listeners crossed since the last run: a listener crossed back and forth in the
+   * meantime gets no event.
+   */
+  private void dispatch() {
+    dispatchScheduled.set(false);
+    long used = used();
+    long capacity = this.capacity;
+    long available = capacity - used;
+
+    OffHeapUsageListener listener = crossedListeners.poll();
+    if (listener != null) {
+      OffHeapUsageEvent rising = new OffHeapUsageEventImpl(used, available, capacity, OffHeapUsageEventType.RISING);
+      OffHeapUsageEvent falling = new OffHeapUsageEventImpl(used, available, capacity, OffHeapUsageEventType.FALLING);
+      do {
+        try {
+          listener.deliver(rising, falling);
+        } catch (RuntimeException e) {
+          LOGGER.warn("Usage listener of offheap resource \"{}\" failed", identifier, e);
+        }
+      } while ((listener = crossedListeners.poll()) != null);
+    }
+  }
 
+  /**
+   * Hands the current memory usage to the tripwire monitor, and ends the peak usage window of the statistics.
+   */
+  void sample() {
+    long used = used();
     monitor.sample(capacity - used, used);
+    statistics.endPeakUsageWindow();
+  }
+
+  private void logUsage(OffHeapUsageEvent event, boolean highest, boolean lowest) {
+    if (event.getTotal() == 0) {
+      return;
+    }
+    long percent = (event.getUsed() * 100L) / event.getTotal();
+    if (event.getEventType() == OffHeapUsageEventType.RISING) {
+      if (highest) {
+        LOGGER.warn(MESSAGE_PROPERTIES.getProperty(OFFHEAP_WARN_KEY), identifier, percent);
+      } else {
+        LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, percent);
+      }
+    } else if (lowest) {
+      LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, percent);
+    }
   }
 
   /**
@@ -209,15 +572,17 @@ class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
       throw new IllegalArgumentException("Released size cannot be negative");
     }
 
-    while (true) {
-      OffHeapResourceState currentState = state.get();
-      OffHeapResourceState newState = currentState.release(size);
-
-      if (state.compareAndSet(currentState, newState)) {
-        stateUpdated(currentState, newState);
-        return;
+    statistics.released(size);
+    if (waiting > 0) {
+      grantWaiters(size);
+    } else {
+      remaining.addAndGet(size);
+      // a reservation may have been queued before the size got available
+      if (waiting > 0) {
+        grantWaiters(0);
       }
     }
+    usageChanged();
   }
 
   /**
@@ -225,12 +590,12 @@ class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
    */
   @Override
   public long available() {
-    return state.get().getRemaining();
+    return remaining.get();
   }
 
   @Override
   public long capacity() {
-    return state.get().getCapacity();
+    return capacity;
   }
 
   @Override
@@ -239,85 +604,125 @@ class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
       throw new IllegalArgumentException("New capacity size cannot be negative");
     }
 
-    while (true) {
-      OffHeapResourceState currentState = state.get();
-      OffHeapResourceState newState = currentState.withCapacity(size);
-
-      if (newState.isOverflowed()) {
-        return false;
-      }
-
-      if (state.compareAndSet(currentState, newState)) {
-        onCapacityChanged.onCapacityChanged(this, currentState.getCapacity(), newState.getCapacity());
-        stateUpdated(currentState, newState);
-        return true;
+    long previousCapacity;
+    synchronized (this) {
+      previousCapacity = capacity;
+      capacityVersion++;
+      try {
+        if (size < previousCapacity) {
+          if (!tryReserve(previousCapacity - size)) {
+            return false;
+          }
+        } else {
+          remaining.addAndGet(size - previousCapacity);
+        }
+        capacity = size;
+      } finally {
+        capacityVersion++;
       }
     }
+    onCapacityChanged.onCapacityChanged(this, previousCapacity, size);
+    if (waiting > 0) {
+      grantWaiters(0);
+    }
+    updateListeners();
+    scheduleDispatch();
+    return true;
   }
 
   @Override
   public void addUsageListener(UUID listenerUUID, float threshold, Consumer<OffHeapUsageEvent> consumer) {
     OffHeapUsageListener offHeapUsageListener = new OffHeapUsageListener(threshold, consumer);
-    listenerMap.put(listenerUUID, offHeapUsageListener);
-    // check for rising event if current usage already is above threshold.
-    OffHeapResourceState offHeapResourceState = state.get();
-    long used = offHeapResourceState.used;
-    long capacity = offHeapResourceState.capacity;
-    float occupancy = (used * 1.0f) / capacity;
-    if ((Float.compare(offHeapUsageListener.getThreshold(), occupancy) <= 0)) {
-      OffHeapUsageEvent offHeapUsageEvent = new OffHeapUsageEventImpl(used, offHeapResourceState.getRemaining(), capacity, OffHeapUsageEventType.RISING);
-      offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
-      offHeapUsageListener.setFiringStatus(true);
+    synchronized (this) {
+      OffHeapUsageListener previous = listenerMap.put(listenerUUID, offHeapUsageListener);
+      if (previous != null) {
+        removeFromThresholds(previous);
+      }
+      thresholds.computeIfAbsent(threshold, t -> new ArrayList<>()).add(offHeapUsageListener);
+      // fires a rising event if current usage already is above threshold.
+      if (Float.compare(threshold, occupancy) <= 0) {
+        offHeapUsageListener.setFiringStatus(true);
+        crossedListeners.add(offHeapUsageListener);
+      }
+      updateMarks(capacity);
     }
+    scheduleDispatch();
   }
 
   @Override
-  public void removeUsageListener(UUID listenerUUID) throws IllegalArgumentException {
-    if (listenerMap.remove(listenerUUID) == null) {
+  public synchronized void removeUsageListener(UUID listenerUUID) throws IllegalArgumentException {
+    OffHeapUsageListener removed = listenerMap.remove(listenerUUID);
+    if (removed == null) {
       throw new IllegalArgumentException("Unknown listener: " + listenerUUID);
     }
+    removeFromThresholds(removed);
+    updateMarks(capacity);
   }
 
-  private static class OffHeapResourceState {
-    private final long capacity;
-    private final long used;
-
-    public OffHeapResourceState(long capacity) {
-      this.capacity = capacity;
-      this.used = 0;
-    }
-
-    private OffHeapResourceState(long capacity, long used) {
-      this.capacity = capacity;
-      this.used = used;
+  private void removeFromThresholds(OffHeapUsageListener listener) {
+    List<OffHeapUsageListener> listeners = thresholds.get(listener.getThreshold());
+    listeners.remove(listener);
+    if (listeners.isEmpty()) {
+      thresholds.remove(listener.getThreshold());
     }
+  }
 
-    public long getCapacity() {
-      return capacity;
-    }
+  /**
+   * @return the thresholds the listeners are registered at
+   */
+  synchronized Set<Float> getThresholds() {
+    return new TreeSet<>(thresholds.keySet());
+  }
 
-    public long getUsed() {
-      return used;
+  /**
+   * {@inheritDoc}
+   * @throws IllegalArgumentException {@inheritDoc}
+   */
+  @Override
+  public OffHeapSubAccount createSubAccount(String consumerId, long quota, OffHeapQuotaType quotaType) throws IllegalArgumentException {
+    if (quota < 0) {
+      throw new IllegalArgumentException("Quota cannot be negative");
     }
 
-    public long getRemaining() {
-      return capacity - used;
+    OffHeapSubAccountImpl subAccount = new OffHeapSubAccountImpl(this, consumerId, quota, quotaType);
+    if (subAccounts.putIfAbsent(consumerId, subAccount) != null) {
+      throw new IllegalArgumentException("Consumer " + consumerId + " already has a sub-account of offheap resource " + identifier);
     }
+    onSubAccountsChanged.accept(this);
+    return subAccount;
+  }
 
-    public boolean isOverflowed() {
-      return used > capacity;
-    }
+  @Override
+  public Collection<OffHeapSubAccount> getSubAccounts() {
+    return Collections.unmodifiableCollection(subAccounts.values());
+  }
 
-    public OffHeapResourceState reserve(long size) {
-      return new OffHeapResourceState(capacity, used + size);
+  void removeSubAccount(OffHeapSubAccountImpl subAccount) {
+    if (subAccounts.remove(subAccount.getConsumerId(), subAccount)) {
+      onSubAccountsChanged.accept(this);
     }
+  }
 
-    public OffHeapResourceState release(long size) {
-      return new OffHeapResourceState(capacity, used - size);
+  /**
+   * A reservation waiting for room, which withdraws itself from the queue when cancelled.
+   */
+  private class Waiter extends CompletableFuture<Boolean> {
+    private final long size;
+    private final long since = System.nanoTime();
+    // released size handed to it while at the head of the queue, guarded by the waiters lock
+    private long handedOver;
+
+    Waiter(long size) {
+      this.size = size;
     }
 
-    public OffHeapResourceState withCapacity(long newCapacity) {
-      return new OffHeapResourceState(newCapacity, used);
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        abandon(this);
+      }
+      return cancelled;
     }
   }
 }
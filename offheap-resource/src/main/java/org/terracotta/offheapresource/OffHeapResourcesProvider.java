@@ -38,10 +38,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -54,22 +58,46 @@ import static org.terracotta.offheapresource.OffHeapResourceIdentifier.identifie
 public class OffHeapResourcesProvider implements OffHeapResources, ManageableServerComponent, StateDumpable, AutoCloseable {
   private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapResourcesProvider.class);
   private static final BigInteger MAX_LONG_PLUS_ONE = BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE);
+  private static final long SAMPLING_INTERVAL_MILLIS = 1000;
 
   private final Map<OffHeapResourceIdentifier, OffHeapResourceImpl> resources = new ConcurrentHashMap<>();
   private final Collection<EntityManagementRegistry> registries = new CopyOnWriteArrayList<>();
   private final AtomicLong totalConfiguredOffheap = new AtomicLong(0);
+  // delivers the usage events and samples the memory usage of all the resources, off the reserving threads; the
+  // sampling period is also the window of the peak usage statistic
+  private final ScheduledExecutorService usageEventDispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = Executors.defaultThreadFactory().newThread(r);
+    t.setDaemon(true);
+    t.setName("OffHeapUsageEvents");
+    return t;
+  });
+
+  {
+    usageEventDispatcher.scheduleWithFixedDelay(() -> resources.values().forEach(OffHeapResourceImpl::sample),
+        SAMPLING_INTERVAL_MILLIS, SAMPLING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
 
   public OffHeapResourcesProvider(OffheapResourcesType configuration) {
     for (ResourceType r : configuration.getResource()) {
       long size = longValueExact(convert(r.getValue(), r.getUnit()));
-      addToResources(identifier(r.getName()), size);
+      List<Float> usageThresholds = r.getUsageThresholds();
+      addToResources(identifier(r.getName()), size, usageThresholds == null || usageThresholds.isEmpty() ? OffHeapResourceImpl.DEFAULT_USAGE_THRESHOLDS : usageThresholds);
     }
   }
 
   public OffHeapResourcesProvider(Map<String, Measure<org.terracotta.common.struct.MemoryUnit>> resources) {
+    this(resources, Collections.emptyMap());
+  }
+
+  /**
+   * @param resources sizes of the resources, by name
+   * @param usageThresholds occupancies, between 0 and 1, at which the usage of a resource is notified, by resource
+   *                        name. The resources without thresholds here use 75% and 90%.
+   */
+  public OffHeapResourcesProvider(Map<String, Measure<org.terracotta.common.struct.MemoryUnit>> resources, Map<String, List<Float>> usageThresholds) {
     resources.forEach((name, measure) -> {
       long size = measure.getQuantity(org.terracotta.common.struct.MemoryUnit.B);
-      addToResources(identifier(name), size);
+      addToResources(identifier(name), size, usageThresholds.getOrDefault(name, OffHeapResourceImpl.DEFAULT_USAGE_THRESHOLDS));
     });
   }
 
@@ -85,7 +113,7 @@ public class OffHeapResourcesProvider implements OffHeapResources, ManageableSer
 
   @Override
   public boolean addOffHeapResource(OffHeapResourceIdentifier identifier, long capacityInBytes) {
-    boolean wasAdded = addToResources(identifier, capacityInBytes);
+    boolean wasAdded = addToResources(identifier, capacityInBytes, OffHeapResourceImpl.DEFAULT_USAGE_THRESHOLDS);
     if (wasAdded) {
       for (EntityManagementRegistry registry : registries) {
         OffHeapResourceBinding managementBinding = getOffHeapResource(identifier).getManagementBinding();
@@ -129,6 +157,12 @@ public class OffHeapResourcesProvider implements OffHeapResources, ManageableSer
       StateDumpCollector offHeapDump = dump.subStateDumpCollector(identifier.getName());
       offHeapDump.addState("capacity", String.valueOf(resource.capacity()));
       offHeapDump.addState("available", String.valueOf(resource.available()));
+      for (OffHeapSubAccount subAccount : resource.getSubAccounts()) {
+        StateDumpCollector subAccountDump = offHeapDump.subStateDumpCollector(subAccount.getConsumerId());
+        subAccountDump.addState("used", String.valueOf(subAccount.used()));
+        subAccountDump.addState("quota", String.valueOf(subAccount.quota()));
+        subAccountDump.addState("quotaType", String.valueOf(subAccount.getQuotaType()));
+      }
     }
   }
 
@@ -163,13 +197,14 @@ public class OffHeapResourcesProvider implements OffHeapResources, ManageableSer
     return totalConfiguredOffheap.get();
   }
 
-  private boolean addToResources(OffHeapResourceIdentifier identifier, long capacityInBytes) {
+  private boolean addToResources(OffHeapResourceIdentifier identifier, long capacityInBytes, Collection<Float> usageThresholds) {
     AtomicBoolean status = new AtomicBoolean();
     resources.computeIfAbsent(identifier, (id) -> {
       status.compareAndSet(false, true);
       OffHeapResourceImpl offHeapResource = new OffHeapResourceImpl(
           identifier.getName(),
           capacityInBytes,
+          usageThresholds,
           (event) -> {
             for (EntityManagementRegistry registry : registries) {
               Map<String, String> attrs = new HashMap<>();
@@ -189,7 +224,15 @@ public class OffHeapResourcesProvider implements OffHeapResources, ManageableSer
               registry.refresh();
               registry.pushServerEntityNotification(res.getManagementBinding(), "OFFHEAP_RESOURCE_CAPACITY_CHANGED", attrs);
             }
-          }
+          },
+          (res) -> {
+            // the statistics of the sub-accounts are exposed with the ones of the resource, which get registered again
+            for (EntityManagementRegistry registry : registries) {
+              registry.unregister(res.getManagementBinding());
+              registry.registerAndRefresh(res.getManagementBinding());
+            }
+          },
+          usageEventDispatcher
       );
       Map<String, Object> properties = new HashMap<>();
       properties.put("discriminator", "OffHeapResource");
@@ -217,6 +260,7 @@ public class OffHeapResourcesProvider implements OffHeapResources, ManageableSer
   @Override
   public void close() {
     this.resources.values().forEach(OffHeapResourceImpl::close);
+    usageEventDispatcher.shutdown();
   }
 
   private void warnIfOffheapExceedsPhysicalMemory(long totalConfiguredOffheap) {
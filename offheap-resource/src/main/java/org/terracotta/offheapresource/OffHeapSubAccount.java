@@ -0,0 +1,77 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.offheapresource;
+
+import com.tc.classloader.CommonComponent;
+
+/**
+ * The share of an {@link OffHeapResource} reserved by one of its consumers.
+ * <p>
+ * Reservations are accounted both here, against the quota of the consumer, and in the resource, against its capacity.
+ * Like for the resource, they perform no allocation.
+ */
+@CommonComponent
+public interface OffHeapSubAccount extends AutoCloseable {
+
+  /**
+   * Quota of an account whose reservations are only bound by the capacity of the resource.
+   */
+  long UNLIMITED = Long.MAX_VALUE;
+
+  /**
+   * @return the identifier of the consumer owning this account
+   */
+  String getConsumerId();
+
+  /**
+   * Reserves the given amount of the resource for this consumer.
+   *
+   * @param size reservation size
+   * @return {@code true} if the reservation succeeded, {@code false} if the resource has not enough room left, or if
+   * it would exceed the hard quota of this account
+   * @throws IllegalArgumentException if the reservation size is negative
+   * @throws IllegalStateException if this account is closed
+   */
+  boolean reserve(long size) throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * Releases the given amount of this consumer reservations back to the resource.
+   *
+   * @param size release size
+   * @throws IllegalArgumentException if the release size is negative, or more than what this account reserved
+   * @throws IllegalStateException if this account is closed
+   */
+  void release(long size) throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * @return the size currently reserved by this consumer
+   */
+  long used();
+
+  /**
+   * @return the quota of this account, {@link #UNLIMITED} if it has none
+   */
+  long quota();
+
+  OffHeapQuotaType getQuotaType();
+
+  /**
+   * Releases what this consumer still has reserved, and removes this account from its resource.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.offheapresource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An implementation of {@link OffHeapSubAccount}.
+ * <p>
+ * The used size is accounted with its own {@code AtomicLong}, after the reservation succeeded in the parent resource,
+ * so that the used sizes of the accounts never add up to more than what the resource has reserved. Closing the account
+ * swaps that counter for a sentinel value, which the reservations racing with it detect.
+ */
+class OffHeapSubAccountImpl implements OffHeapSubAccount {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapSubAccountImpl.class);
+
+  private static final long CLOSED = Long.MIN_VALUE;
+
+  private final OffHeapResourceImpl parent;
+  private final String consumerId;
+  private final long quota;
+  private final OffHeapQuotaType quotaType;
+  private final AtomicLong used = new AtomicLong();
+
+  OffHeapSubAccountImpl(OffHeapResourceImpl parent, String consumerId, long quota, OffHeapQuotaType quotaType) {
+    this.parent = parent;
+    this.consumerId = consumerId;
+    this.quota = quota;
+    this.quotaType = quotaType;
+  }
+
+  @Override
+  public String getConsumerId() {
+    return consumerId;
+  }
+
+  /**
+   * {@inheritDoc}
+   * @throws IllegalArgumentException {@inheritDoc}
+   * @throws IllegalStateException {@inheritDoc}
+   */
+  @Override
+  public boolean reserve(long size) throws IllegalArgumentException, IllegalStateException {
+    if (size < 0) {
+      throw new IllegalArgumentException("Reservation size cannot be negative");
+    }
+
+    long current = checkOpen(used.get());
+    if (quotaType == OffHeapQuotaType.HARD && current > quota - size) {
+      return false;
+    }
+    if (!parent.reserve(size)) {
+      return false;
+    }
+    while (true) {
+      if (current == CLOSED) {
+        parent.release(size);
+        throw closed();
+      }
+      if (quotaType == OffHeapQuotaType.HARD && current > quota - size) {
+        parent.release(size);
+        return false;
+      }
+      if (used.compareAndSet(current, current + size)) {
+        break;
+      }
+      current = used.get();
+    }
+    if (quotaType == OffHeapQuotaType.SOFT && current <= quota && current > quota - size) {
+      LOGGER.warn("Consumer \"{}\" of offheap resource \"{}\" reserved {} bytes, beyond its quota of {} bytes", consumerId, parent.getIdentifier(), current + size, quota);
+    }
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   * @throws IllegalArgumentException {@inheritDoc}
+   * @throws IllegalStateException {@inheritDoc}
+   */
+  @Override
+  public void release(long size) throws IllegalArgumentException, IllegalStateException {
+    if (size < 0) {
+      throw new IllegalArgumentException("Released size cannot be negative");
+    }
+
+    while (true) {
+      long current = checkOpen(used.get());
+      if (current - size < 0) {
+        // the rest of the parent's reservations belong to other consumers
+        throw new IllegalArgumentException("Consumer \"" + consumerId + "\" cannot release " + size + " bytes, it only reserved " + current);
+      }
+      if (used.compareAndSet(current, current - size)) {
+        break;
+      }
+    }
+    parent.release(size);
+  }
+
+  @Override
+  public long used() {
+    return Math.max(used.get(), 0L);
+  }
+
+  @Override
+  public long quota() {
+    return quota;
+  }
+
+  @Override
+  public OffHeapQuotaType getQuotaType() {
+    return quotaType;
+  }
+
+  @Override
+  public void close() {
+    long held = used.getAndSet(CLOSED);
+    if (held != CLOSED) {
+      parent.removeSubAccount(this);
+      if (held > 0) {
+        parent.release(held);
+      }
+    }
+  }
+
+  private long checkOpen(long current) {
+    if (current == CLOSED) {
+      throw closed();
+    }
+    return current;
+  }
+
+  private IllegalStateException closed() {
+    return new IllegalStateException("Sub-account of consumer \"" + consumerId + "\" is closed");
+  }
+}
@@ -22,6 +22,8 @@ public class OffHeapUsageListener {
   private final float threshold;
   private final Consumer<OffHeapUsageEvent> consumer;
   private volatile boolean isFired = false;
+  // firing status the consumer was last notified of
+  private boolean delivered = false;
 
   public OffHeapUsageListener(float threshold, Consumer<OffHeapUsageEvent> consumer) {
     this.threshold = threshold;
@@ -43,4 +45,15 @@ public class OffHeapUsageListener {
   public void setFiringStatus(boolean status) {
     isFired = status;
   }
+
+  /**
+   * Sends the event matching the firing status, unless it is the one the consumer got last.
+   */
+  synchronized void deliver(OffHeapUsageEvent rising, OffHeapUsageEvent falling) {
+    boolean fired = isFired;
+    if (fired != delivered) {
+      delivered = fired;
+      consumer.accept(fired ? rising : falling);
+    }
+  }
 }
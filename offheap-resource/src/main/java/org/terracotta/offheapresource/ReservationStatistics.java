@@ -0,0 +1,183 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.offheapresource;
+
+import com.tc.classloader.CommonComponent;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Activity of an {@link OffHeapResource}, cheap enough to be maintained on every reservation: the counters are striped
+ * per thread, each stripe being only written by its thread without atomic instructions, and the latency is only
+ * measured for one reservation in {@value #LATENCY_SAMPLING}.
+ * <p>
+ * The counters only ever grow, rates are the difference between two collections over the time between them. The
+ * stripes of the threads that are gone are kept, so that the counters do not go backwards.
+ * <p>
+ * The peak usage is tracked per window, which the owner of the resource ends periodically: reading it changes nothing,
+ * so that every collector gets the peak of the same window.
+ */
+@CommonComponent
+public final class ReservationStatistics {
+
+  static final int LATENCY_SAMPLING = 64;
+
+  private final Queue<Counters> stripes = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<Counters> counters = ThreadLocal.withInitial(() -> {
+    Counters stripe = new Counters();
+    stripes.add(stripe);
+    return stripe;
+  });
+  private final AtomicLong peakUsage = new AtomicLong();
+  private volatile long windowPeakUsage;
+  private final LatencyHistogram reservationLatency = new LatencyHistogram();
+  private final LatencyHistogram waitTimes = new LatencyHistogram();
+  private final IntSupplier waitQueueLength;
+  private final LongSupplier usage;
+
+  /**
+   * @param waitQueueLength number of reservations currently waiting for room in the resource
+   * @param usage size currently reserved in the resource
+   */
+  public ReservationStatistics(IntSupplier waitQueueLength, LongSupplier usage) {
+    this.waitQueueLength = waitQueueLength;
+    this.usage = usage;
+  }
+
+  void reserved(long size) {
+    Counters stripe = counters.get();
+    Counters.RESERVATIONS.lazySet(stripe, stripe.reservations + 1);
+    Counters.RESERVED_BYTES.lazySet(stripe, stripe.reservedBytes + size);
+  }
+
+  void failed() {
+    Counters stripe = counters.get();
+    Counters.FAILED_RESERVATIONS.lazySet(stripe, stripe.failedReservations + 1);
+  }
+
+  void released(long size) {
+    Counters stripe = counters.get();
+    Counters.RELEASES.lazySet(stripe, stripe.releases + 1);
+    Counters.RELEASED_BYTES.lazySet(stripe, stripe.releasedBytes + size);
+  }
+
+  void usageChanged(long used) {
+    long peak;
+    while (used > (peak = peakUsage.get()) && !peakUsage.compareAndSet(peak, used)) {
+      // retry
+    }
+  }
+
+  /**
+   * Ends the current peak usage window, the next one starting from the current usage.
+   */
+  void endPeakUsageWindow() {
+    windowPeakUsage = Math.max(peakUsage.getAndSet(usage.getAsLong()), 0L);
+  }
+
+  static boolean sampleLatency() {
+    return ThreadLocalRandom.current().nextInt(LATENCY_SAMPLING) == 0;
+  }
+
+  public long getReservations() {
+    long sum = 0;
+    for (Counters stripe : stripes) {
+      sum += stripe.reservations;
+    }
+    return sum;
+  }
+
+  public long getReservedBytes() {
+    long sum = 0;
+    for (Counters stripe : stripes) {
+      sum += stripe.reservedBytes;
+    }
+    return sum;
+  }
+
+  /**
+   * @return the number of reservations that failed for lack of room, or gave up waiting for it
+   */
+  public long getFailedReservations() {
+    long sum = 0;
+    for (Counters stripe : stripes) {
+      sum += stripe.failedReservations;
+    }
+    return sum;
+  }
+
+  public long getReleases() {
+    long sum = 0;
+    for (Counters stripe : stripes) {
+      sum += stripe.releases;
+    }
+    return sum;
+  }
+
+  public long getReleasedBytes() {
+    long sum = 0;
+    for (Counters stripe : stripes) {
+      sum += stripe.releasedBytes;
+    }
+    return sum;
+  }
+
+  /**
+   * @return the highest usage during the last ended window, {@code 0} until one ends
+   */
+  public long getPeakUsage() {
+    return windowPeakUsage;
+  }
+
+  /**
+   * @return the sampled latencies of the reservations that did not wait
+   */
+  public LatencyHistogram getReservationLatency() {
+    return reservationLatency;
+  }
+
+  /**
+   * @return the time the reservations spent waiting for room
+   */
+  public LatencyHistogram getWaitTimes() {
+    return waitTimes;
+  }
+
+  public int getWaitQueueLength() {
+    return waitQueueLength.getAsInt();
+  }
+
+  private static final class Counters {
+    static final AtomicLongFieldUpdater<Counters> RESERVATIONS = AtomicLongFieldUpdater.newUpdater(Counters.class, "reservations");
+    static final AtomicLongFieldUpdater<Counters> RESERVED_BYTES = AtomicLongFieldUpdater.newUpdater(Counters.class, "reservedBytes");
+    static final AtomicLongFieldUpdater<Counters> FAILED_RESERVATIONS = AtomicLongFieldUpdater.newUpdater(Counters.class, "failedReservations");
+    static final AtomicLongFieldUpdater<Counters> RELEASES = AtomicLongFieldUpdater.newUpdater(Counters.class, "releases");
+    static final AtomicLongFieldUpdater<Counters> RELEASED_BYTES = AtomicLongFieldUpdater.newUpdater(Counters.class, "releasedBytes");
+
+    volatile long reservations;
+    volatile long reservedBytes;
+    volatile long failedReservations;
+    volatile long releases;
+    volatile long releasedBytes;
+  }
+}
@@ -18,11 +18,19 @@ package org.terracotta.offheapresource.management;
 
 import org.terracotta.management.service.monitoring.registry.provider.AliasBinding;
 import org.terracotta.offheapresource.OffHeapResource;
+import org.terracotta.offheapresource.ReservationStatistics;
 
 public class OffHeapResourceBinding extends AliasBinding {
 
+  private final ReservationStatistics reservationStatistics;
+
   public OffHeapResourceBinding(String identifier, OffHeapResource offHeapResource) {
+    this(identifier, offHeapResource, new ReservationStatistics(() -> 0, () -> offHeapResource.capacity() - offHeapResource.available()));
+  }
+
+  public OffHeapResourceBinding(String identifier, OffHeapResource offHeapResource, ReservationStatistics reservationStatistics) {
     super(identifier, offHeapResource);
+    this.reservationStatistics = reservationStatistics;
   }
 
   @Override
@@ -30,4 +38,8 @@ public class OffHeapResourceBinding extends AliasBinding {
     return (OffHeapResource) super.getValue();
   }
 
+  public ReservationStatistics getReservationStatistics() {
+    return reservationStatistics;
+  }
+
 }
@@ -23,7 +23,13 @@ import org.terracotta.management.registry.collect.StatisticProvider;
 import org.terracotta.management.model.stats.StatisticRegistry;
 import org.terracotta.management.service.monitoring.registry.provider.AbstractExposedStatistics;
 import org.terracotta.management.service.monitoring.registry.provider.AbstractStatisticsManagementProvider;
+import org.terracotta.offheapresource.OffHeapSubAccount;
+import org.terracotta.offheapresource.LatencyHistogram;
+import org.terracotta.offheapresource.ReservationStatistics;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.terracotta.statistics.ValueStatistics.counter;
+import static org.terracotta.statistics.ValueStatistics.gauge;
 import static org.terracotta.statistics.registry.ValueStatisticDescriptor.descriptor;
 
 @Named("OffHeapResourceStatistics")
@@ -45,6 +51,31 @@ public class OffHeapResourceStatisticsManagementProvider extends AbstractStatist
       super(context.with("type", "OffHeapResource"), binding, statisticRegistry);
 
       getStatisticRegistry().registerStatistic("AllocatedMemory", descriptor("allocatedMemory", "tier", "OffHeapResource"));
+      // counters, the allocation rates being their difference between two collections
+      ReservationStatistics statistics = binding.getReservationStatistics();
+      getStatisticRegistry().registerStatistic("ReservationCount", counter(statistics::getReservations));
+      getStatisticRegistry().registerStatistic("ReservedBytes", counter(statistics::getReservedBytes));
+      getStatisticRegistry().registerStatistic("FailedReservationCount", counter(statistics::getFailedReservations));
+      getStatisticRegistry().registerStatistic("ReleaseCount", counter(statistics::getReleases));
+      getStatisticRegistry().registerStatistic("ReleasedBytes", counter(statistics::getReleasedBytes));
+      getStatisticRegistry().registerStatistic("PeakAllocatedMemory", gauge(statistics::getPeakUsage));
+      LatencyHistogram latency = statistics.getReservationLatency();
+      getStatisticRegistry().registerStatistic("ReservationLatencyP50", gauge(() -> latency.percentile(50, NANOSECONDS)));
+      getStatisticRegistry().registerStatistic("ReservationLatencyP99", gauge(() -> latency.percentile(99, NANOSECONDS)));
+      getStatisticRegistry().registerStatistic("ReservationLatencyMax", gauge(() -> latency.max(NANOSECONDS)));
+      // a long queue with short waits is memory pressure, waits that keep growing with the usage flat suggest a leak
+      LatencyHistogram waitTimes = statistics.getWaitTimes();
+      getStatisticRegistry().registerStatistic("ReservationWaitQueueLength", gauge(statistics::getWaitQueueLength));
+      getStatisticRegistry().registerStatistic("ReservationWaitCount", counter(waitTimes::count));
+      getStatisticRegistry().registerStatistic("ReservationWaitTimeP50", gauge(() -> waitTimes.percentile(50, NANOSECONDS)));
+      getStatisticRegistry().registerStatistic("ReservationWaitTimeP99", gauge(() -> waitTimes.percentile(99, NANOSECONDS)));
+      getStatisticRegistry().registerStatistic("ReservationWaitTimeMax", gauge(() -> waitTimes.max(NANOSECONDS)));
+      // the resource binding is registered again when its sub-accounts change
+      for (OffHeapSubAccount subAccount : binding.getValue().getSubAccounts()) {
+        String prefix = "SubAccount:" + subAccount.getConsumerId() + ":";
+        getStatisticRegistry().registerStatistic(prefix + "AllocatedMemory", gauge(subAccount::used));
+        getStatisticRegistry().registerStatistic(prefix + "Quota", gauge(subAccount::quota));
+      }
     }
   }
 
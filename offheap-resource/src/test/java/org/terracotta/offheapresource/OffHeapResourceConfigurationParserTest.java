@@ -29,7 +29,9 @@ import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.SchemaFactory;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.TreeSet;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -69,6 +71,16 @@ public class OffHeapResourceConfigurationParserTest {
     assertThat(config.getOffHeapResource(identifier("secondary")).available(), is(longValueExact(convert(BigInteger.valueOf(1024L), MemoryUnit.MB))));
   }
 
+  @Test
+  public void testUsageThresholdsParse() throws Exception {
+    Document dom = domBuilderFactory.newDocumentBuilder().parse(getClass().getResourceAsStream("/configs/usage-thresholds.xml"));
+
+    OffHeapResourcesProvider config = parser.parse(dom.getDocumentElement(), "what is this thing?");
+
+    assertThat(config.getOffHeapResource(identifier("primary")).getThresholds(), is(new TreeSet<>(OffHeapResourceImpl.DEFAULT_USAGE_THRESHOLDS)));
+    assertThat(config.getOffHeapResource(identifier("secondary")).getThresholds(), is(new TreeSet<>(Arrays.asList(0.5f, 0.8f, 0.95f))));
+  }
+
   @Test
   public void testNoResources() throws Exception {
     Document dom = domBuilderFactory.newDocumentBuilder().parse(getClass().getResourceAsStream("/configs/no-resources.xml"));
@@ -21,6 +21,20 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -115,6 +129,93 @@ public class OffHeapResourceTest {
     offHeapResource.reserve(1); // Does print a warn log statement
   }
 
+  @Test
+  public void testThresholdEventsOnlyFiredWhenCrossed() {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L);
+    List<OffHeapUsageEvent> events = new ArrayList<>();
+    ohr.addUsageListener(UUID.randomUUID(), 0.5f, events::add);
+
+    ohr.reserve(49);
+    assertThat(events.isEmpty(), is(true));
+    ohr.reserve(1);
+    ohr.reserve(10);
+    assertThat(events.size(), is(1));
+    assertThat(events.get(0).getEventType(), is(OffHeapUsageEventType.RISING));
+    assertThat(events.get(0).getUsed(), is(50L));
+
+    ohr.release(10);
+    assertThat(events.size(), is(1));
+    ohr.release(1);
+    assertThat(events.size(), is(2));
+    assertThat(events.get(1).getEventType(), is(OffHeapUsageEventType.FALLING));
+
+    // shrinking the capacity crosses the threshold too
+    assertThat(ohr.setCapacity(90L), is(true));
+    assertThat(events.size(), is(3));
+    assertThat(events.get(2).getEventType(), is(OffHeapUsageEventType.RISING));
+  }
+
+  @Test
+  public void testDispatchOnlyScheduledWhenThresholdCrossed() {
+    AtomicInteger dispatches = new AtomicInteger();
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L, Arrays.asList(0.5f), e -> {}, (r, o, n) -> {}, r -> {},
+        task -> {
+          dispatches.incrementAndGet();
+          task.run();
+        });
+
+    for (int i = 0; i < 10; i++) {
+      ohr.reserve(4);
+      ohr.release(4);
+    }
+    assertThat(dispatches.get(), is(0));
+
+    ohr.reserve(50);
+    assertThat(dispatches.get(), is(1));
+    ohr.release(50);
+    assertThat(dispatches.get(), is(2));
+  }
+
+  @Test
+  public void testConcurrentReservationsAreExact() throws Exception {
+    int threads = 8;
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, threads * 10L);
+    AtomicInteger risingEvents = new AtomicInteger();
+    AtomicInteger fallingEvents = new AtomicInteger();
+    ohr.addUsageListener(UUID.randomUUID(), 0.5f, event -> {
+      if (event.getEventType() == OffHeapUsageEventType.RISING) {
+        risingEvents.incrementAndGet();
+      } else {
+        fallingEvents.incrementAndGet();
+      }
+    });
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          barrier.await();
+          for (int j = 0; j < 10_000; j++) {
+            // never fails: each thread reserves at most its share of the capacity
+            assertThat(ohr.reserve(10), is(true));
+            ohr.release(10);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(ohr.available(), is(threads * 10L));
+    // every rising event is eventually followed by a falling one
+    assertThat(risingEvents.get(), is(fallingEvents.get()));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testSetCapacityNegative() {
     OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 20L, onThresholdChange, onCapacityChange);
@@ -161,4 +262,368 @@ public class OffHeapResourceTest {
     assertThat(ohr.available(), is(6L));
     verifyNoMoreInteractions(onCapacityChange);
   }
+
+  @Test
+  public void testSubAccountsRollUpIntoResource() {
+    OffHeapResource ohr = new OffHeapResourceImpl(identifier, 100L);
+    OffHeapSubAccount first = ohr.createSubAccount("first", 60L);
+    OffHeapSubAccount second = ohr.createSubAccount("second", OffHeapSubAccount.UNLIMITED);
+
+    assertThat(first.reserve(40L), is(true));
+    assertThat(second.reserve(50L), is(true));
+    assertThat(first.used(), is(40L));
+    assertThat(second.used(), is(50L));
+    assertThat(ohr.available(), is(10L));
+
+    // within its quota, but beyond what the resource has left
+    assertThat(first.reserve(15L), is(false));
+    assertThat(first.used(), is(40L));
+    assertThat(ohr.available(), is(10L));
+
+    second.release(50L);
+    assertThat(second.used(), is(0L));
+    assertThat(ohr.available(), is(60L));
+  }
+
+  @Test
+  public void testHardQuota() {
+    OffHeapResource ohr = new OffHeapResourceImpl(identifier, 100L);
+    OffHeapSubAccount subAccount = ohr.createSubAccount("consumer", 30L);
+
+    assertThat(subAccount.reserve(20L), is(true));
+    assertThat(subAccount.reserve(11L), is(false));
+    assertThat(subAccount.reserve(10L), is(true));
+    assertThat(subAccount.used(), is(30L));
+    assertThat(ohr.available(), is(70L));
+  }
+
+  @Test
+  public void testSoftQuota() {
+    OffHeapResource ohr = new OffHeapResourceImpl(identifier, 100L);
+    OffHeapSubAccount subAccount = ohr.createSubAccount("consumer", 30L, OffHeapQuotaType.SOFT);
+
+    assertThat(subAccount.reserve(50L), is(true));
+    assertThat(subAccount.used(), is(50L));
+    assertThat(subAccount.reserve(51L), is(false));
+    assertThat(ohr.available(), is(50L));
+  }
+
+  @Test
+  public void testSubAccountCannotReleaseMoreThanItReserved() {
+    OffHeapResource ohr = new OffHeapResourceImpl(identifier, 100L);
+    OffHeapSubAccount subAccount = ohr.createSubAccount("consumer", 30L);
+    OffHeapSubAccount other = ohr.createSubAccount("other", 30L);
+    subAccount.reserve(10L);
+    other.reserve(20L);
+
+    try {
+      subAccount.release(11L);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+    assertThat(subAccount.used(), is(10L));
+    assertThat(ohr.available(), is(70L));
+  }
+
+  @Test
+  public void testClosingSubAccountReleasesItsReservations() {
+    OffHeapResource ohr = new OffHeapResourceImpl(identifier, 100L);
+    OffHeapSubAccount subAccount = ohr.createSubAccount("consumer", 30L);
+    subAccount.reserve(20L);
+    assertThat(ohr.getSubAccounts().size(), is(1));
+
+    subAccount.close();
+    assertThat(ohr.available(), is(100L));
+    assertThat(ohr.getSubAccounts().isEmpty(), is(true));
+    try {
+      subAccount.reserve(1L);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      //expected
+    }
+    // the consumer can start over
+    assertThat(ohr.createSubAccount("consumer", 30L).reserve(30L), is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateSubAccount() {
+    OffHeapResource ohr = new OffHeapResourceImpl(identifier, 100L);
+    ohr.createSubAccount("consumer", 30L);
+    ohr.createSubAccount("consumer", 40L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeQuota() {
+    new OffHeapResourceImpl(identifier, 100L).createSubAccount("consumer", -1L);
+  }
+
+  @Test
+  public void testConcurrentSubAccountReservationsAreExact() throws Exception {
+    OffHeapResource ohr = new OffHeapResourceImpl(identifier, 1000L);
+    int threads = 4;
+    List<OffHeapSubAccount> subAccounts = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      subAccounts.add(ohr.createSubAccount("consumer-" + i, 100L));
+    }
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (OffHeapSubAccount subAccount : subAccounts) {
+        futures.add(executor.submit(() -> {
+          barrier.await();
+          int reserved = 0;
+          for (int j = 0; j < 10_000; j++) {
+            if (subAccount.reserve(7L)) {
+              reserved++;
+            }
+            if (j % 3 == 0 && reserved > 0) {
+              subAccount.release(7L);
+              reserved--;
+            }
+          }
+          return reserved;
+        }));
+      }
+      long total = 0;
+      for (int i = 0; i < threads; i++) {
+        int reserved = futures.get(i).get(30, TimeUnit.SECONDS);
+        assertThat(subAccounts.get(i).used(), is(reserved * 7L));
+        total += reserved * 7L;
+      }
+      assertThat(ohr.available(), is(1000L - total));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testTimedReserveTimesOut() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 20L);
+    assertThat(ohr.reserve(15L), is(true));
+
+    long start = System.nanoTime();
+    assertThat(ohr.reserve(10L, 50, TimeUnit.MILLISECONDS), is(false));
+    assertThat(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), is(true));
+    assertThat(ohr.available(), is(5L));
+    assertThat(ohr.getManagementBinding().getReservationStatistics().getWaitQueueLength(), is(0));
+    assertThat(ohr.getManagementBinding().getReservationStatistics().getWaitTimes().count(), is(1L));
+  }
+
+  @Test
+  public void testTimedReserveGrantedByRelease() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 20L);
+    assertThat(ohr.reserve(15L), is(true));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Boolean> reserved = executor.submit(() -> ohr.reserve(10L, 30, TimeUnit.SECONDS));
+      while (ohr.getManagementBinding().getReservationStatistics().getWaitQueueLength() == 0) {
+        Thread.sleep(1);
+      }
+      ohr.release(15L);
+      assertThat(reserved.get(30, TimeUnit.SECONDS), is(true));
+      assertThat(ohr.available(), is(10L));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testAsyncReservationsGrantedInArrivalOrder() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L);
+    assertThat(ohr.reserve(100L), is(true));
+    List<Integer> order = new ArrayList<>();
+    CompletableFuture<Boolean> big = ohr.reserveAsync(60L).toCompletableFuture();
+    big.thenRun(() -> order.add(1));
+    CompletableFuture<Boolean> small = ohr.reserveAsync(10L).toCompletableFuture();
+    small.thenRun(() -> order.add(2));
+
+    // the small one would fit, but does not get ahead of the big one, which keeps what was released
+    ohr.release(30L);
+    assertThat(big.isDone(), is(false));
+    assertThat(small.isDone(), is(false));
+    assertThat(ohr.available(), is(0L));
+
+    ohr.release(40L);
+    assertThat(big.get(), is(true));
+    assertThat(small.get(), is(true));
+    assertThat(order, is(Arrays.asList(1, 2)));
+    assertThat(ohr.available(), is(0L));
+    assertThat(ohr.getManagementBinding().getReservationStatistics().getWaitTimes().count(), is(2L));
+  }
+
+  @Test
+  public void testReleasedSizeHandedToWaitingReservation() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L);
+    assertThat(ohr.reserve(90L), is(true));
+    CompletableFuture<Boolean> waiting = ohr.reserveAsync(50L).toCompletableFuture();
+
+    ohr.release(30L);
+    // what was available before stays available, what got released does not
+    assertThat(ohr.available(), is(10L));
+    assertThat(ohr.reserve(20L), is(false));
+    assertThat(ohr.reserve(10L), is(true));
+
+    ohr.release(30L);
+    assertThat(waiting.get(), is(true));
+    assertThat(ohr.available(), is(10L));
+  }
+
+  @Test
+  public void testCancelledReservationGivesBackWhatItWasHanded() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L);
+    assertThat(ohr.reserve(100L), is(true));
+    CompletableFuture<Boolean> big = ohr.reserveAsync(60L).toCompletableFuture();
+    CompletableFuture<Boolean> small = ohr.reserveAsync(10L).toCompletableFuture();
+    ohr.release(30L);
+    assertThat(ohr.available(), is(0L));
+
+    big.cancel(false);
+    assertThat(small.get(), is(true));
+    assertThat(ohr.available(), is(20L));
+  }
+
+  @Test
+  public void testWaitingReservationNotStarvedByNonBlockingOnes() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L);
+    assertThat(ohr.reserve(100L), is(true));
+    CompletableFuture<Boolean> waiting = ohr.reserveAsync(50L).toCompletableFuture();
+    AtomicBoolean stop = new AtomicBoolean();
+    AtomicLong taken = new AtomicLong();
+    // a storage engine grabbing every page it can
+    Thread engine = new Thread(() -> {
+      while (!stop.get()) {
+        if (ohr.reserve(10L)) {
+          taken.addAndGet(10L);
+        }
+      }
+    });
+    engine.start();
+    try {
+      for (int i = 0; i < 5; i++) {
+        ohr.release(10L);
+        Thread.sleep(10);
+      }
+      assertThat(waiting.get(5, TimeUnit.SECONDS), is(true));
+    } finally {
+      stop.set(true);
+      engine.join();
+    }
+    assertThat(taken.get(), is(0L));
+    assertThat(ohr.available(), is(0L));
+  }
+
+  @Test
+  public void testCancelledAsyncReservationLetsOthersIn() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L);
+    assertThat(ohr.reserve(80L), is(true));
+    CompletableFuture<Boolean> big = ohr.reserveAsync(60L).toCompletableFuture();
+    CompletableFuture<Boolean> small = ohr.reserveAsync(10L).toCompletableFuture();
+    assertThat(small.isDone(), is(false));
+
+    big.cancel(false);
+    assertThat(small.get(), is(true));
+    assertThat(ohr.available(), is(10L));
+    assertThat(ohr.getManagementBinding().getReservationStatistics().getWaitQueueLength(), is(0));
+  }
+
+  @Test
+  public void testAsyncReservationFailsWhenItCannotFit() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L);
+    assertThat(ohr.reserveAsync(101L).toCompletableFuture().get(), is(false));
+
+    assertThat(ohr.reserve(50L), is(true));
+    CompletableFuture<Boolean> waiting = ohr.reserveAsync(60L).toCompletableFuture();
+    assertThat(ohr.setCapacity(60L), is(true));
+    assertThat(waiting.isDone(), is(false));
+    // the waiting reservation no longer fits in the capacity
+    assertThat(ohr.setCapacity(55L), is(true));
+    assertThat(waiting.get(), is(false));
+    assertThat(ohr.available(), is(5L));
+  }
+
+  @Test
+  public void testClosingFailsWaitingReservations() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 10L);
+    ohr.reserve(10L);
+    CompletableFuture<Boolean> waiting = ohr.reserveAsync(5L).toCompletableFuture();
+    ohr.close();
+    assertThat(waiting.get(), is(false));
+  }
+
+  @Test
+  public void testInterruptedReserveReservesNothing() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 10L);
+    ohr.reserve(10L);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    Thread thread = new Thread(() -> {
+      try {
+        ohr.reserve(5L, 30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+    });
+    thread.start();
+    while (ohr.getManagementBinding().getReservationStatistics().getWaitQueueLength() == 0) {
+      Thread.sleep(1);
+    }
+    thread.interrupt();
+    assertThat(interrupted.await(30, TimeUnit.SECONDS), is(true));
+    assertThat(ohr.getManagementBinding().getReservationStatistics().getWaitQueueLength(), is(0));
+    ohr.release(10L);
+    assertThat(ohr.available(), is(10L));
+  }
+
+  @Test
+  public void testReservationStatistics() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L);
+    ReservationStatistics statistics = ohr.getManagementBinding().getReservationStatistics();
+
+    assertThat(ohr.reserve(60L), is(true));
+    assertThat(ohr.reserve(30L), is(true));
+    assertThat(ohr.reserve(20L), is(false));
+    ohr.release(50L);
+    assertThat(ohr.reserve(10L, 1, TimeUnit.MILLISECONDS), is(true));
+
+    assertThat(statistics.getReservations(), is(3L));
+    assertThat(statistics.getReservedBytes(), is(100L));
+    assertThat(statistics.getFailedReservations(), is(1L));
+    assertThat(statistics.getReleases(), is(1L));
+    assertThat(statistics.getReleasedBytes(), is(50L));
+    assertThat(statistics.getPeakUsage(), is(0L));
+    statistics.endPeakUsageWindow();
+    assertThat(statistics.getPeakUsage(), is(90L));
+    // reading does not end the window
+    assertThat(statistics.getPeakUsage(), is(90L));
+    // the next window starts over from the current usage
+    statistics.endPeakUsageWindow();
+    assertThat(statistics.getPeakUsage(), is(50L));
+  }
+
+  @Test
+  public void testReleasedBytesDoNotDependOnCapacity() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L);
+    ReservationStatistics statistics = ohr.getManagementBinding().getReservationStatistics();
+
+    assertThat(ohr.reserve(40L), is(true));
+    ohr.release(30L);
+    assertThat(ohr.setCapacity(50L), is(true));
+    ohr.release(10L);
+
+    assertThat(statistics.getReleasedBytes(), is(40L));
+    statistics.endPeakUsageWindow();
+    // the capacity reserved by the shrink is not usage
+    assertThat(statistics.getPeakUsage(), is(40L));
+  }
+
+  @Test
+  public void testReservationLatencySampled() {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, Long.MAX_VALUE);
+    for (int i = 0; i < 100 * ReservationStatistics.LATENCY_SAMPLING; i++) {
+      ohr.reserve(1L);
+    }
+    long sampled = ohr.getManagementBinding().getReservationStatistics().getReservationLatency().count();
+    assertThat(sampled > 0 && sampled < 100 * ReservationStatistics.LATENCY_SAMPLING, is(true));
+  }
 }
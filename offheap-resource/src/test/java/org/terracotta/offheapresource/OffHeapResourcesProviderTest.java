@@ -28,6 +28,11 @@ import org.terracotta.statistics.StatisticsManager;
 import org.terracotta.statistics.ValueStatistic;
 
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
@@ -43,6 +48,7 @@ import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.terracotta.offheapresource.OffHeapResourceIdentifier.identifier;
@@ -86,6 +92,36 @@ public class OffHeapResourcesProviderTest {
     assertThat(provider.getOffHeapResource(identifier("foo")).available(), is(2L * 1024 * 1024));
   }
 
+  @Test
+  public void testConfiguredUsageThresholds() {
+    when(resourceConfig.getName()).thenReturn("foo");
+    when(resourceConfig.getUnit()).thenReturn(MemoryUnit.MB);
+    when(resourceConfig.getValue()).thenReturn(BigInteger.valueOf(2));
+    when(resourceConfig.getUsageThresholds()).thenReturn(Arrays.asList(0.8f, 0.5f));
+    when(configuration.getResource()).thenReturn(singletonList(resourceConfig));
+
+    OffHeapResourcesProvider provider = new OffHeapResourcesProvider(configuration);
+    assertThat(provider.getOffHeapResource(identifier("foo")).getThresholds(), is(new TreeSet<>(Arrays.asList(0.5f, 0.8f))));
+    assertTrue(provider.addOffHeapResource(identifier("bar"), 100L));
+    assertThat(provider.getOffHeapResource(identifier("bar")).getThresholds(), is(new TreeSet<>(OffHeapResourceImpl.DEFAULT_USAGE_THRESHOLDS)));
+  }
+
+  @Test
+  public void testUsageEventsDeliveredOffTheReservingThread() throws Exception {
+    OffHeapResourcesProvider provider = new OffHeapResourcesProvider(configuration);
+    try {
+      provider.addOffHeapResource(identifier("foo"), 100L);
+      OffHeapResource resource = provider.getOffHeapResource(identifier("foo"));
+      CompletableFuture<Thread> eventThread = new CompletableFuture<>();
+      resource.addUsageListener(UUID.randomUUID(), 0.5f, event -> eventThread.complete(Thread.currentThread()));
+
+      assertTrue(resource.reserve(60L));
+      assertThat(eventThread.get(10, TimeUnit.SECONDS) == Thread.currentThread(), is(false));
+    } finally {
+      provider.close();
+    }
+  }
+
   @Test
   public void testNullReturnOnInvalidResource() {
     when(resourceConfig.getName()).thenReturn("foo");
@@ -140,6 +176,26 @@ public class OffHeapResourcesProviderTest {
     assertTrue(newOffheap_postRegistry_Binding.getValue().capacity() == 150_000L);
   }
 
+  @Test
+  public void testSubAccountChangesRegisterResourceAgain() {
+    EntityManagementRegistry registry = mock(EntityManagementRegistry.class);
+    EntityMonitoringService entityMonitoringService = mock(EntityMonitoringService.class);
+    when(registry.getMonitoringService()).thenReturn(entityMonitoringService);
+    OffHeapResourcesProvider offHeapResourcesProvider = new OffHeapResourcesProvider(configuration);
+    OffHeapResourceIdentifier identifier = identifier("shared");
+    offHeapResourcesProvider.addOffHeapResource(identifier, 100_000L);
+    offHeapResourcesProvider.onManagementRegistryCreated(registry);
+    OffHeapResourceImpl resource = offHeapResourcesProvider.getOffHeapResource(identifier);
+
+    OffHeapSubAccount subAccount = resource.createSubAccount("cache", 10_000L);
+    verify(registry).unregister(resource.getManagementBinding());
+    verify(registry).registerAndRefresh(resource.getManagementBinding());
+
+    subAccount.close();
+    verify(registry, times(2)).unregister(resource.getManagementBinding());
+    verify(registry, times(2)).registerAndRefresh(resource.getManagementBinding());
+  }
+
   @Test
   public void testResourceAddition_failForDuplicateResource() {
     OffHeapResourcesProvider offHeapResourcesProvider = new OffHeapResourcesProvider(configuration);
@@ -0,0 +1,102 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+import org.terracotta.runnel.decoding.StructDecoder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of byte buffer payloads of various sizes, held in heap or direct buffers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ByteBufferBenchmark {
+
+  private static final Struct STRUCT = StructBuilder.newStructBuilder()
+      .int64("id", 10)
+      .byteBuffer("payload", 20)
+      .build();
+
+  @Param({"16", "1024", "65536"})
+  public int size;
+
+  @Param({"true", "false"})
+  public boolean direct;
+
+  private ByteBuffer payload;
+  private ByteBuffer encoded;
+
+  @Setup
+  public void setUp() {
+    byte[] bytes = new byte[size];
+    new Random(0).nextBytes(bytes);
+    payload = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    payload.put(bytes).flip();
+
+    ByteBuffer heapEncoded = encode();
+    encoded = direct ? ByteBuffer.allocateDirect(heapEncoded.capacity()) : ByteBuffer.allocate(heapEncoded.capacity());
+    heapEncoded.flip();
+    encoded.put(heapEncoded);
+  }
+
+  @Benchmark
+  public ByteBuffer encode() {
+    payload.rewind();
+    return STRUCT.encoder()
+        .int64("id", 42L)
+        .byteBuffer("payload", payload)
+        .encode();
+  }
+
+  @Benchmark
+  public ByteBuffer[] encodeSegments() {
+    payload.rewind();
+    return STRUCT.gatheringEncoder(1024)
+        .int64("id", 42L)
+        .byteBuffer("payload", payload)
+        .encodeSegments();
+  }
+
+  @Benchmark
+  public ByteBuffer decode() {
+    encoded.rewind();
+    StructDecoder<Void> decoder = STRUCT.decoder(encoded);
+    decoder.int64("id");
+    return decoder.byteBuffer("payload");
+  }
+
+}
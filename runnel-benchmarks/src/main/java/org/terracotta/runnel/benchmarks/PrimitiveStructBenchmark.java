@@ -0,0 +1,164 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terracotta.runnel.EnumMappingBuilder;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.encoding.StructEncoder;
+import org.terracotta.runnel.handles.BoolHandle;
+import org.terracotta.runnel.handles.ChrHandle;
+import org.terracotta.runnel.handles.EnmHandle;
+import org.terracotta.runnel.handles.Fp64Handle;
+import org.terracotta.runnel.handles.Int32Handle;
+import org.terracotta.runnel.handles.Int64Handle;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of a struct made of primitive fields only, looked up by name or with handles, with fresh or
+ * reused encoders and decoders.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveStructBenchmark {
+
+  enum Color {
+    RED, GREEN, BLUE
+  }
+
+  private static final Struct STRUCT = StructBuilder.newStructBuilder()
+      .bool("flag", 10)
+      .chr("letter", 20)
+      .enm("color", 30, EnumMappingBuilder.newEnumMappingBuilder(Color.class)
+          .mapping(Color.RED, 1)
+          .mapping(Color.GREEN, 2)
+          .mapping(Color.BLUE, 3)
+          .build())
+      .int32("count", 40)
+      .int64("id", 50)
+      .fp64("ratio", 60)
+      .build();
+
+  private static final BoolHandle FLAG = STRUCT.boolHandle("flag");
+  private static final ChrHandle LETTER = STRUCT.chrHandle("letter");
+  private static final EnmHandle<Color> COLOR = STRUCT.enmHandle("color");
+  private static final Int32Handle COUNT = STRUCT.int32Handle("count");
+  private static final Int64Handle ID = STRUCT.int64Handle("id");
+  private static final Fp64Handle RATIO = STRUCT.fp64Handle("ratio");
+
+  private final ByteBuffer output = ByteBuffer.allocate(256);
+  private final StructEncoder<Void> reusedEncoder = STRUCT.encoder();
+  private final StructDecoder<Void> reusedDecoder = STRUCT.decoder();
+  private ByteBuffer encoded;
+
+  @Setup
+  public void setUp() {
+    encoded = encode();
+  }
+
+  @Benchmark
+  public ByteBuffer encode() {
+    return STRUCT.encoder()
+        .bool("flag", true)
+        .chr("letter", 'x')
+        .enm("color", Color.BLUE)
+        .int32("count", 42)
+        .int64("id", 1234567890123L)
+        .fp64("ratio", 0.75)
+        .encode();
+  }
+
+  @Benchmark
+  public ByteBuffer encodeWithHandles() {
+    return STRUCT.encoder()
+        .bool(FLAG, true)
+        .chr(LETTER, 'x')
+        .enm(COLOR, Color.BLUE)
+        .int32(COUNT, 42)
+        .int64(ID, 1234567890123L)
+        .fp64(RATIO, 0.75)
+        .encode();
+  }
+
+  @Benchmark
+  public ByteBuffer encodeReusingEncoder() {
+    output.clear();
+    return reusedEncoder.reset()
+        .bool(FLAG, true)
+        .chr(LETTER, 'x')
+        .enm(COLOR, Color.BLUE)
+        .int32(COUNT, 42)
+        .int64(ID, 1234567890123L)
+        .fp64(RATIO, 0.75)
+        .encode(output);
+  }
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    encoded.rewind();
+    StructDecoder<Void> decoder = STRUCT.decoder(encoded);
+    blackhole.consume(decoder.bool("flag"));
+    blackhole.consume(decoder.chr("letter"));
+    blackhole.consume(decoder.<Color>enm("color").get());
+    blackhole.consume(decoder.int32("count"));
+    blackhole.consume(decoder.int64("id"));
+    blackhole.consume(decoder.fp64("ratio"));
+  }
+
+  @Benchmark
+  public void decodeReusingDecoder(Blackhole blackhole) {
+    encoded.rewind();
+    StructDecoder<Void> decoder = reusedDecoder.wrap(encoded);
+    blackhole.consume(decoder.bool(FLAG));
+    blackhole.consume(decoder.chr(LETTER));
+    blackhole.consume(decoder.enm(COLOR).get());
+    blackhole.consume(decoder.int32(COUNT));
+    blackhole.consume(decoder.int64(ID));
+    blackhole.consume(decoder.fp64(RATIO));
+  }
+
+  @Benchmark
+  public void decodeUnboxed(Blackhole blackhole) {
+    encoded.rewind();
+    StructDecoder<Void> decoder = reusedDecoder.wrap(encoded);
+    blackhole.consume(decoder.boolOrDefault(FLAG, false));
+    blackhole.consume(decoder.chrOrDefault(LETTER, ' '));
+    blackhole.consume(decoder.enm(COLOR).get());
+    blackhole.consume(decoder.int32OrDefault(COUNT, 0));
+    blackhole.consume(decoder.int64OrDefault(ID, 0L));
+    blackhole.consume(decoder.fp64OrDefault(RATIO, 0.0));
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+import org.terracotta.runnel.decoding.ArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of a struct made of strings, either pure ASCII ones which take the fast paths of
+ * {@link org.terracotta.runnel.utils.StringTool}, or ones mixing one, two and three byte long modified UTF-8 chars.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringStructBenchmark {
+
+  public enum Charset {
+    ASCII("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789"),
+    NON_ASCII("abcdef\u00e9\u00e8\u00e0\u00fc\u00df\u0436\u0444\u20ac\u4e2d\u6587\u65e5\u672c");
+
+    private final String alphabet;
+
+    Charset(String alphabet) {
+      this.alphabet = alphabet;
+    }
+
+    String randomString(Random random, int length) {
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+      }
+      return new String(chars);
+    }
+  }
+
+  private static final Struct STRUCT = StructBuilder.newStructBuilder()
+      .string("name", 10)
+      .string("description", 20)
+      .strings("tags", 30)
+      .build();
+
+  @Param({"ASCII", "NON_ASCII"})
+  public Charset charset;
+
+  @Param({"16", "256", "4096"})
+  public int length;
+
+  private String name;
+  private String description;
+  private String[] tags;
+  private ByteBuffer encoded;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    name = charset.randomString(random, 16);
+    description = charset.randomString(random, length);
+    tags = new String[4];
+    for (int i = 0; i < tags.length; i++) {
+      tags[i] = charset.randomString(random, Math.max(1, length / 4));
+    }
+    encoded = encode();
+  }
+
+  @Benchmark
+  public ByteBuffer encode() {
+    return STRUCT.encoder()
+        .string("name", name)
+        .string("description", description)
+        .strings("tags")
+          .value(tags[0])
+          .value(tags[1])
+          .value(tags[2])
+          .value(tags[3])
+        .end()
+        .encode();
+  }
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    encoded.rewind();
+    StructDecoder<Void> decoder = STRUCT.decoder(encoded);
+    blackhole.consume(decoder.string("name"));
+    blackhole.consume(decoder.string("description"));
+    ArrayDecoder<String, StructDecoder<Void>> tags = decoder.strings("tags");
+    for (int i = 0; i < tags.length(); i++) {
+      blackhole.consume(tags.value());
+    }
+  }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terracotta.runnel.EnumMapping;
+import org.terracotta.runnel.EnumMappingBuilder;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+import org.terracotta.runnel.decoding.StructArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of records made of a key struct and an array of cell structs, the same shape as the one of
+ * {@code EncodingPerfTest}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StructArrayBenchmark {
+
+  enum Typ {
+    BOOL,
+    CHAR,
+    INT,
+    LONG,
+    DOUBLE,
+    STRING,
+    BYTES
+  }
+
+  private static final EnumMapping<Typ> TYPE_ENUM_MAPPING = EnumMappingBuilder.newEnumMappingBuilder(Typ.class)
+      .mapping(Typ.BOOL, 0)
+      .mapping(Typ.CHAR, 1)
+      .mapping(Typ.INT, 2)
+      .mapping(Typ.LONG, 3)
+      .mapping(Typ.DOUBLE, 4)
+      .mapping(Typ.STRING, 5)
+      .mapping(Typ.BYTES, 6)
+      .build();
+
+  private static final Struct KEY_STRUCT = StructBuilder.newStructBuilder()
+      .enm("keyType", 10, TYPE_ENUM_MAPPING)
+      .bool("bool", 20)
+      .chr("char", 30)
+      .int32("int", 40)
+      .int64("long", 50)
+      .fp64("double", 60)
+      .string("string", 70)
+      .build();
+
+  private static final Struct CELL_STRUCT = StructBuilder.newStructBuilder()
+      .string("name", 10)
+      .enm("type", 20, TYPE_ENUM_MAPPING)
+      .bool("bool", 30)
+      .chr("char", 40)
+      .int32("int", 50)
+      .int64("long", 60)
+      .fp64("double", 70)
+      .string("string", 80)
+      .byteBuffer("bytes", 90)
+      .build();
+
+  private static final Struct RDS = StructBuilder.newStructBuilder()
+      .int64("msn", 10)
+      .struct("key", 20, KEY_STRUCT)
+      .structs("cells", 30, CELL_STRUCT)
+      .build();
+
+  @Param({"64", "2048"})
+  public int stringSize;
+
+  private String longValue;
+  private String shortValue;
+  private ByteBuffer encoded;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    longValue = stringValue(random, stringSize);
+    shortValue = stringValue(random, stringSize / 4);
+    encoded = encode();
+  }
+
+  private static String stringValue(Random random, int size) {
+    char[] chars = new char[size];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) ('A' + random.nextInt(26));
+    }
+    return new String(chars);
+  }
+
+  @Benchmark
+  public ByteBuffer encode() {
+    return RDS.encoder()
+        .int64("msn", 42L)
+        .struct("key")
+          .string("string", "key42")
+        .end()
+        .structs("cells")
+          .add()
+            .string("name", "Cell1")
+            .enm("type", Typ.STRING)
+            .string("string", longValue)
+          .end()
+          .add()
+            .string("name", "Cell2")
+            .enm("type", Typ.INT)
+            .int32("int", 42)
+          .end()
+          .add()
+            .string("name", "Cell3")
+            .enm("type", Typ.INT)
+            .int32("int", 84)
+          .end()
+          .add()
+            .string("name", "Cell4")
+            .enm("type", Typ.STRING)
+            .string("string", shortValue)
+          .end()
+        .end()
+        .encode();
+  }
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    encoded.rewind();
+    StructDecoder<Void> decoder = RDS.decoder(encoded);
+    blackhole.consume(decoder.int64("msn"));
+    blackhole.consume(decoder.struct("key").string("string"));
+    StructArrayDecoder<StructDecoder<Void>> cells = decoder.structs("cells");
+    while (cells.hasNext()) {
+      StructDecoder<StructArrayDecoder<StructDecoder<Void>>> cell = cells.next();
+      blackhole.consume(cell.string("name"));
+      blackhole.consume(cell.<Typ>enm("type").get());
+      blackhole.consume(cell.int32("int"));
+      blackhole.consume(cell.string("string"));
+    }
+  }
+
+  @Benchmark
+  public void decodeLastCellNameRandomAccess(Blackhole blackhole) {
+    encoded.rewind();
+    StructDecoder<Void> decoder = RDS.randomAccessDecoder(encoded);
+    StructArrayDecoder<StructDecoder<Void>> cells = decoder.structs("cells");
+    StructDecoder<StructArrayDecoder<StructDecoder<Void>>> cell = null;
+    while (cells.hasNext()) {
+      cell = cells.next();
+    }
+    blackhole.consume(cell == null ? null : cell.string("name"));
+    blackhole.consume(decoder.int64("msn"));
+  }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.processor;
+
+import org.terracotta.runnel.processor.StructModel.FieldModel;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the source of the codec of a {@link StructModel}. All types are written fully qualified so that the
+ * generated source needs no imports and cannot clash with the annotated class' own names.
+ */
+class CodecWriter {
+
+  private static final String STRUCT = "org.terracotta.runnel.Struct";
+  private static final String STRUCT_ENCODER = "org.terracotta.runnel.encoding.StructEncoder";
+  private static final String STRUCT_ARRAY_ENCODER = "org.terracotta.runnel.encoding.StructArrayEncoder";
+  private static final String STRUCT_DECODER = "org.terracotta.runnel.decoding.StructDecoder";
+  private static final String STRUCT_ARRAY_DECODER = "org.terracotta.runnel.decoding.StructArrayDecoder";
+
+  private final StructModel model;
+  private final PrintWriter out;
+  private final List<FieldModel> fieldsByIndex;
+  private final Map<FieldModel, String> constants = new HashMap<>();
+
+  CodecWriter(StructModel model, PrintWriter out) {
+    this.model = model;
+    this.out = out;
+    this.fieldsByIndex = new ArrayList<>(model.fields());
+    this.fieldsByIndex.sort(Comparator.comparingInt(FieldModel::index));
+
+    Set<String> used = new HashSet<>();
+    for (FieldModel field : fieldsByIndex) {
+      String constant = constantName(field.name());
+      if (!used.add(constant)) {
+        constant = constant + "_" + field.index();
+        used.add(constant);
+      }
+      constants.put(field, constant);
+    }
+  }
+
+  void write() {
+    String type = model.typeName();
+    if (!model.packageName().isEmpty()) {
+      out.println("package " + model.packageName() + ";");
+      out.println();
+    }
+    out.println("/**");
+    out.println(" * Runnel codec of {@link " + type + "}, generated by {@code " + RunnelStructProcessor.class.getName() + "}.");
+    out.println(" */");
+    out.println("public final class " + model.codecName() + " {");
+    out.println();
+    writeStruct();
+    out.println("  private " + model.codecName() + "() {");
+    out.println("  }");
+    out.println();
+
+    out.println("  public static java.nio.ByteBuffer encode(" + type + " value) {");
+    out.println("    return encodeFields(STRUCT.encoder(), value).encode();");
+    out.println("  }");
+    out.println();
+    writeEncodeFields();
+    out.println("  public static void encodeStructs(" + STRUCT_ARRAY_ENCODER + "<?> encoder, java.util.List<" + type + "> values) {");
+    out.println("    for (" + type + " value : values) {");
+    out.println("      encodeFields(encoder.add(), value).end();");
+    out.println("    }");
+    out.println("    encoder.end();");
+    out.println("  }");
+    out.println();
+
+    out.println("  public static " + type + " decode(java.nio.ByteBuffer buffer) {");
+    out.println("    return decodeFields(STRUCT.decoder(buffer));");
+    out.println("  }");
+    out.println();
+    writeDecodeFields();
+    out.println("  public static " + type + " decodeStruct(" + STRUCT_DECODER + "<?> decoder) {");
+    out.println("    if (decoder == null) {");
+    out.println("      return null;");
+    out.println("    }");
+    out.println("    " + type + " value = decodeFields(decoder);");
+    out.println("    decoder.end();");
+    out.println("    return value;");
+    out.println("  }");
+    out.println();
+    out.println("  public static java.util.List<" + type + "> decodeStructs(" + STRUCT_ARRAY_DECODER + "<?> decoder) {");
+    out.println("    if (decoder == null) {");
+    out.println("      return null;");
+    out.println("    }");
+    out.println("    java.util.List<" + type + "> values = new java.util.ArrayList<>(decoder.length());");
+    out.println("    while (decoder.hasNext()) {");
+    out.println("      values.add(decodeStruct(decoder.next()));");
+    out.println("    }");
+    out.println("    decoder.end();");
+    out.println("    return values;");
+    out.println("  }");
+    out.println("}");
+  }
+
+  private void writeStruct() {
+    for (FieldModel field : fieldsByIndex) {
+      if (field.kind() == FieldKind.ENUM) {
+        String enumType = field.referencedType();
+        out.println("  private static final org.terracotta.runnel.EnumMapping<" + enumType + "> " + constants.get(field) + "_MAPPING = org.terracotta.runnel.EnumMappingBuilder.newEnumMappingBuilder(" + enumType + ".class)");
+        for (Map.Entry<String, Integer> mapping : field.enumMapping().entrySet()) {
+          out.println("      .mapping(" + enumType + "." + mapping.getKey() + ", " + mapping.getValue() + ")");
+        }
+        out.println("      .build();");
+        out.println();
+      }
+    }
+
+    out.println("  public static final " + STRUCT + " STRUCT = org.terracotta.runnel.StructBuilder.newStructBuilder()");
+    for (FieldModel field : fieldsByIndex) {
+      String extra;
+      switch (field.kind()) {
+        case ENUM:
+          extra = ", " + constants.get(field) + "_MAPPING";
+          break;
+        case STRUCT:
+        case STRUCT_LIST:
+          extra = ", " + field.referencedType() + ".STRUCT";
+          break;
+        default:
+          extra = "";
+      }
+      out.println("      ." + field.kind().builderMethod() + "(\"" + field.name() + "\", " + field.index() + extra + ")");
+    }
+    out.println("      .build();");
+    out.println();
+
+    for (FieldModel field : fieldsByIndex) {
+      String handleType = field.kind().handleType();
+      String typeArgument = "";
+      if (field.kind() == FieldKind.ENUM) {
+        handleType = handleType + "<" + field.referencedType() + ">";
+        typeArgument = "<" + field.referencedType() + ">";
+      }
+      out.println("  private static final " + handleType + " " + constants.get(field) + "_HANDLE = STRUCT." + typeArgument + field.kind().handleMethod() + "(\"" + field.name() + "\");");
+    }
+    out.println();
+  }
+
+  private void writeEncodeFields() {
+    out.println("  public static <P> " + STRUCT_ENCODER + "<P> encodeFields(" + STRUCT_ENCODER + "<P> encoder, " + model.typeName() + " value) {");
+    for (FieldModel field : fieldsByIndex) {
+      String handle = constants.get(field) + "_HANDLE";
+      String value = "value." + field.name();
+      switch (field.kind()) {
+        case STRING:
+        case INT32_ARRAY:
+        case INT64_ARRAY:
+        case FP64_ARRAY:
+          out.println("    encoder." + field.kind().builderMethod() + "(" + handle + ", " + value + ");");
+          break;
+        case BYTE_BUFFER:
+          out.println("    if (" + value + " != null) {");
+          out.println("      encoder.byteBuffer(" + handle + ", " + value + ".duplicate());");
+          out.println("    }");
+          break;
+        case STRUCT:
+          out.println("    if (" + value + " != null) {");
+          out.println("      " + field.referencedType() + ".encodeFields(encoder.struct(" + handle + "), " + value + ").end();");
+          out.println("    }");
+          break;
+        case STRUCT_LIST:
+          out.println("    if (" + value + " != null) {");
+          out.println("      " + field.referencedType() + ".encodeStructs(encoder.structs(" + handle + "), " + value + ");");
+          out.println("    }");
+          break;
+        default:
+          if (field.isPrimitive()) {
+            out.println("    encoder." + field.kind().builderMethod() + "(" + handle + ", " + value + ");");
+          } else {
+            out.println("    if (" + value + " != null) {");
+            out.println("      encoder." + field.kind().builderMethod() + "(" + handle + ", " + value + ");");
+            out.println("    }");
+          }
+      }
+    }
+    out.println("    return encoder;");
+    out.println("  }");
+    out.println();
+  }
+
+  private void writeDecodeFields() {
+    String type = model.typeName();
+    out.println("  public static " + type + " decodeFields(" + STRUCT_DECODER + "<?> decoder) {");
+    for (FieldModel field : fieldsByIndex) {
+      String handle = constants.get(field) + "_HANDLE";
+      String local = "f_" + field.name();
+      switch (field.kind()) {
+        case ENUM:
+          String enm = "e_" + field.name();
+          out.println("    org.terracotta.runnel.decoding.Enm<" + field.referencedType() + "> " + enm + " = decoder.enm(" + handle + ");");
+          out.println("    " + field.type() + " " + local + " = " + enm + ".isValid() ? " + enm + ".get() : null;");
+          break;
+        case STRUCT:
+          out.println("    " + field.type() + " " + local + " = " + field.referencedType() + ".decodeStruct(decoder.struct(" + handle + "));");
+          break;
+        case STRUCT_LIST:
+          out.println("    " + field.type() + " " + local + " = " + field.referencedType() + ".decodeStructs(decoder.structs(" + handle + "));");
+          break;
+        default:
+          if (field.isPrimitive()) {
+            out.println("    " + field.type() + " " + local + " = decoder." + field.kind().decoderMethod() + "OrDefault(" + handle + ", " + field.kind().primitiveDefault() + ");");
+          } else {
+            out.println("    " + field.type() + " " + local + " = decoder." + field.kind().decoderMethod() + "(" + handle + ");");
+          }
+      }
+    }
+
+    if (model.constructorInjection()) {
+      StringBuilder arguments = new StringBuilder();
+      for (FieldModel field : model.fields()) {
+        if (arguments.length() > 0) {
+          arguments.append(", ");
+        }
+        arguments.append("f_").append(field.name());
+      }
+      out.println("    return new " + type + "(" + arguments + ");");
+    } else {
+      out.println("    " + type + " value = new " + type + "();");
+      for (FieldModel field : model.fields()) {
+        out.println("    value." + field.name() + " = f_" + field.name() + ";");
+      }
+      out.println("    return value;");
+    }
+    out.println("  }");
+    out.println();
+  }
+
+  static String constantName(String fieldName) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < fieldName.length(); i++) {
+      char c = fieldName.charAt(i);
+      if (Character.isUpperCase(c) && i > 0 && !Character.isUpperCase(fieldName.charAt(i - 1)) && fieldName.charAt(i - 1) != '_') {
+        sb.append('_');
+      }
+      sb.append(c);
+    }
+    return sb.toString().toUpperCase(Locale.ROOT);
+  }
+}
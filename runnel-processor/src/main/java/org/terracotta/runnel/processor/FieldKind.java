@@ -0,0 +1,86 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.processor;
+
+/**
+ * The kinds of fields a generated codec can handle, with the {@link org.terracotta.runnel.StructBuilder} method
+ * declaring them and the type of their handle.
+ */
+enum FieldKind {
+  BOOL("bool", "org.terracotta.runnel.handles.BoolHandle", "boolHandle", "false"),
+  CHR("chr", "org.terracotta.runnel.handles.ChrHandle", "chrHandle", "'\\0'"),
+  INT32("int32", "org.terracotta.runnel.handles.Int32Handle", "int32Handle", "0"),
+  INT64("int64", "org.terracotta.runnel.handles.Int64Handle", "int64Handle", "0L"),
+  FP64("fp64", "org.terracotta.runnel.handles.Fp64Handle", "fp64Handle", "0.0"),
+  STRING("string", "org.terracotta.runnel.handles.StringHandle", "stringHandle", null),
+  BYTE_BUFFER("byteBuffer", "org.terracotta.runnel.handles.ByteBufferHandle", "byteBufferHandle", null),
+  INT32_ARRAY("int32s", "org.terracotta.runnel.handles.ArrayHandle<org.terracotta.runnel.handles.Int32Handle>", "int32sHandle", null),
+  INT64_ARRAY("int64s", "org.terracotta.runnel.handles.ArrayHandle<org.terracotta.runnel.handles.Int64Handle>", "int64sHandle", null),
+  FP64_ARRAY("fp64s", "org.terracotta.runnel.handles.ArrayHandle<org.terracotta.runnel.handles.Fp64Handle>", "fp64sHandle", null),
+  ENUM("enm", "org.terracotta.runnel.handles.EnmHandle", "enmHandle", null),
+  STRUCT("struct", "org.terracotta.runnel.handles.StructHandle", "structHandle", null),
+  STRUCT_LIST("structs", "org.terracotta.runnel.handles.StructArrayHandle", "structsHandle", null),
+  ;
+
+  private final String builderMethod;
+  private final String handleType;
+  private final String handleMethod;
+  private final String primitiveDefault;
+
+  FieldKind(String builderMethod, String handleType, String handleMethod, String primitiveDefault) {
+    this.builderMethod = builderMethod;
+    this.handleType = handleType;
+    this.handleMethod = handleMethod;
+    this.primitiveDefault = primitiveDefault;
+  }
+
+  String builderMethod() {
+    return builderMethod;
+  }
+
+  String handleType() {
+    return handleType;
+  }
+
+  String handleMethod() {
+    return handleMethod;
+  }
+
+  /**
+   * @return the value a primitive field of this kind gets when it is absent, or null if this kind has no primitive
+   * form.
+   */
+  String primitiveDefault() {
+    return primitiveDefault;
+  }
+
+  /**
+   * @return the {@link org.terracotta.runnel.decoding.StructDecoder} method decoding a field of this kind.
+   */
+  String decoderMethod() {
+    switch (this) {
+      case INT32_ARRAY:
+        return "int32Array";
+      case INT64_ARRAY:
+        return "int64Array";
+      case FP64_ARRAY:
+        return "fp64Array";
+      default:
+        return builderMethod;
+    }
+  }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.processor;
+
+import org.terracotta.runnel.annotations.RunnelField;
+import org.terracotta.runnel.annotations.RunnelStruct;
+import org.terracotta.runnel.processor.StructModel.FieldModel;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a codec for each {@link RunnelStruct} annotated class, see {@link CodecWriter} for the generated code.
+ * Invalid classes are reported as compilation errors on the offending elements and get no codec.
+ */
+@SupportedAnnotationTypes({"org.terracotta.runnel.annotations.RunnelStruct", "org.terracotta.runnel.annotations.RunnelField"})
+public class RunnelStructProcessor extends AbstractProcessor {
+
+  private final Map<TypeElement, Map<String, Integer>> enumMappings = new HashMap<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (VariableElement field : ElementFilter.fieldsIn(roundEnv.getElementsAnnotatedWith(RunnelField.class))) {
+      Element owner = field.getEnclosingElement();
+      if (field.getKind() == ElementKind.FIELD && owner.getAnnotation(RunnelStruct.class) == null) {
+        error(field, "@RunnelField annotated fields must be declared in a @RunnelStruct annotated class");
+      }
+    }
+
+    for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(RunnelStruct.class))) {
+      StructModel model = model(type);
+      if (model != null) {
+        generate(type, model);
+      }
+    }
+    return true;
+  }
+
+  private StructModel model(TypeElement type) {
+    if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+      error(type, "@RunnelStruct annotated types must be concrete classes");
+      return null;
+    }
+    if (type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER
+        || type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+      error(type, "@RunnelStruct annotated classes must be top level or static nested classes");
+      return null;
+    }
+    for (Element element = type; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+      if (element.getModifiers().contains(Modifier.PRIVATE)) {
+        error(type, "@RunnelStruct annotated classes must not be private");
+        return null;
+      }
+    }
+
+    boolean valid = true;
+    Set<Integer> indexes = new HashSet<>();
+    List<FieldModel> fields = new ArrayList<>();
+    List<VariableElement> fieldElements = new ArrayList<>();
+    for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      RunnelField annotation = field.getAnnotation(RunnelField.class);
+      if (annotation == null) {
+        continue;
+      }
+      if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.STATIC)) {
+        error(field, "@RunnelField annotated fields must be neither private nor static");
+        valid = false;
+        continue;
+      }
+      int index = annotation.index();
+      if (index <= 0) {
+        error(field, "@RunnelField index must be strictly positive");
+        valid = false;
+        continue;
+      }
+      if (!indexes.add(index)) {
+        error(field, "Duplicate @RunnelField index " + index);
+        valid = false;
+        continue;
+      }
+      FieldModel model = field(type, field, index);
+      if (model == null) {
+        valid = false;
+        continue;
+      }
+      fields.add(model);
+      fieldElements.add(field);
+    }
+    if (!valid) {
+      return null;
+    }
+
+    boolean constructorInjection = hasFieldsConstructor(type, fieldElements);
+    if (!constructorInjection) {
+      if (!hasNoArgConstructor(type)) {
+        error(type, "@RunnelStruct annotated classes need a non-private constructor taking all the @RunnelField annotated fields in declaration order, or a non-private no-arg constructor");
+        return null;
+      }
+      for (VariableElement field : fieldElements) {
+        if (field.getModifiers().contains(Modifier.FINAL)) {
+          error(field, "Final @RunnelField annotated fields can only be set by a constructor taking all the @RunnelField annotated fields in declaration order");
+          valid = false;
+        }
+      }
+      if (!valid) {
+        return null;
+      }
+    }
+
+    String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    return new StructModel(packageName, type.getQualifiedName().toString(), codecName(type), fields, constructorInjection);
+  }
+
+  private FieldModel field(TypeElement owner, VariableElement field, int index) {
+    TypeMirror type = field.asType();
+    String name = field.getSimpleName().toString();
+    String typeName = type.toString();
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return new FieldModel(name, index, FieldKind.BOOL, typeName, true, null, null);
+      case CHAR:
+        return new FieldModel(name, index, FieldKind.CHR, typeName, true, null, null);
+      case INT:
+        return new FieldModel(name, index, FieldKind.INT32, typeName, true, null, null);
+      case LONG:
+        return new FieldModel(name, index, FieldKind.INT64, typeName, true, null, null);
+      case DOUBLE:
+        return new FieldModel(name, index, FieldKind.FP64, typeName, true, null, null);
+      case ARRAY:
+        switch (((ArrayType) type).getComponentType().getKind()) {
+          case INT:
+            return new FieldModel(name, index, FieldKind.INT32_ARRAY, typeName, false, null, null);
+          case LONG:
+            return new FieldModel(name, index, FieldKind.INT64_ARRAY, typeName, false, null, null);
+          case DOUBLE:
+            return new FieldModel(name, index, FieldKind.FP64_ARRAY, typeName, false, null, null);
+          default:
+            break;
+        }
+        break;
+      case DECLARED:
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        switch (element.getQualifiedName().toString()) {
+          case "java.lang.Boolean":
+            return new FieldModel(name, index, FieldKind.BOOL, typeName, false, null, null);
+          case "java.lang.Character":
+            return new FieldModel(name, index, FieldKind.CHR, typeName, false, null, null);
+          case "java.lang.Integer":
+            return new FieldModel(name, index, FieldKind.INT32, typeName, false, null, null);
+          case "java.lang.Long":
+            return new FieldModel(name, index, FieldKind.INT64, typeName, false, null, null);
+          case "java.lang.Double":
+            return new FieldModel(name, index, FieldKind.FP64, typeName, false, null, null);
+          case "java.lang.String":
+            return new FieldModel(name, index, FieldKind.STRING, typeName, false, null, null);
+          case "java.nio.ByteBuffer":
+            return new FieldModel(name, index, FieldKind.BYTE_BUFFER, typeName, false, null, null);
+          case "java.util.List":
+            List<? extends TypeMirror> typeArguments = ((DeclaredType) type).getTypeArguments();
+            if (typeArguments.size() == 1 && typeArguments.get(0).getKind() == TypeKind.DECLARED) {
+              TypeElement elementType = (TypeElement) ((DeclaredType) typeArguments.get(0)).asElement();
+              if (elementType.getAnnotation(RunnelStruct.class) != null) {
+                if (!checkNotRecursive(owner, field, elementType)) {
+                  return null;
+                }
+                return new FieldModel(name, index, FieldKind.STRUCT_LIST, typeName, false, codecQualifiedName(elementType), null);
+              }
+            }
+            break;
+          default:
+            if (element.getKind() == ElementKind.ENUM) {
+              Map<String, Integer> mapping = enumMapping(element);
+              if (mapping == null) {
+                error(field, "The constants of enum " + element.getQualifiedName() + " must all be annotated with @RunnelField with distinct values, positive or zero");
+                return null;
+              }
+              return new FieldModel(name, index, FieldKind.ENUM, typeName, false, element.getQualifiedName().toString(), mapping);
+            }
+            if (element.getAnnotation(RunnelStruct.class) != null) {
+              if (!checkNotRecursive(owner, field, element)) {
+                return null;
+              }
+              return new FieldModel(name, index, FieldKind.STRUCT, typeName, false, codecQualifiedName(element), null);
+            }
+            break;
+        }
+        break;
+      default:
+        break;
+    }
+    error(field, "Unsupported @RunnelField type " + typeName);
+    return null;
+  }
+
+  private Map<String, Integer> enumMapping(TypeElement enumType) {
+    if (enumMappings.containsKey(enumType)) {
+      return enumMappings.get(enumType);
+    }
+    Map<String, Integer> mapping = new LinkedHashMap<>();
+    Set<Integer> values = new HashSet<>();
+    for (VariableElement constant : ElementFilter.fieldsIn(enumType.getEnclosedElements())) {
+      if (constant.getKind() != ElementKind.ENUM_CONSTANT) {
+        continue;
+      }
+      RunnelField annotation = constant.getAnnotation(RunnelField.class);
+      if (annotation == null || annotation.index() < 0 || !values.add(annotation.index())) {
+        mapping = null;
+        break;
+      }
+      mapping.put(constant.getSimpleName().toString(), annotation.index());
+    }
+    enumMappings.put(enumType, mapping);
+    return mapping;
+  }
+
+  /**
+   * Codecs build their struct when their class is initialized, which cannot be done for a struct that contains
+   * itself.
+   */
+  private boolean checkNotRecursive(TypeElement owner, VariableElement field, TypeElement referenced) {
+    if (references(referenced, owner, new HashSet<>())) {
+      error(field, "Recursive @RunnelStruct annotated classes are not supported");
+      return false;
+    }
+    return true;
+  }
+
+  private boolean references(TypeElement from, TypeElement target, Set<TypeElement> visited) {
+    if (from.equals(target)) {
+      return true;
+    }
+    if (!visited.add(from)) {
+      return false;
+    }
+    for (VariableElement field : ElementFilter.fieldsIn(from.getEnclosedElements())) {
+      if (field.getAnnotation(RunnelField.class) == null || field.asType().getKind() != TypeKind.DECLARED) {
+        continue;
+      }
+      DeclaredType type = (DeclaredType) field.asType();
+      List<TypeMirror> candidates = new ArrayList<>(type.getTypeArguments());
+      candidates.add(type);
+      for (TypeMirror candidate : candidates) {
+        if (candidate.getKind() == TypeKind.DECLARED) {
+          TypeElement element = (TypeElement) ((DeclaredType) candidate).asElement();
+          if (element.getAnnotation(RunnelStruct.class) != null && references(element, target, visited)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean hasFieldsConstructor(TypeElement type, List<VariableElement> fields) {
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (constructor.getModifiers().contains(Modifier.PRIVATE) || constructor.getParameters().size() != fields.size()) {
+        continue;
+      }
+      boolean matches = true;
+      for (int i = 0; i < fields.size(); i++) {
+        if (!processingEnv.getTypeUtils().isSameType(constructor.getParameters().get(i).asType(), fields.get(i).asType())) {
+          matches = false;
+          break;
+        }
+      }
+      if (matches) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasNoArgConstructor(TypeElement type) {
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (!constructor.getModifiers().contains(Modifier.PRIVATE) && constructor.getParameters().isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void generate(TypeElement type, StructModel model) {
+    String codecName = codecQualifiedName(type);
+    try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(codecName, type).openWriter())) {
+      new CodecWriter(model, out).write();
+    } catch (IOException ioe) {
+      error(type, "Cannot write " + codecName + ": " + ioe);
+    }
+  }
+
+  private String codecQualifiedName(TypeElement type) {
+    String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    return packageName.isEmpty() ? codecName(type) : packageName + "." + codecName(type);
+  }
+
+  /**
+   * @return the simple name of the codec of the given type: its name suffixed by {@code Codec}, prefixed by the names
+   * of its enclosing classes separated by underscores if it is nested.
+   */
+  private static String codecName(TypeElement type) {
+    StringBuilder name = new StringBuilder(type.getSimpleName());
+    for (Element element = type.getEnclosingElement(); element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+      name.insert(0, element.getSimpleName() + "_");
+    }
+    return name.append("Codec").toString();
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.processor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the processor learnt about a {@link org.terracotta.runnel.annotations.RunnelStruct} annotated class, all types
+ * being kept as their source form.
+ */
+class StructModel {
+
+  private final String packageName;
+  private final String typeName;
+  private final String codecName;
+  private final List<FieldModel> fields;
+  private final boolean constructorInjection;
+
+  /**
+   * @param fields the annotated fields, in declaration order
+   * @param constructorInjection true if decoded instances are created by the constructor taking all the fields in
+   * declaration order, false if they are created by the no-arg constructor then get their fields assigned
+   */
+  StructModel(String packageName, String typeName, String codecName, List<FieldModel> fields, boolean constructorInjection) {
+    this.packageName = packageName;
+    this.typeName = typeName;
+    this.codecName = codecName;
+    this.fields = fields;
+    this.constructorInjection = constructorInjection;
+  }
+
+  String packageName() {
+    return packageName;
+  }
+
+  String typeName() {
+    return typeName;
+  }
+
+  /**
+   * @return the simple name of the generated codec class
+   */
+  String codecName() {
+    return codecName;
+  }
+
+  List<FieldModel> fields() {
+    return fields;
+  }
+
+  boolean constructorInjection() {
+    return constructorInjection;
+  }
+
+  static class FieldModel {
+    private final String name;
+    private final int index;
+    private final FieldKind kind;
+    private final String type;
+    private final boolean primitive;
+    private final String referencedType;
+    private final Map<String, Integer> enumMapping;
+
+    /**
+     * @param referencedType the enum type of enum fields, the codec class of struct and struct list fields, null
+     * otherwise
+     * @param enumMapping the enum constants names mapped to their values for enum fields, null otherwise
+     */
+    FieldModel(String name, int index, FieldKind kind, String type, boolean primitive, String referencedType, Map<String, Integer> enumMapping) {
+      this.name = name;
+      this.index = index;
+      this.kind = kind;
+      this.type = type;
+      this.primitive = primitive;
+      this.referencedType = referencedType;
+      this.enumMapping = enumMapping;
+    }
+
+    String name() {
+      return name;
+    }
+
+    int index() {
+      return index;
+    }
+
+    FieldKind kind() {
+      return kind;
+    }
+
+    String type() {
+      return type;
+    }
+
+    boolean isPrimitive() {
+      return primitive;
+    }
+
+    String referencedType() {
+      return referencedType;
+    }
+
+    Map<String, Integer> enumMapping() {
+      return enumMapping;
+    }
+  }
+}
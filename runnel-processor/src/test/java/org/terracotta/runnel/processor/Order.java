@@ -0,0 +1,73 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.processor;
+
+import org.terracotta.runnel.annotations.RunnelField;
+import org.terracotta.runnel.annotations.RunnelStruct;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+@RunnelStruct
+public class Order {
+
+  public enum Status {
+    @RunnelField(index = 1) OPEN,
+    @RunnelField(index = 2) SHIPPED,
+    @RunnelField(index = 3) CANCELLED
+  }
+
+  @RunnelStruct
+  public static class Line {
+    @RunnelField(index = 1) String product;
+    @RunnelField(index = 2) int quantity;
+    @RunnelField(index = 3) Double price;
+
+    public Line() {
+    }
+
+    public Line(String product, int quantity, Double price) {
+      this.product = product;
+      this.quantity = quantity;
+      this.price = price;
+    }
+  }
+
+  @RunnelField(index = 1) final long id;
+  @RunnelField(index = 2) final String customer;
+  @RunnelField(index = 3) final Status status;
+  @RunnelField(index = 5) final List<Line> lines;
+  @RunnelField(index = 4) final Line gift;
+  @RunnelField(index = 6) final long[] timestamps;
+  @RunnelField(index = 7) final ByteBuffer signature;
+  @RunnelField(index = 8) final boolean express;
+  @RunnelField(index = 9) final char priority;
+  @RunnelField(index = 10) final Integer discount;
+
+  public Order(long id, String customer, Status status, List<Line> lines, Line gift, long[] timestamps, ByteBuffer signature, boolean express, char priority, Integer discount) {
+    this.id = id;
+    this.customer = customer;
+    this.status = status;
+    this.lines = lines;
+    this.gift = gift;
+    this.timestamps = timestamps;
+    this.signature = signature;
+    this.express = express;
+    this.priority = priority;
+    this.discount = discount;
+  }
+}
@@ -14,29 +14,26 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.terracotta.runnel.encoding.dataholders;
+package org.terracotta.runnel.processor;
 
-import org.terracotta.runnel.utils.WriteBuffer;
+import org.terracotta.runnel.annotations.RunnelField;
+import org.terracotta.runnel.annotations.RunnelStruct;
 
 /**
- * @author Ludovic Orban
+ * A later version of {@link Order}, with a removed field, a new field and a new status.
  */
-public class FloatingPoint64DataHolder extends AbstractDataHolder {
+@RunnelStruct
+public class OrderV2 {
 
-  private final double value;
-
-  public FloatingPoint64DataHolder(double value, int index) {
-    super(index);
-    this.value = value;
-  }
-
-  @Override
-  protected int valueSize() {
-    return 8;
+  public enum Status {
+    @RunnelField(index = 1) OPEN,
+    @RunnelField(index = 2) SHIPPED,
+    @RunnelField(index = 3) CANCELLED,
+    @RunnelField(index = 4) RETURNED
   }
 
-  @Override
-  protected void encodeValue(WriteBuffer writeBuffer) {
-    writeBuffer.putDouble(value);
-  }
+  @RunnelField(index = 1) long id;
+  @RunnelField(index = 3) Status status;
+  @RunnelField(index = 11) String note;
+  @RunnelField(index = 12) double[] weights;
 }
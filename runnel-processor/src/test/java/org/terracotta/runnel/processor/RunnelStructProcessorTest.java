@@ -0,0 +1,246 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.processor;
+
+import org.junit.Test;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.processor.Order.Line;
+import org.terracotta.runnel.processor.Order.Status;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class RunnelStructProcessorTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Order order = new Order(42L, "joe", Status.SHIPPED,
+        Arrays.asList(new Line("apple", 3, 0.5), new Line("pear", 1, null)),
+        new Line("cherry", 10, null),
+        new long[] {1L, 2L}, ByteBuffer.wrap(new byte[] {1, 2, 3}), true, 'A', 5);
+
+    ByteBuffer encoded = OrderCodec.encode(order);
+    assertThat(order.signature.remaining(), is(3));
+
+    encoded.rewind();
+    Order decoded = OrderCodec.decode(encoded);
+    assertThat(decoded.id, is(42L));
+    assertThat(decoded.customer, is("joe"));
+    assertThat(decoded.status, is(Status.SHIPPED));
+    assertThat(decoded.lines.size(), is(2));
+    assertThat(decoded.lines.get(0).product, is("apple"));
+    assertThat(decoded.lines.get(0).quantity, is(3));
+    assertThat(decoded.lines.get(0).price, is(0.5));
+    assertThat(decoded.lines.get(1).product, is("pear"));
+    assertThat(decoded.lines.get(1).price, is(nullValue()));
+    assertThat(decoded.gift.product, is("cherry"));
+    assertThat(decoded.timestamps, is(new long[] {1L, 2L}));
+    assertThat(decoded.signature, is(ByteBuffer.wrap(new byte[] {1, 2, 3})));
+    assertThat(decoded.express, is(true));
+    assertThat(decoded.priority, is('A'));
+    assertThat(decoded.discount, is(5));
+  }
+
+  @Test
+  public void testAbsentFields() throws Exception {
+    Order order = new Order(0L, null, null, null, null, null, null, false, '\0', null);
+
+    ByteBuffer encoded = OrderCodec.encode(order);
+
+    encoded.rewind();
+    Order decoded = OrderCodec.decode(encoded);
+    assertThat(decoded.customer, is(nullValue()));
+    assertThat(decoded.status, is(nullValue()));
+    assertThat(decoded.lines, is(nullValue()));
+    assertThat(decoded.gift, is(nullValue()));
+    assertThat(decoded.timestamps, is(nullValue()));
+    assertThat(decoded.signature, is(nullValue()));
+    assertThat(decoded.discount, is(nullValue()));
+
+    ByteBuffer empty = OrderCodec.STRUCT.encoder().encode();
+    empty.rewind();
+    decoded = OrderCodec.decode(empty);
+    assertThat(decoded.id, is(0L));
+    assertThat(decoded.express, is(false));
+    assertThat(decoded.priority, is('\0'));
+  }
+
+  @Test
+  public void testSameBytesAsHandWrittenEncoder() throws Exception {
+    Struct line = StructBuilder.newStructBuilder()
+        .string("product", 1)
+        .int32("quantity", 2)
+        .fp64("price", 3)
+        .build();
+    Struct order = StructBuilder.newStructBuilder()
+        .int64("id", 1)
+        .string("customer", 2)
+        .struct("gift", 4, line)
+        .structs("lines", 5, line)
+        .bool("express", 8)
+        .chr("priority", 9)
+        .build();
+
+    ByteBuffer expected = order.encoder()
+        .int64("id", 1L)
+        .string("customer", "joe")
+        .struct("gift")
+          .string("product", "cherry")
+          .int32("quantity", 10)
+        .end()
+        .structs("lines")
+          .add()
+            .string("product", "apple")
+            .int32("quantity", 3)
+            .fp64("price", 0.5)
+          .end()
+        .end()
+        .bool("express", false)
+        .chr("priority", 'B')
+        .encode();
+
+    ByteBuffer encoded = OrderCodec.encode(new Order(1L, "joe", null, Collections.singletonList(new Line("apple", 3, 0.5)),
+        new Line("cherry", 10, null), null, null, false, 'B', null));
+
+    assertThat(encoded.array(), is(expected.array()));
+  }
+
+  @Test
+  public void testCodecsComposeWithHandWrittenStructs() throws Exception {
+    Struct envelope = StructBuilder.newStructBuilder()
+        .string("sender", 1)
+        .struct("line", 2, Order_LineCodec.STRUCT)
+        .structs("lines", 3, Order_LineCodec.STRUCT)
+        .build();
+
+    ByteBuffer encoded = Order_LineCodec.encodeFields(envelope.encoder()
+        .string("sender", "joe")
+        .struct("line"), new Line("apple", 3, null))
+        .end()
+        .encode();
+
+    encoded.rewind();
+    StructDecoder<Void> decoder = envelope.decoder(encoded);
+    assertThat(decoder.string("sender"), is("joe"));
+    Line line = Order_LineCodec.decodeStruct(decoder.struct("line"));
+    assertThat(line.product, is("apple"));
+    assertThat(line.quantity, is(3));
+    assertThat(Order_LineCodec.decodeStructs(decoder.structs("lines")), is(nullValue()));
+  }
+
+  @Test
+  public void testNewerReaderOfOlderMessage() throws Exception {
+    ByteBuffer encoded = OrderCodec.encode(new Order(7L, "joe", Status.CANCELLED, null, null, null, null, true, 'A', null));
+
+    encoded.rewind();
+    OrderV2 decoded = OrderV2Codec.decode(encoded);
+    assertThat(decoded.id, is(7L));
+    assertThat(decoded.status, is(OrderV2.Status.CANCELLED));
+    assertThat(decoded.note, is(nullValue()));
+    assertThat(decoded.weights, is(nullValue()));
+  }
+
+  @Test
+  public void testOlderReaderOfNewerMessage() throws Exception {
+    OrderV2 order = new OrderV2();
+    order.id = 7L;
+    order.status = OrderV2.Status.RETURNED;
+    order.note = "damaged";
+    order.weights = new double[] {1.5};
+
+    ByteBuffer encoded = OrderV2Codec.encode(order);
+
+    encoded.rewind();
+    Order decoded = OrderCodec.decode(encoded);
+    assertThat(decoded.id, is(7L));
+    assertThat(decoded.status, is(nullValue()));
+    assertThat(decoded.customer, is(nullValue()));
+  }
+
+  @Test
+  public void testInvalidClassesRejected() throws Exception {
+    assertErrors("class Invalid { @RunnelField(index = 1) private int a; }", "must be neither private nor static");
+    assertErrors("class Invalid { @RunnelField(index = 0) int a; }", "must be strictly positive");
+    assertErrors("class Invalid { @RunnelField(index = 1) int a; @RunnelField(index = 1) int b; }", "Duplicate @RunnelField index 1");
+    assertErrors("class Invalid { @RunnelField(index = 1) float a; }", "Unsupported @RunnelField type float");
+    assertErrors("class Invalid { @RunnelField(index = 1) final int a; Invalid() { a = 0; } }", "can only be set by a constructor");
+    assertErrors("class Invalid { @RunnelField(index = 1) int a; Invalid(long a) { } }", "need a non-private constructor");
+    assertErrors("class Invalid { @RunnelField(index = 1) Invalid child; }", "Recursive");
+    assertErrors("class Invalid { enum E { @RunnelField(index = 1) A, B } @RunnelField(index = 1) E e; }", "must all be annotated");
+    assertErrors("class Invalid { @RunnelStruct class Inner { } }", "static nested");
+  }
+
+  private static void assertErrors(String source, String expectedError) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    File output = Files.createTempDirectory("runnel-processor").toFile();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+      String code = "import org.terracotta.runnel.annotations.*; @RunnelStruct " + source;
+      JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Invalid.java"), JavaFileObject.Kind.SOURCE) {
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+          return code;
+        }
+      };
+      List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", output.getPath(), "-proc:only");
+      JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, Collections.singletonList(file));
+      task.setProcessors(Collections.singletonList(new RunnelStructProcessor()));
+      assertThat(task.call(), is(false));
+    } finally {
+      deleteRecursively(output);
+    }
+
+    List<String> errors = new ArrayList<>();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        errors.add(diagnostic.getMessage(null));
+      }
+    }
+    assertThat(errors.toString(), errors.size(), is(1));
+    assertThat(errors.get(0), errors.get(0).contains(expectedError), is(true));
+  }
+
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+}
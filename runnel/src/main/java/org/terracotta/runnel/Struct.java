@@ -17,9 +17,30 @@
 package org.terracotta.runnel;
 
 import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.decoding.fields.ArrayField;
+import org.terracotta.runnel.decoding.fields.BoolField;
+import org.terracotta.runnel.decoding.fields.ByteBufferField;
+import org.terracotta.runnel.decoding.fields.CharField;
+import org.terracotta.runnel.decoding.fields.EnumField;
 import org.terracotta.runnel.decoding.fields.Field;
+import org.terracotta.runnel.decoding.fields.FloatingPoint64Field;
+import org.terracotta.runnel.decoding.fields.Int32Field;
+import org.terracotta.runnel.decoding.fields.Int64Field;
+import org.terracotta.runnel.decoding.fields.StringField;
 import org.terracotta.runnel.decoding.fields.StructField;
 import org.terracotta.runnel.encoding.StructEncoder;
+import org.terracotta.runnel.handles.ArrayHandle;
+import org.terracotta.runnel.handles.BoolHandle;
+import org.terracotta.runnel.handles.ByteBufferHandle;
+import org.terracotta.runnel.handles.ChrHandle;
+import org.terracotta.runnel.handles.EnmHandle;
+import org.terracotta.runnel.handles.Fp64Handle;
+import org.terracotta.runnel.handles.Int32Handle;
+import org.terracotta.runnel.handles.Int64Handle;
+import org.terracotta.runnel.handles.StringHandle;
+import org.terracotta.runnel.handles.StructArrayHandle;
+import org.terracotta.runnel.handles.StructHandle;
+import org.terracotta.runnel.metadata.Metadata;
 import org.terracotta.runnel.utils.ReadBuffer;
 
 import java.io.PrintStream;
@@ -55,6 +76,43 @@ public class Struct {
     return new StructEncoder<>(root);
   }
 
+  /**
+   * Create a non-thread safe encoder allowing encoding according to the present structure, writing directly into
+   * the given byte buffer starting at its current position. No intermediate buffer is used, so a
+   * {@link java.nio.BufferOverflowException} is thrown as soon as the byte buffer is too small.
+   * Note: this method is thread-safe.
+   * @param target the byte buffer to write into.
+   * @return the encoder.
+   */
+  public StructEncoder<Void> encoder(ByteBuffer target) {
+    root.checkFullyInitialized();
+    return new StructEncoder<>(root, target);
+  }
+
+  /**
+   * Create a non-thread safe encoder allowing encoding according to the present structure, which references the
+   * byte buffer and byte array values of at least {@code gatherThreshold} bytes instead of copying them. Such encoder
+   * is meant to be used with {@link StructEncoder#encodeSegments()} to encode large payloads without copying them.
+   * Note: this method is thread-safe.
+   * @param gatherThreshold the minimum size of the values to reference instead of copying, strictly positive.
+   * @return the encoder.
+   */
+  public StructEncoder<Void> gatheringEncoder(int gatherThreshold) {
+    root.checkFullyInitialized();
+    return new StructEncoder<>(root, gatherThreshold);
+  }
+
+  /**
+   * Create a non-thread safe decoder allowing decoding according to the present structure, which has nothing to
+   * decode until {@link StructDecoder#wrap(ByteBuffer)} gets called. Such decoder is meant to be reused.
+   * Note: this method is thread-safe.
+   * @return the decoder.
+   */
+  public StructDecoder<Void> decoder() {
+    root.checkFullyInitialized();
+    return new StructDecoder<>(root);
+  }
+
   /**
    * Create a non-thread safe decoder allowing decoding according to the present structure.
    * Note: this method is thread-safe.
@@ -66,6 +124,104 @@ public class Struct {
     return new StructDecoder<>(root, new ReadBuffer(byteBuffer));
   }
 
+  /**
+   * Create a non-thread safe decoder allowing decoding according to the present structure in random access mode:
+   * fields, including the fields of nested structs, can be read in any order and more than once. The fields are
+   * located with an index-to-offset table built on demand while skipping over them, and nested structs and arrays are
+   * decoded from views over the byte buffer. Decoding moves the position of the byte buffer back and forth within the
+   * encoded structure.
+   * Note: this method is thread-safe.
+   * @param byteBuffer the byte buffer containing the data to be decoded.
+   * @return the decoder.
+   */
+  public StructDecoder<Void> randomAccessDecoder(ByteBuffer byteBuffer) {
+    root.checkFullyInitialized();
+    return new StructDecoder<>(root, new ReadBuffer(byteBuffer), null, true);
+  }
+
+  /*
+   * Field handles: looked up and type-checked once, then usable by any encoder or decoder of this structure.
+   * Note: these methods are thread-safe.
+   */
+
+  public BoolHandle boolHandle(String name) {
+    return new BoolHandle(field(name, BoolField.class, null), metadata());
+  }
+
+  public ChrHandle chrHandle(String name) {
+    return new ChrHandle(field(name, CharField.class, null), metadata());
+  }
+
+  @SuppressWarnings("unchecked")
+  public <E> EnmHandle<E> enmHandle(String name) {
+    return new EnmHandle<E>(field(name, EnumField.class, null), metadata());
+  }
+
+  public Int32Handle int32Handle(String name) {
+    return new Int32Handle(field(name, Int32Field.class, null), metadata());
+  }
+
+  public Int64Handle int64Handle(String name) {
+    return new Int64Handle(field(name, Int64Field.class, null), metadata());
+  }
+
+  public Fp64Handle fp64Handle(String name) {
+    return new Fp64Handle(field(name, FloatingPoint64Field.class, null), metadata());
+  }
+
+  public StringHandle stringHandle(String name) {
+    return new StringHandle(field(name, StringField.class, null), metadata());
+  }
+
+  public ByteBufferHandle byteBufferHandle(String name) {
+    return new ByteBufferHandle(field(name, ByteBufferField.class, null), metadata());
+  }
+
+  public StructHandle structHandle(String name) {
+    return new StructHandle(field(name, StructField.class, null), metadata());
+  }
+
+  public ArrayHandle<BoolHandle> boolsHandle(String name) {
+    return new ArrayHandle<>(field(name, ArrayField.class, BoolField.class), metadata());
+  }
+
+  public ArrayHandle<ChrHandle> chrsHandle(String name) {
+    return new ArrayHandle<>(field(name, ArrayField.class, CharField.class), metadata());
+  }
+
+  public ArrayHandle<Int32Handle> int32sHandle(String name) {
+    return new ArrayHandle<>(field(name, ArrayField.class, Int32Field.class), metadata());
+  }
+
+  public ArrayHandle<Int64Handle> int64sHandle(String name) {
+    return new ArrayHandle<>(field(name, ArrayField.class, Int64Field.class), metadata());
+  }
+
+  public ArrayHandle<Fp64Handle> fp64sHandle(String name) {
+    return new ArrayHandle<>(field(name, ArrayField.class, FloatingPoint64Field.class), metadata());
+  }
+
+  public ArrayHandle<StringHandle> stringsHandle(String name) {
+    return new ArrayHandle<>(field(name, ArrayField.class, StringField.class), metadata());
+  }
+
+  public ArrayHandle<ByteBufferHandle> byteBuffersHandle(String name) {
+    return new ArrayHandle<>(field(name, ArrayField.class, ByteBufferField.class), metadata());
+  }
+
+  public StructArrayHandle structsHandle(String name) {
+    return new StructArrayHandle(field(name, ArrayField.class, StructField.class), metadata());
+  }
+
+  private <T extends Field> T field(String name, Class<T> fieldClazz, Class<? extends Field> subFieldClazz) {
+    root.checkFullyInitialized();
+    return metadata().getField(name, fieldClazz, subFieldClazz);
+  }
+
+  private Metadata metadata() {
+    return root.getMetadata();
+  }
+
   /**
    * Recursively decode a byte buffer according to the present structure and print the decoded outcome to a print stream.
    * Note: this method is thread-safe.
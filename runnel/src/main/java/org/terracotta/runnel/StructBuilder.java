@@ -96,6 +96,20 @@ public class StructBuilder {
     return this;
   }
 
+  /**
+   * Add a string field whose values are written in full only the first time they occur in an encoded message, later
+   * occurrences being written as references to the first one and decoded as the same string instance. This pays off
+   * for values repeated across struct array elements. Such field is not wire compatible with a {@link #string} field.
+   * @param name the field name.
+   * @param index the field index.
+   * @return this builder.
+   */
+  public StructBuilder dictionaryString(String name, int index) {
+    checkParams(name, index);
+    structField.addField(new StringField(name, index, true));
+    return this;
+  }
+
   public StructBuilder byteBuffer(String name, int index) {
     checkParams(name, index);
     structField.addField(new ByteBufferField(name, index));
@@ -144,6 +158,19 @@ public class StructBuilder {
     return this;
   }
 
+  /**
+   * Add a string array field whose values are encoded like the ones of a {@link #dictionaryString} field, sharing the
+   * same per-message dictionary.
+   * @param name the field name.
+   * @param index the field index.
+   * @return this builder.
+   */
+  public StructBuilder dictionaryStrings(String name, int index) {
+    checkParams(name, index);
+    structField.addField(new ArrayField(name, index, new StringField(name, index, true)));
+    return this;
+  }
+
   public StructBuilder byteBuffers(String name, int index) {
     checkParams(name, index);
     structField.addField(new ArrayField(name, index, new ByteBufferField(name, index)));
@@ -0,0 +1,41 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a {@link RunnelStruct} annotated class to be encoded with the given index, or maps an enum constant
+ * to the given value.
+ * <p>
+ * Indexes and values are what gets encoded, so fields and enum constants can be renamed or reordered freely. To
+ * evolve a structure safely, add fields with new indexes and never reuse the index of a removed field.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface RunnelField {
+
+  /**
+   * @return the field index, which must be strictly positive, or the enum constant value, which must be positive or
+   * zero.
+   */
+  int index();
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which the runnel annotation processor generates a codec class named after it with a
+ * {@code Codec} suffix, in the same package. The codec encodes and decodes the class' {@link RunnelField} annotated
+ * fields, which must not be private.
+ * <p>
+ * Decoded instances are created with the constructor whose parameters match the annotated fields' types in
+ * declaration order if there is one, otherwise with the no-arg constructor, the annotated fields then being assigned
+ * one by one.
+ * <p>
+ * Supported field types are: {@code boolean}, {@code char}, {@code int}, {@code long}, {@code double} and their
+ * wrappers, {@link String}, {@link java.nio.ByteBuffer}, {@code int[]}, {@code long[]}, {@code double[]}, enums whose
+ * constants are all annotated with {@link RunnelField}, other {@link RunnelStruct} annotated classes and
+ * {@link java.util.List}s of them, which must not contain {@code null} elements; list elements without any encoded
+ * field are dropped. Absent fields are decoded as
+ * {@code null}, or as the default value of primitive types, and so are enum values unknown to the decoding side.
+ * Byte buffers are decoded as views over the decoded buffer.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface RunnelStruct {
+}
@@ -46,6 +46,34 @@ public class ArrayDecoder<T, P> {
     return arrayedField.decode(readBuffer);
   }
 
+  int values(int[] target) {
+    checkCapacity(target.length);
+    readBuffer.getInt32Array(target, length);
+    readBuffer.skipAll();
+    return length;
+  }
+
+  int values(long[] target) {
+    checkCapacity(target.length);
+    readBuffer.getInt64Array(target, length);
+    readBuffer.skipAll();
+    return length;
+  }
+
+  int values(double[] target) {
+    checkCapacity(target.length);
+    readBuffer.getFp64Array(target, length);
+    readBuffer.skipAll();
+    return length;
+  }
+
+  private void checkCapacity(int capacity) {
+    if (capacity < length) {
+      readBuffer.skipAll();
+      throw new IllegalArgumentException("Cannot decode array of length " + length + " into an array of length " + capacity);
+    }
+  }
+
   public P end() {
     readBuffer.skipAll();
 
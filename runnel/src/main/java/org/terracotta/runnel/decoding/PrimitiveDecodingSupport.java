@@ -16,6 +16,15 @@
  */
 package org.terracotta.runnel.decoding;
 
+import org.terracotta.runnel.handles.BoolHandle;
+import org.terracotta.runnel.handles.ByteBufferHandle;
+import org.terracotta.runnel.handles.ChrHandle;
+import org.terracotta.runnel.handles.EnmHandle;
+import org.terracotta.runnel.handles.Fp64Handle;
+import org.terracotta.runnel.handles.Int32Handle;
+import org.terracotta.runnel.handles.Int64Handle;
+import org.terracotta.runnel.handles.StringHandle;
+
 import java.nio.ByteBuffer;
 
 /**
@@ -30,6 +39,13 @@ public interface PrimitiveDecodingSupport {
    */
   Boolean bool(String name);
 
+  /**
+   * Decode a boolean.
+   * @param handle the field handle.
+   * @return the decoded value, or null if it was absent from the data.
+   */
+  Boolean bool(BoolHandle handle);
+
   /**
    * Decode a character.
    * @param name the field name.
@@ -37,6 +53,13 @@ public interface PrimitiveDecodingSupport {
    */
   Character chr(String name);
 
+  /**
+   * Decode a character.
+   * @param handle the field handle.
+   * @return the decoded value, or null if it was absent from the data.
+   */
+  Character chr(ChrHandle handle);
+
   /**
    * Decode a 32-bit integer.
    * @param name the field name.
@@ -44,6 +67,13 @@ public interface PrimitiveDecodingSupport {
    */
   Integer int32(String name);
 
+  /**
+   * Decode a 32-bit integer.
+   * @param handle the field handle.
+   * @return the decoded value, or null if it was absent from the data.
+   */
+  Integer int32(Int32Handle handle);
+
   /**
    * Decode an enumeration.
    * @param name the field name.
@@ -52,6 +82,14 @@ public interface PrimitiveDecodingSupport {
    */
   <E> Enm<E> enm(String name);
 
+  /**
+   * Decode an enumeration.
+   * @param handle the field handle.
+   * @return the decoded enumeration representation which can never be null.
+   * @param <E> the enumeration's actual type.
+   */
+  <E> Enm<E> enm(EnmHandle<E> handle);
+
   /**
    * Decode a 64-bit integer.
    * @param name the field name.
@@ -59,6 +97,13 @@ public interface PrimitiveDecodingSupport {
    */
   Long int64(String name);
 
+  /**
+   * Decode a 64-bit integer.
+   * @param handle the field handle.
+   * @return the decoded value, or null if it was absent from the data.
+   */
+  Long int64(Int64Handle handle);
+
   /**
    * Decode a 64-bit, double-precision floating point number.
    * @param name the field name.
@@ -66,6 +111,13 @@ public interface PrimitiveDecodingSupport {
    */
   Double fp64(String name);
 
+  /**
+   * Decode a 64-bit, double-precision floating point number.
+   * @param handle the field handle.
+   * @return the decoded value, or null if it was absent from the data.
+   */
+  Double fp64(Fp64Handle handle);
+
   /**
    * Decode a character string.
    * @param name the field name.
@@ -73,6 +125,13 @@ public interface PrimitiveDecodingSupport {
    */
   String string(String name);
 
+  /**
+   * Decode a character string.
+   * @param handle the field handle.
+   * @return the decoded value, or null if it was absent from the data.
+   */
+  String string(StringHandle handle);
+
   /**
    * Decode a byte buffer.
    * @param name the field name.
@@ -80,4 +139,91 @@ public interface PrimitiveDecodingSupport {
    */
   ByteBuffer byteBuffer(String name);
 
+  /**
+   * Decode a byte buffer.
+   * @param handle the field handle.
+   * @return the decoded value, or null if it was absent from the data.
+   */
+  ByteBuffer byteBuffer(ByteBufferHandle handle);
+
+  /**
+   * Decode a boolean without boxing it.
+   * @param name the field name.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  boolean boolOrDefault(String name, boolean defaultValue);
+
+  /**
+   * Decode a boolean without boxing it.
+   * @param handle the field handle.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  boolean boolOrDefault(BoolHandle handle, boolean defaultValue);
+
+  /**
+   * Decode a character without boxing it.
+   * @param name the field name.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  char chrOrDefault(String name, char defaultValue);
+
+  /**
+   * Decode a character without boxing it.
+   * @param handle the field handle.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  char chrOrDefault(ChrHandle handle, char defaultValue);
+
+  /**
+   * Decode a 32-bit integer without boxing it.
+   * @param name the field name.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  int int32OrDefault(String name, int defaultValue);
+
+  /**
+   * Decode a 32-bit integer without boxing it.
+   * @param handle the field handle.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  int int32OrDefault(Int32Handle handle, int defaultValue);
+
+  /**
+   * Decode a 64-bit integer without boxing it.
+   * @param name the field name.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  long int64OrDefault(String name, long defaultValue);
+
+  /**
+   * Decode a 64-bit integer without boxing it.
+   * @param handle the field handle.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  long int64OrDefault(Int64Handle handle, long defaultValue);
+
+  /**
+   * Decode a 64-bit, double-precision floating point number without boxing it.
+   * @param name the field name.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  double fp64OrDefault(String name, double defaultValue);
+
+  /**
+   * Decode a 64-bit, double-precision floating point number without boxing it.
+   * @param handle the field handle.
+   * @param defaultValue the value to return if the field is absent from the data.
+   * @return the decoded value, or the default value if it was absent from the data.
+   */
+  double fp64OrDefault(Fp64Handle handle, double defaultValue);
+
 }
@@ -30,12 +30,26 @@ public class StructArrayDecoder<P> implements Iterator<StructDecoder<StructArray
   private final ReadBuffer arrayReadBuffer;
   private final int arrayLength;
   private final StructField field;
+  private final boolean randomAccess;
 
   private StructDecoder<StructArrayDecoder<P>> current = null;
 
   public StructArrayDecoder(StructField field, ReadBuffer readBuffer, P parent) {
+    this(field, readBuffer, parent, false);
+  }
+
+  /**
+   * Create a struct array decoder. In random access mode, elements are decoded from views over the array, so they
+   * remain usable after moving on to the next elements, and their fields can be read in any order.
+   * @param field the struct field of the elements.
+   * @param readBuffer the read buffer, positioned on the size of the array.
+   * @param parent the parent decoder.
+   * @param randomAccess true to decode the elements in random access mode.
+   */
+  public StructArrayDecoder(StructField field, ReadBuffer readBuffer, P parent, boolean randomAccess) {
     this.parent = parent;
     this.field = field;
+    this.randomAccess = randomAccess;
     int arraySize = readBuffer.getVlqInt();
     this.arrayReadBuffer = readBuffer.limit(arraySize);
     this.arrayLength = readBuffer.getVlqInt();
@@ -57,6 +71,15 @@ public class StructArrayDecoder<P> implements Iterator<StructDecoder<StructArray
   }
 
   public StructDecoder<StructArrayDecoder<P>> next() {
+    if (randomAccess) {
+      if (arrayReadBuffer.limitReached()) {
+        throw new NoSuchElementException();
+      }
+      StructDecoder<StructArrayDecoder<P>> element = new StructDecoder<>(field, arrayReadBuffer.view(), this, true);
+      arrayReadBuffer.skip(arrayReadBuffer.getVlqInt());
+      return element;
+    }
+
     if (current != null) {
       current.end();
     }
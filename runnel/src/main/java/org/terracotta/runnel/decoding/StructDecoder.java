@@ -25,6 +25,17 @@ import org.terracotta.runnel.decoding.fields.Int32Field;
 import org.terracotta.runnel.decoding.fields.Int64Field;
 import org.terracotta.runnel.decoding.fields.StringField;
 import org.terracotta.runnel.decoding.fields.StructField;
+import org.terracotta.runnel.handles.ArrayHandle;
+import org.terracotta.runnel.handles.BoolHandle;
+import org.terracotta.runnel.handles.ByteBufferHandle;
+import org.terracotta.runnel.handles.ChrHandle;
+import org.terracotta.runnel.handles.EnmHandle;
+import org.terracotta.runnel.handles.Fp64Handle;
+import org.terracotta.runnel.handles.Int32Handle;
+import org.terracotta.runnel.handles.Int64Handle;
+import org.terracotta.runnel.handles.StringHandle;
+import org.terracotta.runnel.handles.StructArrayHandle;
+import org.terracotta.runnel.handles.StructHandle;
 import org.terracotta.runnel.metadata.FieldDecoder;
 import org.terracotta.runnel.utils.ReadBuffer;
 
@@ -36,19 +47,60 @@ import java.nio.ByteBuffer;
  */
 public class StructDecoder<P> implements PrimitiveDecodingSupport {
 
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
   private final FieldDecoder fieldDecoder;
   private final ReadBuffer readBuffer;
   private final P parent;
 
+  /**
+   * Create a root decoder which has nothing to decode until {@link #wrap(ByteBuffer)} gets called.
+   * @param structField the root struct field.
+   */
+  public StructDecoder(StructField structField) {
+    this.parent = null;
+    this.readBuffer = new ReadBuffer(EMPTY);
+    this.fieldDecoder = structField.getMetadata().fieldDecoder(this.readBuffer);
+  }
+
   public StructDecoder(StructField structField, ReadBuffer readBuffer) {
     this(structField, readBuffer, null);
   }
 
   public StructDecoder(StructField structField, ReadBuffer readBuffer, P parent) {
+    this(structField, readBuffer, parent, false);
+  }
+
+  /**
+   * Create a decoder, optionally in random access mode where fields can be read in any order and more than once.
+   * @param structField the struct field.
+   * @param readBuffer the read buffer, positioned on the size of the struct.
+   * @param parent the parent decoder.
+   * @param randomAccess true to decode in random access mode.
+   * @see org.terracotta.runnel.Struct#randomAccessDecoder(ByteBuffer)
+   */
+  public StructDecoder(StructField structField, ReadBuffer readBuffer, P parent, boolean randomAccess) {
     this.parent = parent;
     int size = readBuffer.getVlqInt();
     this.readBuffer = readBuffer.limit(size);
-    this.fieldDecoder = structField.getMetadata().fieldDecoder(this.readBuffer);
+    this.fieldDecoder = structField.getMetadata().fieldDecoder(this.readBuffer, randomAccess);
+  }
+
+  /**
+   * Make this decoder decode another structure, starting at the current position of the given byte buffer, without
+   * allocating a new decoder. Sub-decoders obtained before must not be used anymore.
+   * @param byteBuffer the byte buffer containing the data to be decoded.
+   * @return this.
+   */
+  public StructDecoder<P> wrap(ByteBuffer byteBuffer) {
+    if (parent != null) {
+      throw new IllegalStateException("Cannot wrap non-root decoder");
+    }
+    readBuffer.reset(byteBuffer, byteBuffer.remaining());
+    int size = readBuffer.getVlqInt();
+    readBuffer.reset(byteBuffer, size);
+    fieldDecoder.reset();
+    return this;
   }
 
   @Override
@@ -56,16 +108,31 @@ public class StructDecoder<P> implements PrimitiveDecodingSupport {
     return fieldDecoder.decodeValue(name, BoolField.class);
   }
 
+  @Override
+  public Boolean bool(BoolHandle handle) {
+    return fieldDecoder.decodeValue(handle);
+  }
+
   @Override
   public Character chr(String name) {
     return fieldDecoder.decodeValue(name, CharField.class);
   }
 
+  @Override
+  public Character chr(ChrHandle handle) {
+    return fieldDecoder.decodeValue(handle);
+  }
+
   @Override
   public Integer int32(String name) {
     return fieldDecoder.decodeValue(name, Int32Field.class);
   }
 
+  @Override
+  public Integer int32(Int32Handle handle) {
+    return fieldDecoder.decodeValue(handle);
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <E> Enm<E> enm(String name) {
@@ -76,63 +143,337 @@ public class StructDecoder<P> implements PrimitiveDecodingSupport {
     return enm;
   }
 
+  @Override
+  public <E> Enm<E> enm(EnmHandle<E> handle) {
+    Enm<E> enm = fieldDecoder.decodeValue(handle);
+    if (enm == null) {
+      return new Enm<>(handle.name());
+    }
+    return enm;
+  }
+
   @Override
   public Long int64(String name) {
     return fieldDecoder.decodeValue(name, Int64Field.class);
   }
 
+  @Override
+  public Long int64(Int64Handle handle) {
+    return fieldDecoder.decodeValue(handle);
+  }
+
   @Override
   public Double fp64(String name) {
     return fieldDecoder.decodeValue(name, FloatingPoint64Field.class);
   }
 
+  @Override
+  public Double fp64(Fp64Handle handle) {
+    return fieldDecoder.decodeValue(handle);
+  }
+
+  @Override
+  public boolean boolOrDefault(String name, boolean defaultValue) {
+    return fieldDecoder.decodeBool(name, defaultValue);
+  }
+
+  @Override
+  public boolean boolOrDefault(BoolHandle handle, boolean defaultValue) {
+    return fieldDecoder.decodeBool(handle, defaultValue);
+  }
+
+  @Override
+  public char chrOrDefault(String name, char defaultValue) {
+    return fieldDecoder.decodeChr(name, defaultValue);
+  }
+
+  @Override
+  public char chrOrDefault(ChrHandle handle, char defaultValue) {
+    return fieldDecoder.decodeChr(handle, defaultValue);
+  }
+
+  @Override
+  public int int32OrDefault(String name, int defaultValue) {
+    return fieldDecoder.decodeInt32(name, defaultValue);
+  }
+
+  @Override
+  public int int32OrDefault(Int32Handle handle, int defaultValue) {
+    return fieldDecoder.decodeInt32(handle, defaultValue);
+  }
+
+  @Override
+  public long int64OrDefault(String name, long defaultValue) {
+    return fieldDecoder.decodeInt64(name, defaultValue);
+  }
+
+  @Override
+  public long int64OrDefault(Int64Handle handle, long defaultValue) {
+    return fieldDecoder.decodeInt64(handle, defaultValue);
+  }
+
+  @Override
+  public double fp64OrDefault(String name, double defaultValue) {
+    return fieldDecoder.decodeFp64(name, defaultValue);
+  }
+
+  @Override
+  public double fp64OrDefault(Fp64Handle handle, double defaultValue) {
+    return fieldDecoder.decodeFp64(handle, defaultValue);
+  }
+
   @Override
   public String string(String name) {
     return fieldDecoder.decodeValue(name, StringField.class);
   }
 
+  @Override
+  public String string(StringHandle handle) {
+    return fieldDecoder.decodeValue(handle);
+  }
+
   @Override
   public ByteBuffer byteBuffer(String name) {
     return fieldDecoder.decodeValue(name, ByteBufferField.class);
   }
 
+  @Override
+  public ByteBuffer byteBuffer(ByteBufferHandle handle) {
+    return fieldDecoder.decodeValue(handle);
+  }
+
 
   public ArrayDecoder<Integer, StructDecoder<P>> int32s(String name) {
     return fieldDecoder.decodeValueArray(name, Int32Field.class, this);
   }
 
+  public ArrayDecoder<Integer, StructDecoder<P>> int32s(ArrayHandle<Int32Handle> handle) {
+    return fieldDecoder.decodeValueArray(handle, this);
+  }
+
+  /**
+   * Decode an array of 32-bit integers into a new primitive array, without boxing the values.
+   * @param name the field name.
+   * @return the decoded values, or null if the field is absent.
+   */
+  public int[] int32Array(String name) {
+    return int32Array(fieldDecoder.decodeValueArray(name, Int32Field.class, this));
+  }
+
+  /**
+   * Decode an array of 32-bit integers into a new primitive array, without boxing the values.
+   * @param handle the field handle.
+   * @return the decoded values, or null if the field is absent.
+   */
+  public int[] int32Array(ArrayHandle<Int32Handle> handle) {
+    return int32Array(fieldDecoder.decodeValueArray(handle, this));
+  }
+
+  /**
+   * Decode an array of 32-bit integers into the given primitive array, without boxing the values.
+   * @param name the field name.
+   * @param target the array to fill, starting at index 0.
+   * @return the number of decoded values, or -1 if the field is absent.
+   * @throws IllegalArgumentException if the target array is too small, in which case the field is skipped.
+   */
+  public int int32s(String name, int[] target) {
+    return int32s(fieldDecoder.decodeValueArray(name, Int32Field.class, this), target);
+  }
+
+  /**
+   * Decode an array of 32-bit integers into the given primitive array, without boxing the values.
+   * @param handle the field handle.
+   * @param target the array to fill, starting at index 0.
+   * @return the number of decoded values, or -1 if the field is absent.
+   * @throws IllegalArgumentException if the target array is too small, in which case the field is skipped.
+   */
+  public int int32s(ArrayHandle<Int32Handle> handle, int[] target) {
+    return int32s(fieldDecoder.decodeValueArray(handle, this), target);
+  }
+
+  private static int[] int32Array(ArrayDecoder<Integer, ?> arrayDecoder) {
+    if (arrayDecoder == null) {
+      return null;
+    }
+    int[] values = new int[arrayDecoder.length()];
+    arrayDecoder.values(values);
+    return values;
+  }
+
+  private static int int32s(ArrayDecoder<Integer, ?> arrayDecoder, int[] target) {
+    return arrayDecoder == null ? -1 : arrayDecoder.values(target);
+  }
+
   public ArrayDecoder<Boolean, StructDecoder<P>> bools(String name) {
     return fieldDecoder.decodeValueArray(name, BoolField.class, this);
   }
 
+  public ArrayDecoder<Boolean, StructDecoder<P>> bools(ArrayHandle<BoolHandle> handle) {
+    return fieldDecoder.decodeValueArray(handle, this);
+  }
+
   public ArrayDecoder<Character, StructDecoder<P>> chrs(String name) {
     return fieldDecoder.decodeValueArray(name, CharField.class, this);
   }
 
+  public ArrayDecoder<Character, StructDecoder<P>> chrs(ArrayHandle<ChrHandle> handle) {
+    return fieldDecoder.decodeValueArray(handle, this);
+  }
+
   public ArrayDecoder<Long, StructDecoder<P>> int64s(String name) {
     return fieldDecoder.decodeValueArray(name, Int64Field.class, this);
   }
 
+  public ArrayDecoder<Long, StructDecoder<P>> int64s(ArrayHandle<Int64Handle> handle) {
+    return fieldDecoder.decodeValueArray(handle, this);
+  }
+
+  /**
+   * Decode an array of 64-bit integers into a new primitive array, without boxing the values.
+   * @param name the field name.
+   * @return the decoded values, or null if the field is absent.
+   */
+  public long[] int64Array(String name) {
+    return int64Array(fieldDecoder.decodeValueArray(name, Int64Field.class, this));
+  }
+
+  /**
+   * Decode an array of 64-bit integers into a new primitive array, without boxing the values.
+   * @param handle the field handle.
+   * @return the decoded values, or null if the field is absent.
+   */
+  public long[] int64Array(ArrayHandle<Int64Handle> handle) {
+    return int64Array(fieldDecoder.decodeValueArray(handle, this));
+  }
+
+  /**
+   * Decode an array of 64-bit integers into the given primitive array, without boxing the values.
+   * @param name the field name.
+   * @param target the array to fill, starting at index 0.
+   * @return the number of decoded values, or -1 if the field is absent.
+   * @throws IllegalArgumentException if the target array is too small, in which case the field is skipped.
+   */
+  public int int64s(String name, long[] target) {
+    return int64s(fieldDecoder.decodeValueArray(name, Int64Field.class, this), target);
+  }
+
+  /**
+   * Decode an array of 64-bit integers into the given primitive array, without boxing the values.
+   * @param handle the field handle.
+   * @param target the array to fill, starting at index 0.
+   * @return the number of decoded values, or -1 if the field is absent.
+   * @throws IllegalArgumentException if the target array is too small, in which case the field is skipped.
+   */
+  public int int64s(ArrayHandle<Int64Handle> handle, long[] target) {
+    return int64s(fieldDecoder.decodeValueArray(handle, this), target);
+  }
+
+  private static long[] int64Array(ArrayDecoder<Long, ?> arrayDecoder) {
+    if (arrayDecoder == null) {
+      return null;
+    }
+    long[] values = new long[arrayDecoder.length()];
+    arrayDecoder.values(values);
+    return values;
+  }
+
+  private static int int64s(ArrayDecoder<Long, ?> arrayDecoder, long[] target) {
+    return arrayDecoder == null ? -1 : arrayDecoder.values(target);
+  }
+
   public ArrayDecoder<Double, StructDecoder<P>> fp64s(String name) {
     return fieldDecoder.decodeValueArray(name, FloatingPoint64Field.class, this);
   }
 
+  public ArrayDecoder<Double, StructDecoder<P>> fp64s(ArrayHandle<Fp64Handle> handle) {
+    return fieldDecoder.decodeValueArray(handle, this);
+  }
+
+  /**
+   * Decode an array of 64-bit floating points into a new primitive array, without boxing the values.
+   * @param name the field name.
+   * @return the decoded values, or null if the field is absent.
+   */
+  public double[] fp64Array(String name) {
+    return fp64Array(fieldDecoder.decodeValueArray(name, FloatingPoint64Field.class, this));
+  }
+
+  /**
+   * Decode an array of 64-bit floating points into a new primitive array, without boxing the values.
+   * @param handle the field handle.
+   * @return the decoded values, or null if the field is absent.
+   */
+  public double[] fp64Array(ArrayHandle<Fp64Handle> handle) {
+    return fp64Array(fieldDecoder.decodeValueArray(handle, this));
+  }
+
+  /**
+   * Decode an array of 64-bit floating points into the given primitive array, without boxing the values.
+   * @param name the field name.
+   * @param target the array to fill, starting at index 0.
+   * @return the number of decoded values, or -1 if the field is absent.
+   * @throws IllegalArgumentException if the target array is too small, in which case the field is skipped.
+   */
+  public int fp64s(String name, double[] target) {
+    return fp64s(fieldDecoder.decodeValueArray(name, FloatingPoint64Field.class, this), target);
+  }
+
+  /**
+   * Decode an array of 64-bit floating points into the given primitive array, without boxing the values.
+   * @param handle the field handle.
+   * @param target the array to fill, starting at index 0.
+   * @return the number of decoded values, or -1 if the field is absent.
+   * @throws IllegalArgumentException if the target array is too small, in which case the field is skipped.
+   */
+  public int fp64s(ArrayHandle<Fp64Handle> handle, double[] target) {
+    return fp64s(fieldDecoder.decodeValueArray(handle, this), target);
+  }
+
+  private static double[] fp64Array(ArrayDecoder<Double, ?> arrayDecoder) {
+    if (arrayDecoder == null) {
+      return null;
+    }
+    double[] values = new double[arrayDecoder.length()];
+    arrayDecoder.values(values);
+    return values;
+  }
+
+  private static int fp64s(ArrayDecoder<Double, ?> arrayDecoder, double[] target) {
+    return arrayDecoder == null ? -1 : arrayDecoder.values(target);
+  }
+
   public ArrayDecoder<String, StructDecoder<P>> strings(String name) {
     return fieldDecoder.decodeValueArray(name, StringField.class, this);
   }
 
+  public ArrayDecoder<String, StructDecoder<P>> strings(ArrayHandle<StringHandle> handle) {
+    return fieldDecoder.decodeValueArray(handle, this);
+  }
+
   public ArrayDecoder<ByteBuffer, StructDecoder<P>> byteBuffers(String name) {
     return fieldDecoder.decodeValueArray(name, ByteBufferField.class, this);
   }
 
+  public ArrayDecoder<ByteBuffer, StructDecoder<P>> byteBuffers(ArrayHandle<ByteBufferHandle> handle) {
+    return fieldDecoder.decodeValueArray(handle, this);
+  }
+
   public StructDecoder<StructDecoder<P>> struct(String name) {
     return fieldDecoder.decodeStruct(name, this);
   }
 
+  public StructDecoder<StructDecoder<P>> struct(StructHandle handle) {
+    return fieldDecoder.decodeStruct(handle, this);
+  }
+
   public StructArrayDecoder<StructDecoder<P>> structs(String name) {
     return fieldDecoder.decodeStructArray(name, this);
   }
 
+  public StructArrayDecoder<StructDecoder<P>> structs(StructArrayHandle handle) {
+    return fieldDecoder.decodeStructArray(handle, this);
+  }
+
   public P end() {
     if (parent == null) {
       throw new IllegalStateException("Cannot end root decoder");
@@ -30,6 +30,15 @@ public class BoolField extends AbstractValueField<Boolean> {
 
   @Override
   public Boolean decode(ReadBuffer readBuffer) {
+    return decodeBool(readBuffer);
+  }
+
+  /**
+   * Decode the field's value without boxing it.
+   * @param readBuffer the read buffer, positioned on the field's size.
+   * @return the decoded value.
+   */
+  public boolean decodeBool(ReadBuffer readBuffer) {
     int size = readBuffer.getVlqInt();
     if (size != 1) {
       throw new CorruptDataException("Expected field size of 1, read : " + size);
@@ -30,6 +30,15 @@ public class CharField extends AbstractValueField<Character> {
 
   @Override
   public Character decode(ReadBuffer readBuffer) {
+    return decodeChr(readBuffer);
+  }
+
+  /**
+   * Decode the field's value without boxing it.
+   * @param readBuffer the read buffer, positioned on the field's size.
+   * @return the decoded value.
+   */
+  public char decodeChr(ReadBuffer readBuffer) {
     int size = readBuffer.getVlqInt();
     if (size != 2) {
       throw new CorruptDataException("Expected field size of 2, read : " + size);
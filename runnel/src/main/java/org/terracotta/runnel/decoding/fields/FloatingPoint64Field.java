@@ -30,6 +30,15 @@ public class FloatingPoint64Field extends AbstractValueField<Double> {
 
   @Override
   public Double decode(ReadBuffer readBuffer) {
+    return decodeFp64(readBuffer);
+  }
+
+  /**
+   * Decode the field's value without boxing it.
+   * @param readBuffer the read buffer, positioned on the field's size.
+   * @return the decoded value.
+   */
+  public double decodeFp64(ReadBuffer readBuffer) {
     int size = readBuffer.getVlqInt();
     if (size != 8) {
       throw new CorruptDataException("Expected field size of 8, read : " + size);
@@ -30,6 +30,15 @@ public class Int32Field extends AbstractValueField<Integer> {
 
   @Override
   public Integer decode(ReadBuffer readBuffer) {
+    return decodeInt32(readBuffer);
+  }
+
+  /**
+   * Decode the field's value without boxing it.
+   * @param readBuffer the read buffer, positioned on the field's size.
+   * @return the decoded value.
+   */
+  public int decodeInt32(ReadBuffer readBuffer) {
     int size = readBuffer.getVlqInt();
     if (size != 4) {
       throw new CorruptDataException("Expected field size of 4, read : " + size);
@@ -30,6 +30,15 @@ public class Int64Field extends AbstractValueField<Long> {
 
   @Override
   public Long decode(ReadBuffer readBuffer) {
+    return decodeInt64(readBuffer);
+  }
+
+  /**
+   * Decode the field's value without boxing it.
+   * @param readBuffer the read buffer, positioned on the field's size.
+   * @return the decoded value.
+   */
+  public long decodeInt64(ReadBuffer readBuffer) {
     int size = readBuffer.getVlqInt();
     if (size != 8) {
       throw new CorruptDataException("Expected field size of 8, read : " + size);
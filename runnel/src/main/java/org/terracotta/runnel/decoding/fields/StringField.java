@@ -22,12 +22,29 @@ import org.terracotta.runnel.utils.ReadBuffer;
  * @author Ludovic Orban
  */
 public class StringField extends AbstractValueField<String> {
+  private final boolean dictionary;
+
   public StringField(String name, int index) {
+    this(name, index, false);
+  }
+
+  /**
+   * @param dictionary true if the field's values are encoded as entries of the message's string dictionary.
+   */
+  public StringField(String name, int index, boolean dictionary) {
     super(name, index);
+    this.dictionary = dictionary;
+  }
+
+  public boolean isDictionary() {
+    return dictionary;
   }
 
   @Override
   public String decode(ReadBuffer readBuffer) {
+    if (dictionary) {
+      return readBuffer.getDictionaryString();
+    }
     int len = readBuffer.getVlqInt();
     return readBuffer.getString(len);
   }
@@ -16,32 +16,36 @@
  */
 package org.terracotta.runnel.encoding;
 
-import org.terracotta.runnel.encoding.dataholders.DataHolder;
-
-import java.util.List;
+import org.terracotta.runnel.utils.StreamingWriteBuffer;
 
 /**
  * @author Ludovic Orban
  */
 public abstract class ArrayEncoder<T, P> {
 
+  private final StreamingWriteBuffer writeBuffer;
+  private final int level;
+  private final int frameId;
   private final P parent;
-  private final List<DataHolder> values;
 
-  ArrayEncoder(List<DataHolder> values, P parent) {
-    this.values = values;
+  ArrayEncoder(StreamingWriteBuffer writeBuffer, int level, int frameId, P parent) {
+    this.writeBuffer = writeBuffer;
+    this.level = level;
+    this.frameId = frameId;
     this.parent = parent;
   }
 
   public ArrayEncoder<T, P> value(T value) {
-    DataHolder dataHolder = buildDataHolder(value);
-    this.values.add(dataHolder);
+    writeBuffer.enter(level, frameId);
+    encodeValue(writeBuffer, value);
+    writeBuffer.countElement(level);
     return this;
   }
 
-  protected abstract DataHolder buildDataHolder(T value);
+  protected abstract void encodeValue(StreamingWriteBuffer writeBuffer, T value);
 
   public P end() {
+    writeBuffer.close(level, frameId);
     return parent;
   }
 
@@ -0,0 +1,39 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.encoding;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A source of byte buffers into which {@link StructEncoder#encode(ByteBufferPool)} copies the encoded structures.
+ */
+public interface ByteBufferPool {
+
+  /**
+   * Acquire a byte buffer.
+   * @param size the minimum number of bytes remaining in the returned buffer.
+   * @return a byte buffer with at least {@code size} bytes remaining.
+   */
+  ByteBuffer acquire(int size);
+
+  /**
+   * Give a previously acquired byte buffer back to the pool.
+   * @param buffer the byte buffer to release.
+   */
+  void release(ByteBuffer buffer);
+
+}
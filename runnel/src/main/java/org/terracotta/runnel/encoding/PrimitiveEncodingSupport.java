@@ -16,6 +16,15 @@
  */
 package org.terracotta.runnel.encoding;
 
+import org.terracotta.runnel.handles.BoolHandle;
+import org.terracotta.runnel.handles.ByteBufferHandle;
+import org.terracotta.runnel.handles.ChrHandle;
+import org.terracotta.runnel.handles.EnmHandle;
+import org.terracotta.runnel.handles.Fp64Handle;
+import org.terracotta.runnel.handles.Int32Handle;
+import org.terracotta.runnel.handles.Int64Handle;
+import org.terracotta.runnel.handles.StringHandle;
+
 import java.nio.ByteBuffer;
 
 /**
@@ -32,6 +41,14 @@ public interface PrimitiveEncodingSupport<T extends PrimitiveEncodingSupport<T>>
    */
   T bool(String name, boolean value);
 
+  /**
+   * Encode a boolean.
+   * @param handle the field handle.
+   * @param value the value to encode.
+   * @return this.
+   */
+  T bool(BoolHandle handle, boolean value);
+
   /**
    * Encode a character.
    * @param name the field name.
@@ -40,6 +57,14 @@ public interface PrimitiveEncodingSupport<T extends PrimitiveEncodingSupport<T>>
    */
   T chr(String name, char value);
 
+  /**
+   * Encode a character.
+   * @param handle the field handle.
+   * @param value the value to encode.
+   * @return this.
+   */
+  T chr(ChrHandle handle, char value);
+
   /**
    * Encode an enumeration.
    * @param name the field name.
@@ -49,6 +74,15 @@ public interface PrimitiveEncodingSupport<T extends PrimitiveEncodingSupport<T>>
    */
   <E> T enm(String name, E value);
 
+  /**
+   * Encode an enumeration.
+   * @param handle the field handle.
+   * @param value the value to encode.
+   * @param <E> the enumeration's actual type.
+   * @return this.
+   */
+  <E> T enm(EnmHandle<E> handle, E value);
+
   /**
    * Encode a 32-bit integer.
    * @param name the field name.
@@ -57,6 +91,14 @@ public interface PrimitiveEncodingSupport<T extends PrimitiveEncodingSupport<T>>
    */
   T int32(String name, int value);
 
+  /**
+   * Encode a 32-bit integer.
+   * @param handle the field handle.
+   * @param value the value to encode.
+   * @return this.
+   */
+  T int32(Int32Handle handle, int value);
+
   /**
    * Encode a 64-bit integer.
    * @param name the field name.
@@ -65,6 +107,14 @@ public interface PrimitiveEncodingSupport<T extends PrimitiveEncodingSupport<T>>
    */
   T int64(String name, long value);
 
+  /**
+   * Encode a 64-bit integer.
+   * @param handle the field handle.
+   * @param value the value to encode.
+   * @return this.
+   */
+  T int64(Int64Handle handle, long value);
+
   /**
    * Encode a 64-bit, double-precision floating point number.
    * @param name the field name.
@@ -73,6 +123,14 @@ public interface PrimitiveEncodingSupport<T extends PrimitiveEncodingSupport<T>>
    */
   T fp64(String name, double value);
 
+  /**
+   * Encode a 64-bit, double-precision floating point number.
+   * @param handle the field handle.
+   * @param value the value to encode.
+   * @return this.
+   */
+  T fp64(Fp64Handle handle, double value);
+
   /**
    * Encode a character string.
    * @param name the field name.
@@ -81,6 +139,14 @@ public interface PrimitiveEncodingSupport<T extends PrimitiveEncodingSupport<T>>
    */
   T string(String name, String value);
 
+  /**
+   * Encode a character string.
+   * @param handle the field handle.
+   * @param value the value to encode.
+   * @return this.
+   */
+  T string(StringHandle handle, String value);
+
   /**
    * Encode a byte buffer.
    * @param name the field name.
@@ -89,4 +155,28 @@ public interface PrimitiveEncodingSupport<T extends PrimitiveEncodingSupport<T>>
    */
   T byteBuffer(String name, ByteBuffer value);
 
+  /**
+   * Encode a byte buffer.
+   * @param handle the field handle.
+   * @param value the value to encode.
+   * @return this.
+   */
+  T byteBuffer(ByteBufferHandle handle, ByteBuffer value);
+
+  /**
+   * Encode the content of a byte array as a byte buffer.
+   * @param name the field name.
+   * @param value the value to encode.
+   * @return this.
+   */
+  T byteBuffer(String name, byte[] value);
+
+  /**
+   * Encode the content of a byte array as a byte buffer.
+   * @param handle the field handle.
+   * @param value the value to encode.
+   * @return this.
+   */
+  T byteBuffer(ByteBufferHandle handle, byte[] value);
+
 }
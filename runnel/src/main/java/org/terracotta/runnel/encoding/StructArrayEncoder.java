@@ -17,40 +17,39 @@
 package org.terracotta.runnel.encoding;
 
 import org.terracotta.runnel.decoding.fields.StructField;
-import org.terracotta.runnel.encoding.dataholders.DataHolder;
-import org.terracotta.runnel.encoding.dataholders.StructDataHolder;
-
-import java.util.ArrayList;
-import java.util.List;
+import org.terracotta.runnel.utils.StreamingWriteBuffer;
 
 /**
  * @author Ludovic Orban
  */
 public class StructArrayEncoder<P> {
 
-  private final List<StructDataHolder> values;
+  private final StreamingWriteBuffer writeBuffer;
+  private final int level;
+  private final int frameId;
   private final P parent;
   private final StructField structField;
-  private List<DataHolder> currentData;
 
-  StructArrayEncoder(List<StructDataHolder> values, P parent, StructField structField) {
-    this.structField = structField;
-    this.values = values;
+  StructArrayEncoder(StreamingWriteBuffer writeBuffer, int level, int frameId, P parent, StructField structField) {
+    this.writeBuffer = writeBuffer;
+    this.level = level;
+    this.frameId = frameId;
     this.parent = parent;
-    this.currentData = new ArrayList<>();
+    this.structField = structField;
   }
 
+  /**
+   * Add an element to the array, ending the previously added one. Elements to which no field is added are skipped.
+   * @return the element's encoder.
+   */
   public StructEncoder<StructArrayEncoder<P>> add() {
-    if (!currentData.isEmpty()) {
-      values.add(new StructDataHolder(currentData, -1));
-    }
-    return new StructEncoder<>(structField, currentData = new ArrayList<>(), this);
+    writeBuffer.enter(level, frameId);
+    int elementFrameId = writeBuffer.openElement();
+    return new StructEncoder<>(structField, writeBuffer, level + 1, elementFrameId, this);
   }
 
   public P end() {
-    if (!currentData.isEmpty()) {
-      values.add(new StructDataHolder(currentData, -1));
-    }
+    writeBuffer.close(level, frameId);
     return parent;
   }
 }
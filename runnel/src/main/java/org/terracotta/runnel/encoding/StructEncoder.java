@@ -21,228 +21,540 @@ import org.terracotta.runnel.decoding.fields.BoolField;
 import org.terracotta.runnel.decoding.fields.ByteBufferField;
 import org.terracotta.runnel.decoding.fields.CharField;
 import org.terracotta.runnel.decoding.fields.EnumField;
+import org.terracotta.runnel.decoding.fields.Field;
 import org.terracotta.runnel.decoding.fields.FloatingPoint64Field;
 import org.terracotta.runnel.decoding.fields.Int32Field;
 import org.terracotta.runnel.decoding.fields.Int64Field;
 import org.terracotta.runnel.decoding.fields.StringField;
 import org.terracotta.runnel.decoding.fields.StructField;
-import org.terracotta.runnel.encoding.dataholders.ArrayDataHolder;
-import org.terracotta.runnel.encoding.dataholders.BoolDataHolder;
-import org.terracotta.runnel.encoding.dataholders.ByteBufferDataHolder;
-import org.terracotta.runnel.encoding.dataholders.CharDataHolder;
-import org.terracotta.runnel.encoding.dataholders.DataHolder;
-import org.terracotta.runnel.encoding.dataholders.EnumDataHolder;
-import org.terracotta.runnel.encoding.dataholders.FloatingPoint64DataHolder;
-import org.terracotta.runnel.encoding.dataholders.Int32DataHolder;
-import org.terracotta.runnel.encoding.dataholders.Int64DataHolder;
-import org.terracotta.runnel.encoding.dataholders.StringDataHolder;
-import org.terracotta.runnel.encoding.dataholders.StructDataHolder;
+import org.terracotta.runnel.handles.ArrayHandle;
+import org.terracotta.runnel.handles.BoolHandle;
+import org.terracotta.runnel.handles.ByteBufferHandle;
+import org.terracotta.runnel.handles.ChrHandle;
+import org.terracotta.runnel.handles.EnmHandle;
+import org.terracotta.runnel.handles.Fp64Handle;
+import org.terracotta.runnel.handles.Int32Handle;
+import org.terracotta.runnel.handles.Int64Handle;
+import org.terracotta.runnel.handles.StringHandle;
+import org.terracotta.runnel.handles.StructArrayHandle;
+import org.terracotta.runnel.handles.StructHandle;
 import org.terracotta.runnel.metadata.FieldSearcher;
+import org.terracotta.runnel.utils.StreamingWriteBuffer;
 import org.terracotta.runnel.utils.VLQ;
-import org.terracotta.runnel.utils.WriteBuffer;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 /**
  * An encoder allows encoding structured data described by a {@link org.terracotta.runnel.Struct}.
+ * <p>
+ * Fields are encoded as soon as they are added, straight into a byte buffer: either a growable one owned by the
+ * encoder, or one supplied by the caller. Sub-encoders (structs, arrays) which have not been explicitly ended are
+ * ended as soon as a field gets added to one of their parents, or when the root encoder is encoded. A sub-encoder
+ * cannot be used anymore once it has been ended.
  * Note: Instances of this class are not thread-safe.
  */
 public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<P>> {
 
   private final FieldSearcher fieldSearcher;
-  private final List<DataHolder> data;
+  private final StreamingWriteBuffer writeBuffer;
+  private final int level;
+  private int frameId;
+  private final boolean targeted;
   private final P parent;
 
   public StructEncoder(StructField structField) {
-    this(structField, new ArrayList<>(), null);
+    this(structField, new StreamingWriteBuffer(), false);
   }
 
-  StructEncoder(StructField structField, List<DataHolder> values, P parent) {
+  /**
+   * Create a root encoder writing directly into the given byte buffer, starting at its current position.
+   * @param structField the root struct field.
+   * @param target the byte buffer to write into.
+   */
+  public StructEncoder(StructField structField, ByteBuffer target) {
+    this(structField, new StreamingWriteBuffer(target), true);
+  }
+
+  /**
+   * Create a root encoder which does not copy the byte buffer and byte array values of at least
+   * {@code gatherThreshold} bytes, but references them until the encoded structure is assembled, see
+   * {@link #encodeSegments()}.
+   * @param structField the root struct field.
+   * @param gatherThreshold the minimum size of the values to reference instead of copying, strictly positive.
+   */
+  public StructEncoder(StructField structField, int gatherThreshold) {
+    this(structField, new StreamingWriteBuffer(gatherThreshold), false);
+  }
+
+  private StructEncoder(StructField structField, StreamingWriteBuffer writeBuffer, boolean targeted) {
+    this.fieldSearcher = structField.getMetadata().fieldSearcher();
+    this.writeBuffer = writeBuffer;
+    this.level = 0;
+    this.frameId = writeBuffer.openRoot();
+    this.targeted = targeted;
+    this.parent = null;
+  }
+
+  StructEncoder(StructField structField, StreamingWriteBuffer writeBuffer, int level, int frameId, P parent) {
     this.fieldSearcher = structField.getMetadata().fieldSearcher();
-    this.data = values;
+    this.writeBuffer = writeBuffer;
+    this.level = level;
+    this.frameId = frameId;
+    this.targeted = false;
     this.parent = parent;
   }
 
   @Override
   public StructEncoder<P> bool(String name, boolean value) {
-    BoolField field = fieldSearcher.findField(name, BoolField.class, null);
-    data.add(new BoolDataHolder(value, field.index()));
+    return bool(fieldSearcher.findField(name, BoolField.class, null), value);
+  }
+
+  @Override
+  public StructEncoder<P> bool(BoolHandle handle, boolean value) {
+    return bool(fieldSearcher.checkHandle(handle), value);
+  }
+
+  private StructEncoder<P> bool(BoolField field, boolean value) {
+    startField(field);
+    writeBuffer.putVlqInt(1);
+    writeBuffer.putBoolean(value);
     return this;
   }
 
   @Override
   public StructEncoder<P> chr(String name, char value) {
-    CharField field = fieldSearcher.findField(name, CharField.class, null);
-    data.add(new CharDataHolder(value, field.index()));
+    return chr(fieldSearcher.findField(name, CharField.class, null), value);
+  }
+
+  @Override
+  public StructEncoder<P> chr(ChrHandle handle, char value) {
+    return chr(fieldSearcher.checkHandle(handle), value);
+  }
+
+  private StructEncoder<P> chr(CharField field, char value) {
+    startField(field);
+    writeBuffer.putVlqInt(2);
+    writeBuffer.putChar(value);
     return this;
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public <E> StructEncoder<P> enm(String name, E value) {
-    EnumField<E> field = (EnumField<E>) fieldSearcher.findField(name, EnumField.class, null);
-    data.add(new EnumDataHolder<>(value, field.index(), field.getEnumMapping()));
+    return enm((EnumField<E>) fieldSearcher.findField(name, EnumField.class, null), value);
+  }
+
+  @Override
+  public <E> StructEncoder<P> enm(EnmHandle<E> handle, E value) {
+    return enm(fieldSearcher.checkHandle(handle), value);
+  }
+
+  private <E> StructEncoder<P> enm(EnumField<E> field, E value) {
+    int intValue = field.getEnumMapping().toInt(value);
+    startField(field);
+    writeBuffer.putVlqInt(VLQ.encodedSize(intValue));
+    writeBuffer.putVlqInt(intValue);
     return this;
   }
 
   @Override
   public StructEncoder<P> int32(String name, int value) {
-    Int32Field field = fieldSearcher.findField(name, Int32Field.class, null);
-    data.add(new Int32DataHolder(value, field.index()));
+    return int32(fieldSearcher.findField(name, Int32Field.class, null), value);
+  }
+
+  @Override
+  public StructEncoder<P> int32(Int32Handle handle, int value) {
+    return int32(fieldSearcher.checkHandle(handle), value);
+  }
+
+  private StructEncoder<P> int32(Int32Field field, int value) {
+    startField(field);
+    writeBuffer.putVlqInt(4);
+    writeBuffer.putInt(value);
     return this;
   }
 
   @Override
   public StructEncoder<P> int64(String name, long value) {
-    Int64Field field = fieldSearcher.findField(name, Int64Field.class, null);
-    data.add(new Int64DataHolder(value, field.index()));
+    return int64(fieldSearcher.findField(name, Int64Field.class, null), value);
+  }
+
+  @Override
+  public StructEncoder<P> int64(Int64Handle handle, long value) {
+    return int64(fieldSearcher.checkHandle(handle), value);
+  }
+
+  private StructEncoder<P> int64(Int64Field field, long value) {
+    startField(field);
+    writeBuffer.putVlqInt(8);
+    writeBuffer.putLong(value);
     return this;
   }
 
   @Override
   public StructEncoder<P> fp64(String name, double value) {
-    FloatingPoint64Field field = fieldSearcher.findField(name, FloatingPoint64Field.class, null);
-    data.add(new FloatingPoint64DataHolder(value, field.index()));
+    return fp64(fieldSearcher.findField(name, FloatingPoint64Field.class, null), value);
+  }
+
+  @Override
+  public StructEncoder<P> fp64(Fp64Handle handle, double value) {
+    return fp64(fieldSearcher.checkHandle(handle), value);
+  }
+
+  private StructEncoder<P> fp64(FloatingPoint64Field field, double value) {
+    startField(field);
+    writeBuffer.putVlqInt(8);
+    writeBuffer.putDouble(value);
     return this;
   }
 
   @Override
   public StructEncoder<P> string(String name, String value) {
-    StringField field = fieldSearcher.findField(name, StringField.class, null);
+    return string(fieldSearcher.findField(name, StringField.class, null), value);
+  }
+
+  @Override
+  public StructEncoder<P> string(StringHandle handle, String value) {
+    return string(fieldSearcher.checkHandle(handle), value);
+  }
+
+  private StructEncoder<P> string(StringField field, String value) {
     if (value != null) {
-      data.add(new StringDataHolder(value, field.index()));
+      startField(field);
+      if (field.isDictionary()) {
+        writeBuffer.putDictionaryString(value);
+      } else {
+        writeBuffer.putString(value);
+      }
     }
     return this;
   }
 
   @Override
   public StructEncoder<P> byteBuffer(String name, ByteBuffer value) {
-    ByteBufferField field = fieldSearcher.findField(name, ByteBufferField.class, null);
-    data.add(new ByteBufferDataHolder(value, field.index()));
+    return byteBuffer(fieldSearcher.findField(name, ByteBufferField.class, null), value);
+  }
+
+  @Override
+  public StructEncoder<P> byteBuffer(ByteBufferHandle handle, ByteBuffer value) {
+    return byteBuffer(fieldSearcher.checkHandle(handle), value);
+  }
+
+  private StructEncoder<P> byteBuffer(ByteBufferField field, ByteBuffer value) {
+    startField(field);
+    writeBuffer.putByteBuffer(value);
+    return this;
+  }
+
+  @Override
+  public StructEncoder<P> byteBuffer(String name, byte[] value) {
+    return byteBuffer(fieldSearcher.findField(name, ByteBufferField.class, null), value);
+  }
+
+  @Override
+  public StructEncoder<P> byteBuffer(ByteBufferHandle handle, byte[] value) {
+    return byteBuffer(fieldSearcher.checkHandle(handle), value);
+  }
+
+  private StructEncoder<P> byteBuffer(ByteBufferField field, byte[] value) {
+    startField(field);
+    writeBuffer.putByteArray(value);
     return this;
   }
 
   public <T> StructEncoder<P> struct(String name, T value, StructEncoderFunction<T> function) {
-    StructEncoder<StructEncoder<P>> subStructEncoder = struct(name);
+    return struct(struct(name), value, function);
+  }
+
+  public <T> StructEncoder<P> struct(StructHandle handle, T value, StructEncoderFunction<T> function) {
+    return struct(struct(handle), value, function);
+  }
+
+  private <T> StructEncoder<P> struct(StructEncoder<StructEncoder<P>> subStructEncoder, T value, StructEncoderFunction<T> function) {
     function.encode(subStructEncoder, value);
     subStructEncoder.end();
     return this;
   }
 
   public StructEncoder<StructEncoder<P>> struct(String name) {
-    StructField field = fieldSearcher.findField(name, StructField.class, null);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new StructDataHolder(values, field.index()));
-    return new StructEncoder<>(field, values, this);
+    return struct(fieldSearcher.findField(name, StructField.class, null));
+  }
+
+  public StructEncoder<StructEncoder<P>> struct(StructHandle handle) {
+    return struct(fieldSearcher.checkHandle(handle));
+  }
+
+  private StructEncoder<StructEncoder<P>> struct(StructField field) {
+    startField(field);
+    int subFrameId = writeBuffer.openStruct();
+    return new StructEncoder<>(field, writeBuffer, level + 1, subFrameId, this);
   }
 
   public P end() {
     if (parent == null) {
       throw new IllegalStateException("Cannot end root encoder");
     }
+    writeBuffer.close(level, frameId);
     return parent;
   }
 
   public ArrayEncoder<Boolean, StructEncoder<P>> bools(String name) {
-    final ArrayField field = fieldSearcher.findField(name, ArrayField.class, BoolField.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Boolean, StructEncoder<P>>(values, this) {
+    return bools(fieldSearcher.findField(name, ArrayField.class, BoolField.class));
+  }
+
+  public ArrayEncoder<Boolean, StructEncoder<P>> bools(ArrayHandle<BoolHandle> handle) {
+    return bools(fieldSearcher.checkHandle(handle));
+  }
+
+  private ArrayEncoder<Boolean, StructEncoder<P>> bools(ArrayField field) {
+    return new ArrayEncoder<Boolean, StructEncoder<P>>(writeBuffer, level + 1, startArray(field), this) {
       @Override
-      protected DataHolder buildDataHolder(Boolean value) {
-        return new BoolDataHolder(value, field.index());
+      protected void encodeValue(StreamingWriteBuffer writeBuffer, Boolean value) {
+        boolean b = value;
+        writeBuffer.putVlqInt(1);
+        writeBuffer.putBoolean(b);
       }
     };
   }
 
   public ArrayEncoder<Character, StructEncoder<P>> chrs(String name) {
-    final ArrayField field = fieldSearcher.findField(name, ArrayField.class, CharField.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Character, StructEncoder<P>>(values, this) {
+    return chrs(fieldSearcher.findField(name, ArrayField.class, CharField.class));
+  }
+
+  public ArrayEncoder<Character, StructEncoder<P>> chrs(ArrayHandle<ChrHandle> handle) {
+    return chrs(fieldSearcher.checkHandle(handle));
+  }
+
+  private ArrayEncoder<Character, StructEncoder<P>> chrs(ArrayField field) {
+    return new ArrayEncoder<Character, StructEncoder<P>>(writeBuffer, level + 1, startArray(field), this) {
       @Override
-      protected DataHolder buildDataHolder(Character value) {
-        return new CharDataHolder(value, field.index());
+      protected void encodeValue(StreamingWriteBuffer writeBuffer, Character value) {
+        char c = value;
+        writeBuffer.putVlqInt(2);
+        writeBuffer.putChar(c);
       }
     };
   }
 
   public ArrayEncoder<Integer, StructEncoder<P>> int32s(String name) {
-    final ArrayField field = fieldSearcher.findField(name, ArrayField.class, Int32Field.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Integer, StructEncoder<P>>(values, this) {
+    return int32s(fieldSearcher.findField(name, ArrayField.class, Int32Field.class));
+  }
+
+  public ArrayEncoder<Integer, StructEncoder<P>> int32s(ArrayHandle<Int32Handle> handle) {
+    return int32s(fieldSearcher.checkHandle(handle));
+  }
+
+  private ArrayEncoder<Integer, StructEncoder<P>> int32s(ArrayField field) {
+    return new ArrayEncoder<Integer, StructEncoder<P>>(writeBuffer, level + 1, startArray(field), this) {
       @Override
-      protected DataHolder buildDataHolder(Integer value) {
-        return new Int32DataHolder(value, field.index());
+      protected void encodeValue(StreamingWriteBuffer writeBuffer, Integer value) {
+        int i = value;
+        writeBuffer.putVlqInt(4);
+        writeBuffer.putInt(i);
       }
     };
   }
 
+  /**
+   * Encode an array of 32-bit integers at once, without boxing the values. The encoded bytes are the same as the ones
+   * produced by {@link #int32s(String)}.
+   * @param name the field name.
+   * @param values the values to encode, ignored if null.
+   * @return this.
+   */
+  public StructEncoder<P> int32s(String name, int[] values) {
+    return int32s(fieldSearcher.findField(name, ArrayField.class, Int32Field.class), values);
+  }
+
+  /**
+   * Encode an array of 32-bit integers at once, without boxing the values.
+   * @param handle the field handle.
+   * @param values the values to encode, ignored if null.
+   * @return this.
+   * @see #int32s(String, int[])
+   */
+  public StructEncoder<P> int32s(ArrayHandle<Int32Handle> handle, int[] values) {
+    return int32s(fieldSearcher.checkHandle(handle), values);
+  }
+
+  private StructEncoder<P> int32s(ArrayField field, int[] values) {
+    if (values != null) {
+      startField(field);
+      writeBuffer.putInt32Array(values);
+    }
+    return this;
+  }
+
   public ArrayEncoder<Long, StructEncoder<P>> int64s(String name) {
-    final ArrayField field = fieldSearcher.findField(name, ArrayField.class, Int64Field.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Long, StructEncoder<P>>(values, this) {
+    return int64s(fieldSearcher.findField(name, ArrayField.class, Int64Field.class));
+  }
+
+  public ArrayEncoder<Long, StructEncoder<P>> int64s(ArrayHandle<Int64Handle> handle) {
+    return int64s(fieldSearcher.checkHandle(handle));
+  }
+
+  private ArrayEncoder<Long, StructEncoder<P>> int64s(ArrayField field) {
+    return new ArrayEncoder<Long, StructEncoder<P>>(writeBuffer, level + 1, startArray(field), this) {
       @Override
-      protected DataHolder buildDataHolder(Long value) {
-        return new Int64DataHolder(value, field.index());
+      protected void encodeValue(StreamingWriteBuffer writeBuffer, Long value) {
+        long l = value;
+        writeBuffer.putVlqInt(8);
+        writeBuffer.putLong(l);
       }
     };
   }
 
+  /**
+   * Encode an array of 64-bit integers at once, without boxing the values. The encoded bytes are the same as the ones
+   * produced by {@link #int64s(String)}.
+   * @param name the field name.
+   * @param values the values to encode, ignored if null.
+   * @return this.
+   */
+  public StructEncoder<P> int64s(String name, long[] values) {
+    return int64s(fieldSearcher.findField(name, ArrayField.class, Int64Field.class), values);
+  }
+
+  /**
+   * Encode an array of 64-bit integers at once, without boxing the values.
+   * @param handle the field handle.
+   * @param values the values to encode, ignored if null.
+   * @return this.
+   * @see #int64s(String, long[])
+   */
+  public StructEncoder<P> int64s(ArrayHandle<Int64Handle> handle, long[] values) {
+    return int64s(fieldSearcher.checkHandle(handle), values);
+  }
+
+  private StructEncoder<P> int64s(ArrayField field, long[] values) {
+    if (values != null) {
+      startField(field);
+      writeBuffer.putInt64Array(values);
+    }
+    return this;
+  }
+
   public ArrayEncoder<Double, StructEncoder<P>> fp64s(String name) {
-    final ArrayField field = fieldSearcher.findField(name, ArrayField.class, FloatingPoint64Field.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Double, StructEncoder<P>>(values, this) {
+    return fp64s(fieldSearcher.findField(name, ArrayField.class, FloatingPoint64Field.class));
+  }
+
+  public ArrayEncoder<Double, StructEncoder<P>> fp64s(ArrayHandle<Fp64Handle> handle) {
+    return fp64s(fieldSearcher.checkHandle(handle));
+  }
+
+  private ArrayEncoder<Double, StructEncoder<P>> fp64s(ArrayField field) {
+    return new ArrayEncoder<Double, StructEncoder<P>>(writeBuffer, level + 1, startArray(field), this) {
       @Override
-      protected DataHolder buildDataHolder(Double value) {
-        return new FloatingPoint64DataHolder(value, field.index());
+      protected void encodeValue(StreamingWriteBuffer writeBuffer, Double value) {
+        double d = value;
+        writeBuffer.putVlqInt(8);
+        writeBuffer.putDouble(d);
       }
     };
   }
 
+  /**
+   * Encode an array of 64-bit floating points at once, without boxing the values. The encoded bytes are the same as the ones
+   * produced by {@link #fp64s(String)}.
+   * @param name the field name.
+   * @param values the values to encode, ignored if null.
+   * @return this.
+   */
+  public StructEncoder<P> fp64s(String name, double[] values) {
+    return fp64s(fieldSearcher.findField(name, ArrayField.class, FloatingPoint64Field.class), values);
+  }
+
+  /**
+   * Encode an array of 64-bit floating points at once, without boxing the values.
+   * @param handle the field handle.
+   * @param values the values to encode, ignored if null.
+   * @return this.
+   * @see #fp64s(String, double[])
+   */
+  public StructEncoder<P> fp64s(ArrayHandle<Fp64Handle> handle, double[] values) {
+    return fp64s(fieldSearcher.checkHandle(handle), values);
+  }
+
+  private StructEncoder<P> fp64s(ArrayField field, double[] values) {
+    if (values != null) {
+      startField(field);
+      writeBuffer.putFp64Array(values);
+    }
+    return this;
+  }
+
   public ArrayEncoder<String, StructEncoder<P>> strings(String name) {
-    final ArrayField field = fieldSearcher.findField(name, ArrayField.class, StringField.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<String, StructEncoder<P>>(values, this) {
+    return strings(fieldSearcher.findField(name, ArrayField.class, StringField.class));
+  }
+
+  public ArrayEncoder<String, StructEncoder<P>> strings(ArrayHandle<StringHandle> handle) {
+    return strings(fieldSearcher.checkHandle(handle));
+  }
+
+  private ArrayEncoder<String, StructEncoder<P>> strings(ArrayField field) {
+    if (((StringField) field.subField()).isDictionary()) {
+      return new ArrayEncoder<String, StructEncoder<P>>(writeBuffer, level + 1, startArray(field), this) {
+        @Override
+        protected void encodeValue(StreamingWriteBuffer writeBuffer, String value) {
+          writeBuffer.putDictionaryString(value);
+        }
+      };
+    }
+    return new ArrayEncoder<String, StructEncoder<P>>(writeBuffer, level + 1, startArray(field), this) {
       @Override
-      protected DataHolder buildDataHolder(String value) {
-        return new StringDataHolder(value, field.index());
+      protected void encodeValue(StreamingWriteBuffer writeBuffer, String value) {
+        writeBuffer.putString(value);
       }
     };
   }
 
   public ArrayEncoder<ByteBuffer, StructEncoder<P>> byteBuffers(String name) {
-    final ArrayField field = fieldSearcher.findField(name, ArrayField.class, ByteBufferField.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<ByteBuffer, StructEncoder<P>>(values, this) {
+    return byteBuffers(fieldSearcher.findField(name, ArrayField.class, ByteBufferField.class));
+  }
+
+  public ArrayEncoder<ByteBuffer, StructEncoder<P>> byteBuffers(ArrayHandle<ByteBufferHandle> handle) {
+    return byteBuffers(fieldSearcher.checkHandle(handle));
+  }
+
+  private ArrayEncoder<ByteBuffer, StructEncoder<P>> byteBuffers(ArrayField field) {
+    return new ArrayEncoder<ByteBuffer, StructEncoder<P>>(writeBuffer, level + 1, startArray(field), this) {
       @Override
-      protected DataHolder buildDataHolder(ByteBuffer value) {
-        return new ByteBufferDataHolder(value, field.index());
+      protected void encodeValue(StreamingWriteBuffer writeBuffer, ByteBuffer value) {
+        writeBuffer.putByteBuffer(value);
       }
     };
   }
 
   public StructArrayEncoder<StructEncoder<P>> structs(String name) {
-    final ArrayField field = fieldSearcher.findField(name, ArrayField.class, StructField.class);
-    List<StructDataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new StructArrayEncoder<>(values, this, ((StructField) field.subField()));
+    return structs(fieldSearcher.findField(name, ArrayField.class, StructField.class));
+  }
+
+  public StructArrayEncoder<StructEncoder<P>> structs(StructArrayHandle handle) {
+    return structs(fieldSearcher.checkHandle(handle));
+  }
+
+  private StructArrayEncoder<StructEncoder<P>> structs(ArrayField field) {
+    return new StructArrayEncoder<>(writeBuffer, level + 1, startArray(field), this, ((StructField) field.subField()));
   }
 
   public <T> StructEncoder<P> structs(String name, T[] array, StructEncoderFunction<T> function) {
-    return structs(name, Arrays.asList(array), function);
+    return structs(structs(name), Arrays.asList(array), function);
+  }
+
+  public <T> StructEncoder<P> structs(StructArrayHandle handle, T[] array, StructEncoderFunction<T> function) {
+    return structs(structs(handle), Arrays.asList(array), function);
   }
 
   public <T> StructEncoder<P> structs(String name, Iterable<T> iterable, StructEncoderFunction<T> function) {
-    StructArrayEncoder<StructEncoder<P>> subStructArrayEncoder = structs(name);
+    return structs(structs(name), iterable, function);
+  }
+
+  public <T> StructEncoder<P> structs(StructArrayHandle handle, Iterable<T> iterable, StructEncoderFunction<T> function) {
+    return structs(structs(handle), iterable, function);
+  }
+
+  private <T> StructEncoder<P> structs(StructArrayEncoder<StructEncoder<P>> subStructArrayEncoder, Iterable<T> iterable, StructEncoderFunction<T> function) {
     for (T t : iterable) {
       function.encode(subStructArrayEncoder.add(), t);
     }
@@ -250,6 +562,33 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
     return this;
   }
 
+  private void startField(Field field) {
+    writeBuffer.enter(level, frameId);
+    writeBuffer.putVlqInt(field.index());
+  }
+
+  private int startArray(ArrayField field) {
+    startField(field);
+    return writeBuffer.openArray();
+  }
+
+
+  /**
+   * Discard all the fields encoded so far so that this encoder can be reused to encode another structure, without
+   * allocating a new encoder nor a new buffer. Sub-encoders obtained before the reset cannot be used anymore.
+   * When this encoder was created with a target byte buffer, it writes again into that buffer, starting at the position
+   * it had when the encoder was created.
+   * @return this.
+   */
+  public StructEncoder<P> reset() {
+    if (parent != null) {
+      throw new IllegalStateException("Cannot reset non-root encoder");
+    }
+    writeBuffer.reset();
+    fieldSearcher.reset();
+    frameId = writeBuffer.openRoot();
+    return this;
+  }
 
   /**
    * Encode the structure in the given byte buffer.
@@ -257,44 +596,53 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
    * @return the passed-in byte buffer.
    */
   public ByteBuffer encode(ByteBuffer bb) {
-    if (parent != null) {
-      throw new IllegalStateException("Cannot encode non-root encoder");
-    }
-    int size = calculateSize();
-    return performEncoding(bb, size);
+    complete();
+    return writeBuffer.copyTo(bb);
   }
 
   /**
-   * Size the structure and return a newly allocated byte buffer containing the encoded structure of the exact size.
-   * The returned byte buffer is heap-allocated, so it supports {@link ByteBuffer#array()}.
-   * @return the encoded structure in a new byte buffer.
+   * Return a byte buffer containing the encoded structure.
+   * When this encoder was created with a target byte buffer, that buffer is returned, positioned right after the
+   * encoded structure. Otherwise, the returned byte buffer is newly heap-allocated and of the exact size of the encoded
+   * structure, so it supports {@link ByteBuffer#array()}.
+   * @return the encoded structure.
    */
   public ByteBuffer encode() {
-    if (parent != null) {
-      throw new IllegalStateException("Cannot encode non-root encoder");
-    }
-    int size = calculateSize();
-    ByteBuffer bb = ByteBuffer.allocate(size + VLQ.encodedSize(size));
-    return performEncoding(bb, size);
+    complete();
+    return targeted ? writeBuffer.target() : writeBuffer.toByteBuffer();
   }
 
-  private int calculateSize() {
-    int size = 0;
-    for (DataHolder dataHolder : data) {
-      size += dataHolder.size(true);
-    }
-    return size;
+  /**
+   * Encode the structure in a byte buffer acquired from the given pool, of at least the size of the encoded structure.
+   * The caller is responsible for releasing the returned buffer to the pool once it's done with it.
+   * @param pool the pool to acquire the byte buffer from.
+   * @return the acquired byte buffer, positioned right after the encoded structure.
+   */
+  public ByteBuffer encode(ByteBufferPool pool) {
+    complete();
+    return writeBuffer.copyTo(pool.acquire(writeBuffer.encodedSize()));
   }
 
-  private ByteBuffer performEncoding(ByteBuffer bb, int size) {
-    WriteBuffer writeBuffer = new WriteBuffer(bb);
-    writeBuffer.putVlqInt(size);
+  /**
+   * Return the encoded structure as segments to be written in order, e.g. with
+   * {@link java.nio.channels.GatheringByteChannel#write(ByteBuffer[])}. The byte buffer and byte array values this
+   * encoder referenced instead of copying are returned as views of their own, interleaved with newly heap-allocated
+   * segments holding the rest of the encoded bytes, so encoding costs the same whatever the size of the referenced
+   * values. Those values must not be modified until the segments have been consumed.
+   * @return the encoded structure's segments, each of them positioned at its start.
+   */
+  public ByteBuffer[] encodeSegments() {
+    complete();
+    return writeBuffer.segments();
+  }
 
-    for (DataHolder dataHolder : data) {
-      dataHolder.encode(writeBuffer, true);
+  private void complete() {
+    if (parent != null) {
+      throw new IllegalStateException("Cannot encode non-root encoder");
+    }
+    if (writeBuffer.isOpen(level, frameId)) {
+      writeBuffer.close(level, frameId);
     }
-
-    return bb;
   }
 
 }
@@ -1,44 +0,0 @@
-/*
- * Copyright Terracotta, Inc.
- * Copyright Super iPaaS Integration LLC, an IBM Company 2024
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.terracotta.runnel.encoding.dataholders;
-
-import org.terracotta.runnel.EnumMapping;
-import org.terracotta.runnel.utils.VLQ;
-import org.terracotta.runnel.utils.WriteBuffer;
-
-/**
- * @author Ludovic Orban
- */
-public class EnumDataHolder<E> extends AbstractDataHolder {
-
-  private final int value;
-
-  public EnumDataHolder(E value, int index, EnumMapping<E> enumMapping) {
-    super(index);
-    this.value = enumMapping.toInt(value);
-  }
-
-  @Override
-  protected int valueSize() {
-    return VLQ.encodedSize(value);
-  }
-
-  @Override
-  protected void encodeValue(WriteBuffer writeBuffer) {
-    writeBuffer.putVlqInt(value);
-  }
-}
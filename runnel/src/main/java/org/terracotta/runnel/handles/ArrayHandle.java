@@ -14,29 +14,17 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.terracotta.runnel.encoding.dataholders;
+package org.terracotta.runnel.handles;
 
-import org.terracotta.runnel.utils.WriteBuffer;
+import org.terracotta.runnel.decoding.fields.ArrayField;
+import org.terracotta.runnel.metadata.Metadata;
 
 /**
- * @author Ludovic Orban
+ * A handle to an array field of primitive values.
+ * @param <H> the handle type of the array's values.
  */
-public class Int64DataHolder extends AbstractDataHolder {
-
-  private final long value;
-
-  public Int64DataHolder(long value, int index) {
-    super(index);
-    this.value = value;
-  }
-
-  @Override
-  protected int valueSize() {
-    return 8;
-  }
-
-  @Override
-  protected void encodeValue(WriteBuffer writeBuffer) {
-    writeBuffer.putLong(value);
+public final class ArrayHandle<H extends FieldHandle<?>> extends FieldHandle<ArrayField> {
+  public ArrayHandle(ArrayField field, Metadata metadata) {
+    super(field, metadata);
   }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.handles;
+
+import org.terracotta.runnel.decoding.fields.Field;
+import org.terracotta.runnel.metadata.Metadata;
+
+/**
+ * A precompiled reference to a field of a {@link org.terracotta.runnel.Struct}, obtained from the struct once and
+ * then passed to encoders and decoders, which can then access the field without looking it up by name.
+ * Note: Instances of this class are thread-safe.
+ * @param <F> the field's type.
+ */
+public abstract class FieldHandle<F extends Field> {
+
+  private final F field;
+  private final Metadata metadata;
+
+  protected FieldHandle(F field, Metadata metadata) {
+    this.field = field;
+    this.metadata = metadata;
+  }
+
+  public String name() {
+    return field.name();
+  }
+
+  public int index() {
+    return field.index();
+  }
+
+  /**
+   * @return the referenced field.
+   */
+  public F field() {
+    return field;
+  }
+
+  /**
+   * @return the metadata of the struct the referenced field belongs to.
+   */
+  public Metadata metadata() {
+    return metadata;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{name='" + name() + "', index=" + index() + "}";
+  }
+}
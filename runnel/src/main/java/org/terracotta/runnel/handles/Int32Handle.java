@@ -14,29 +14,16 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.terracotta.runnel.encoding.dataholders;
+package org.terracotta.runnel.handles;
 
-import org.terracotta.runnel.utils.WriteBuffer;
+import org.terracotta.runnel.decoding.fields.Int32Field;
+import org.terracotta.runnel.metadata.Metadata;
 
 /**
- * @author Ludovic Orban
+ * A handle to a 32-bit integer field.
  */
-public class Int32DataHolder extends AbstractDataHolder {
-
-  private final int value;
-
-  public Int32DataHolder(int value, int index) {
-    super(index);
-    this.value = value;
-  }
-
-  @Override
-  protected int valueSize() {
-    return 4;
-  }
-
-  @Override
-  protected void encodeValue(WriteBuffer writeBuffer) {
-    writeBuffer.putInt(value);
+public final class Int32Handle extends FieldHandle<Int32Field> {
+  public Int32Handle(Int32Field field, Metadata metadata) {
+    super(field, metadata);
   }
 }
@@ -14,29 +14,16 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.terracotta.runnel.encoding.dataholders;
+package org.terracotta.runnel.handles;
 
-import org.terracotta.runnel.utils.WriteBuffer;
+import org.terracotta.runnel.decoding.fields.Int64Field;
+import org.terracotta.runnel.metadata.Metadata;
 
 /**
- * @author Ludovic Orban
+ * A handle to a 64-bit integer field.
  */
-public class CharDataHolder extends AbstractDataHolder {
-
-  private final char value;
-
-  public CharDataHolder(char value, int index) {
-    super(index);
-    this.value = value;
-  }
-
-  @Override
-  protected int valueSize() {
-    return 2;
-  }
-
-  @Override
-  protected void encodeValue(WriteBuffer writeBuffer) {
-    writeBuffer.putChar(value);
+public final class Int64Handle extends FieldHandle<Int64Field> {
+  public Int64Handle(Int64Field field, Metadata metadata) {
+    super(field, metadata);
   }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.handles;
+
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.decoding.fields.ArrayField;
+import org.terracotta.runnel.decoding.fields.StructField;
+import org.terracotta.runnel.metadata.Metadata;
+
+/**
+ * A handle to an array field of structs.
+ */
+public final class StructArrayHandle extends FieldHandle<ArrayField> {
+  public StructArrayHandle(ArrayField field, Metadata metadata) {
+    super(field, metadata);
+  }
+
+  /**
+   * @return the structure of the array's elements, from which handles to their own fields can be obtained.
+   */
+  public Struct struct() {
+    return new Struct((StructField) field().subField());
+  }
+}
@@ -14,31 +14,24 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.terracotta.runnel.encoding.dataholders;
+package org.terracotta.runnel.handles;
 
-import org.terracotta.runnel.utils.WriteBuffer;
-
-import java.nio.ByteBuffer;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.decoding.fields.StructField;
+import org.terracotta.runnel.metadata.Metadata;
 
 /**
- * @author Ludovic Orban
+ * A handle to a struct field.
  */
-public class ByteBufferDataHolder extends AbstractDataHolder {
-
-  private final ByteBuffer value;
-
-  public ByteBufferDataHolder(ByteBuffer value, int index) {
-    super(index);
-    this.value = value;
-  }
-
-  @Override
-  protected int valueSize() {
-    return value.remaining();
+public final class StructHandle extends FieldHandle<StructField> {
+  public StructHandle(StructField field, Metadata metadata) {
+    super(field, metadata);
   }
 
-  @Override
-  protected void encodeValue(WriteBuffer writeBuffer) {
-    writeBuffer.putByteBuffer(value);
+  /**
+   * @return the structure of the referenced field, from which handles to its own fields can be obtained.
+   */
+  public Struct struct() {
+    return new Struct(field());
   }
 }
@@ -20,24 +20,57 @@ import org.terracotta.runnel.decoding.ArrayDecoder;
 import org.terracotta.runnel.decoding.StructArrayDecoder;
 import org.terracotta.runnel.decoding.StructDecoder;
 import org.terracotta.runnel.decoding.fields.ArrayField;
+import org.terracotta.runnel.decoding.fields.BoolField;
+import org.terracotta.runnel.decoding.fields.CharField;
 import org.terracotta.runnel.decoding.fields.Field;
+import org.terracotta.runnel.decoding.fields.FloatingPoint64Field;
+import org.terracotta.runnel.decoding.fields.Int32Field;
+import org.terracotta.runnel.decoding.fields.Int64Field;
 import org.terracotta.runnel.decoding.fields.StructField;
 import org.terracotta.runnel.decoding.fields.ValueField;
+import org.terracotta.runnel.handles.ArrayHandle;
+import org.terracotta.runnel.handles.FieldHandle;
+import org.terracotta.runnel.handles.StructArrayHandle;
+import org.terracotta.runnel.handles.StructHandle;
 import org.terracotta.runnel.utils.ReadBuffer;
 
+import java.util.Arrays;
+
 /**
+ * Locates fields in a read buffer.
+ * <p>
+ * By default, fields are located by moving forward only, so they must be read in index order. In random access mode,
+ * an index-to-offset table of the fields is built on demand while skipping over them, so fields can be read in any
+ * order and more than once, and nested structs and arrays are decoded from views over the read buffer.
+ *
  * @author Ludovic Orban
  */
 public class FieldDecoder {
 
   private final Metadata metadata;
   private final ReadBuffer readBuffer;
+  private final boolean randomAccess;
   private int lastIndex = -1;
   private int readAheadIndex = -1;
 
-  FieldDecoder(Metadata metadata, ReadBuffer readBuffer) {
+  // random access mode: indexes and offsets of the fields scanned so far, in encoding order
+  private int[] scannedIndexes;
+  private int[] scannedOffsets;
+  private int scannedCount;
+  private int scanPosition;
+
+  FieldDecoder(Metadata metadata, ReadBuffer readBuffer, boolean randomAccess) {
     this.metadata = metadata;
     this.readBuffer = readBuffer;
+    this.randomAccess = randomAccess;
+    this.scanPosition = readBuffer.position();
+  }
+
+  public void reset() {
+    lastIndex = -1;
+    readAheadIndex = -1;
+    scannedCount = 0;
+    scanPosition = readBuffer.position();
   }
 
   public <P> StructArrayDecoder<P> decodeStructArray(String name, P parent) {
@@ -45,7 +78,7 @@ public class FieldDecoder {
     if (field == null) {
       return null;
     }
-    return new StructArrayDecoder<>(((StructField) field.subField()), readBuffer, parent);
+    return new StructArrayDecoder<>(((StructField) field.subField()), subReadBuffer(), parent, randomAccess);
   }
 
   public <P> StructDecoder<P> decodeStruct(String name, P parent) {
@@ -53,7 +86,7 @@ public class FieldDecoder {
     if (field == null) {
       return null;
     }
-    return new StructDecoder<>(field, readBuffer, parent);
+    return new StructDecoder<>(field, subReadBuffer(), parent, randomAccess);
   }
 
   @SuppressWarnings("unchecked")
@@ -62,7 +95,7 @@ public class FieldDecoder {
     if (field == null) {
       return null;
     }
-    return new ArrayDecoder<>((ValueField<T>) field.subField(), readBuffer, parent);
+    return new ArrayDecoder<>((ValueField<T>) field.subField(), subReadBuffer(), parent);
   }
 
   public <T> T decodeValue(String name, Class<? extends ValueField<T>> clazz) {
@@ -73,11 +106,117 @@ public class FieldDecoder {
     return field.decode(readBuffer);
   }
 
+  public <P> StructArrayDecoder<P> decodeStructArray(StructArrayHandle handle, P parent) {
+    ArrayField field = nextField(handle);
+    if (field == null) {
+      return null;
+    }
+    return new StructArrayDecoder<>(((StructField) field.subField()), subReadBuffer(), parent, randomAccess);
+  }
+
+  public <P> StructDecoder<P> decodeStruct(StructHandle handle, P parent) {
+    StructField field = nextField(handle);
+    if (field == null) {
+      return null;
+    }
+    return new StructDecoder<>(field, subReadBuffer(), parent, randomAccess);
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T, P> ArrayDecoder<T, P> decodeValueArray(ArrayHandle<? extends FieldHandle<? extends ValueField<T>>> handle, P parent) {
+    ArrayField field = nextField(handle);
+    if (field == null) {
+      return null;
+    }
+    return new ArrayDecoder<>((ValueField<T>) field.subField(), subReadBuffer(), parent);
+  }
+
+  public <T> T decodeValue(FieldHandle<? extends ValueField<T>> handle) {
+    ValueField<T> field = nextField(handle);
+    if (field == null) {
+      return null;
+    }
+    return field.decode(readBuffer);
+  }
+
+  public boolean decodeBool(String name, boolean defaultValue) {
+    BoolField field = nextField(name, BoolField.class, null);
+    return field == null ? defaultValue : field.decodeBool(readBuffer);
+  }
+
+  public boolean decodeBool(FieldHandle<BoolField> handle, boolean defaultValue) {
+    BoolField field = nextField(handle);
+    return field == null ? defaultValue : field.decodeBool(readBuffer);
+  }
+
+  public char decodeChr(String name, char defaultValue) {
+    CharField field = nextField(name, CharField.class, null);
+    return field == null ? defaultValue : field.decodeChr(readBuffer);
+  }
+
+  public char decodeChr(FieldHandle<CharField> handle, char defaultValue) {
+    CharField field = nextField(handle);
+    return field == null ? defaultValue : field.decodeChr(readBuffer);
+  }
+
+  public int decodeInt32(String name, int defaultValue) {
+    Int32Field field = nextField(name, Int32Field.class, null);
+    return field == null ? defaultValue : field.decodeInt32(readBuffer);
+  }
+
+  public int decodeInt32(FieldHandle<Int32Field> handle, int defaultValue) {
+    Int32Field field = nextField(handle);
+    return field == null ? defaultValue : field.decodeInt32(readBuffer);
+  }
+
+  public long decodeInt64(String name, long defaultValue) {
+    Int64Field field = nextField(name, Int64Field.class, null);
+    return field == null ? defaultValue : field.decodeInt64(readBuffer);
+  }
+
+  public long decodeInt64(FieldHandle<Int64Field> handle, long defaultValue) {
+    Int64Field field = nextField(handle);
+    return field == null ? defaultValue : field.decodeInt64(readBuffer);
+  }
+
+  public double decodeFp64(String name, double defaultValue) {
+    FloatingPoint64Field field = nextField(name, FloatingPoint64Field.class, null);
+    return field == null ? defaultValue : field.decodeFp64(readBuffer);
+  }
+
+  public double decodeFp64(FieldHandle<FloatingPoint64Field> handle, double defaultValue) {
+    FloatingPoint64Field field = nextField(handle);
+    return field == null ? defaultValue : field.decodeFp64(readBuffer);
+  }
+
+  private <T extends Field> T nextField(FieldHandle<T> handle) {
+    if (handle.metadata() != metadata) {
+      throw new IllegalArgumentException("Field '" + handle.name() + "' does not belong to this struct");
+    }
+    T field = handle.field();
+    if (!randomAccess && field.index() <= lastIndex) {
+      throw new IllegalArgumentException("No such field left : '" + handle.name() + "'");
+    }
+    lastIndex = field.index();
+    return seek(field) ? field : null;
+  }
+
+  private ReadBuffer subReadBuffer() {
+    return randomAccess ? readBuffer.view() : readBuffer;
+  }
+
   @SuppressWarnings("unchecked")
-  private  <T extends Field, S extends Field> T nextField(String name, Class<T> fieldClazz, Class<S> subFieldClazz) {
+  private <T extends Field, S extends Field> T nextField(String name, Class<T> fieldClazz, Class<S> subFieldClazz) {
     Field field = findFieldWithIndex(name, fieldClazz, subFieldClazz);
+    return seek(field) ? (T) field : null;
+  }
+
+  private boolean seek(Field field) {
+    if (randomAccess) {
+      return locate(field.index());
+    }
     if (readBuffer.limitReached()) {
-      return null;
+      return false;
     }
 
     int index = readAheadIndex > 0 ? readAheadIndex : readBuffer.getVlqInt();
@@ -87,19 +226,63 @@ public class FieldDecoder {
       int fieldSize = readBuffer.getVlqInt();
       readBuffer.skip(fieldSize);
       if (readBuffer.limitReached()) {
-        return null;
+        return false;
       }
       index = readBuffer.getVlqInt();
     }
 
     if (index > field.index()) {
       readAheadIndex = index;
-      return null;
-    } else if (index != field.index()) {
-      return null;
+      return false;
     } else {
-      return (T) field;
+      return index == field.index();
+    }
+  }
+
+  /**
+   * Position the read buffer on the size of the field with the given index, scanning and recording the fields
+   * that were not scanned yet up to it.
+   */
+  private boolean locate(int index) {
+    if (scannedCount > 0) {
+      // fields are encoded in index order, so the scanned indexes are sorted
+      int found = Arrays.binarySearch(scannedIndexes, 0, scannedCount, index);
+      if (found >= 0) {
+        readBuffer.position(scannedOffsets[found]);
+        return true;
+      }
+      if (scannedIndexes[scannedCount - 1] > index) {
+        return false;
+      }
+    }
+
+    readBuffer.position(scanPosition);
+    while (!readBuffer.limitReached()) {
+      int scannedIndex = readBuffer.getVlqInt();
+      int offset = readBuffer.position();
+      readBuffer.skip(readBuffer.getVlqInt());
+      scanPosition = readBuffer.position();
+      record(scannedIndex, offset);
+      if (scannedIndex >= index) {
+        readBuffer.position(offset);
+        return scannedIndex == index;
+      }
+    }
+    return false;
+  }
+
+  private void record(int index, int offset) {
+    if (scannedIndexes == null) {
+      int capacity = Math.max(metadata.fieldCount(), 4);
+      scannedIndexes = new int[capacity];
+      scannedOffsets = new int[capacity];
+    } else if (scannedCount == scannedIndexes.length) {
+      scannedIndexes = Arrays.copyOf(scannedIndexes, scannedCount * 2);
+      scannedOffsets = Arrays.copyOf(scannedOffsets, scannedCount * 2);
     }
+    scannedIndexes[scannedCount] = index;
+    scannedOffsets[scannedCount] = offset;
+    scannedCount++;
   }
 
   private <T extends Field, S extends Field> Field findFieldWithIndex(String name, Class<T> fieldClazz, Class<S> subFieldClazz) {
@@ -107,7 +290,7 @@ public class FieldDecoder {
     if (field == null) {
       throw new IllegalArgumentException("No such field : " + name);
     }
-    if (field.index() <= lastIndex) {
+    if (!randomAccess && field.index() <= lastIndex) {
       throw new IllegalArgumentException("No such field left : '" + name + "'");
     }
     lastIndex = field.index();
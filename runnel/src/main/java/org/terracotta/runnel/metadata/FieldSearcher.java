@@ -18,6 +18,7 @@ package org.terracotta.runnel.metadata;
 
 import org.terracotta.runnel.decoding.fields.ArrayField;
 import org.terracotta.runnel.decoding.fields.Field;
+import org.terracotta.runnel.handles.FieldHandle;
 
 /**
  * @author Ludovic Orban
@@ -55,4 +56,20 @@ public class FieldSearcher {
     return field;
   }
 
+  public void reset() {
+    lastIndex = -1;
+  }
+
+  public <F extends Field> F checkHandle(FieldHandle<F> handle) {
+    if (handle.metadata() != metadata) {
+      throw new IllegalArgumentException("Field '" + handle.name() + "' does not belong to this struct");
+    }
+    int index = handle.index();
+    if (index <= lastIndex) {
+      throw new IllegalArgumentException("No such field left : '" + handle.name() + "'");
+    }
+    lastIndex = index;
+    return handle.field();
+  }
+
 }
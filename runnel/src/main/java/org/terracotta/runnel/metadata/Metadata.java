@@ -16,6 +16,7 @@
  */
 package org.terracotta.runnel.metadata;
 
+import org.terracotta.runnel.decoding.fields.ArrayField;
 import org.terracotta.runnel.decoding.fields.Field;
 import org.terracotta.runnel.decoding.fields.StructField;
 import org.terracotta.runnel.utils.ReadBuffer;
@@ -83,7 +84,15 @@ public class Metadata {
   }
 
   public FieldDecoder fieldDecoder(ReadBuffer readBuffer) {
-    return new FieldDecoder(this, readBuffer);
+    return fieldDecoder(readBuffer, false);
+  }
+
+  public FieldDecoder fieldDecoder(ReadBuffer readBuffer, boolean randomAccess) {
+    return new FieldDecoder(this, readBuffer, randomAccess);
+  }
+
+  public int fieldCount() {
+    return fields.size();
   }
 
   public Map<Integer, Field> buildFieldsByIndexMap() {
@@ -94,6 +103,35 @@ public class Metadata {
     return map;
   }
 
+  /**
+   * Look up a field by name, checking its type.
+   * @param name the field name.
+   * @param fieldClazz the expected field type.
+   * @param subFieldClazz the expected arrayed field type when the field is an array, null otherwise.
+   * @param <T> the field's type.
+   * @return the field.
+   * @throws IllegalArgumentException if there is no such field or if it is not of the expected type.
+   */
+  public <T extends Field> T getField(String name, Class<T> fieldClazz, Class<? extends Field> subFieldClazz) throws IllegalArgumentException {
+    if (!initialized) {
+      throw new IllegalStateException("Metadata not yet initialized");
+    }
+    Field field = getFieldByName(name);
+    if (field == null) {
+      throw new IllegalArgumentException("No such field : " + name);
+    }
+    if (field.getClass() != fieldClazz) {
+      throw new IllegalArgumentException("Invalid type for field '" + name + "', expected : '" + fieldClazz.getSimpleName() + "' but was '" + field.getClass().getSimpleName() + "'");
+    }
+    if (subFieldClazz != null) {
+      Field subField = ((ArrayField) field).subField();
+      if (!subField.getClass().equals(subFieldClazz)) {
+        throw new IllegalArgumentException("Invalid subtype for field '" + name + "', expected : '" + subFieldClazz.getSimpleName() + "' but was '" + subField.getClass().getSimpleName() + "'");
+      }
+    }
+    return fieldClazz.cast(field);
+  }
+
   Field getFieldByName(String name) {
     return fieldsByName.get(name);
   }
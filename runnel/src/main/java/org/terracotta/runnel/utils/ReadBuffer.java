@@ -18,6 +18,8 @@ package org.terracotta.runnel.utils;
 
 import java.io.UTFDataFormatException;
 import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author Ludovic Orban
@@ -25,58 +27,137 @@ import java.nio.ByteBuffer;
 public class ReadBuffer {
   private static final boolean V1_STRING_DECODING = false;
 
-  private final ByteBuffer byteBuffer;
-  private final int limit;
+  private ByteBuffer byteBuffer;
+  private int limit;
+  // the buffer the whole message is read from, which holds the dictionary strings decoded so far by position
+  private final ReadBuffer root;
+  private Map<Integer, String> dictionary;
 
   public ReadBuffer(ByteBuffer byteBuffer) {
-    this(byteBuffer, byteBuffer.remaining());
+    this(byteBuffer, byteBuffer.remaining(), null);
   }
 
-  private ReadBuffer(ByteBuffer byteBuffer, int limit) {
-    this.byteBuffer = byteBuffer;
-    this.limit = byteBuffer.position() + limit;
-    if (this.limit > byteBuffer.capacity()) {
+  private ReadBuffer(ByteBuffer byteBuffer, int limit, ReadBuffer root) {
+    this.root = root == null ? this : root;
+    read(byteBuffer, limit);
+  }
+
+  /**
+   * Make this read buffer read from another byte buffer, starting at its current position. The dictionary strings
+   * decoded so far are forgotten, as they belong to the previous message.
+   * @param byteBuffer the byte buffer to read from.
+   * @param limit the number of bytes that can be read.
+   */
+  public void reset(ByteBuffer byteBuffer, int limit) {
+    read(byteBuffer, limit);
+    if (root.dictionary != null) {
+      root.dictionary.clear();
+    }
+  }
+
+  private void read(ByteBuffer byteBuffer, int limit) {
+    int newLimit = byteBuffer.position() + limit;
+    if (newLimit > byteBuffer.capacity()) {
       throw new LimitReachedException();
     }
+    this.byteBuffer = byteBuffer;
+    this.limit = newLimit;
   }
 
-  public Boolean getBoolean() {
+  public boolean getBoolean() {
     if (byteBuffer.position() + 1 > limit) {
       throw new LimitReachedException();
     }
-    return byteBuffer.get() == (byte) 0 ? Boolean.FALSE : Boolean.TRUE;
+    return byteBuffer.get() != (byte) 0;
   }
 
-  public Double getDouble() {
+  public double getDouble() {
     if (byteBuffer.position() + 8 > limit) {
       throw new LimitReachedException();
     }
     return byteBuffer.getDouble();
   }
 
-  public Long getLong() {
+  public long getLong() {
     if (byteBuffer.position() + 8 > limit) {
       throw new LimitReachedException();
     }
     return byteBuffer.getLong();
   }
 
-  public Character getChar() {
+  public char getChar() {
     if (byteBuffer.position() + 2 > limit) {
       throw new LimitReachedException();
     }
     return byteBuffer.getChar();
   }
 
-  public Integer getInt() {
+  public int getInt() {
     if (byteBuffer.position() + 4 > limit) {
       throw new LimitReachedException();
     }
     return byteBuffer.getInt();
   }
 
+  /**
+   * Read the elements of an array of 32-bit integers, each one prefixed with its size, into the given array.
+   * @param target the array to fill, starting at index 0.
+   * @param length the number of elements to read.
+   */
+  public void getInt32Array(int[] target, int length) {
+    if (byteBuffer.position() + length * 5L > limit) {
+      throw new LimitReachedException();
+    }
+    ByteBuffer bb = this.byteBuffer;
+    for (int i = 0; i < length; i++) {
+      byte size = bb.get();
+      if (size != 4) {
+        throw new CorruptDataException("Expected field size of 4, read : " + size);
+      }
+      target[i] = bb.getInt();
+    }
+  }
+
+  /**
+   * Read the elements of an array of 64-bit integers, each one prefixed with its size, into the given array.
+   * @param target the array to fill, starting at index 0.
+   * @param length the number of elements to read.
+   */
+  public void getInt64Array(long[] target, int length) {
+    if (byteBuffer.position() + length * 9L > limit) {
+      throw new LimitReachedException();
+    }
+    ByteBuffer bb = this.byteBuffer;
+    for (int i = 0; i < length; i++) {
+      byte size = bb.get();
+      if (size != 8) {
+        throw new CorruptDataException("Expected field size of 8, read : " + size);
+      }
+      target[i] = bb.getLong();
+    }
+  }
+
+  /**
+   * Read the elements of an array of 64-bit floating points, each one prefixed with its size, into the given array.
+   * @param target the array to fill, starting at index 0.
+   * @param length the number of elements to read.
+   */
+  public void getFp64Array(double[] target, int length) {
+    if (byteBuffer.position() + length * 9L > limit) {
+      throw new LimitReachedException();
+    }
+    ByteBuffer bb = this.byteBuffer;
+    for (int i = 0; i < length; i++) {
+      byte size = bb.get();
+      if (size != 8) {
+        throw new CorruptDataException("Expected field size of 8, read : " + size);
+      }
+      target[i] = bb.getDouble();
+    }
+  }
+
   public int getVlqInt() {
-    return VLQ.decode(this);
+    return VLQ.decode(byteBuffer, limit);
   }
 
   byte getByte() {
@@ -109,6 +190,54 @@ public class ReadBuffer {
     return s;
   }
 
+  /**
+   * Read a dictionary string written by {@link StreamingWriteBuffer#putDictionaryString(String)}. All the references
+   * to the same definition of the message return the same string instance, whether the definition itself was read
+   * or skipped.
+   * @return the string.
+   */
+  public String getDictionaryString() {
+    int start = byteBuffer.position();
+    int size = getVlqInt();
+    if (size < 1) {
+      throw new CorruptDataException("Invalid dictionary string size : " + size);
+    }
+    byte tag = getByte();
+    if (tag == StreamingWriteBuffer.DICTIONARY_DEFINITION) {
+      return define(start, getString(size - 1));
+    } else if (tag == StreamingWriteBuffer.DICTIONARY_REFERENCE && size == 5) {
+      if (byteBuffer.position() + 4 > limit) {
+        throw new LimitReachedException();
+      }
+      int definition = start - byteBuffer.getInt();
+      if (definition < 0 || definition >= start) {
+        throw new CorruptDataException("Invalid dictionary reference : " + (start - definition));
+      }
+      String value = root.dictionary == null ? null : root.dictionary.get(definition);
+      if (value == null) {
+        ByteBuffer duplicate = byteBuffer.duplicate();
+        duplicate.position(definition);
+        ReadBuffer definitionReadBuffer = new ReadBuffer(duplicate, start - definition, root);
+        int definitionSize = definitionReadBuffer.getVlqInt();
+        if (definitionSize < 1 || definitionReadBuffer.getByte() != StreamingWriteBuffer.DICTIONARY_DEFINITION) {
+          throw new CorruptDataException("Dictionary reference to a non-definition");
+        }
+        value = define(definition, definitionReadBuffer.getString(definitionSize - 1));
+      }
+      return value;
+    } else {
+      throw new CorruptDataException("Unexpected dictionary string tag : " + tag);
+    }
+  }
+
+  private String define(int position, String value) {
+    if (root.dictionary == null) {
+      root.dictionary = new HashMap<>();
+    }
+    String defined = root.dictionary.putIfAbsent(position, value);
+    return defined == null ? value : defined;
+  }
+
   private String readString(ByteBuffer binary) {
     if (V1_STRING_DECODING) {
       StringBuilder sb = new StringBuilder(binary.remaining());
@@ -184,10 +313,28 @@ public class ReadBuffer {
     byteBuffer.position(targetPosition);
   }
 
+  public int position() {
+    return byteBuffer.position();
+  }
+
+  public void position(int position) {
+    if (position > limit) {
+      throw new LimitReachedException();
+    }
+    byteBuffer.position(position);
+  }
+
+  /**
+   * @return a read buffer with the same content and limit as this one, but with its own independent position.
+   */
+  public ReadBuffer view() {
+    return new ReadBuffer(byteBuffer.duplicate(), limit - byteBuffer.position(), root);
+  }
+
   public ReadBuffer limit(int size) {
     if (size < 0) {
       throw new IllegalArgumentException("size cannot be < 0");
     }
-    return new ReadBuffer(byteBuffer, size);
+    return new ReadBuffer(byteBuffer, size, root);
   }
 }
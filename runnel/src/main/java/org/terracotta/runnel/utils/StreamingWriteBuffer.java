@@ -0,0 +1,719 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.utils;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A write buffer encoding fields in a single pass, straight into a byte buffer.
+ * <p>
+ * Structs and arrays are written as frames: a few bytes are reserved for the frame header when the frame is opened,
+ * the frame content is then written right after it and the header is back-patched when the frame gets closed. When
+ * the reserved space does not match the VLQ-encoded header length, the frame content is moved, so that every header
+ * is encoded with the minimal number of bytes.
+ * <p>
+ * The buffer either grows as needed, or is supplied by the caller in which case a
+ * {@link BufferOverflowException} is thrown when it is too small.
+ * <p>
+ * A growable buffer can also be told to gather large byte buffer and byte array values instead of copying them: only
+ * their size gets written, the values themselves are referenced and counted in the enclosing frames' sizes. The
+ * encoded bytes are then either exposed as segments interleaving the written bytes with the referenced values, see
+ * {@link #segments()}, or assembled when copied.
+ * <p>
+ * Dictionary strings are written in full the first time a value is met in the encoded message, and as a fixed-size
+ * backward offset to that first occurrence afterwards. Those offsets are computed once the root frame gets closed, as
+ * frames may still move until then.
+ * Note: Instances of this class are not thread-safe.
+ */
+public class StreamingWriteBuffer {
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 256;
+  private static final int MAX_VLQ_SIZE = 5;
+
+  private static final byte STRUCT = 0;
+  private static final byte ARRAY = 1;
+  private static final byte ELEMENT = 2;
+
+  static final byte DICTIONARY_DEFINITION = 0;
+  static final byte DICTIONARY_REFERENCE = 1;
+  private static final int DICTIONARY_REFERENCE_SIZE = 5;
+
+  private ByteBuffer byteBuffer;
+  private final boolean growable;
+  private final int gatherThreshold;
+  private final int origin;
+  private int resultStart;
+
+  private int depth = 0;
+  private int lastFrameId = 0;
+  private byte[] frameTypes = new byte[8];
+  private int[] frameStarts = new int[8];
+  private int[] frameReserved = new int[8];
+  private int[] frameCounts = new int[8];
+  private int[] frameIds = new int[8];
+  private int[] frameGathered = new int[8];
+
+  private int gatheredCount = 0;
+  private int gatheredBytes = 0;
+  private ByteBuffer[] gathered = new ByteBuffer[4];
+  private int[] gatheredPositions = new int[4];
+
+  private Map<String, Integer> dictionary;
+  private int definitionCount = 0;
+  private int[] definitionPositions;
+  private int referenceCount = 0;
+  private int[] referencePositions;
+  private int[] referenceDefinitions;
+
+  /**
+   * Create a growable write buffer.
+   */
+  public StreamingWriteBuffer() {
+    this(ByteBuffer.allocate(DEFAULT_INITIAL_CAPACITY), true, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Create a growable write buffer that gathers byte buffer and byte array values instead of copying them when they
+   * are at least {@code gatherThreshold} bytes long.
+   * @param gatherThreshold the minimum size of the values to gather, strictly positive.
+   */
+  public StreamingWriteBuffer(int gatherThreshold) {
+    this(ByteBuffer.allocate(DEFAULT_INITIAL_CAPACITY), true, gatherThreshold);
+    if (gatherThreshold <= 0) {
+      throw new IllegalArgumentException("Gather threshold must be strictly positive: " + gatherThreshold);
+    }
+  }
+
+  /**
+   * Create a write buffer writing into the given byte buffer, starting at its current position.
+   * @param target the byte buffer to write to.
+   */
+  public StreamingWriteBuffer(ByteBuffer target) {
+    this(target, false, Integer.MAX_VALUE);
+  }
+
+  private StreamingWriteBuffer(ByteBuffer byteBuffer, boolean growable, int gatherThreshold) {
+    this.byteBuffer = byteBuffer;
+    this.growable = growable;
+    this.gatherThreshold = gatherThreshold;
+    this.origin = byteBuffer.position();
+    this.resultStart = origin;
+  }
+
+  public void putBoolean(boolean value) {
+    ensureRemaining(1);
+    byteBuffer.put(value ? (byte) 1 : (byte) 0);
+  }
+
+  public void putChar(char value) {
+    ensureRemaining(2);
+    byteBuffer.putChar(value);
+  }
+
+  public void putDouble(double value) {
+    ensureRemaining(8);
+    byteBuffer.putDouble(value);
+  }
+
+  public void putLong(long value) {
+    ensureRemaining(8);
+    byteBuffer.putLong(value);
+  }
+
+  public void putInt(int value) {
+    ensureRemaining(4);
+    byteBuffer.putInt(value);
+  }
+
+  public void putVlqInt(int value) {
+    ensureRemaining(VLQ.encodedSize(value));
+    VLQ.encode(value, byteBuffer);
+  }
+
+  /**
+   * Write the size of the given buffer as a VLQ followed by its remaining bytes. The buffer's position is advanced
+   * up to its limit. When the buffer gets gathered, its remaining bytes must not be modified until the encoded
+   * bytes have been consumed.
+   * @param value the buffer to write.
+   */
+  public void putByteBuffer(ByteBuffer value) {
+    int size = value.remaining();
+    putVlqInt(size);
+    if (size >= gatherThreshold) {
+      gather(value.slice(), size);
+      value.position(value.limit());
+    } else {
+      ensureRemaining(size);
+      byteBuffer.put(value);
+    }
+  }
+
+  /**
+   * Write the length of the given byte array as a VLQ followed by the array's bytes. When the array gets gathered,
+   * it must not be modified until the encoded bytes have been consumed.
+   * @param value the byte array to write.
+   */
+  public void putByteArray(byte[] value) {
+    putVlqInt(value.length);
+    if (value.length >= gatherThreshold) {
+      gather(ByteBuffer.wrap(value), value.length);
+    } else {
+      ensureRemaining(value.length);
+      byteBuffer.put(value);
+    }
+  }
+
+  private void gather(ByteBuffer value, int size) {
+    if (gatheredCount == gathered.length) {
+      gathered = Arrays.copyOf(gathered, gatheredCount * 2);
+      gatheredPositions = Arrays.copyOf(gatheredPositions, gatheredCount * 2);
+    }
+    gathered[gatheredCount] = value;
+    gatheredPositions[gatheredCount] = byteBuffer.position();
+    gatheredCount++;
+    gatheredBytes += size;
+  }
+
+  /**
+   * Write an array of 32-bit integers: its size as a VLQ, its length as a VLQ, then each value prefixed with its own
+   * size. As the encoded size is known upfront, the whole array is written in a single pass after one capacity check.
+   * @param values the values to write.
+   */
+  public void putInt32Array(int[] values) {
+    int length = values.length;
+    int size = VLQ.encodedSize(length) + length * 5;
+    ensureRemaining(VLQ.encodedSize(size) + size);
+    ByteBuffer bb = this.byteBuffer;
+    VLQ.encode(size, bb);
+    VLQ.encode(length, bb);
+    for (int value : values) {
+      bb.put((byte) 4);
+      bb.putInt(value);
+    }
+  }
+
+  /**
+   * Write an array of 64-bit integers: its size as a VLQ, its length as a VLQ, then each value prefixed with its own
+   * size. As the encoded size is known upfront, the whole array is written in a single pass after one capacity check.
+   * @param values the values to write.
+   */
+  public void putInt64Array(long[] values) {
+    int length = values.length;
+    int size = VLQ.encodedSize(length) + length * 9;
+    ensureRemaining(VLQ.encodedSize(size) + size);
+    ByteBuffer bb = this.byteBuffer;
+    VLQ.encode(size, bb);
+    VLQ.encode(length, bb);
+    for (long value : values) {
+      bb.put((byte) 8);
+      bb.putLong(value);
+    }
+  }
+
+  /**
+   * Write an array of 64-bit floating points: its size as a VLQ, its length as a VLQ, then each value prefixed with its
+   * own size. As the encoded size is known upfront, the whole array is written in a single pass after one capacity check.
+   * @param values the values to write.
+   */
+  public void putFp64Array(double[] values) {
+    int length = values.length;
+    int size = VLQ.encodedSize(length) + length * 9;
+    ensureRemaining(VLQ.encodedSize(size) + size);
+    ByteBuffer bb = this.byteBuffer;
+    VLQ.encode(size, bb);
+    VLQ.encode(length, bb);
+    for (double value : values) {
+      bb.put((byte) 8);
+      bb.putDouble(value);
+    }
+  }
+
+  /**
+   * Write the size of the encoded string as a VLQ followed by the modified UTF-8 encoded string,
+   * see {@link StringTool#putEncoded(ByteBuffer, String, int)}.
+   * @param value the string to write.
+   */
+  public void putString(String value) {
+    int length = value.length();
+    // each char takes at least one byte, so the encoded size is at least as large as the length
+    int reserved = VLQ.encodedSize(length);
+    ensureStringRemaining(reserved, 0, value, length);
+    int start = byteBuffer.position();
+    int valueStart = start + reserved;
+    byteBuffer.position(valueStart);
+    encodeString(value, length);
+    int size = byteBuffer.position() - valueStart;
+    patchHeader(start, reserved, size, VLQ.encodedSize(size), size, -1);
+  }
+
+  /**
+   * Write a string as a dictionary entry: the size of the entry as a VLQ, then either a definition tag followed by the
+   * modified UTF-8 encoded string, or, if the same value was already defined in the message being written, a reference
+   * tag followed by the backward offset from the start of this entry to the start of the definition, as an int.
+   * Strings too short to be worth a reference are always written as definitions.
+   * @param value the string to write.
+   */
+  public void putDictionaryString(String value) {
+    int length = value.length();
+    if (length < DICTIONARY_REFERENCE_SIZE) {
+      putDefinition(value, length);
+      return;
+    }
+    if (dictionary == null) {
+      dictionary = new HashMap<>();
+      definitionPositions = new int[8];
+      referencePositions = new int[8];
+      referenceDefinitions = new int[8];
+    }
+    Integer definition = dictionary.get(value);
+    if (definition == null) {
+      int start = byteBuffer.position();
+      putDefinition(value, length);
+      if (definitionCount == definitionPositions.length) {
+        definitionPositions = Arrays.copyOf(definitionPositions, definitionCount * 2);
+      }
+      definitionPositions[definitionCount] = start;
+      dictionary.put(value, definitionCount++);
+    } else {
+      ensureRemaining(1 + DICTIONARY_REFERENCE_SIZE);
+      if (referenceCount == referencePositions.length) {
+        referencePositions = Arrays.copyOf(referencePositions, referenceCount * 2);
+        referenceDefinitions = Arrays.copyOf(referenceDefinitions, referenceCount * 2);
+      }
+      referencePositions[referenceCount] = byteBuffer.position();
+      referenceDefinitions[referenceCount] = definition;
+      referenceCount++;
+      byteBuffer.put((byte) DICTIONARY_REFERENCE_SIZE);
+      byteBuffer.put(DICTIONARY_REFERENCE);
+      // the offset is only known once the root frame is closed, see resolveReferences()
+      byteBuffer.putInt(0);
+    }
+  }
+
+  private void putDefinition(String value, int length) {
+    // the tag and each char take at least one byte, so the encoded size is at least as large as the length + 1
+    int reserved = VLQ.encodedSize(length + 1);
+    ensureStringRemaining(reserved, 1, value, length);
+    int start = byteBuffer.position();
+    int valueStart = start + reserved;
+    byteBuffer.position(valueStart);
+    byteBuffer.put(DICTIONARY_DEFINITION);
+    encodeString(value, length);
+    int size = byteBuffer.position() - valueStart;
+    patchHeader(start, reserved, size, VLQ.encodedSize(size), size, -1);
+  }
+
+  private void resolveReferences() {
+    int[] gatheredBefore = null;
+    if (gatheredCount > 0) {
+      // the gathered values are not written, but they are part of the offsets
+      gatheredBefore = new int[gatheredCount + 1];
+      for (int i = 0; i < gatheredCount; i++) {
+        gatheredBefore[i + 1] = gatheredBefore[i] + gathered[i].remaining();
+      }
+    }
+    for (int i = 0; i < referenceCount; i++) {
+      int reference = referencePositions[i];
+      int definition = definitionPositions[referenceDefinitions[i]];
+      int offset = reference - definition;
+      if (gatheredBefore != null) {
+        offset += gatheredBefore[gatheredUpTo(reference)] - gatheredBefore[gatheredUpTo(definition)];
+      }
+      byteBuffer.putInt(reference + 2, offset);
+    }
+  }
+
+  /**
+   * @return the number of values gathered at or before the given position.
+   */
+  private int gatheredUpTo(int position) {
+    int low = 0;
+    int high = gatheredCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (gatheredPositions[middle] <= position) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Make room for a string written after a reserved header and a tag. A growable buffer makes room for the worst case,
+   * 3 bytes per char, without encoding the string twice. A fixed buffer only needs room for the exact encoded size, as
+   * it may have been sized for the very message being written.
+   */
+  private void ensureStringRemaining(int reserved, int tagSize, String value, int length) {
+    int worstCase = reserved + tagSize + length * 3;
+    if (byteBuffer.remaining() < worstCase) {
+      if (growable) {
+        grow(worstCase);
+      } else {
+        int size = tagSize + (int) StringTool.getEncodedLen(value);
+        ensureRemaining(VLQ.encodedSize(size) + size);
+      }
+    }
+  }
+
+  private void encodeString(String value, int length) {
+    ByteBuffer bb = this.byteBuffer;
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c <= '\u007F' && c != '\u0000') {
+        bb.put((byte) c);
+      } else if (c <= '\u07FF') {
+        bb.put((byte) (0xC0 | c >>> 6)).put((byte) (0x80 | (c & 0x3F)));
+      } else {
+        bb.put((byte) (0xE0 | c >>> 12)).put((byte) (0x80 | ((c >>> 6) & 0x3F))).put((byte) (0x80 | (c & 0x3F)));
+      }
+    }
+  }
+
+  /**
+   * Open the root struct frame.
+   * @return the frame ID.
+   */
+  public int openRoot() {
+    if (depth != 0 || byteBuffer.position() != origin) {
+      throw new IllegalStateException("Root frame already opened");
+    }
+    // when growable, the root header is right-aligned in the reserved space at closing time so it never has to move;
+    // otherwise a target that cannot hold more than 127 bytes of fields only gets 1 byte reserved, so that a message
+    // filling it exactly never needs the extra byte, even temporarily
+    return openFrame(STRUCT, growable ? MAX_VLQ_SIZE : byteBuffer.remaining() > 128 ? 2 : 1);
+  }
+
+  /**
+   * Open a struct frame, encoded as {@code size:[fields]}.
+   * @return the frame ID.
+   */
+  public int openStruct() {
+    return openFrame(STRUCT, 1);
+  }
+
+  /**
+   * Open an array frame, encoded as {@code size:length:[values]}.
+   * @return the frame ID.
+   */
+  public int openArray() {
+    return openFrame(ARRAY, 2);
+  }
+
+  /**
+   * Open a struct array element frame, encoded as {@code size:[fields]}. Empty elements are discarded when closed,
+   * otherwise they increment the enclosing array frame's length.
+   * @return the frame ID.
+   */
+  public int openElement() {
+    if (depth == 0 || frameTypes[depth - 1] != ARRAY) {
+      throw new IllegalStateException("Struct array elements can only be opened inside an array");
+    }
+    return openFrame(ELEMENT, 1);
+  }
+
+  /**
+   * Increment the length of the array frame at the given level.
+   * @param level the array frame's level.
+   */
+  public void countElement(int level) {
+    frameCounts[level]++;
+  }
+
+  /**
+   * Make sure the frame at the given level with the given ID is still open and close all the frames that were opened
+   * on top of it, so that writing can resume at that level.
+   * @param level the frame's level.
+   * @param frameId the frame's ID.
+   * @throws IllegalStateException if the frame has already been closed.
+   */
+  public void enter(int level, int frameId) throws IllegalStateException {
+    if (level >= depth || frameIds[level] != frameId) {
+      throw new IllegalStateException("Encoder has already been ended");
+    }
+    while (depth > level + 1) {
+      closeFrame();
+    }
+  }
+
+  /**
+   * Close the frame at the given level with the given ID, and all frames that were opened on top of it.
+   * @param level the frame's level.
+   * @param frameId the frame's ID.
+   * @throws IllegalStateException if the frame has already been closed.
+   */
+  public void close(int level, int frameId) throws IllegalStateException {
+    enter(level, frameId);
+    closeFrame();
+  }
+
+  /**
+   * @param level the frame's level.
+   * @param frameId the frame's ID.
+   * @return true if the frame at the given level with the given ID is still open.
+   */
+  public boolean isOpen(int level, int frameId) {
+    return level < depth && frameIds[level] == frameId;
+  }
+
+  /**
+   * Copy the encoded bytes into the given byte buffer. All frames must have been closed.
+   * @param bb the byte buffer to copy to.
+   * @return the passed-in byte buffer.
+   */
+  public ByteBuffer copyTo(ByteBuffer bb) {
+    checkAllClosed();
+    int from = resultStart;
+    for (int i = 0; i < gatheredCount; i++) {
+      int to = gatheredPositions[i];
+      copyWritten(from, to, bb);
+      bb.put(gathered[i].duplicate());
+      from = to;
+    }
+    copyWritten(from, byteBuffer.position(), bb);
+    return bb;
+  }
+
+  /**
+   * Expose the encoded bytes as segments to be written in order, e.g. with
+   * {@link java.nio.channels.GatheringByteChannel#write(ByteBuffer[])}: the written bytes, copied into a single new
+   * heap byte buffer, interleaved with views of the gathered values. The gathered values' bytes are not copied.
+   * All frames must have been closed.
+   * @return the segments, each of them positioned at its start.
+   */
+  public ByteBuffer[] segments() {
+    checkAllClosed();
+    int end = byteBuffer.position();
+    ByteBuffer written = copyWritten(resultStart, end, ByteBuffer.allocate(end - resultStart));
+    ByteBuffer[] segments = new ByteBuffer[gatheredCount * 2 + 1];
+    int count = 0;
+    int from = resultStart;
+    for (int i = 0; i < gatheredCount; i++) {
+      int to = gatheredPositions[i];
+      if (to > from) {
+        segments[count++] = slice(written, from - resultStart, to - resultStart);
+      }
+      segments[count++] = gathered[i].duplicate();
+      from = to;
+    }
+    if (end > from || count == 0) {
+      segments[count++] = slice(written, from - resultStart, end - resultStart);
+    }
+    return count == segments.length ? segments : Arrays.copyOf(segments, count);
+  }
+
+  private static ByteBuffer slice(ByteBuffer bb, int from, int to) {
+    ByteBuffer duplicate = bb.duplicate();
+    duplicate.limit(to).position(from);
+    return duplicate.slice();
+  }
+
+  private ByteBuffer copyWritten(int from, int to, ByteBuffer bb) {
+    if (byteBuffer.hasArray()) {
+      bb.put(byteBuffer.array(), byteBuffer.arrayOffset() + from, to - from);
+    } else {
+      ByteBuffer duplicate = byteBuffer.duplicate();
+      duplicate.limit(to).position(from);
+      bb.put(duplicate);
+    }
+    return bb;
+  }
+
+  /**
+   * @return a new heap byte buffer of the exact size of the encoded bytes, positioned at its end.
+   * All frames must have been closed.
+   */
+  public ByteBuffer toByteBuffer() {
+    return copyTo(ByteBuffer.allocate(encodedSize()));
+  }
+
+  /**
+   * Discard everything written so far, so that a new root frame can be opened. Frames that were open are discarded
+   * too, so their IDs become invalid. Growable buffers keep their current capacity, target buffers are written again
+   * starting at the position they had when this write buffer was created.
+   */
+  public void reset() {
+    depth = 0;
+    Arrays.fill(gathered, 0, gatheredCount, null);
+    gatheredCount = 0;
+    gatheredBytes = 0;
+    if (dictionary != null) {
+      dictionary.clear();
+      definitionCount = 0;
+      referenceCount = 0;
+    }
+    byteBuffer.position(origin);
+    resultStart = origin;
+  }
+
+  /**
+   * @return the byte buffer this write buffer writes into, positioned right after the encoded bytes.
+   * All frames must have been closed.
+   */
+  public ByteBuffer target() {
+    checkAllClosed();
+    return byteBuffer;
+  }
+
+  /**
+   * @return the number of encoded bytes, gathered values included. All frames must have been closed.
+   */
+  public int encodedSize() {
+    checkAllClosed();
+    return byteBuffer.position() - resultStart + gatheredBytes;
+  }
+
+  private void checkAllClosed() {
+    if (depth != 0) {
+      throw new IllegalStateException("Encoding is not complete");
+    }
+  }
+
+  private int openFrame(byte type, int reserved) {
+    ensureRemaining(reserved);
+    if (depth == frameIds.length) {
+      int newLength = depth * 2;
+      frameTypes = Arrays.copyOf(frameTypes, newLength);
+      frameStarts = Arrays.copyOf(frameStarts, newLength);
+      frameReserved = Arrays.copyOf(frameReserved, newLength);
+      frameCounts = Arrays.copyOf(frameCounts, newLength);
+      frameIds = Arrays.copyOf(frameIds, newLength);
+      frameGathered = Arrays.copyOf(frameGathered, newLength);
+    }
+    int start = byteBuffer.position();
+    int frameId = ++lastFrameId;
+    frameTypes[depth] = type;
+    frameStarts[depth] = start;
+    frameReserved[depth] = reserved;
+    frameCounts[depth] = 0;
+    frameIds[depth] = frameId;
+    frameGathered[depth] = gatheredBytes;
+    depth++;
+    byteBuffer.position(start + reserved);
+    return frameId;
+  }
+
+  private void closeFrame() {
+    depth--;
+    byte type = frameTypes[depth];
+    int start = frameStarts[depth];
+    int reserved = frameReserved[depth];
+    int count = frameCounts[depth];
+    int writtenSize = byteBuffer.position() - (start + reserved);
+    int bodySize = writtenSize + gatheredBytes - frameGathered[depth];
+
+    if (type == ELEMENT) {
+      if (bodySize == 0) {
+        byteBuffer.position(start);
+        return;
+      }
+      frameCounts[depth - 1]++;
+    }
+
+    if (type == ARRAY) {
+      int countSize = VLQ.encodedSize(count);
+      int size = countSize + bodySize;
+      patchHeader(start, reserved, writtenSize, VLQ.encodedSize(size) + countSize, size, count);
+    } else if (depth == 0 && growable) {
+      int headerSize = VLQ.encodedSize(bodySize);
+      resultStart = start + reserved - headerSize;
+      int end = byteBuffer.position();
+      byteBuffer.position(resultStart);
+      VLQ.encode(bodySize, byteBuffer);
+      byteBuffer.position(end);
+    } else {
+      patchHeader(start, reserved, writtenSize, VLQ.encodedSize(bodySize), bodySize, -1);
+    }
+
+    if (depth == 0 && referenceCount > 0) {
+      resolveReferences();
+    }
+  }
+
+  /**
+   * @param writtenSize the number of bytes written after the reserved space, which excludes gathered values.
+   */
+  private void patchHeader(int start, int reserved, int writtenSize, int headerSize, int size, int count) {
+    if (headerSize != reserved) {
+      if (headerSize > reserved) {
+        ensureRemaining(headerSize - reserved);
+      }
+      move(start + reserved, start + headerSize, writtenSize);
+      // the positions recorded after the frame start are those inside the frame's body
+      int bodyStart = start + reserved;
+      int delta = headerSize - reserved;
+      shift(gatheredPositions, gatheredCount, bodyStart, delta);
+      shift(definitionPositions, definitionCount, bodyStart, delta);
+      shift(referencePositions, referenceCount, bodyStart, delta);
+    }
+    byteBuffer.position(start);
+    VLQ.encode(size, byteBuffer);
+    if (count >= 0) {
+      VLQ.encode(count, byteBuffer);
+    }
+    byteBuffer.position(start + headerSize + writtenSize);
+  }
+
+  private static void shift(int[] positions, int count, int from, int delta) {
+    for (int i = count - 1; i >= 0 && positions[i] >= from; i--) {
+      positions[i] += delta;
+    }
+  }
+
+  private void move(int from, int to, int length) {
+    if (length == 0) {
+      return;
+    }
+    if (byteBuffer.hasArray()) {
+      byte[] array = byteBuffer.array();
+      int offset = byteBuffer.arrayOffset();
+      System.arraycopy(array, offset + from, array, offset + to, length);
+    } else if (to > from) {
+      for (int i = length - 1; i >= 0; i--) {
+        byteBuffer.put(to + i, byteBuffer.get(from + i));
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        byteBuffer.put(to + i, byteBuffer.get(from + i));
+      }
+    }
+  }
+
+  private void ensureRemaining(int size) {
+    if (byteBuffer.remaining() < size) {
+      grow(size);
+    }
+  }
+
+  private void grow(int size) {
+    if (!growable) {
+      throw new BufferOverflowException();
+    }
+    int position = byteBuffer.position();
+    int newCapacity = Math.max(byteBuffer.capacity() * 2, position + size);
+    ByteBuffer newBuffer = ByteBuffer.allocate(newCapacity);
+    byteBuffer.flip();
+    newBuffer.put(byteBuffer);
+    byteBuffer = newBuffer;
+  }
+
+}
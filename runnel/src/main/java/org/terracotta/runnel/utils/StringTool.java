@@ -502,7 +502,7 @@ public final class StringTool {
    * @return the byte length of the raw encoding
    */
   @SuppressWarnings( { "StatementWithEmptyBody", "UnnecessarySemicolon" })
-  private static long getEncodedLen(final String str) {
+  static long getEncodedLen(final String str) {
     // Performing the "ASCII" checks with an "empty if" improves the performance of
     // ASCII counting by as much as 70%.
     final int strLength = str.length();
@@ -23,7 +23,19 @@ import java.nio.ByteBuffer;
  */
 public class VLQ {
 
+  private static final int MAX_SIZE = 5;
+
   public static void encode(int value, ByteBuffer out) {
+    // most encoded values are field indexes and small sizes, which fit in one or two bytes
+    if (value >= 0 && value < 0x80) {
+      out.put((byte) value);
+      return;
+    }
+    if (value >= 0 && value < 0x4000) {
+      out.put((byte) (value >>> 7 | 0x80));
+      out.put((byte) (value & 0x7F));
+      return;
+    }
     if (value < 0) {
       throw new IllegalArgumentException("Cannot encode negative values");
     }
@@ -43,29 +55,54 @@ public class VLQ {
     b = ((value & 0x1FC000) >> 14);
     if (msbFound || b != 0) {
       out.put(((byte) (b | 0x80)));
-      msbFound = true;
     }
     b = ((value & 0x3F80) >> 7);
-    if (msbFound || b != 0) {
-      out.put(((byte) (b | 0x80)));
-    }
+    out.put(((byte) (b | 0x80)));
     b = (value & 0x7F);
     out.put((byte) (b));
   }
 
   public static int decode(ReadBuffer in) {
-    int b;
-    int value = 0;
+    return in.getVlqInt();
+  }
 
-    for (int i = 0; i < 5; i++) {
-      b = in.getByte();
-      value |= b & 0x7F;
-      if ((b & 0x80) == 0) {
-        return value;
+  /**
+   * Decode a value starting at the byte buffer's current position, advancing the position past it. The bytes are
+   * read with absolute gets after a single bounds check, one and two byte values being decoded without looping.
+   * @param in the byte buffer to read from.
+   * @param limit the position up to which bytes can be read.
+   * @return the decoded value.
+   * @throws LimitReachedException if the value extends past the limit.
+   */
+  public static int decode(ByteBuffer in, int limit) throws LimitReachedException {
+    int position = in.position();
+    int available = limit - position;
+    if (available >= 2) {
+      byte b0 = in.get(position);
+      if (b0 >= 0) {
+        in.position(position + 1);
+        return b0;
+      }
+      byte b1 = in.get(position + 1);
+      if (b1 >= 0) {
+        in.position(position + 2);
+        return (b0 & 0x7F) << 7 | b1;
       }
-      value <<= 7;
     }
 
+    int end = position + Math.min(available, MAX_SIZE);
+    int value = 0;
+    for (int i = position; i < end; i++) {
+      byte b = in.get(i);
+      value = value << 7 | (b & 0x7F);
+      if (b >= 0) {
+        in.position(i + 1);
+        return value;
+      }
+    }
+    if (available < MAX_SIZE) {
+      throw new LimitReachedException();
+    }
     throw new IllegalArgumentException("Cannot decode value greater than Integer.MAX_VALUE");
   }
 
@@ -73,12 +110,16 @@ public class VLQ {
     if (value < 0) {
       throw new IllegalArgumentException("Cannot encode negative values");
     }
-    int i = 1;
-    while ((value & 0xFFFFFF80) != 0L) {
-      value >>>= 7;
-      i++;
+    if (value < 0x80) {
+      return 1;
+    } else if (value < 0x4000) {
+      return 2;
+    } else if (value < 0x200000) {
+      return 3;
+    } else if (value < 0x10000000) {
+      return 4;
     }
-    return i;
+    return 5;
   }
 
 }
@@ -19,8 +19,10 @@ package org.terracotta.runnel;
 import org.junit.Test;
 import org.terracotta.runnel.decoding.ArrayDecoder;
 import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.encoding.StructEncoder;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -86,6 +88,122 @@ public class ByteBufferTest {
     }
   }
 
+  @Test
+  public void testGatheredSegmentsHaveSameBytes() throws Exception {
+    Struct leaf = StructBuilder.newStructBuilder()
+        .byteBuffer("blob", 1)
+        .build();
+    Struct struct = StructBuilder.newStructBuilder()
+        .string("name", 10)
+        .byteBuffer("blob", 20)
+        .byteBuffers("blobs", 30)
+        .struct("leaf", 40, leaf)
+        .structs("leaves", 50, leaf)
+        .build();
+
+    ByteBuffer expected = encode(struct.encoder()).encode();
+    ByteBuffer[] segments = encode(struct.gatheringEncoder(100)).encodeSegments();
+
+    assertThat(segments.length, is(12));
+    assertThat(concat(segments).array(), is(expected.array()));
+    assertThat(encode(struct.gatheringEncoder(100)).encode().array(), is(expected.array()));
+  }
+
+  @Test
+  public void testGatheredValuesAreNotCopied() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder()
+        .int32("id", 10)
+        .byteBuffer("blob", 20)
+        .build();
+
+    ByteBuffer payload = direct(4096, 'x');
+    ByteBuffer[] segments = struct.gatheringEncoder(1024)
+        .int32("id", 1)
+        .byteBuffer("blob", payload)
+        .encodeSegments();
+
+    assertThat(payload.remaining(), is(0));
+    assertThat(segments.length, is(2));
+    assertThat(segments[1].isDirect(), is(true));
+    payload.put(0, (byte) 'y');
+    assertThat(segments[1].get(0), is((byte) 'y'));
+
+    StructDecoder<Void> decoder = struct.decoder(concat(segments));
+    assertThat(decoder.int32("id"), is(1));
+    assertThat(decoder.byteBuffer("blob").get(), is((byte) 'y'));
+  }
+
+  @Test
+  public void testSmallValuesAreCopied() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder()
+        .byteBuffer("blob", 10)
+        .byteBuffer("bytes", 20)
+        .build();
+
+    ByteBuffer[] segments = struct.gatheringEncoder(1024)
+        .byteBuffer("blob", buffer(1023, 'x'))
+        .byteBuffer("bytes", new byte[] {1, 2, 3})
+        .encodeSegments();
+
+    assertThat(segments.length, is(1));
+    assertThat(concat(segments).array(), is(struct.encoder().byteBuffer("blob", buffer(1023, 'x')).byteBuffer("bytes", new byte[] {1, 2, 3}).encode().array()));
+  }
+
+  @Test
+  public void testResetGatheringEncoder() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder()
+        .byteBuffer("blob", 10)
+        .build();
+
+    StructEncoder<Void> encoder = struct.gatheringEncoder(16);
+    encoder.byteBuffer("blob", buffer(32, 'x')).encodeSegments();
+    ByteBuffer[] segments = encoder.reset().byteBuffer("blob", buffer(64, 'y')).encodeSegments();
+
+    assertThat(segments.length, is(2));
+    assertThat(concat(segments).array(), is(struct.encoder().byteBuffer("blob", buffer(64, 'y')).encode().array()));
+  }
+
+  private static StructEncoder<Void> encode(StructEncoder<Void> encoder) {
+    // payloads above 127 bytes make the enclosing frames' headers grow, moving the gathered values' positions
+    return encoder
+        .string("name", "joe")
+        .byteBuffer("blob", direct(300, 'a'))
+        .byteBuffers("blobs")
+          .value(buffer(10, 'b'))
+          .value(buffer(200, 'c'))
+          .value(direct(150, 'd'))
+        .end()
+        .struct("leaf")
+          .byteBuffer("blob", buffer(1000, 'e'))
+        .end()
+        .structs("leaves")
+          .add()
+            .byteBuffer("blob", buffer(120, 'f'))
+          .end()
+          .add()
+            .byteBuffer("blob", buffer(20000, 'g'))
+          .end()
+        .end();
+  }
+
+  private static ByteBuffer concat(ByteBuffer[] segments) {
+    int size = 0;
+    for (ByteBuffer segment : segments) {
+      size += segment.remaining();
+    }
+    ByteBuffer result = ByteBuffer.allocate(size);
+    Arrays.stream(segments).forEach(segment -> result.put(segment.duplicate()));
+    result.flip();
+    return result;
+  }
+
+  private static ByteBuffer direct(int size, char c) {
+    ByteBuffer byteBuffer = ByteBuffer.allocateDirect(size);
+    byteBuffer.put(buffer(size, c));
+    byteBuffer.rewind();
+    return byteBuffer;
+  }
+
   private static ByteBuffer buffer(int size, char c) {
     ByteBuffer byteBuffer = ByteBuffer.allocate(size);
     for (int i = 0; i < size; i++) {
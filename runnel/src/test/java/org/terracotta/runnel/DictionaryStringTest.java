@@ -0,0 +1,254 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel;
+
+import org.junit.Test;
+import org.terracotta.runnel.decoding.ArrayDecoder;
+import org.terracotta.runnel.decoding.StructArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.encoding.StructArrayEncoder;
+import org.terracotta.runnel.encoding.StructEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+public class DictionaryStringTest {
+
+  private final Struct setting = StructBuilder.newStructBuilder()
+      .dictionaryString("name", 1)
+      .string("value", 2)
+      .dictionaryStrings("tags", 3)
+      .byteBuffer("blob", 4)
+      .build();
+
+  private final Struct struct = StructBuilder.newStructBuilder()
+      .dictionaryString("stripe", 1)
+      .structs("settings", 2, setting)
+      .dictionaryString("owner", 3)
+      .build();
+
+  @Test
+  public void testRepeatedValuesDecodedAsSameInstance() throws Exception {
+    ByteBuffer encoded = encode(struct.encoder(), 3, "x", 0).encode();
+
+    encoded.rewind();
+    StructDecoder<Void> decoder = struct.decoder(encoded);
+    String stripe = decoder.string("stripe");
+    assertThat(stripe, is("stripe-1"));
+    StructArrayDecoder<StructDecoder<Void>> settings = decoder.structs("settings");
+    String[] names = new String[3];
+    for (int i = 0; i < 3; i++) {
+      StructDecoder<StructArrayDecoder<StructDecoder<Void>>> element = settings.next();
+      names[i] = element.string("name");
+      assertThat(names[i], is("offheap-resource"));
+      assertThat(element.string("value"), is("x" + i));
+      ArrayDecoder<String, ?> tags = element.strings("tags");
+      assertThat(tags.value(), is("cluster-wide"));
+      assertThat(tags.value(), sameInstance(stripe));
+      tags.end();
+    }
+    settings.end();
+    assertThat(names[1], sameInstance(names[0]));
+    assertThat(names[2], sameInstance(names[0]));
+    assertThat(decoder.string("owner"), sameInstance(stripe));
+  }
+
+  @Test
+  public void testRepeatedValuesEncodedOnce() throws Exception {
+    Struct plainSetting = StructBuilder.newStructBuilder()
+        .string("name", 1)
+        .string("value", 2)
+        .strings("tags", 3)
+        .build();
+    Struct plain = StructBuilder.newStructBuilder()
+        .string("stripe", 1)
+        .structs("settings", 2, plainSetting)
+        .string("owner", 3)
+        .build();
+
+    int plainSize = encode(plain.encoder(), 100, "x", 0).encode().capacity();
+    int dictionarySize = encode(struct.encoder(), 100, "x", 0).encode().capacity();
+
+    assertThat(dictionarySize < plainSize * 2 / 3, is(true));
+  }
+
+  @Test
+  public void testReferenceToSkippedDefinition() throws Exception {
+    ByteBuffer encoded = encode(struct.encoder(), 3, "x", 0).encode();
+
+    encoded.rewind();
+    StructDecoder<Void> decoder = struct.decoder(encoded);
+    StructArrayDecoder<StructDecoder<Void>> settings = decoder.structs("settings");
+    settings.next();
+    assertThat(settings.next().string("name"), is("offheap-resource"));
+    settings.end();
+    assertThat(decoder.string("owner"), is("stripe-1"));
+  }
+
+  @Test
+  public void testRandomAccessDecoding() throws Exception {
+    ByteBuffer encoded = encode(struct.encoder(), 3, "x", 0).encode();
+
+    encoded.rewind();
+    StructDecoder<Void> decoder = struct.randomAccessDecoder(encoded);
+    String owner = decoder.string("owner");
+    assertThat(owner, is("stripe-1"));
+    assertThat(decoder.string("stripe"), sameInstance(owner));
+    StructArrayDecoder<StructDecoder<Void>> settings = decoder.structs("settings");
+    settings.next();
+    settings.next();
+    assertThat(settings.next().string("name"), is("offheap-resource"));
+  }
+
+  @Test
+  public void testReferencesAcrossMovedFrames() throws Exception {
+    // values large enough for the elements and array headers to be moved when their frames get closed
+    String value = repeat('v', 300);
+
+    ByteBuffer growable = encode(struct.encoder(), 50, value, 20).encode();
+    ByteBuffer target = encode(struct.encoder(ByteBuffer.allocateDirect(growable.capacity() * 2)), 50, value, 20).encode();
+    // the gathered blobs are not written between the definitions and the references, but must be accounted for
+    ByteBuffer[] segments = encode(struct.gatheringEncoder(10), 50, value, 20).encodeSegments();
+
+    target.flip();
+    growable.rewind();
+    assertThat(target.equals(growable), is(true));
+    check(growable, 50, value);
+    check(concat(segments), 50, value);
+  }
+
+  @Test
+  public void testEncodeIntoExactSizeTargetBuffer() throws Exception {
+    ByteBuffer growable = encode(struct.encoder(), 3, "x", 0).encode();
+    growable.rewind();
+    ByteBuffer target = ByteBuffer.allocate(growable.remaining());
+
+    encode(struct.encoder(target), 3, "x", 0).encode();
+
+    assertThat(target.hasRemaining(), is(false));
+    check(target, 3, "x");
+  }
+
+  @Test
+  public void testResetEncoderForgetsDefinitions() throws Exception {
+    StructEncoder<Void> encoder = struct.encoder();
+    encoder.string("stripe", "stripe-1").encode();
+
+    ByteBuffer encoded = encoder.reset()
+        .string("owner", "stripe-1")
+        .encode();
+
+    encoded.rewind();
+    assertThat(struct.decoder(encoded).string("owner"), is("stripe-1"));
+  }
+
+  @Test
+  public void testReusedDecoderForgetsDefinitions() throws Exception {
+    ByteBuffer first = encode(struct.encoder(), 3, "x", 0).encode();
+    ByteBuffer second = struct.encoder()
+        .string("stripe", "stripe-2")
+        .string("owner", "stripe-2")
+        .encode();
+
+    StructDecoder<Void> decoder = struct.decoder();
+    first.rewind();
+    assertThat(decoder.wrap(first).string("stripe"), is("stripe-1"));
+    second.rewind();
+    decoder.wrap(second);
+    decoder.string("stripe");
+    assertThat(decoder.string("owner"), is("stripe-2"));
+  }
+
+  @Test
+  public void testWrappedDecoderForgetsDefinitions() throws Exception {
+    ByteBuffer first = struct.encoder()
+        .string("stripe", "alphaalpha")
+        .string("owner", "alphaalpha")
+        .encode();
+    ByteBuffer second = struct.encoder()
+        .string("stripe", "betabetabe")
+        .string("owner", "betabetabe")
+        .encode();
+
+    first.rewind();
+    StructDecoder<Void> decoder = struct.decoder(first);
+    assertThat(decoder.string("stripe"), is("alphaalpha"));
+    assertThat(decoder.string("owner"), is("alphaalpha"));
+    second.rewind();
+    decoder.wrap(second);
+    assertThat(decoder.string("stripe"), is("betabetabe"));
+    assertThat(decoder.string("owner"), is("betabetabe"));
+  }
+
+  private void check(ByteBuffer encoded, int count, String value) {
+    encoded.rewind();
+    StructDecoder<Void> decoder = struct.decoder(encoded);
+    assertThat(decoder.string("stripe"), is("stripe-1"));
+    StructArrayDecoder<StructDecoder<Void>> settings = decoder.structs("settings");
+    assertThat(settings.length(), is(count));
+    for (int i = 0; i < count; i++) {
+      StructDecoder<StructArrayDecoder<StructDecoder<Void>>> element = settings.next();
+      assertThat(element.string("name"), is("offheap-resource"));
+      assertThat(element.string("value"), is(value + i));
+      assertThat(element.strings("tags").value(), is("cluster-wide"));
+    }
+    settings.end();
+    assertThat(decoder.string("owner"), is("stripe-1"));
+  }
+
+  private static StructEncoder<Void> encode(StructEncoder<Void> encoder, int count, String value, int blobSize) {
+    encoder.string("stripe", "stripe-1");
+    StructArrayEncoder<StructEncoder<Void>> settings = encoder.structs("settings");
+    for (int i = 0; i < count; i++) {
+      StructEncoder<StructArrayEncoder<StructEncoder<Void>>> element = settings.add()
+          .string("name", "offheap-resource")
+          .string("value", value + i)
+          .strings("tags")
+            .value("cluster-wide")
+            .value("stripe-1")
+          .end();
+      if (blobSize > 0) {
+        element.byteBuffer("blob", new byte[blobSize]);
+      }
+    }
+    settings.end();
+    return encoder.string("owner", "stripe-1");
+  }
+
+  private static ByteBuffer concat(ByteBuffer[] segments) {
+    int size = 0;
+    for (ByteBuffer segment : segments) {
+      size += segment.remaining();
+    }
+    ByteBuffer result = ByteBuffer.allocate(size);
+    for (ByteBuffer segment : segments) {
+      result.put(segment.duplicate());
+    }
+    result.flip();
+    return result;
+  }
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel;
+
+import org.junit.Test;
+import org.terracotta.runnel.decoding.ArrayDecoder;
+import org.terracotta.runnel.decoding.StructArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.handles.ArrayHandle;
+import org.terracotta.runnel.handles.EnmHandle;
+import org.terracotta.runnel.handles.Int32Handle;
+import org.terracotta.runnel.handles.Int64Handle;
+import org.terracotta.runnel.handles.StringHandle;
+import org.terracotta.runnel.handles.StructArrayHandle;
+import org.terracotta.runnel.handles.StructHandle;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class FieldHandleTest {
+
+  private enum Color {
+    RED, BLUE
+  }
+
+  private final Struct entry = StructBuilder.newStructBuilder()
+      .string("key", 1)
+      .int64("value", 2)
+      .build();
+
+  private final Struct struct = StructBuilder.newStructBuilder()
+      .enm("color", 1, EnumMappingBuilder.newEnumMappingBuilder(Color.class).mapping(Color.RED, 1).mapping(Color.BLUE, 2).build())
+      .string("name", 2)
+      .struct("entry", 3, entry)
+      .structs("entries", 4, entry)
+      .int32s("ids", 5)
+      .int32("age", 6)
+      .build();
+
+  private final EnmHandle<Color> color = struct.enmHandle("color");
+  private final StringHandle name = struct.stringHandle("name");
+  private final StructHandle entryHandle = struct.structHandle("entry");
+  private final StructArrayHandle entries = struct.structsHandle("entries");
+  private final ArrayHandle<Int32Handle> ids = struct.int32sHandle("ids");
+  private final Int32Handle age = struct.int32Handle("age");
+  private final StringHandle key = entryHandle.struct().stringHandle("key");
+  private final Int64Handle value = entry.int64Handle("value");
+
+  @Test
+  public void testEncodeWithHandlesDecodeWithNames() throws Exception {
+    ByteBuffer bb = struct.encoder()
+        .enm(color, Color.BLUE)
+        .string(name, "joe")
+        .struct(entryHandle)
+          .string(key, "a")
+          .int64(value, 1L)
+        .end()
+        .structs(entries)
+          .add()
+            .string(key, "b")
+            .int64(value, 2L)
+          .end()
+        .end()
+        .int32s(ids)
+          .value(1)
+          .value(2)
+        .end()
+        .int32(age, 30)
+        .encode();
+
+    bb.rewind();
+
+    StructDecoder<Void> decoder = struct.decoder(bb);
+    assertThat(decoder.<Color>enm("color").get(), is(Color.BLUE));
+    assertThat(decoder.string("name"), is("joe"));
+    StructDecoder<StructDecoder<Void>> entryDecoder = decoder.struct("entry");
+    assertThat(entryDecoder.string("key"), is("a"));
+    assertThat(entryDecoder.int64("value"), is(1L));
+    entryDecoder.end();
+    StructArrayDecoder<StructDecoder<Void>> entriesDecoder = decoder.structs("entries");
+    assertThat(entriesDecoder.length(), is(1));
+    StructDecoder<StructArrayDecoder<StructDecoder<Void>>> element = entriesDecoder.next();
+    assertThat(element.string("key"), is("b"));
+    assertThat(element.int64("value"), is(2L));
+    entriesDecoder.end();
+    ArrayDecoder<Integer, StructDecoder<Void>> idsDecoder = decoder.int32s("ids");
+    assertThat(idsDecoder.length(), is(2));
+    assertThat(idsDecoder.value(), is(1));
+    assertThat(idsDecoder.value(), is(2));
+    idsDecoder.end();
+    assertThat(decoder.int32("age"), is(30));
+  }
+
+  @Test
+  public void testEncodeWithNamesDecodeWithHandles() throws Exception {
+    ByteBuffer bb = struct.encoder()
+        .string("name", "joe")
+        .struct("entry")
+          .string("key", "a")
+          .int64("value", 1L)
+        .end()
+        .int32("age", 30)
+        .encode();
+
+    bb.rewind();
+
+    StructDecoder<Void> decoder = struct.decoder(bb);
+    assertThat(decoder.enm(color).isFound(), is(false));
+    assertThat(decoder.string(name), is("joe"));
+    StructDecoder<StructDecoder<Void>> entryDecoder = decoder.struct(entryHandle);
+    assertThat(entryDecoder.string(key), is("a"));
+    assertThat(entryDecoder.int64(value), is(1L));
+    entryDecoder.end();
+    assertThat(decoder.structs(entries), is(nullValue()));
+    assertThat(decoder.int32s(ids), is(nullValue()));
+    assertThat(decoder.int32(age), is(30));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHandleOfOtherStruct() throws Exception {
+    struct.encoder().string(key, "a");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHandleOutOfOrder() throws Exception {
+    struct.encoder()
+        .int32(age, 30)
+        .string(name, "joe");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeHandleOutOfOrder() throws Exception {
+    ByteBuffer bb = struct.encoder().encode();
+    bb.rewind();
+
+    StructDecoder<Void> decoder = struct.decoder(bb);
+    decoder.int32(age);
+    decoder.string(name);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHandleOfWrongType() throws Exception {
+    struct.int64Handle("age");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHandleOfUnknownField() throws Exception {
+    struct.int32Handle("unknown");
+  }
+
+}
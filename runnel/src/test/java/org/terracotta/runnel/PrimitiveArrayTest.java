@@ -0,0 +1,153 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel;
+
+import org.junit.Test;
+import org.terracotta.runnel.decoding.ArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.handles.ArrayHandle;
+import org.terracotta.runnel.handles.Fp64Handle;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class PrimitiveArrayTest {
+
+  private final Struct struct = StructBuilder.newStructBuilder()
+      .int32s("ints", 1)
+      .int64s("longs", 2)
+      .fp64s("doubles", 3)
+      .byteBuffer("bytes", 4)
+      .int32("last", 5)
+      .build();
+
+  @Test
+  public void testSameBytesAsBoxedArrays() throws Exception {
+    ByteBuffer primitive = struct.encoder()
+        .int32s("ints", new int[] { 1, -1, Integer.MAX_VALUE })
+        .int64s("longs", new long[] { Long.MIN_VALUE, 0L })
+        .fp64s("doubles", new double[] { 1.5 })
+        .byteBuffer("bytes", new byte[] { 1, 2, 3 })
+        .int32("last", 42)
+        .encode();
+
+    ByteBuffer boxed = struct.encoder()
+        .int32s("ints").value(1).value(-1).value(Integer.MAX_VALUE).end()
+        .int64s("longs").value(Long.MIN_VALUE).value(0L).end()
+        .fp64s("doubles").value(1.5).end()
+        .byteBuffer("bytes", ByteBuffer.wrap(new byte[] { 1, 2, 3 }))
+        .int32("last", 42)
+        .encode();
+
+    assertThat(primitive.array(), is(boxed.array()));
+  }
+
+  @Test
+  public void testDecodeIntoNewArrays() throws Exception {
+    ByteBuffer bb = struct.encoder()
+        .int32s("ints", new int[] { 1, 2, 3 })
+        .int64s("longs", new long[0])
+        .fp64s("doubles", new double[] { 0.5, -0.5 })
+        .int32("last", 42)
+        .encode();
+
+    bb.rewind();
+
+    StructDecoder<Void> decoder = struct.decoder(bb);
+    assertThat(decoder.int32Array("ints"), is(new int[] { 1, 2, 3 }));
+    assertThat(decoder.int64Array("longs"), is(new long[0]));
+    assertThat(decoder.fp64Array("doubles"), is(new double[] { 0.5, -0.5 }));
+    assertThat(decoder.int32("last"), is(42));
+  }
+
+  @Test
+  public void testDecodeIntoGivenArrays() throws Exception {
+    ByteBuffer bb = struct.encoder()
+        .int32s("ints").value(7).value(8).end()
+        .int64s("longs", new long[] { 9L })
+        .int32("last", 42)
+        .encode();
+
+    bb.rewind();
+
+    int[] ints = new int[4];
+    long[] longs = new long[1];
+    double[] doubles = new double[1];
+
+    StructDecoder<Void> decoder = struct.decoder(bb);
+    assertThat(decoder.int32s("ints", ints), is(2));
+    assertThat(ints, is(new int[] { 7, 8, 0, 0 }));
+    assertThat(decoder.int64s("longs", longs), is(1));
+    assertThat(longs[0], is(9L));
+    assertThat(decoder.fp64s("doubles", doubles), is(-1));
+    assertThat(decoder.int32("last"), is(42));
+  }
+
+  @Test
+  public void testTargetArrayTooSmallSkipsField() throws Exception {
+    ByteBuffer bb = struct.encoder()
+        .int32s("ints", new int[] { 1, 2, 3 })
+        .int32("last", 42)
+        .encode();
+
+    bb.rewind();
+
+    StructDecoder<Void> decoder = struct.decoder(bb);
+    try {
+      decoder.int32s("ints", new int[2]);
+      fail("expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertThat(decoder.int32("last"), is(42));
+  }
+
+  @Test
+  public void testNullArraysNotEncoded() throws Exception {
+    ByteBuffer bb = struct.encoder()
+        .int32s("ints", (int[]) null)
+        .int32("last", 42)
+        .encode();
+
+    bb.rewind();
+
+    StructDecoder<Void> decoder = struct.decoder(bb);
+    assertThat(decoder.int32Array("ints"), is(nullValue()));
+    assertThat(decoder.int32("last"), is(42));
+  }
+
+  @Test
+  public void testHandles() throws Exception {
+    ArrayHandle<Fp64Handle> doubles = struct.fp64sHandle("doubles");
+
+    ByteBuffer bb = struct.encoder()
+        .fp64s(doubles, new double[] { 1.0, 2.0 })
+        .encode();
+
+    bb.rewind();
+
+    ArrayDecoder<Double, StructDecoder<Void>> boxed = struct.decoder(bb.duplicate()).fp64s(doubles);
+    assertThat(boxed.length(), is(2));
+    assertThat(boxed.value(), is(1.0));
+    assertThat(struct.decoder(bb).fp64Array(doubles), is(new double[] { 1.0, 2.0 }));
+  }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.decoding;
+
+import org.junit.Test;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class StructDecoderTest {
+
+  private final Struct struct = StructBuilder.newStructBuilder()
+      .string("name", 1)
+      .struct("leaf", 2, StructBuilder.newStructBuilder().int32("value", 1).build())
+      .int64("last", 3)
+      .build();
+
+  @Test
+  public void testUnwrappedDecoderDecodesNothing() throws Exception {
+    StructDecoder<Void> decoder = struct.decoder();
+    assertThat(decoder.string("name"), is(nullValue()));
+    assertThat(decoder.int64("last"), is(nullValue()));
+  }
+
+  @Test
+  public void testWrapReusesDecoder() throws Exception {
+    ByteBuffer first = struct.encoder()
+        .string("name", "joe")
+        .struct("leaf")
+          .int32("value", 1)
+        .end()
+        .int64("last", 2L)
+        .encode();
+    ByteBuffer second = struct.encoder()
+        .int64("last", 3L)
+        .encode();
+    first.rewind();
+    second.rewind();
+
+    StructDecoder<Void> decoder = struct.decoder();
+
+    assertThat(decoder.wrap(first).string("name"), is("joe"));
+    assertThat(decoder.struct("leaf").int32("value"), is(1));
+
+    // wrap in the middle of a decoding: fields can be read again from the start
+    assertThat(decoder.wrap(second).string("name"), is(nullValue()));
+    assertThat(decoder.int64("last"), is(3L));
+
+    first.rewind();
+    assertThat(decoder.wrap(first).int64("last"), is(2L));
+  }
+
+  @Test
+  public void testPrimitivesOrDefault() throws Exception {
+    Struct primitives = StructBuilder.newStructBuilder()
+        .bool("bool", 1)
+        .chr("chr", 2)
+        .int32("int32", 3)
+        .int64("int64", 4)
+        .fp64("fp64", 5)
+        .bool("absentBool", 6)
+        .chr("absentChr", 7)
+        .int32("absentInt32", 8)
+        .int64("absentInt64", 9)
+        .fp64("absentFp64", 10)
+        .build();
+    ByteBuffer bb = primitives.encoder()
+        .bool("bool", true)
+        .chr("chr", 'x')
+        .int32("int32", -1)
+        .int64("int64", Long.MAX_VALUE)
+        .fp64("fp64", 1.5)
+        .encode();
+
+    bb.rewind();
+    StructDecoder<Void> decoder = primitives.decoder(bb);
+    assertThat(decoder.boolOrDefault("bool", false), is(true));
+    assertThat(decoder.chrOrDefault("chr", ' '), is('x'));
+    assertThat(decoder.int32OrDefault("int32", 0), is(-1));
+    assertThat(decoder.int64OrDefault("int64", 0L), is(Long.MAX_VALUE));
+    assertThat(decoder.fp64OrDefault("fp64", 0.0), is(1.5));
+    assertThat(decoder.boolOrDefault("absentBool", true), is(true));
+    assertThat(decoder.chrOrDefault("absentChr", '?'), is('?'));
+    assertThat(decoder.int32OrDefault("absentInt32", 7), is(7));
+    assertThat(decoder.int64OrDefault("absentInt64", 8L), is(8L));
+    assertThat(decoder.fp64OrDefault("absentFp64", 9.5), is(9.5));
+
+    bb.rewind();
+    decoder = primitives.decoder(bb);
+    assertThat(decoder.boolOrDefault(primitives.boolHandle("bool"), false), is(true));
+    assertThat(decoder.chrOrDefault(primitives.chrHandle("chr"), ' '), is('x'));
+    assertThat(decoder.int32OrDefault(primitives.int32Handle("int32"), 0), is(-1));
+    assertThat(decoder.int64OrDefault(primitives.int64Handle("int64"), 0L), is(Long.MAX_VALUE));
+    assertThat(decoder.fp64OrDefault(primitives.fp64Handle("fp64"), 0.0), is(1.5));
+    assertThat(decoder.int32OrDefault(primitives.int32Handle("absentInt32"), 7), is(7));
+  }
+
+  @Test
+  public void testRandomAccessFieldsInAnyOrder() throws Exception {
+    ByteBuffer bb = struct.encoder()
+        .string("name", "joe")
+        .struct("leaf")
+          .int32("value", 1)
+        .end()
+        .int64("last", 2L)
+        .encode();
+    bb.rewind();
+
+    StructDecoder<Void> decoder = struct.randomAccessDecoder(bb);
+
+    assertThat(decoder.int64("last"), is(2L));
+    StructDecoder<StructDecoder<Void>> leaf = decoder.struct("leaf");
+    assertThat(decoder.string("name"), is("joe"));
+    assertThat(leaf.int32("value"), is(1));
+    assertThat(decoder.int64("last"), is(2L));
+    assertThat(leaf.int32("value"), is(1));
+    assertThat(decoder.string("name"), is("joe"));
+  }
+
+  @Test
+  public void testRandomAccessAbsentFields() throws Exception {
+    ByteBuffer bb = struct.encoder()
+        .struct("leaf")
+          .int32("value", 1)
+        .end()
+        .encode();
+    bb.rewind();
+
+    StructDecoder<Void> decoder = struct.randomAccessDecoder(bb);
+
+    assertThat(decoder.int64("last"), is(nullValue()));
+    assertThat(decoder.string("name"), is(nullValue()));
+    assertThat(decoder.struct("leaf").int32("value"), is(1));
+    assertThat(decoder.int64("last"), is(nullValue()));
+  }
+
+  @Test
+  public void testRandomAccessSkipsUnknownFields() throws Exception {
+    Struct newer = StructBuilder.newStructBuilder()
+        .string("name", 1)
+        .string("extra", 2)
+        .int64("last", 3)
+        .build();
+    Struct older = StructBuilder.newStructBuilder()
+        .string("name", 1)
+        .int64("last", 3)
+        .build();
+    ByteBuffer bb = newer.encoder()
+        .string("name", "joe")
+        .string("extra", "ignored")
+        .int64("last", 2L)
+        .encode();
+    bb.rewind();
+
+    StructDecoder<Void> decoder = older.randomAccessDecoder(bb);
+
+    assertThat(decoder.int64("last"), is(2L));
+    assertThat(decoder.string("name"), is("joe"));
+  }
+
+  @Test
+  public void testRandomAccessStructArrayElementsAreViews() throws Exception {
+    Struct element = StructBuilder.newStructBuilder()
+        .string("key", 1)
+        .int64s("values", 2)
+        .build();
+    Struct withArray = StructBuilder.newStructBuilder()
+        .structs("entries", 1, element)
+        .int32("count", 2)
+        .build();
+    ByteBuffer bb = withArray.encoder()
+        .structs("entries")
+          .add()
+            .string("key", "a")
+            .int64s("values", new long[] { 1L, 2L })
+          .end()
+          .add()
+            .string("key", "b")
+          .end()
+        .end()
+        .int32("count", 2)
+        .encode();
+    bb.rewind();
+
+    StructDecoder<Void> decoder = withArray.randomAccessDecoder(bb);
+
+    assertThat(decoder.int32("count"), is(2));
+    StructArrayDecoder<StructDecoder<Void>> entries = decoder.structs("entries");
+    StructDecoder<StructArrayDecoder<StructDecoder<Void>>> first = entries.next();
+    StructDecoder<StructArrayDecoder<StructDecoder<Void>>> second = entries.next();
+    assertThat(entries.hasNext(), is(false));
+    assertThat(second.string("key"), is("b"));
+    assertThat(first.int64Array("values"), is(new long[] { 1L, 2L }));
+    assertThat(first.string("key"), is("a"));
+    assertThat(second.int64Array("values"), is(nullValue()));
+    assertThat(decoder.int32("count"), is(2));
+  }
+
+  @Test
+  public void testRandomAccessWrap() throws Exception {
+    ByteBuffer first = struct.encoder().string("name", "joe").int64("last", 1L).encode();
+    ByteBuffer second = struct.encoder().string("name", "jack").encode();
+    first.rewind();
+    second.rewind();
+
+    StructDecoder<Void> decoder = struct.randomAccessDecoder(first);
+    assertThat(decoder.int64("last"), is(1L));
+
+    decoder.wrap(second);
+    assertThat(decoder.int64("last"), is(nullValue()));
+    assertThat(decoder.string("name"), is("jack"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCannotWrapSubDecoder() throws Exception {
+    ByteBuffer bb = struct.encoder().struct("leaf").int32("value", 1).end().encode();
+    bb.rewind();
+    struct.decoder(bb).struct("leaf").wrap(bb);
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.encoding;
+
+import org.junit.Test;
+import org.terracotta.runnel.EnumMapping;
+import org.terracotta.runnel.EnumMappingBuilder;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+import org.terracotta.runnel.utils.ReadBuffer;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Checks the wire format of each field type: {@code [vlq index][vlq size][value]}.
+ */
+public class FieldEncodingTest {
+
+  private enum TestEnum {
+    A,B,C
+  }
+
+  private static final EnumMapping<TestEnum> ENM = EnumMappingBuilder.newEnumMappingBuilder(TestEnum.class)
+      .mapping(TestEnum.A, 1)
+      .mapping(TestEnum.B, 2)
+      .mapping(TestEnum.C, 3)
+      .build();
+
+  @Test
+  public void testBool() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder().bool("x", 1).build();
+
+    ReadBuffer readBuffer = field(struct.encoder().bool("x", true).encode(), 3);
+    assertThat(readBuffer.getVlqInt(), is(1));
+    assertThat(readBuffer.getVlqInt(), is(1));
+    assertThat(readBuffer.getBoolean(), is(true));
+  }
+
+  @Test
+  public void testChar() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder().chr("x", 1).build();
+
+    ReadBuffer readBuffer = field(struct.encoder().chr("x", 'g').encode(), 4);
+    assertThat(readBuffer.getVlqInt(), is(1));
+    assertThat(readBuffer.getVlqInt(), is(2));
+    assertThat(readBuffer.getChar(), is('g'));
+  }
+
+  @Test
+  public void testInt32() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder().int32("x", 1).build();
+
+    ReadBuffer readBuffer = field(struct.encoder().int32("x", 99).encode(), 6);
+    assertThat(readBuffer.getVlqInt(), is(1));
+    assertThat(readBuffer.getVlqInt(), is(4));
+    assertThat(readBuffer.getInt(), is(99));
+  }
+
+  @Test
+  public void testInt64() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder().int64("x", 1).build();
+
+    ReadBuffer readBuffer = field(struct.encoder().int64("x", 99L).encode(), 10);
+    assertThat(readBuffer.getVlqInt(), is(1));
+    assertThat(readBuffer.getVlqInt(), is(8));
+    assertThat(readBuffer.getLong(), is(99L));
+  }
+
+  @Test
+  public void testFloatingPoint64() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder().fp64("x", 1).build();
+
+    ReadBuffer readBuffer = field(struct.encoder().fp64("x", Double.NaN).encode(), 10);
+    assertThat(readBuffer.getVlqInt(), is(1));
+    assertThat(readBuffer.getVlqInt(), is(8));
+    assertThat(Double.isNaN(readBuffer.getDouble()), is(true));
+  }
+
+  @Test
+  public void testEnum() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder().enm("x", 1, ENM).build();
+
+    ReadBuffer readBuffer = field(struct.encoder().enm("x", TestEnum.B).encode(), 3);
+    assertThat(readBuffer.getVlqInt(), is(1));
+    assertThat(readBuffer.getVlqInt(), is(1));
+    assertThat(readBuffer.getVlqInt(), is(2));
+  }
+
+  @Test
+  public void testString() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder().string("x", 5).build();
+
+    ReadBuffer readBuffer = field(struct.encoder().string("x", "aNormalString").encode(), 15);
+    assertThat(readBuffer.getVlqInt(), is(5));
+    assertThat(readBuffer.getVlqInt(), is(13));
+    assertThat(readBuffer.getString(13), is("aNormalString"));
+  }
+
+  @Test
+  public void testByteBuffer() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder().byteBuffer("x", 5).build();
+    ByteBuffer value = ByteBuffer.allocate(500);
+    for (int i = 0; i < 500; i++) {
+      value.put((byte) 'X');
+    }
+    value.flip();
+
+    ReadBuffer readBuffer = field(struct.encoder().byteBuffer("x", value).encode(), 503);
+    assertThat(readBuffer.getVlqInt(), is(5));
+    assertThat(readBuffer.getVlqInt(), is(500));
+    ByteBuffer decoded = readBuffer.getByteBuffer(500);
+    for (int i = 0; i < 500; i++) {
+      assertThat(decoded.get(), is((byte) 'X'));
+    }
+  }
+
+  @Test
+  public void testArray() throws Exception {
+    Struct struct = StructBuilder.newStructBuilder().strings("x", 7).build();
+
+    ReadBuffer readBuffer = field(struct.encoder().strings("x").value("one").value("two").value("three").end().encode(), 17);
+    assertThat(readBuffer.getVlqInt(), is(7));
+    assertThat(readBuffer.getVlqInt(), is(15));
+    assertThat(readBuffer.getVlqInt(), is(3));
+    assertThat(readBuffer.getVlqInt(), is(3));
+    assertThat(readBuffer.getString(3), is("one"));
+    assertThat(readBuffer.getVlqInt(), is(3));
+    assertThat(readBuffer.getString(3), is("two"));
+    assertThat(readBuffer.getVlqInt(), is(5));
+    assertThat(readBuffer.getString(5), is("three"));
+  }
+
+  @Test
+  public void testStruct() throws Exception {
+    Struct inner = StructBuilder.newStructBuilder()
+        .string("a", 2)
+        .int64("b", 3)
+        .string("c", 4)
+        .build();
+    Struct struct = StructBuilder.newStructBuilder().struct("x", 11, inner).build();
+
+    ByteBuffer encoded = struct.encoder()
+        .struct("x")
+          .string("a", "eins")
+          .int64("b", 111L)
+          .string("c", "deuxieme")
+        .end()
+        .encode();
+
+    ReadBuffer readBuffer = field(encoded, 28);
+    assertThat(readBuffer.getVlqInt(), is(11));
+    assertThat(readBuffer.getVlqInt(), is(26));
+    assertThat(readBuffer.getVlqInt(), is(2));
+    assertThat(readBuffer.getVlqInt(), is(4));
+    assertThat(readBuffer.getString(4), is("eins"));
+    assertThat(readBuffer.getVlqInt(), is(3));
+    assertThat(readBuffer.getVlqInt(), is(8));
+    assertThat(readBuffer.getLong(), is(111L));
+    assertThat(readBuffer.getVlqInt(), is(4));
+    assertThat(readBuffer.getVlqInt(), is(8));
+    assertThat(readBuffer.getString(8), is("deuxieme"));
+  }
+
+  private static ReadBuffer field(ByteBuffer encoded, int fieldSize) {
+    encoded.rewind();
+    ReadBuffer readBuffer = new ReadBuffer(encoded);
+    assertThat(readBuffer.getVlqInt(), is(fieldSize));
+    assertThat(encoded.remaining(), is(fieldSize));
+    return readBuffer;
+  }
+
+}
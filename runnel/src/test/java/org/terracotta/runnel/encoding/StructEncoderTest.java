@@ -0,0 +1,311 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.encoding;
+
+import org.junit.Test;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+import org.terracotta.runnel.decoding.StructArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.utils.StringTool;
+import org.terracotta.runnel.utils.VLQ;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class StructEncoderTest {
+
+  private final Struct leaf = StructBuilder.newStructBuilder()
+      .string("name", 1)
+      .int32("value", 2)
+      .build();
+
+  private final Struct struct = StructBuilder.newStructBuilder()
+      .string("name", 1)
+      .struct("leaf", 2, leaf)
+      .structs("leaves", 3, leaf)
+      .int32s("ids", 4)
+      .int32("last", 5)
+      .build();
+
+  @Test
+  public void testEncodedBytes() throws Exception {
+    String longName = repeat('x', 200);
+    String nonAsciiName = repeat('\u20AC', 50);
+
+    ByteBuffer encoded = struct.encoder()
+        .string("name", nonAsciiName)
+        .struct("leaf")
+          .string("name", longName)
+          .int32("value", 1)
+        .end()
+        .int32("last", 2)
+        .encode();
+
+    // index:size:value for every field, the root struct being prefixed with its size only
+    ByteBuffer leafValue = concat(field(1, string(longName)), field(2, int32(1)));
+    ByteBuffer rootValue = concat(field(1, string(nonAsciiName)), field(2, leafValue), field(5, int32(2)));
+    ByteBuffer expected = ByteBuffer.allocate(VLQ.encodedSize(rootValue.remaining()) + rootValue.remaining());
+    VLQ.encode(rootValue.remaining(), expected);
+    expected.put(rootValue);
+
+    assertThat(encoded.array(), is(expected.array()));
+  }
+
+  private static ByteBuffer field(int index, ByteBuffer value) {
+    ByteBuffer field = ByteBuffer.allocate(VLQ.encodedSize(index) + VLQ.encodedSize(value.remaining()) + value.remaining());
+    VLQ.encode(index, field);
+    VLQ.encode(value.remaining(), field);
+    field.put(value);
+    field.flip();
+    return field;
+  }
+
+  private static ByteBuffer string(String value) {
+    ByteBuffer string = ByteBuffer.allocate(4 * value.length() + 1);
+    StringTool.putEncoded(string, value, value.length());
+    string.flip();
+    return string;
+  }
+
+  private static ByteBuffer int32(int value) {
+    ByteBuffer int32 = ByteBuffer.allocate(4);
+    int32.putInt(value).flip();
+    return int32;
+  }
+
+  private static ByteBuffer concat(ByteBuffer... buffers) {
+    int size = 0;
+    for (ByteBuffer buffer : buffers) {
+      size += buffer.remaining();
+    }
+    ByteBuffer concat = ByteBuffer.allocate(size);
+    for (ByteBuffer buffer : buffers) {
+      concat.put(buffer);
+    }
+    concat.flip();
+    return concat;
+  }
+
+  @Test
+  public void testEncodeIntoTargetBuffer() throws Exception {
+    ByteBuffer target = ByteBuffer.allocateDirect(1024);
+    target.position(10);
+
+    ByteBuffer result = struct.encoder(target)
+        .string("name", repeat('y', 300))
+        .structs("leaves")
+          .add()
+            .string("name", "a")
+          .end()
+          .add()
+            .int32("value", 1)
+          .end()
+        .end()
+        .int32("last", 2)
+        .encode();
+
+    ByteBuffer expected = struct.encoder()
+        .string("name", repeat('y', 300))
+        .structs("leaves")
+          .add()
+            .string("name", "a")
+          .end()
+          .add()
+            .int32("value", 1)
+          .end()
+        .end()
+        .int32("last", 2)
+        .encode();
+
+    assertThat(result == target, is(true));
+    assertThat(target.position(), is(10 + expected.capacity()));
+    target.flip();
+    target.position(10);
+    expected.rewind();
+    assertThat(target.equals(expected), is(true));
+  }
+
+  @Test
+  public void testEncodeIntoExactSizeTargetBuffer() throws Exception {
+    for (String name : new String[] {"joe", repeat('\u20AC', 10), repeat('x', 100), repeat('x', 300)}) {
+      ByteBuffer expected = exactSizeMessage(struct.encoder(), name).encode();
+      expected.rewind();
+      ByteBuffer target = ByteBuffer.allocate(expected.remaining());
+
+      exactSizeMessage(struct.encoder(target), name).encode();
+
+      assertThat(target.hasRemaining(), is(false));
+      target.flip();
+      assertThat(target.equals(expected), is(true));
+    }
+  }
+
+  private static StructEncoder<Void> exactSizeMessage(StructEncoder<Void> encoder, String name) {
+    return encoder
+        .string("name", name)
+        .struct("leaf")
+          .string("name", name)
+        .end()
+        .int32s("ids")
+          .value(1)
+        .end()
+        .int32("last", 2);
+  }
+
+  @Test(expected = BufferOverflowException.class)
+  public void testTargetBufferTooSmall() throws Exception {
+    struct.encoder(ByteBuffer.allocate(16))
+        .string("name", repeat('z', 100));
+  }
+
+  @Test
+  public void testSubEncodersEndedByParent() throws Exception {
+    StructEncoder<Void> encoder = struct.encoder();
+    encoder.struct("leaf")
+        .string("name", "joe");
+    encoder.int32s("ids")
+        .value(1)
+        .value(2);
+    encoder.int32("last", 3);
+    ByteBuffer bb = encoder.encode();
+
+    bb.rewind();
+    StructDecoder<Void> decoder = struct.decoder(bb);
+    assertThat(decoder.struct("leaf").string("name"), is("joe"));
+    assertThat(decoder.int32s("ids").length(), is(2));
+    assertThat(decoder.int32("last"), is(3));
+  }
+
+  @Test
+  public void testEmptyStructArrayElementsSkipped() throws Exception {
+    ByteBuffer bb = struct.encoder()
+        .structs("leaves")
+          .add()
+          .end()
+          .add()
+            .int32("value", 1)
+          .end()
+          .add()
+          .end()
+        .end()
+        .encode();
+
+    bb.rewind();
+    StructArrayDecoder<StructDecoder<Void>> leaves = struct.decoder(bb).structs("leaves");
+    assertThat(leaves.length(), is(1));
+    assertThat(leaves.next().int32("value"), is(1));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCannotUseEndedSubEncoder() throws Exception {
+    StructEncoder<Void> encoder = struct.encoder();
+    StructEncoder<StructEncoder<Void>> leafEncoder = encoder.struct("leaf");
+    encoder.int32("last", 1);
+    leafEncoder.int32("value", 1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCannotUseEncodedEncoder() throws Exception {
+    StructEncoder<Void> encoder = struct.encoder();
+    encoder.encode();
+    encoder.int32("last", 1);
+  }
+
+  @Test
+  public void testResetEncoder() throws Exception {
+    StructEncoder<Void> encoder = struct.encoder();
+    encoder.string("name", repeat('a', 500))
+        .struct("leaf")
+          .int32("value", 1);
+    ByteBuffer first = encoder.encode();
+
+    ByteBuffer second = encoder.reset()
+        .string("name", "joe")
+        .int32("last", 2)
+        .encode();
+
+    assertThat(second.array(), is(struct.encoder().string("name", "joe").int32("last", 2).encode().array()));
+    assertThat(encoder.reset().string("name", repeat('a', 500)).struct("leaf").int32("value", 1).end().encode().array(), is(first.array()));
+  }
+
+  @Test
+  public void testResetTargetedEncoder() throws Exception {
+    ByteBuffer target = ByteBuffer.allocate(64);
+    target.position(4);
+    StructEncoder<Void> encoder = struct.encoder(target);
+    encoder.string("name", "a long enough name").encode();
+
+    encoder.reset().int32("last", 1).encode();
+
+    ByteBuffer expected = struct.encoder().int32("last", 1).encode();
+    assertThat(target.position(), is(4 + expected.capacity()));
+    target.flip();
+    target.position(4);
+    expected.rewind();
+    assertThat(target.equals(expected), is(true));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCannotUseSubEncoderAfterReset() throws Exception {
+    StructEncoder<Void> encoder = struct.encoder();
+    StructEncoder<StructEncoder<Void>> leafEncoder = encoder.struct("leaf");
+    encoder.reset();
+    leafEncoder.int32("value", 1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCannotResetSubEncoder() throws Exception {
+    struct.encoder().struct("leaf").reset();
+  }
+
+  @Test
+  public void testEncodeIntoPooledBuffer() throws Exception {
+    ByteBuffer pooled = ByteBuffer.allocate(128);
+    ByteBufferPool pool = new ByteBufferPool() {
+      @Override
+      public ByteBuffer acquire(int size) {
+        assertThat(size <= pooled.remaining(), is(true));
+        return pooled;
+      }
+
+      @Override
+      public void release(ByteBuffer buffer) {
+        buffer.clear();
+      }
+    };
+
+    ByteBuffer expected = struct.encoder().string("name", "joe").encode();
+    ByteBuffer result = struct.encoder().string("name", "joe").encode(pool);
+
+    assertThat(result == pooled, is(true));
+    result.flip();
+    expected.rewind();
+    assertThat(result.equals(expected), is(true));
+  }
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+
+}
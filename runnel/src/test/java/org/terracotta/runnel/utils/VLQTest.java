@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
 
 /**
  * @author Ludovic Orban
@@ -67,6 +68,31 @@ public class VLQTest {
     checkDecoding(Integer.MAX_VALUE, 0x87, 0xFF, 0xFF, 0xFF, 0x7F);
   }
 
+  @Test
+  public void testDecodeWithinLimit() throws Exception {
+    ByteBuffer bb = ByteBuffer.wrap(new byte[] {0x05, (byte) 0x81, 0x00, (byte) 0x81, (byte) 0x80, 0x00});
+
+    assertThat(VLQ.decode(bb, 6), is(0x05));
+    assertThat(bb.position(), is(1));
+    assertThat(VLQ.decode(bb, 6), is(0x80));
+    assertThat(bb.position(), is(3));
+    assertThat(VLQ.decode(bb, 6), is(0x4000));
+    assertThat(bb.position(), is(6));
+  }
+
+  @Test
+  public void testDecodePastLimitFails() throws Exception {
+    checkTruncated(0);
+    checkTruncated(1, 0x81);
+    checkTruncated(2, 0x81, 0x80);
+    checkTruncated(4, 0x81, 0x80, 0x80, 0x80, 0x00);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeTooLongFails() throws Exception {
+    VLQ.decode(ByteBuffer.wrap(new byte[] {(byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x00}), 6);
+  }
+
   @Test
   public void testEncodedSize() throws Exception {
     assertThat(VLQ.encodedSize(0x7F), is(1));
@@ -81,6 +107,21 @@ public class VLQTest {
     assertThat(VLQ.encodedSize(Integer.MAX_VALUE), is(5));
   }
 
+  private void checkTruncated(int limit, int... bytes) {
+    ByteBuffer bb = ByteBuffer.allocate(8);
+    for (int aByte : bytes) {
+      bb.put((byte) aByte);
+    }
+    bb.rewind();
+
+    try {
+      VLQ.decode(bb, limit);
+      fail("expected LimitReachedException");
+    } catch (LimitReachedException lre) {
+      assertThat(bb.position(), is(0));
+    }
+  }
+
   private void checkDecoding(int value, int... bytes) {
     ByteBuffer bb = ByteBuffer.allocate(8);
 
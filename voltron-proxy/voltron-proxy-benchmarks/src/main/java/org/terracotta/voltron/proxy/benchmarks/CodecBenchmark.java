@@ -0,0 +1,155 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terracotta.voltron.proxy.BinaryCodec;
+import org.terracotta.voltron.proxy.BinaryReader;
+import org.terracotta.voltron.proxy.BinaryWriter;
+import org.terracotta.voltron.proxy.Codec;
+import org.terracotta.voltron.proxy.SerializationCodec;
+import org.terracotta.voltron.proxy.TypeCodec;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the arguments and the response of a management-like call with each {@link Codec}. The
+ * number of bytes the call puts on the wire is printed when each trial starts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+  public enum CodecType {
+    SERIALIZATION {
+      @Override
+      Codec create() {
+        return new SerializationCodec();
+      }
+    },
+    BINARY {
+      @Override
+      Codec create() {
+        return new BinaryCodec().register(Statistic.class, new StatisticCodec());
+      }
+    };
+
+    abstract Codec create();
+  }
+
+  private static final Class<?>[] ARGUMENT_TYPES = {String.class, int.class, Map.class, List.class};
+  private static final Object[] ARGUMENTS;
+
+  static {
+    Map<String, String> properties = new LinkedHashMap<>();
+    properties.put("alias", "cache-manager-1");
+    properties.put("type", "OffHeapResource");
+    ARGUMENTS = new Object[]{"main", 3, properties, Arrays.asList("offheap", "disk", "heap")};
+  }
+
+  private static final Statistic RESPONSE = new Statistic("Cache:HitCount", 1700000000000L, 0.9725);
+
+  @Param
+  public CodecType codecType;
+
+  private Codec codec;
+  private byte[] encodedArguments;
+  private byte[] encodedResponse;
+
+  @Setup
+  public void setUp() {
+    codec = codecType.create();
+    encodedArguments = codec.encode(ARGUMENT_TYPES, ARGUMENTS);
+    encodedResponse = codec.encode(Statistic.class, RESPONSE);
+    System.out.println("# " + codecType + ": " + (encodedArguments.length + encodedResponse.length) + " bytes/call");
+  }
+
+  @Benchmark
+  public byte[] encodeArguments() {
+    return codec.encode(ARGUMENT_TYPES, ARGUMENTS);
+  }
+
+  @Benchmark
+  public Object[] decodeArguments() {
+    return codec.decode(ARGUMENT_TYPES, encodedArguments);
+  }
+
+  @Benchmark
+  public byte[] encodeResponse() {
+    return codec.encode(Statistic.class, RESPONSE);
+  }
+
+  @Benchmark
+  public Statistic decodeResponse() {
+    return codec.decode(Statistic.class, encodedResponse);
+  }
+
+  @Benchmark
+  public void call(Blackhole blackhole) {
+    blackhole.consume(codec.decode(ARGUMENT_TYPES, codec.encode(ARGUMENT_TYPES, ARGUMENTS)));
+    blackhole.consume(codec.decode(Statistic.class, codec.encode(Statistic.class, RESPONSE)));
+  }
+
+  public static final class Statistic implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final long timestamp;
+    private final double value;
+
+    Statistic(String name, long timestamp, double value) {
+      this.name = name;
+      this.timestamp = timestamp;
+      this.value = value;
+    }
+  }
+
+  static final class StatisticCodec implements TypeCodec<Statistic> {
+    @Override
+    public void encode(BinaryWriter writer, Statistic value) {
+      writer.writeString(value.name);
+      writer.writeLong(value.timestamp);
+      writer.writeDouble(value.value);
+    }
+
+    @Override
+    public Statistic decode(BinaryReader reader) {
+      return new Statistic(reader.readString(), reader.readLong(), reader.readDouble());
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terracotta.voltron.proxy.InvocationStatistics;
+import org.terracotta.voltron.proxy.MessageType;
+import org.terracotta.voltron.proxy.MethodDescriptor;
+import org.terracotta.voltron.proxy.MethodStatistics;
+import org.terracotta.voltron.proxy.ProxyEntityMessage;
+import org.terracotta.voltron.proxy.ProxyEntityResponse;
+import org.terracotta.voltron.proxy.ProxyMessageCodec;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A call going through the {@link ProxyMessageCodec} and invoked the way the server invoker does, with and without
+ * {@link InvocationStatistics}, to measure the overhead of the instrumentation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InstrumentationBenchmark {
+
+  public interface Service {
+    String get(String key);
+  }
+
+  private static final Service SERVICE = key -> "value-of-" + key;
+
+  @Param({"false", "true"})
+  public boolean instrumented;
+
+  private final ProxyMessageCodec codec = new ProxyMessageCodec(Service.class);
+  private InvocationStatistics statistics;
+  private ProxyEntityMessage message;
+
+  @Setup
+  public void setUp() throws Exception {
+    statistics = instrumented ? new InvocationStatistics() : null;
+    codec.setStatistics(statistics);
+    message = new ProxyEntityMessage(MethodDescriptor.of(Service.class.getMethod("get", String.class)), new Object[]{"key"}, MessageType.MESSAGE);
+  }
+
+  @Benchmark
+  public Object call() throws Exception {
+    ProxyEntityMessage received = codec.decodeMessage(codec.encodeMessage(message));
+    ProxyEntityResponse response;
+    if (statistics == null) {
+      response = invoke(received);
+    } else {
+      MethodStatistics methodStatistics = statistics.of(received.getMethod());
+      long start = System.nanoTime();
+      response = invoke(received).recordEncodedSizeTo(methodStatistics);
+      methodStatistics.recordCall(System.nanoTime() - start, false);
+    }
+    return codec.decodeResponse(codec.encodeResponse(response)).getResponse();
+  }
+
+  private static ProxyEntityResponse invoke(ProxyEntityMessage message) throws Exception {
+    return ProxyEntityResponse.messageResponse(message.messageType(), message.invoke(SERVICE));
+  }
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.client;
+
+import org.terracotta.entity.EntityClientEndpoint;
+import org.terracotta.entity.EntityUserException;
+import org.terracotta.entity.InvocationCallback;
+import org.terracotta.voltron.proxy.MessageType;
+import org.terracotta.voltron.proxy.ProxyEntityMessage;
+import org.terracotta.voltron.proxy.ProxyEntityResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Groups asynchronous invocations per concurrency key and execution location, and sends each group as a single
+ * {@link MessageType#BATCH} message, according to an {@link AsyncBatching} configuration.
+ */
+class AsyncBatcher {
+
+  private final EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint;
+  private final long windowNanos;
+  private final int maxCount;
+  private final ScheduledExecutorService timer;
+
+  // held while batches are taken out of pending and sent, so that a flush returns only once everything added before
+  // it has been sent, without blocking add() during the send; always acquired before this
+  private final Object sendLock = new Object();
+
+  // guarded by this
+  private final Map<Long, PendingBatch> pending = new LinkedHashMap<>();
+  private boolean closed;
+
+  AsyncBatcher(EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint, AsyncBatching batching) {
+    this.entityClientEndpoint = entityClientEndpoint;
+    this.windowNanos = batching.getWindow(TimeUnit.NANOSECONDS);
+    this.maxCount = batching.getMaxCount();
+    String threadName = "Async batcher for " + entityClientEndpoint.toString();
+    this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, threadName);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * @throws IllegalStateException if the batcher is closed
+   */
+  <T> Future<T> add(ProxyEntityMessage message, InvocationRecorder recorder) {
+    long key = ((long) message.getExecutionLocation().ordinal() << 32) | (message.getConcurrencyKey() & 0xFFFFFFFFL);
+    PendingBatch batch;
+    int index;
+    boolean full;
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("Proxy closed: cannot send " + message.getMethod().toGenericString());
+      }
+      batch = pending.get(key);
+      if (batch == null) {
+        PendingBatch created = new PendingBatch(key);
+        pending.put(key, created);
+        if (maxCount > 1) {
+          created.timeout = timer.schedule(() -> flush(created), windowNanos, TimeUnit.NANOSECONDS);
+        }
+        batch = created;
+      }
+      index = batch.messages.size();
+      batch.messages.add(message);
+      batch.recorders.add(recorder);
+      full = batch.messages.size() >= maxCount;
+    }
+    if (full) {
+      // sent outside of the monitor so that other invocations can be added meanwhile
+      flush(batch);
+    }
+    return new BatchedInvokeFuture<>(this, batch, index);
+  }
+
+  /**
+   * Sends all the pending invocations, so that they reach the server before anything sent afterwards.
+   */
+  void flush() {
+    synchronized (sendLock) {
+      List<PendingBatch> batches;
+      synchronized (this) {
+        batches = new ArrayList<>(pending.values());
+        pending.clear();
+      }
+      for (PendingBatch batch : batches) {
+        send(batch);
+      }
+    }
+  }
+
+  void flush(PendingBatch batch) {
+    synchronized (sendLock) {
+      // batches are only taken out of pending under the send lock, so an unsent batch is still pending
+      if (batch.sent == null) {
+        synchronized (this) {
+          pending.remove(batch.key, batch);
+        }
+        send(batch);
+      }
+    }
+  }
+
+  void close() {
+    synchronized (this) {
+      closed = true;
+    }
+    flush();
+    timer.shutdownNow();
+  }
+
+  private void send(PendingBatch batch) {
+    if (batch.timeout != null) {
+      batch.timeout.cancel(false);
+    }
+    ProxyEntityMessage message = batch.messages.size() == 1 ? batch.messages.get(0) : ProxyEntityMessage.batch(batch.messages);
+    CompletableFuture<ProxyEntityResponse> sent = new CompletableFuture<>();
+    batch.sent = sent;
+    try {
+      entityClientEndpoint.message(message).invoke(new InvocationCallback<ProxyEntityResponse>() {
+        @Override
+        public void result(ProxyEntityResponse response) {
+          batch.recordResult(response);
+          sent.complete(response);
+        }
+
+        @Override
+        public void failure(Throwable failure) {
+          batch.recordFailure();
+          sent.completeExceptionally(failure);
+        }
+      }, VoltronProxyInvocationHandler.RESPONSE_CALLBACKS);
+    } catch (Exception e) {
+      batch.recordFailure();
+      sent.completeExceptionally(e);
+    }
+  }
+
+  private static final class PendingBatch {
+
+    private final long key;
+    private final List<ProxyEntityMessage> messages = new ArrayList<>();
+    private final List<InvocationRecorder> recorders = new ArrayList<>();
+    private ScheduledFuture<?> timeout;
+    private volatile Future<ProxyEntityResponse> sent;
+
+    PendingBatch(long key) {
+      this.key = key;
+    }
+
+    void recordResult(ProxyEntityResponse response) {
+      for (int i = 0; i < recorders.size(); i++) {
+        InvocationRecorder recorder = recorders.get(i);
+        if (recorder != null) {
+          recorder.record(response != null && response.getMessageType() == MessageType.BATCH ? response.getBatch().get(i) : response);
+        }
+      }
+    }
+
+    void recordFailure() {
+      for (InvocationRecorder recorder : recorders) {
+        if (recorder != null) {
+          recorder.recordFailure();
+        }
+      }
+    }
+  }
+
+  private static final class BatchedInvokeFuture<T> implements Future<T> {
+
+    private final AsyncBatcher batcher;
+    private final PendingBatch batch;
+    private final int index;
+
+    BatchedInvokeFuture(AsyncBatcher batcher, PendingBatch batch, int index) {
+      this.batcher = batcher;
+      this.batch = batch;
+      this.index = index;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return false;
+    }
+
+    @Override
+    public boolean isDone() {
+      Future<ProxyEntityResponse> sent = batch.sent;
+      return sent != null && sent.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+      return getResponse(sent().get());
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      return getResponse(sent().get(timeout, unit));
+    }
+
+    private Future<ProxyEntityResponse> sent() {
+      // waiting on a pending invocation sends it right away rather than at the end of the window
+      Future<ProxyEntityResponse> sent = batch.sent;
+      if (sent == null) {
+        batcher.flush(batch);
+        sent = batch.sent;
+      }
+      return sent;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T getResponse(ProxyEntityResponse response) throws ExecutionException {
+      if (response != null && response.getMessageType() == MessageType.BATCH) {
+        response = response.getBatch().get(index);
+      }
+      if (response == null) {
+        return null;
+      }
+      if (response.getMessageType() == MessageType.ERROR) {
+        throw new ExecutionException((EntityUserException) response.getResponse());
+      }
+      return (T) response.getResponse();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in configuration grouping the {@link org.terracotta.voltron.proxy.Async} invocations of a client proxy into
+ * single entity messages.
+ * <p>
+ * Invocations sharing a concurrency key and an execution location are held for at most {@code window}, or until
+ * {@code maxCount} of them are pending, and then sent together. The server executes them in order and each returned
+ * future completes with the outcome of its own invocation. Pending invocations are also sent as soon as a synchronous
+ * invocation is made, when one of their futures is waited on, and when the proxy is closed.
+ * <p>
+ * Batches are bounded by count only, not by encoded size: the arguments are only encoded when the batch is sent, and
+ * encoding them earlier just to measure them would cost more than the batching saves.
+ */
+public final class AsyncBatching {
+
+  private final long windowNanos;
+  private final int maxCount;
+
+  public AsyncBatching(long window, TimeUnit unit, int maxCount) {
+    if (window < 0) {
+      throw new IllegalArgumentException("Negative window: " + window);
+    }
+    if (maxCount < 1) {
+      throw new IllegalArgumentException("Max count must be at least 1: " + maxCount);
+    }
+    this.windowNanos = unit.toNanos(window);
+    this.maxCount = maxCount;
+  }
+
+  public long getWindow(TimeUnit unit) {
+    return unit.convert(windowNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public int getMaxCount() {
+    return maxCount;
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncBatching{window=" + windowNanos + "ns, maxCount=" + maxCount + '}';
+  }
+}
@@ -20,6 +20,7 @@ import org.terracotta.connection.entity.Entity;
 import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.voltron.proxy.Codec;
 import org.terracotta.voltron.proxy.CommonProxyFactory;
+import org.terracotta.voltron.proxy.InvocationStatistics;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 import org.terracotta.voltron.proxy.ProxyEntityResponse;
 
@@ -35,7 +36,49 @@ public class ClientProxyFactory {
                                                                             EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
                                                                             Class<?>[] messageTypes,
                                                                             Codec codec) {
-    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec);
+    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec, null);
+  }
+
+  public static <T extends Entity & ServerMessageAware> T createEntityProxy(Class<T> clientType,
+                                                                            Class<? super T> type,
+                                                                            EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
+                                                                            Class<?>[] messageTypes,
+                                                                            Codec codec,
+                                                                            AsyncBatching asyncBatching) {
+    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec, asyncBatching, null);
+  }
+
+  public static <T extends Entity & ServerMessageAware> T createEntityProxy(Class<T> clientType,
+                                                                            Class<? super T> type,
+                                                                            EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
+                                                                            Class<?>[] messageTypes,
+                                                                            Codec codec,
+                                                                            AsyncBatching asyncBatching,
+                                                                            EventDispatch eventDispatch) {
+    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec, asyncBatching, eventDispatch, null);
+  }
+
+  public static <T extends Entity & ServerMessageAware> T createEntityProxy(Class<T> clientType,
+                                                                            Class<? super T> type,
+                                                                            EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
+                                                                            Class<?>[] messageTypes,
+                                                                            Codec codec,
+                                                                            AsyncBatching asyncBatching,
+                                                                            EventDispatch eventDispatch,
+                                                                            InvocationStatistics statistics) {
+    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec, asyncBatching, eventDispatch, statistics, 0);
+  }
+
+  public static <T extends Entity & ServerMessageAware> T createEntityProxy(Class<T> clientType,
+                                                                            Class<? super T> type,
+                                                                            EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
+                                                                            Class<?>[] messageTypes,
+                                                                            Codec codec,
+                                                                            AsyncBatching asyncBatching,
+                                                                            EventDispatch eventDispatch,
+                                                                            InvocationStatistics statistics,
+                                                                            int maxInFlightInvocations) {
+    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec, asyncBatching, eventDispatch, statistics, maxInFlightInvocations);
   }
 
   public static <T> T createProxy(Class<T> clientType,
@@ -43,6 +86,63 @@ public class ClientProxyFactory {
                                   EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
                                   Class<?>[] messageTypes,
                                   Codec codec) {
+    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec, null);
+  }
+
+  public static <T> T createProxy(Class<T> clientType,
+                                  Class<? super T> type,
+                                  EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
+                                  Class<?>[] messageTypes,
+                                  Codec codec,
+                                  AsyncBatching asyncBatching) {
+    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec, asyncBatching, null);
+  }
+
+  public static <T> T createProxy(Class<T> clientType,
+                                  Class<? super T> type,
+                                  EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
+                                  Class<?>[] messageTypes,
+                                  Codec codec,
+                                  AsyncBatching asyncBatching,
+                                  EventDispatch eventDispatch) {
+    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec, asyncBatching, eventDispatch, null);
+  }
+
+  /**
+   * @param asyncBatching batching of the {@link org.terracotta.voltron.proxy.Async} invocations, or {@code null} to
+   *                      send each of them on its own
+   * @param eventDispatch partitioned dispatch of the server events, or {@code null} to dispatch all of them on a
+   *                      single thread
+   * @param statistics    where to record the outcome of each invocation, or {@code null} not to record anything
+   */
+  public static <T> T createProxy(Class<T> clientType,
+                                  Class<? super T> type,
+                                  EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
+                                  Class<?>[] messageTypes,
+                                  Codec codec,
+                                  AsyncBatching asyncBatching,
+                                  EventDispatch eventDispatch,
+                                  InvocationStatistics statistics) {
+    return createProxy(clientType, type, entityClientEndpoint, messageTypes, codec, asyncBatching, eventDispatch, statistics, 0);
+  }
+
+  /**
+   * @param maxInFlightInvocations how many invocations can wait for their response at any time, or {@code 0} for no
+   *                               limit. Beyond that, invoking the proxy blocks until a response arrives. This
+   *                               applies to the synchronous methods and to the ones returning a
+   *                               {@link java.util.concurrent.CompletionStage} or a
+   *                               {@link java.util.concurrent.CompletableFuture}, which never block otherwise, but
+   *                               not to the {@link org.terracotta.voltron.proxy.Async} ones.
+   */
+  public static <T> T createProxy(Class<T> clientType,
+                                  Class<? super T> type,
+                                  EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint,
+                                  Class<?>[] messageTypes,
+                                  Codec codec,
+                                  AsyncBatching asyncBatching,
+                                  EventDispatch eventDispatch,
+                                  InvocationStatistics statistics,
+                                  int maxInFlightInvocations) {
 
     if (entityClientEndpoint == null) {
       throw new NullPointerException("EntityClientEndpoint has to be provided!");
@@ -63,8 +163,13 @@ public class ClientProxyFactory {
         interfaces,
         new VoltronProxyInvocationHandler(
             entityClientEndpoint,
+            CommonProxyFactory.createMethodDescriptors(type),
             CommonProxyFactory.invert(CommonProxyFactory.createResponseTypeMappings(type, messageTypes)).values(),
-            codec)
+            codec,
+            asyncBatching,
+            eventDispatch,
+            statistics,
+            maxInFlightInvocations)
     ));
   }
 
@@ -0,0 +1,99 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.client;
+
+/**
+ * Opt-in configuration of the dispatch of server events to the {@link org.terracotta.voltron.proxy.MessageListener}s
+ * of a client proxy.
+ * <p>
+ * Events are split in partitions, one per event type, or one per event type and {@link Partitioner} key. Each partition
+ * has a queue of at most {@code queueCapacity} events, dispatched in order, and partitions are dispatched in parallel
+ * by up to {@code threads} threads. A slow listener therefore only holds back the events of its own partition. The
+ * {@link SlowConsumerPolicy} decides what happens when a partition queue is full.
+ */
+public final class EventDispatch {
+
+  public enum SlowConsumerPolicy {
+    /**
+     * The thread receiving events from the server waits until the partition queue has room.
+     */
+    BLOCK,
+    /**
+     * The oldest queued event of the partition is dropped.
+     */
+    DROP_OLDEST,
+    /**
+     * The incoming event is dropped.
+     */
+    DROP_NEWEST
+  }
+
+  /**
+   * Splits the events of a type further. Keys must have proper {@code equals} and {@code hashCode}, and be few, as
+   * partitions are kept for the lifetime of the proxy.
+   */
+  @FunctionalInterface
+  public interface Partitioner {
+    Object partition(Object event);
+  }
+
+  private final int threads;
+  private final int queueCapacity;
+  private final SlowConsumerPolicy slowConsumerPolicy;
+  private final Partitioner partitioner;
+
+  public EventDispatch(int threads, int queueCapacity, SlowConsumerPolicy slowConsumerPolicy) {
+    this(threads, queueCapacity, slowConsumerPolicy, null);
+  }
+
+  public EventDispatch(int threads, int queueCapacity, SlowConsumerPolicy slowConsumerPolicy, Partitioner partitioner) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+    }
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Queue capacity must be at least 1: " + queueCapacity);
+    }
+    this.threads = threads;
+    this.queueCapacity = queueCapacity;
+    this.slowConsumerPolicy = slowConsumerPolicy;
+    this.partitioner = partitioner;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public SlowConsumerPolicy getSlowConsumerPolicy() {
+    return slowConsumerPolicy;
+  }
+
+  /**
+   * @return the partitioner, or {@code null} when events are partitioned by type only
+   */
+  public Partitioner getPartitioner() {
+    return partitioner;
+  }
+
+  @Override
+  public String toString() {
+    return "EventDispatch{threads=" + threads + ", queueCapacity=" + queueCapacity + ", slowConsumerPolicy=" + slowConsumerPolicy + '}';
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch figures of an event partition, when events are dispatched according to an {@link EventDispatch}.
+ * Latencies go from the reception of an event to the return of its last listener.
+ */
+public interface EventDispatchStatistics {
+
+  Class<?> getEventType();
+
+  /**
+   * @return the {@link EventDispatch.Partitioner} key, or {@code null} when events are partitioned by type only
+   */
+  Object getPartition();
+
+  int getPendingEvents();
+
+  long getDispatchedEvents();
+
+  long getDroppedEvents();
+
+  long getAverageDispatchLatency(TimeUnit unit);
+
+  long getMaxDispatchLatency(TimeUnit unit);
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.client;
+
+import org.terracotta.voltron.proxy.ProxyEntityResponse;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches server events in parallel across partitions and in order within each of them, according to an
+ * {@link EventDispatch} configuration.
+ */
+class EventDispatcher {
+
+  private final int queueCapacity;
+  private final EventDispatch.SlowConsumerPolicy slowConsumerPolicy;
+  private final EventDispatch.Partitioner partitioner;
+  private final Consumer<ProxyEntityResponse> listeners;
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentMap<Object, Partition> partitions = new ConcurrentHashMap<>();
+
+  private volatile boolean shutdown;
+  private volatile boolean discard;
+
+  EventDispatcher(String threadName, EventDispatch eventDispatch, Consumer<ProxyEntityResponse> listeners) {
+    this.queueCapacity = eventDispatch.getQueueCapacity();
+    this.slowConsumerPolicy = eventDispatch.getSlowConsumerPolicy();
+    this.partitioner = eventDispatch.getPartitioner();
+    this.listeners = listeners;
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(eventDispatch.getThreads(), eventDispatch.getThreads(), 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        r -> {
+          Thread thread = new Thread(r, threadName + "-" + threadCounter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  void dispatch(ProxyEntityResponse event) {
+    Class<?> type = event.getResponseType();
+    Object partition = partitioner == null ? null : partitioner.partition(event.getResponse());
+    Object key = partition == null ? type : new AbstractMap.SimpleImmutableEntry<>(type, partition);
+    partitions.computeIfAbsent(key, k -> new Partition(type, partition)).offer(event);
+  }
+
+  void shutdown() {
+    shutdown = true;
+    executor.shutdown();
+    partitions.values().forEach(Partition::wakeUp);
+  }
+
+  void shutdownNow() {
+    shutdown = true;
+    discard = true;
+    executor.shutdownNow();
+    partitions.values().forEach(Partition::wakeUp);
+  }
+
+  Collection<EventDispatchStatistics> getStatistics() {
+    return Collections.unmodifiableList(new ArrayList<>(partitions.values()));
+  }
+
+  private final class Partition implements EventDispatchStatistics, Runnable {
+
+    private final Class<?> eventType;
+    private final Object partition;
+
+    // guarded by this
+    private final ArrayDeque<ProxyEntityResponse> events = new ArrayDeque<>();
+    private final ArrayDeque<Long> receivedAt = new ArrayDeque<>();
+    private boolean draining;
+    private long dispatched;
+    private long dropped;
+    private long totalLatency;
+    private long maxLatency;
+
+    Partition(Class<?> eventType, Object partition) {
+      this.eventType = eventType;
+      this.partition = partition;
+    }
+
+    void offer(ProxyEntityResponse event) {
+      long now = System.nanoTime();
+      synchronized (this) {
+        if (events.size() >= queueCapacity) {
+          switch (slowConsumerPolicy) {
+            case BLOCK:
+              boolean interrupted = false;
+              while (events.size() >= queueCapacity && !shutdown) {
+                try {
+                  wait();
+                } catch (InterruptedException e) {
+                  interrupted = true;
+                }
+              }
+              if (interrupted) {
+                Thread.currentThread().interrupt();
+              }
+              break;
+            case DROP_OLDEST:
+              events.poll();
+              receivedAt.poll();
+              dropped++;
+              break;
+            case DROP_NEWEST:
+              dropped++;
+              return;
+            default:
+              throw new AssertionError(slowConsumerPolicy);
+          }
+        }
+        if (shutdown) {
+          // the caller wants to close anyway
+          return;
+        }
+        events.add(event);
+        receivedAt.add(now);
+        if (!draining) {
+          try {
+            executor.execute(this);
+            draining = true;
+          } catch (RejectedExecutionException e) {
+            // closed concurrently
+          }
+        }
+      }
+    }
+
+    synchronized void wakeUp() {
+      notifyAll();
+    }
+
+    @Override
+    public void run() {
+      boolean drained = false;
+      try {
+        while (true) {
+          ProxyEntityResponse event;
+          long received;
+          synchronized (this) {
+            event = events.poll();
+            if (event == null || discard) {
+              draining = false;
+              drained = true;
+              return;
+            }
+            received = receivedAt.poll();
+            notifyAll();
+          }
+          listeners.accept(event);
+          long latency = System.nanoTime() - received;
+          synchronized (this) {
+            dispatched++;
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+          }
+        }
+      } finally {
+        if (!drained) {
+          // a listener threw: the events offered meanwhile are left to another run
+          synchronized (this) {
+            draining = false;
+            if (!events.isEmpty() && !discard) {
+              try {
+                executor.execute(this);
+                draining = true;
+              } catch (RejectedExecutionException e) {
+                // closed concurrently
+              }
+            }
+          }
+        }
+      }
+    }
+
+    @Override
+    public Class<?> getEventType() {
+      return eventType;
+    }
+
+    @Override
+    public Object getPartition() {
+      return partition;
+    }
+
+    @Override
+    public synchronized int getPendingEvents() {
+      return events.size();
+    }
+
+    @Override
+    public synchronized long getDispatchedEvents() {
+      return dispatched;
+    }
+
+    @Override
+    public synchronized long getDroppedEvents() {
+      return dropped;
+    }
+
+    @Override
+    public synchronized long getAverageDispatchLatency(TimeUnit unit) {
+      return dispatched == 0 ? 0 : unit.convert(totalLatency / dispatched, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized long getMaxDispatchLatency(TimeUnit unit) {
+      return unit.convert(maxLatency, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized String toString() {
+      return eventType.getName() + (partition == null ? "" : "[" + partition + "]") + ": pending=" + events.size()
+          + ", dispatched=" + dispatched + ", dropped=" + dropped;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.client;
+
+import org.terracotta.voltron.proxy.InvocationStatistics;
+import org.terracotta.voltron.proxy.MessageType;
+import org.terracotta.voltron.proxy.MethodDescriptor;
+import org.terracotta.voltron.proxy.MethodStatistics;
+import org.terracotta.voltron.proxy.ProxyEntityResponse;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records the outcome of one client invocation, once, into the statistics of its method. For an asynchronous
+ * invocation, that is when the transport delivers its response, so that latencies do not include the time the caller
+ * took to retrieve it.
+ */
+final class InvocationRecorder {
+
+  private final MethodStatistics statistics;
+  private final long start = System.nanoTime();
+  private final AtomicBoolean recorded = new AtomicBoolean();
+
+  private InvocationRecorder(MethodStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  /**
+   * @return a recorder, or {@code null} when statistics are disabled
+   */
+  static InvocationRecorder start(InvocationStatistics statistics, MethodDescriptor method) {
+    return statistics == null ? null : new InvocationRecorder(statistics.of(method));
+  }
+
+  void record(ProxyEntityResponse response) {
+    if (recorded.compareAndSet(false, true)) {
+      statistics.recordCall(System.nanoTime() - start, response != null && response.getMessageType() == MessageType.ERROR);
+      if (response != null && response.getEncodedSize() >= 0) {
+        statistics.recordResponseSize(response.getEncodedSize());
+      }
+    }
+  }
+
+  void recordFailure() {
+    if (recorded.compareAndSet(false, true)) {
+      statistics.recordCall(System.nanoTime() - start, true);
+    }
+  }
+}
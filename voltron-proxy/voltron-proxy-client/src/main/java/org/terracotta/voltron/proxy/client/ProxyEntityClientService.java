@@ -22,6 +22,7 @@ import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.entity.EntityClientService;
 import org.terracotta.entity.MessageCodec;
 import org.terracotta.voltron.proxy.Codec;
+import org.terracotta.voltron.proxy.InvocationStatistics;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 import org.terracotta.voltron.proxy.ProxyEntityResponse;
 import org.terracotta.voltron.proxy.ProxyMessageCodec;
@@ -33,6 +34,9 @@ public abstract class ProxyEntityClientService<T extends Entity & ServerMessageA
   private final Class<C> configType;
   private final Class<?>[] messageTypes;
   private final ProxyMessageCodec messageCodec;
+  private volatile AsyncBatching asyncBatching;
+  private volatile EventDispatch eventDispatch;
+  private volatile int maxInFlightInvocations;
 
   @SuppressFBWarnings("EI_EXPOSE_REP2")
   public ProxyEntityClientService(Class<T> clientType, Class<? super T> type, Class<C> configType, Class<?>[] messageTypes) {
@@ -50,7 +54,7 @@ public abstract class ProxyEntityClientService<T extends Entity & ServerMessageA
 
   @Override
   public T create(EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> endpoint, Object userData) {
-    return ClientProxyFactory.createEntityProxy(clientType, type, endpoint, messageTypes, messageCodec.getCodec());
+    return ClientProxyFactory.createEntityProxy(clientType, type, endpoint, messageTypes, messageCodec.getCodec(), asyncBatching, eventDispatch, messageCodec.getStatistics(), maxInFlightInvocations);
   }
 
   @Override
@@ -77,4 +81,43 @@ public abstract class ProxyEntityClientService<T extends Entity & ServerMessageA
   protected void setCodec(Codec codec) {
     messageCodec.setCodec(codec);
   }
+
+  /**
+   * Enables the batching of the {@link org.terracotta.voltron.proxy.Async} invocations of the entities created
+   * afterwards.
+   */
+  protected void setAsyncBatching(AsyncBatching asyncBatching) {
+    this.asyncBatching = asyncBatching;
+  }
+
+  /**
+   * Dispatches the server events of the entities created afterwards in parallel partitions, with bounded queues.
+   */
+  protected void setEventDispatch(EventDispatch eventDispatch) {
+    this.eventDispatch = eventDispatch;
+  }
+
+  /**
+   * Limits how many synchronous and completable invocations of each entity created afterwards can wait for their
+   * response at any time, or removes the limit when {@code 0}.
+   */
+  protected void setMaxInFlightInvocations(int maxInFlightInvocations) {
+    if (maxInFlightInvocations < 0) {
+      throw new IllegalArgumentException("Negative max in-flight invocations: " + maxInFlightInvocations);
+    }
+    this.maxInFlightInvocations = maxInFlightInvocations;
+  }
+
+  /**
+   * Starts recording the call counts, errors, encoded sizes and latencies of the proxied methods, for the entities
+   * created afterwards. Without this call, nothing is recorded.
+   */
+  protected synchronized InvocationStatistics enableStatistics() {
+    InvocationStatistics statistics = messageCodec.getStatistics();
+    if (statistics == null) {
+      statistics = new InvocationStatistics();
+      messageCodec.setStatistics(statistics);
+    }
+    return statistics;
+  }
 }
@@ -18,10 +18,21 @@ package org.terracotta.voltron.proxy.client;
 
 import org.terracotta.voltron.proxy.MessageListener;
 
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * @author Alex Snaps
  */
 public interface ServerMessageAware {
 
   <T> void registerMessageListener(Class<T> type, MessageListener<T> listener);
+
+  /**
+   * @return the dispatch figures of each event partition, empty unless events are dispatched according to an
+   * {@link EventDispatch}
+   */
+  default Collection<EventDispatchStatistics> getEventDispatchStatistics() {
+    return Collections.emptyList();
+  }
 }
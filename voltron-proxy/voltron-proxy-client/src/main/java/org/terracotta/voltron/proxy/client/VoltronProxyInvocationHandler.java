@@ -23,7 +23,9 @@ import org.terracotta.entity.EndpointDelegate;
 import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.Invocation;
+import org.terracotta.entity.InvocationCallback;
 import org.terracotta.voltron.proxy.Codec;
+import org.terracotta.voltron.proxy.InvocationStatistics;
 import org.terracotta.voltron.proxy.MessageListener;
 import org.terracotta.voltron.proxy.MessageType;
 import org.terracotta.voltron.proxy.MethodDescriptor;
@@ -33,6 +35,11 @@ import org.terracotta.voltron.proxy.ProxyEntityResponse;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -41,6 +48,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -54,27 +62,59 @@ class VoltronProxyInvocationHandler implements InvocationHandler {
   private static final Method close;
   private static final Method registerMessageListener;
   private static final Method setEndpointListener;
+  private static final Method getEventDispatchStatistics;
+
+  static final Set<InvocationCallback.Types> RESPONSE_CALLBACKS = Collections.unmodifiableSet(EnumSet.of(InvocationCallback.Types.RESULT, InvocationCallback.Types.FAILURE));
 
   static {
     try {
       close = Entity.class.getDeclaredMethod("close");
       registerMessageListener = ServerMessageAware.class.getDeclaredMethod("registerMessageListener", Class.class, MessageListener.class);
       setEndpointListener = EndpointListenerAware.class.getDeclaredMethod("setEndpointListener", EndpointListener.class);
+      getEventDispatchStatistics = ServerMessageAware.class.getDeclaredMethod("getEventDispatchStatistics");
     } catch (NoSuchMethodException e) {
       throw new AssertionError("Someone changed some method signature here!!!");
     }
   }
 
   private final EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint;
+  private final Map<Method, MethodDescriptor> methodDescriptors;
   private final ExecutorService handler;
+  private final EventDispatcher dispatcher;
+  private final InvocationStatistics statistics;
   private final ConcurrentMap<Class<?>, CopyOnWriteArrayList<MessageListener<?>>> listeners;
+  private final AsyncBatcher batcher;
+  private final Semaphore inFlight;
 
   private volatile EndpointListener endpointListener;
 
-  VoltronProxyInvocationHandler(final EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint, Collection<Class<?>> events, final Codec codec) {
+  VoltronProxyInvocationHandler(final EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint, Map<Method, MethodDescriptor> methodDescriptors, Collection<Class<?>> events, final Codec codec) {
+    this(entityClientEndpoint, methodDescriptors, events, codec, null, null, null, 0);
+  }
+
+  /**
+   * @param maxInFlightInvocations how many synchronous and completable invocations can wait for their response at any
+   *                               time, callers being blocked until one of them completes beyond that, or {@code 0}
+   *                               for no limit
+   */
+  VoltronProxyInvocationHandler(final EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> entityClientEndpoint, Map<Method, MethodDescriptor> methodDescriptors, Collection<Class<?>> events, final Codec codec,
+                                AsyncBatching asyncBatching, EventDispatch eventDispatch, InvocationStatistics statistics, int maxInFlightInvocations) {
+    if (maxInFlightInvocations < 0) {
+      throw new IllegalArgumentException("Negative max in-flight invocations: " + maxInFlightInvocations);
+    }
     this.entityClientEndpoint = entityClientEndpoint;
+    this.inFlight = maxInFlightInvocations == 0 ? null : new Semaphore(maxInFlightInvocations);
+    this.statistics = statistics;
+    this.methodDescriptors = methodDescriptors;
+    this.batcher = asyncBatching == null ? null : new AsyncBatcher(entityClientEndpoint, asyncBatching);
     String threadName = "Message Handler for " + entityClientEndpoint.toString();
-    handler = Executors.newSingleThreadExecutor(r -> new Thread(r, threadName));
+    if (eventDispatch == null) {
+      handler = Executors.newSingleThreadExecutor(r -> new Thread(r, threadName));
+      dispatcher = null;
+    } else {
+      handler = null;
+      dispatcher = new EventDispatcher(threadName, eventDispatch, this::deliver);
+    }
     this.listeners = new ConcurrentHashMap<>();
     if (!events.isEmpty()) {
       for (Class<?> aClass : events) {
@@ -83,20 +123,14 @@ class VoltronProxyInvocationHandler implements InvocationHandler {
 
       entityClientEndpoint.setDelegate(new EndpointDelegate<ProxyEntityResponse>() {
 
-        @SuppressWarnings({"unchecked", "rawtypes"})
         @Override
         public void handleMessage(ProxyEntityResponse response) {
+          if (dispatcher != null) {
+            dispatcher.dispatch(response);
+            return;
+          }
           try {
-            handler.execute(() -> {
-              final Class<?> aClass = response.getResponseType();
-              try {
-                for (MessageListener messageListener : listeners.get(aClass)) {
-                  messageListener.onMessage(response.getResponse());
-                }
-              } catch (Exception e) {
-                LOGGER.warn("Error handling incoming server message {}: {}", aClass, e.getMessage(), e);
-              }
-            });
+            handler.execute(() -> deliver(response));
           } catch (RejectedExecutionException e) {
             // do nothing: this is normal in case the executor is closed,
             // and we can forget the message because the caller wants to close anyway
@@ -121,17 +155,48 @@ class VoltronProxyInvocationHandler implements InvocationHandler {
           if (endpointListener != null) {
             endpointListener.onDisconnectUnexpectedly();
           }
-          handler.shutdownNow();
+          shutdownNow();
         }
       });
     }
   }
 
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void deliver(ProxyEntityResponse response) {
+    final Class<?> aClass = response.getResponseType();
+    try {
+      for (MessageListener messageListener : listeners.get(aClass)) {
+        messageListener.onMessage(response.getResponse());
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Error handling incoming server message {}: {}", aClass, e.getMessage(), e);
+    }
+  }
+
+  private void shutdown() {
+    if (dispatcher == null) {
+      handler.shutdown();
+    } else {
+      dispatcher.shutdown();
+    }
+  }
+
+  private void shutdownNow() {
+    if (dispatcher == null) {
+      handler.shutdownNow();
+    } else {
+      dispatcher.shutdownNow();
+    }
+  }
+
   @Override
   public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
 
     if (close.equals(method)) {
-      handler.shutdown();
+      if (batcher != null) {
+        batcher.close();
+      }
+      shutdown();
       entityClientEndpoint.close();
       return null;
 
@@ -148,20 +213,123 @@ class VoltronProxyInvocationHandler implements InvocationHandler {
     } else if (setEndpointListener.equals(method)) {
       this.endpointListener = (EndpointListener) args[0];
       return null;
+
+    } else if (getEventDispatchStatistics.equals(method)) {
+      return dispatcher == null ? Collections.emptyList() : dispatcher.getStatistics();
     }
 
-    final MethodDescriptor methodDescriptor = MethodDescriptor.of(method);
+    MethodDescriptor methodDescriptor = methodDescriptors.get(method);
+    if (methodDescriptor == null) {
+      throw new IllegalArgumentException("Method '" + method.toGenericString() + "' isn't proxied");
+    }
 
-    final Invocation<ProxyEntityResponse> builder = entityClientEndpoint.message(new ProxyEntityMessage(methodDescriptor, args, MessageType.MESSAGE));
+    final ProxyEntityMessage message = new ProxyEntityMessage(methodDescriptor, args, MessageType.MESSAGE);
+    final InvocationRecorder recorder = InvocationRecorder.start(statistics, methodDescriptor);
+    if (batcher != null) {
+      if (methodDescriptor.isAsync()) {
+        return batcher.add(message, recorder);
+      }
+      // anything batched so far has to reach the server first
+      batcher.flush();
+    }
 
-    if (methodDescriptor.isAsync()) {
-      return new ProxiedInvokeFuture<>(builder.invoke());
+    if (methodDescriptor.isCompletable()) {
+      return send(message, recorder);
+    } else if (methodDescriptor.isAsync()) {
+      return invokeAsync(message, recorder);
     } else {
+      ProxyEntityResponse response;
+      acquire();
       try {
-        return getResponse(builder.invoke().get());
+        response = entityClientEndpoint.message(message).invoke().get();
       } catch (ExecutionException e) {
+        if (recorder != null) {
+          recorder.recordFailure();
+        }
         throw e.getCause();
+      } finally {
+        release();
       }
+      if (recorder != null) {
+        recorder.record(response);
+      }
+      return getResponse(response);
+    }
+  }
+
+  /**
+   * Sends the message once an in-flight slot is available, without waiting for the response: the returned future is
+   * completed by the thread delivering it, after the slot is released.
+   */
+  private CompletableFuture<Object> send(ProxyEntityMessage message, InvocationRecorder recorder) throws InterruptedException {
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    acquire();
+    try {
+      entityClientEndpoint.message(message).invoke(new InvocationCallback<ProxyEntityResponse>() {
+        @Override
+        public void result(ProxyEntityResponse response) {
+          release();
+          if (recorder != null) {
+            recorder.record(response);
+          }
+          if (response != null && response.getMessageType() == MessageType.ERROR) {
+            future.completeExceptionally((EntityUserException) response.getResponse());
+          } else {
+            future.complete(response == null ? null : response.getResponse());
+          }
+        }
+
+        @Override
+        public void failure(Throwable failure) {
+          release();
+          if (recorder != null) {
+            recorder.recordFailure();
+          }
+          future.completeExceptionally(failure);
+        }
+      }, RESPONSE_CALLBACKS);
+    } catch (RuntimeException | Error e) {
+      release();
+      throw e;
+    }
+    return future;
+  }
+
+  /**
+   * Sends the message and records its outcome when the transport delivers the response, whether or not the caller
+   * ever waits for it.
+   */
+  private <T> Future<T> invokeAsync(ProxyEntityMessage message, InvocationRecorder recorder) {
+    CompletableFuture<ProxyEntityResponse> future = new CompletableFuture<>();
+    Invocation.Task task = entityClientEndpoint.message(message).invoke(new InvocationCallback<ProxyEntityResponse>() {
+      @Override
+      public void result(ProxyEntityResponse response) {
+        if (recorder != null) {
+          recorder.record(response);
+        }
+        future.complete(response);
+      }
+
+      @Override
+      public void failure(Throwable failure) {
+        if (recorder != null) {
+          recorder.recordFailure();
+        }
+        future.completeExceptionally(failure);
+      }
+    }, RESPONSE_CALLBACKS);
+    return new ProxiedInvokeFuture<>(future, task);
+  }
+
+  private void acquire() throws InterruptedException {
+    if (inFlight != null) {
+      inFlight.acquire();
+    }
+  }
+
+  private void release() {
+    if (inFlight != null) {
+      inFlight.release();
     }
   }
 
@@ -178,14 +346,16 @@ class VoltronProxyInvocationHandler implements InvocationHandler {
   private static class ProxiedInvokeFuture<T> implements Future<T> {
 
     private final Future<ProxyEntityResponse> future;
+    private final Invocation.Task task;
 
-    public ProxiedInvokeFuture(final Future<ProxyEntityResponse> future) {
+    public ProxiedInvokeFuture(final Future<ProxyEntityResponse> future, Invocation.Task task) {
       this.future = future;
+      this.task = task;
     }
 
     @Override
     public boolean cancel(final boolean mayInterruptIfRunning) {
-      return future.cancel(mayInterruptIfRunning);
+      return task.cancel() && future.cancel(mayInterruptIfRunning);
     }
 
     @Override
@@ -0,0 +1,108 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.client;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.terracotta.entity.EntityClientEndpoint;
+import org.terracotta.entity.Invocation;
+import org.terracotta.voltron.proxy.Async;
+import org.terracotta.voltron.proxy.MessageType;
+import org.terracotta.voltron.proxy.MethodDescriptor;
+import org.terracotta.voltron.proxy.ProxyEntityMessage;
+import org.terracotta.voltron.proxy.ProxyEntityResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class AsyncBatcherTest {
+
+  @Test
+  public void testAddNotBlockedBySend() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> endpoint = mock(EntityClientEndpoint.class);
+    Invocation invocation = mock(Invocation.class);
+    when(endpoint.message(ArgumentMatchers.any())).thenReturn(invocation);
+    when(invocation.invoke(ArgumentMatchers.any(), ArgumentMatchers.anySet())).thenAnswer(i -> {
+      sending.countDown();
+      release.await();
+      return null;
+    });
+
+    AsyncBatcher batcher = new AsyncBatcher(endpoint, new AsyncBatching(1, TimeUnit.HOURS, 2));
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> full = executor.submit(() -> {
+        batcher.add(message(), null);
+        return batcher.add(message(), null);
+      });
+      assertThat(sending.await(10, TimeUnit.SECONDS), is(true));
+
+      // the full batch is being sent: the next invocation starts a new batch without waiting for it
+      executor.submit(() -> batcher.add(message(), null)).get(10, TimeUnit.SECONDS);
+
+      release.countDown();
+      full.get(10, TimeUnit.SECONDS);
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+      batcher.close();
+    }
+  }
+
+  @Test
+  public void testAddAfterCloseRejected() throws Exception {
+    EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> endpoint = mock(EntityClientEndpoint.class);
+    AsyncBatcher batcher = new AsyncBatcher(endpoint, new AsyncBatching(1, TimeUnit.HOURS, 10));
+    batcher.close();
+
+    try {
+      batcher.add(message(), null);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private static ProxyEntityMessage message() throws Exception {
+    return new ProxyEntityMessage(descriptor(), new Object[]{"value"}, MessageType.MESSAGE);
+  }
+
+  private static MethodDescriptor descriptor() {
+    try {
+      return MethodDescriptor.of(Store.class.getMethod("put", String.class));
+    } catch (NoSuchMethodException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  public interface Store {
+    @Async
+    Future<Void> put(String value);
+  }
+}
@@ -21,11 +21,16 @@ import org.mockito.ArgumentMatchers;
 import org.terracotta.connection.entity.Entity;
 import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.entity.Invocation;
+import org.terracotta.entity.InvocationCallback;
 import org.terracotta.entity.MessageCodecException;
 import org.terracotta.voltron.proxy.Async;
 import org.terracotta.voltron.proxy.MessageListener;
+import org.terracotta.voltron.proxy.ProxyEntityResponse;
 import org.terracotta.voltron.proxy.SerializationCodec;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -82,20 +87,24 @@ public class ClientProxyFactoryTest {
     final EntityClientEndpoint endpoint = mock(EntityClientEndpoint.class);
     final Invocation builder = mock(Invocation.class);
     when(endpoint.message(ArgumentMatchers.any())).thenReturn(builder);
-    final Future future = mock(Future.class);
-    when(builder.invoke()).thenReturn(future);
-    when(future.get()).thenReturn(messageResponse(Integer.class, 42));
-    when(future.get(1, TimeUnit.SECONDS)).thenReturn(messageResponse(Integer.class, 43))
-        .thenThrow(new TimeoutException("Blah!"));
+    final Deque<ProxyEntityResponse> responses = new ArrayDeque<>(Arrays.asList(messageResponse(Integer.class, 42), messageResponse(Integer.class, 43)));
+    when(builder.invoke(ArgumentMatchers.any(), ArgumentMatchers.anySet())).thenAnswer(invocation -> {
+      // the last invocation never gets a response
+      ProxyEntityResponse response = responses.poll();
+      if (response != null) {
+        ((InvocationCallback<ProxyEntityResponse>) invocation.getArgument(0)).result(response);
+      }
+      return null;
+    });
 
     final PassThrough proxy = ClientProxyFactory.createProxy(PassThrough.class, PassThrough.class, endpoint, null, codec);
     assertThat(proxy.aSync().get(), is(42));
     assertThat(proxy.aSync().get(1, TimeUnit.SECONDS), is(43));
     try {
-      proxy.aSync().get(1, TimeUnit.SECONDS);
+      proxy.aSync().get(10, TimeUnit.MILLISECONDS);
       fail();
     } catch (TimeoutException e) {
-      assertThat(e.getMessage(), is("Blah!"));
+      // expected
     }
   }
 
@@ -0,0 +1,156 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.client;
+
+import org.junit.After;
+import org.junit.Test;
+import org.terracotta.voltron.proxy.ProxyEntityResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class EventDispatcherTest {
+
+  private EventDispatcher dispatcher;
+
+  @After
+  public void tearDown() {
+    if (dispatcher != null) {
+      dispatcher.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSlowPartitionDoesNotHoldBackOthers() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch stringsDispatched = new CountDownLatch(10);
+    dispatcher = new EventDispatcher("test", new EventDispatch(2, 100, EventDispatch.SlowConsumerPolicy.BLOCK), event -> {
+      try {
+        if (event.getResponseType() == Integer.class) {
+          release.await();
+        } else {
+          stringsDispatched.countDown();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    dispatcher.dispatch(ProxyEntityResponse.messageResponse(Integer.class, 0));
+    for (int i = 0; i < 10; i++) {
+      dispatcher.dispatch(ProxyEntityResponse.messageResponse(String.class, "event-" + i));
+    }
+
+    assertThat(stringsDispatched.await(5, TimeUnit.SECONDS), is(true));
+    release.countDown();
+  }
+
+  @Test
+  public void testOrderPreservedWithinPartition() throws Exception {
+    CountDownLatch done = new CountDownLatch(200);
+    List<Object> evens = Collections.synchronizedList(new ArrayList<>());
+    List<Object> odds = Collections.synchronizedList(new ArrayList<>());
+    EventDispatch config = new EventDispatch(4, 10, EventDispatch.SlowConsumerPolicy.BLOCK, event -> (Integer) event % 2);
+    dispatcher = new EventDispatcher("test", config, event -> {
+      int value = (Integer) event.getResponse();
+      (value % 2 == 0 ? evens : odds).add(value);
+      done.countDown();
+    });
+
+    List<Object> expectedEvens = new ArrayList<>();
+    List<Object> expectedOdds = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      dispatcher.dispatch(ProxyEntityResponse.messageResponse(Integer.class, i));
+      (i % 2 == 0 ? expectedEvens : expectedOdds).add(i);
+    }
+
+    assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+    assertThat(evens, is(expectedEvens));
+    assertThat(odds, is(expectedOdds));
+    assertThat(dispatcher.getStatistics().size(), is(2));
+    for (EventDispatchStatistics statistics : dispatcher.getStatistics()) {
+      assertThat(statistics.getEventType() == Integer.class, is(true));
+      // the count is updated once the listener returns
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (statistics.getDispatchedEvents() < 100 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(statistics.getDispatchedEvents(), is(100L));
+    }
+  }
+
+  @Test
+  public void testPartitionDispatchesAgainAfterListenerError() throws Exception {
+    CountDownLatch failed = new CountDownLatch(1);
+    CountDownLatch dispatched = new CountDownLatch(1);
+    dispatcher = new EventDispatcher("test", new EventDispatch(1, 10, EventDispatch.SlowConsumerPolicy.BLOCK), event -> {
+      if (event.getResponse().equals(0)) {
+        failed.countDown();
+        throw new AssertionError("expected listener failure");
+      }
+      dispatched.countDown();
+    });
+
+    dispatcher.dispatch(ProxyEntityResponse.messageResponse(Integer.class, 0));
+    assertThat(failed.await(5, TimeUnit.SECONDS), is(true));
+    dispatcher.dispatch(ProxyEntityResponse.messageResponse(Integer.class, 1));
+
+    assertThat(dispatched.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void testDropNewestWhenFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch dispatching = new CountDownLatch(1);
+    List<Object> dispatched = Collections.synchronizedList(new ArrayList<>());
+    Consumer<ProxyEntityResponse> listener = event -> {
+      dispatching.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      dispatched.add(event.getResponse());
+    };
+    dispatcher = new EventDispatcher("test", new EventDispatch(1, 2, EventDispatch.SlowConsumerPolicy.DROP_NEWEST), listener);
+
+    dispatcher.dispatch(ProxyEntityResponse.messageResponse(Integer.class, 0));
+    assertThat(dispatching.await(5, TimeUnit.SECONDS), is(true));
+    for (int i = 1; i <= 4; i++) {
+      dispatcher.dispatch(ProxyEntityResponse.messageResponse(Integer.class, i));
+    }
+    EventDispatchStatistics statistics = dispatcher.getStatistics().iterator().next();
+    assertThat(statistics.getPendingEvents(), is(2));
+    assertThat(statistics.getDroppedEvents(), is(2L));
+
+    release.countDown();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (statistics.getDispatchedEvents() < 3 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(dispatched, is(Arrays.<Object>asList(0, 1, 2)));
+    assertThat(statistics.getMaxDispatchLatency(TimeUnit.NANOSECONDS) > 0, is(true));
+  }
+}
@@ -20,22 +20,39 @@ import org.junit.Test;
 import org.mockito.ArgumentMatchers;
 import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.entity.EntityMessage;
+import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.Invocation;
+import org.terracotta.entity.InvocationCallback;
 import org.terracotta.voltron.proxy.ClientId;
 import org.terracotta.voltron.proxy.MethodDescriptor;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 import org.terracotta.voltron.proxy.ProxyEntityResponse;
 import org.terracotta.voltron.proxy.SerializationCodec;
 
+import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.terracotta.voltron.proxy.CommonProxyFactory.createMethodDescriptors;
 import static org.terracotta.voltron.proxy.CommonProxyFactory.createMethodMappings;
 import static org.terracotta.voltron.proxy.CommonProxyFactory.invert;
 
@@ -66,7 +83,7 @@ public class VoltronProxyInvocationHandlerTest {
     when(future.get()).thenReturn(ProxyEntityResponse.messageResponse(Void.TYPE, null));
 
     Map<MethodDescriptor, Byte> methodMappings = invert(createMethodMappings(TestInterface.class));
-    VoltronProxyInvocationHandler handler = new VoltronProxyInvocationHandler(endpoint, Collections.<Class<?>>emptyList(), codec);
+    VoltronProxyInvocationHandler handler = new VoltronProxyInvocationHandler(endpoint, createMethodDescriptors(TestInterface.class), Collections.<Class<?>>emptyList(), codec);
     for (MethodDescriptor method : methodMappings.keySet()) {
       handler.invoke(null, method.getMethod(), new Object[] { "String", new Object() });
     }
@@ -75,10 +92,92 @@ public class VoltronProxyInvocationHandlerTest {
     }
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testCompletableInvocationsCompletedByTransport() throws Throwable {
+    final BlockingQueue<InvocationCallback<ProxyEntityResponse>> callbacks = new LinkedBlockingQueue<>();
+    final EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> endpoint = callbackCapturingEndpoint(callbacks);
+    VoltronProxyInvocationHandler handler = new VoltronProxyInvocationHandler(endpoint, createMethodDescriptors(CompletableInterface.class), Collections.<Class<?>>emptyList(), new SerializationCodec());
+
+    CompletableFuture<Integer> added = (CompletableFuture<Integer>) handler.invoke(null, CompletableInterface.class.getMethod("add", int.class), new Object[] {1});
+    CompletionStage<String> named = (CompletionStage<String>) handler.invoke(null, CompletableInterface.class.getMethod("name"), null);
+    CompletableFuture<Integer> failed = (CompletableFuture<Integer>) handler.invoke(null, CompletableInterface.class.getMethod("add", int.class), new Object[] {-1});
+    assertThat(added.isDone(), is(false));
+
+    callbacks.remove().result(ProxyEntityResponse.messageResponse(Integer.class, 2));
+    callbacks.remove().result(ProxyEntityResponse.messageResponse(String.class, "joe"));
+    callbacks.remove().result(ProxyEntityResponse.error(new EntityUserException("negative")));
+
+    assertThat(added.getNow(null), is(2));
+    assertThat(named.toCompletableFuture().getNow(null), is("joe"));
+    try {
+      failed.getNow(null);
+      fail("Expected CompletionException");
+    } catch (CompletionException e) {
+      assertThat(e.getCause(), instanceOf(EntityUserException.class));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testInFlightInvocationsLimited() throws Throwable {
+    final BlockingQueue<InvocationCallback<ProxyEntityResponse>> callbacks = new LinkedBlockingQueue<>();
+    final EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> endpoint = callbackCapturingEndpoint(callbacks);
+    VoltronProxyInvocationHandler handler = new VoltronProxyInvocationHandler(endpoint, createMethodDescriptors(CompletableInterface.class), Collections.<Class<?>>emptyList(), new SerializationCodec(),
+        null, null, null, 2);
+    Method add = CompletableInterface.class.getMethod("add", int.class);
+
+    handler.invoke(null, add, new Object[] {1});
+    handler.invoke(null, add, new Object[] {2});
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> third = executor.submit(() -> {
+        try {
+          return handler.invoke(null, add, new Object[] {3});
+        } catch (Throwable t) {
+          throw new AssertionError(t);
+        }
+      });
+      try {
+        third.get(200, TimeUnit.MILLISECONDS);
+        fail("Expected TimeoutException");
+      } catch (TimeoutException e) {
+        // blocked until a response arrives
+      }
+
+      callbacks.remove().result(ProxyEntityResponse.messageResponse(Integer.class, 1));
+      CompletableFuture<Integer> result = (CompletableFuture<Integer>) third.get(5, TimeUnit.SECONDS);
+      assertThat(callbacks.size(), is(2));
+      assertThat(result.isDone(), is(false));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> callbackCapturingEndpoint(BlockingQueue<InvocationCallback<ProxyEntityResponse>> callbacks) {
+    final EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> endpoint = mock(EntityClientEndpoint.class);
+    final Invocation builder = mock(Invocation.class);
+    when(endpoint.message(ArgumentMatchers.any())).thenReturn(builder);
+    when(builder.invoke(ArgumentMatchers.any(InvocationCallback.class), ArgumentMatchers.anySet())).thenAnswer(invocation -> {
+      callbacks.add(invocation.getArgument(0));
+      return (Invocation.Task) () -> false;
+    });
+    return endpoint;
+  }
+
   interface TestInterface {
 
     void testing(Object foo, @ClientId Object bar);
 
   }
 
+  public interface CompletableInterface {
+
+    CompletableFuture<Integer> add(int value);
+
+    CompletionStage<String> name();
+
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,384 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * A {@link Codec} writing values in a compact tagged binary format instead of Java serialization.
+ * <p>
+ * Each value is a one byte tag followed by its content. Primitive wrappers, strings and byte arrays are written
+ * natively. Lists, sets and maps of the JDK (except sorted ones) are written element by element and decoded as
+ * {@link ArrayList}, {@link LinkedHashSet} and {@link LinkedHashMap}. Other types can be registered with a
+ * {@link TypeCodec}, and are then identified by their registration index instead of their class descriptor. Anything
+ * else goes through the fallback codec, a {@link SerializationCodec} by default, which keeps exceptions and
+ * unregistered {@link java.io.Serializable} types working.
+ * <p>
+ * Types are matched on their exact class. Both ends of a connection must register the same types in the same order,
+ * and registrations must be done before the codec is first used.
+ */
+public class BinaryCodec implements Codec {
+
+  private static final byte NULL = 0;
+  private static final byte TRUE = 1;
+  private static final byte FALSE = 2;
+  private static final byte BYTE = 3;
+  private static final byte SHORT = 4;
+  private static final byte CHAR = 5;
+  private static final byte INT = 6;
+  private static final byte LONG = 7;
+  private static final byte FLOAT = 8;
+  private static final byte DOUBLE = 9;
+  private static final byte STRING = 10;
+  private static final byte BYTES = 11;
+  private static final byte LIST = 12;
+  private static final byte SET = 13;
+  private static final byte MAP = 14;
+  private static final byte REGISTERED = 15;
+  private static final byte SERIALIZED = 16;
+
+  private static final ClassValue<Byte> BUILTIN_TAGS = new ClassValue<Byte>() {
+    @Override
+    protected Byte computeValue(Class<?> type) {
+      return builtinTag(type);
+    }
+  };
+
+  private final Codec fallback;
+  private final Map<Class<?>, Integer> registrationIndexes = new HashMap<>();
+  private final List<TypeCodec<?>> registrations = new ArrayList<>();
+
+  public BinaryCodec() {
+    this(new SerializationCodec());
+  }
+
+  public BinaryCodec(Codec fallback) {
+    this.fallback = Objects.requireNonNull(fallback);
+  }
+
+  /**
+   * Registers the codec of a type, which takes precedence over the collection and fallback encodings.
+   *
+   * @return this codec
+   */
+  public <T> BinaryCodec register(Class<T> type, TypeCodec<T> typeCodec) {
+    Objects.requireNonNull(typeCodec);
+    if (BUILTIN_TAGS.get(type) != SERIALIZED) {
+      throw new IllegalArgumentException("Type " + type.getName() + " has a built-in encoding");
+    }
+    if (registrationIndexes.putIfAbsent(type, registrations.size()) != null) {
+      throw new IllegalArgumentException("Type " + type.getName() + " is already registered");
+    }
+    registrations.add(typeCodec);
+    return this;
+  }
+
+  /**
+   * Registers an enum, whose constants are then encoded by name.
+   *
+   * @return this codec
+   */
+  public <E extends Enum<E>> BinaryCodec registerEnum(Class<E> type) {
+    return register(type, new TypeCodec<E>() {
+      @Override
+      public void encode(BinaryWriter writer, E value) {
+        writer.writeString(value.name());
+      }
+
+      @Override
+      public E decode(BinaryReader reader) {
+        return Enum.valueOf(type, reader.readString());
+      }
+    });
+  }
+
+  @Override
+  public byte[] encode(Class<?> type, Object value) {
+    CodecOutput output = new CodecOutput(64);
+    encode(type, value, output);
+    return output.toByteArray();
+  }
+
+  @Override
+  public byte[] encode(Class<?>[] types, Object[] values) {
+    CodecOutput output = new CodecOutput(64);
+    encode(types, values, output);
+    return output.toByteArray();
+  }
+
+  @Override
+  public void encode(Class<?> type, Object value, CodecOutput output) {
+    writeValue(new BinaryWriter(this, output), value);
+  }
+
+  @Override
+  public void encode(Class<?>[] types, Object[] values, CodecOutput output) {
+    if (values == null) {
+      values = new Object[0];
+    }
+    if (types.length != values.length) {
+      throw new IllegalArgumentException();
+    }
+    BinaryWriter writer = new BinaryWriter(this, output);
+    for (Object value : values) {
+      writeValue(writer, value);
+    }
+  }
+
+  @Override
+  public <T> T decode(Class<T> type, byte[] buffer) {
+    return decode(type, buffer, 0, buffer.length);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T decode(Class<T> type, byte[] buffer, int offset, int len) {
+    if (len == 0 || buffer.length == 0) {
+      return null;
+    }
+    Object value = readValue(new BinaryReader(this, buffer, offset, len));
+    return type.isPrimitive() ? (T) value : type.cast(value);
+  }
+
+  @Override
+  public Object[] decode(Class<?>[] types, byte[] buffer) {
+    return decode(types, buffer, 0, buffer.length);
+  }
+
+  @Override
+  public Object[] decode(Class<?>[] types, byte[] buffer, int offset, int len) {
+    BinaryReader reader = new BinaryReader(this, buffer, offset, len);
+    Object[] values = new Object[types.length];
+    for (int i = 0; i < values.length; i++) {
+      Object value = readValue(reader);
+      values[i] = types[i].isPrimitive() ? value : types[i].cast(value);
+    }
+    return values;
+  }
+
+  @SuppressWarnings("unchecked")
+  void writeValue(BinaryWriter writer, Object value) {
+    if (value == null) {
+      writer.writeByte(NULL);
+      return;
+    }
+    byte tag = BUILTIN_TAGS.get(value.getClass());
+    switch (tag) {
+      case TRUE: // any Boolean
+        writer.writeByte((Boolean) value ? TRUE : FALSE);
+        return;
+      case BYTE:
+        writer.writeByte(BYTE);
+        writer.writeByte((Byte) value);
+        return;
+      case SHORT:
+        writer.writeByte(SHORT);
+        writer.writeShort((Short) value);
+        return;
+      case CHAR:
+        writer.writeByte(CHAR);
+        writer.writeChar((Character) value);
+        return;
+      case INT:
+        writer.writeByte(INT);
+        writer.writeInt((Integer) value);
+        return;
+      case LONG:
+        writer.writeByte(LONG);
+        writer.writeLong((Long) value);
+        return;
+      case FLOAT:
+        writer.writeByte(FLOAT);
+        writer.writeFloat((Float) value);
+        return;
+      case DOUBLE:
+        writer.writeByte(DOUBLE);
+        writer.writeDouble((Double) value);
+        return;
+      case STRING:
+        writer.writeByte(STRING);
+        writer.writeString((String) value);
+        return;
+      case BYTES:
+        writer.writeByte(BYTES);
+        writer.writeBytes((byte[]) value);
+        return;
+      default:
+        break;
+    }
+
+    Integer index = registrationIndexes.get(value.getClass());
+    if (index != null) {
+      writer.writeByte(REGISTERED);
+      writer.writeLength(index);
+      ((TypeCodec<Object>) registrations.get(index)).encode(writer, value);
+      return;
+    }
+
+    switch (tag) {
+      case LIST:
+      case SET:
+        Collection<?> collection = (Collection<?>) value;
+        writer.writeByte(tag);
+        writer.writeLength(collection.size());
+        for (Object element : collection) {
+          writeValue(writer, element);
+        }
+        return;
+      case MAP:
+        Map<?, ?> map = (Map<?, ?>) value;
+        writer.writeByte(MAP);
+        writer.writeLength(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          writeValue(writer, entry.getKey());
+          writeValue(writer, entry.getValue());
+        }
+        return;
+      default:
+        writer.writeByte(SERIALIZED);
+        writer.writeLengthPrefixed(output -> fallback.encode(Object.class, value, output));
+    }
+  }
+
+  Object readValue(BinaryReader reader) {
+    byte tag = reader.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case BYTE:
+        return reader.readByte();
+      case SHORT:
+        return reader.readShort();
+      case CHAR:
+        return reader.readChar();
+      case INT:
+        return reader.readInt();
+      case LONG:
+        return reader.readLong();
+      case FLOAT:
+        return reader.readFloat();
+      case DOUBLE:
+        return reader.readDouble();
+      case STRING:
+        return reader.readString();
+      case BYTES:
+        return reader.readBytes();
+      case LIST: {
+        int size = reader.readLength();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(reader));
+        }
+        return list;
+      }
+      case SET: {
+        int size = reader.readLength();
+        Set<Object> set = new LinkedHashSet<>(capacity(size));
+        for (int i = 0; i < size; i++) {
+          set.add(readValue(reader));
+        }
+        return set;
+      }
+      case MAP: {
+        int size = reader.readLength();
+        Map<Object, Object> map = new LinkedHashMap<>(capacity(size));
+        for (int i = 0; i < size; i++) {
+          map.put(readValue(reader), readValue(reader));
+        }
+        return map;
+      }
+      case REGISTERED: {
+        int index = reader.readLength();
+        if (index >= registrations.size()) {
+          throw new IllegalArgumentException("No type registered at index " + index);
+        }
+        return registrations.get(index).decode(reader);
+      }
+      case SERIALIZED: {
+        int length = reader.readLength();
+        return fallback.decode(Object.class, reader.buffer(), reader.skip(length), length);
+      }
+      default:
+        throw new IllegalArgumentException("Unknown value tag: " + tag);
+    }
+  }
+
+  private static int capacity(int size) {
+    return size < 3 ? size + 1 : (int) (size / 0.75f) + 1;
+  }
+
+  private static byte builtinTag(Class<?> type) {
+    if (type == Boolean.class) {
+      return TRUE;
+    } else if (type == Byte.class) {
+      return BYTE;
+    } else if (type == Short.class) {
+      return SHORT;
+    } else if (type == Character.class) {
+      return CHAR;
+    } else if (type == Integer.class) {
+      return INT;
+    } else if (type == Long.class) {
+      return LONG;
+    } else if (type == Float.class) {
+      return FLOAT;
+    } else if (type == Double.class) {
+      return DOUBLE;
+    } else if (type == String.class) {
+      return STRING;
+    } else if (type == byte[].class) {
+      return BYTES;
+    } else if (type == ArrayList.class || (List.class.isAssignableFrom(type) && isJdkWrapper(type))) {
+      return LIST;
+    } else if (type == HashSet.class || type == LinkedHashSet.class
+        || (Set.class.isAssignableFrom(type) && !SortedSet.class.isAssignableFrom(type) && isJdkWrapper(type))) {
+      return SET;
+    } else if (type == HashMap.class || type == LinkedHashMap.class
+        || (Map.class.isAssignableFrom(type) && !SortedMap.class.isAssignableFrom(type) && isJdkWrapper(type))) {
+      return MAP;
+    } else {
+      return SERIALIZED;
+    }
+  }
+
+  /**
+   * The unmodifiable, singleton, empty and array-backed collections of the JDK, which can only be declared through
+   * their interface and can therefore be decoded as any other implementation of it.
+   */
+  private static boolean isJdkWrapper(Class<?> type) {
+    Class<?> enclosingClass = type.getEnclosingClass();
+    return enclosingClass == Collections.class || enclosingClass == Arrays.class
+        || type.getName().startsWith("java.util.ImmutableCollections$");
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads back, from a byte array slice, what a {@link BinaryWriter} wrote.
+ */
+public final class BinaryReader {
+
+  private final BinaryCodec codec;
+  private final byte[] buffer;
+  private final int limit;
+  private int position;
+
+  BinaryReader(BinaryCodec codec, byte[] buffer, int offset, int len) {
+    this.codec = codec;
+    this.buffer = buffer;
+    this.position = offset;
+    this.limit = offset + len;
+  }
+
+  public boolean readBoolean() {
+    return readByte() != 0;
+  }
+
+  public byte readByte() {
+    checkRemaining(1);
+    return buffer[position++];
+  }
+
+  public short readShort() {
+    checkRemaining(2);
+    return (short) (((buffer[position++] & 0xFF) << 8) | (buffer[position++] & 0xFF));
+  }
+
+  public char readChar() {
+    return (char) readShort();
+  }
+
+  public int readInt() {
+    int zigZag = readUnsignedVarInt();
+    return (zigZag >>> 1) ^ -(zigZag & 1);
+  }
+
+  public long readLong() {
+    long zigZag = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = readByte();
+      zigZag |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+      }
+    }
+    throw new IllegalArgumentException("Malformed long at position " + position);
+  }
+
+  public float readFloat() {
+    return Float.intBitsToFloat(readFixedInt());
+  }
+
+  public double readDouble() {
+    long high = readFixedInt();
+    long low = readFixedInt() & 0xFFFFFFFFL;
+    return Double.longBitsToDouble((high << 32) | low);
+  }
+
+  public String readString() {
+    int length = readLength();
+    checkRemaining(length);
+    String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+    position += length;
+    return value;
+  }
+
+  public byte[] readBytes() {
+    int length = readLength();
+    checkRemaining(length);
+    byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+    position += length;
+    return value;
+  }
+
+  public Object readValue() {
+    return codec.readValue(this);
+  }
+
+  int readLength() {
+    int length = readUnsignedVarInt();
+    if (length < 0) {
+      throw new IllegalArgumentException("Negative length at position " + position);
+    }
+    return length;
+  }
+
+  byte[] buffer() {
+    return buffer;
+  }
+
+  /**
+   * Skips {@code length} bytes and returns the position they start at.
+   */
+  int skip(int length) {
+    checkRemaining(length);
+    int start = position;
+    position += length;
+    return start;
+  }
+
+  private int readUnsignedVarInt() {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = readByte();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed int at position " + position);
+  }
+
+  private int readFixedInt() {
+    checkRemaining(4);
+    return ((buffer[position++] & 0xFF) << 24)
+        | ((buffer[position++] & 0xFF) << 16)
+        | ((buffer[position++] & 0xFF) << 8)
+        | (buffer[position++] & 0xFF);
+  }
+
+  private void checkRemaining(int length) {
+    if (limit - position < length) {
+      throw new IllegalArgumentException("Truncated buffer: " + length + " bytes needed at position " + position + ", limit is " + limit);
+    }
+  }
+}
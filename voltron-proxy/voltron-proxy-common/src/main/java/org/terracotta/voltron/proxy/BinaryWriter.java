@@ -0,0 +1,160 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writer the {@link BinaryCodec} and the {@link TypeCodec}s registered in it write values with, to a
+ * {@link CodecOutput}.
+ * <p>
+ * {@code int} and {@code long} values are written as zig-zag VLQs, so small values take a single byte. Other
+ * primitives are written in big endian order.
+ */
+public final class BinaryWriter {
+
+  private static final int RESERVED_LENGTH_SIZE = 5;
+
+  private final BinaryCodec codec;
+  private final CodecOutput output;
+
+  BinaryWriter(BinaryCodec codec, CodecOutput output) {
+    this.codec = codec;
+    this.output = output;
+  }
+
+  public void writeBoolean(boolean value) {
+    writeByte(value ? 1 : 0);
+  }
+
+  public void writeByte(int value) {
+    output.writeByte(value);
+  }
+
+  public void writeShort(int value) {
+    output.ensureCapacity(2);
+    byte[] buffer = output.buffer;
+    buffer[output.position++] = (byte) (value >>> 8);
+    buffer[output.position++] = (byte) value;
+  }
+
+  public void writeChar(int value) {
+    writeShort(value);
+  }
+
+  public void writeInt(int value) {
+    writeUnsignedVarInt((value << 1) ^ (value >> 31));
+  }
+
+  public void writeLong(long value) {
+    long zigZag = (value << 1) ^ (value >> 63);
+    output.ensureCapacity(10);
+    byte[] buffer = output.buffer;
+    int position = output.position;
+    while ((zigZag & ~0x7FL) != 0) {
+      buffer[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+      zigZag >>>= 7;
+    }
+    buffer[position++] = (byte) zigZag;
+    output.position = position;
+  }
+
+  public void writeFloat(float value) {
+    writeFixedInt(Float.floatToIntBits(value));
+  }
+
+  public void writeDouble(double value) {
+    long bits = Double.doubleToLongBits(value);
+    writeFixedInt((int) (bits >>> 32));
+    writeFixedInt((int) bits);
+  }
+
+  /**
+   * Writes a non-null string as its UTF-8 length followed by its UTF-8 bytes.
+   */
+  public void writeString(String value) {
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      if (value.charAt(i) >= 0x80) {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+    }
+    writeLength(length);
+    output.ensureCapacity(length);
+    byte[] buffer = output.buffer;
+    int position = output.position;
+    for (int i = 0; i < length; i++) {
+      buffer[position++] = (byte) value.charAt(i);
+    }
+    output.position = position;
+  }
+
+  /**
+   * Writes a non-null byte array as its length followed by its content.
+   */
+  public void writeBytes(byte[] value) {
+    writeLength(value.length);
+    output.write(value);
+  }
+
+  /**
+   * Writes any value the codec supports, including {@code null}, preceded by its type tag.
+   */
+  public void writeValue(Object value) {
+    codec.writeValue(this, value);
+  }
+
+  void writeLength(int length) {
+    writeUnsignedVarInt(length);
+  }
+
+  /**
+   * Writes the content of the given output, preceded by its length. The length is written on a fixed number of bytes,
+   * which {@link BinaryReader#readLength()} reads as any other length, and patched in once the content is written.
+   */
+  void writeLengthPrefixed(Consumer<CodecOutput> content) {
+    output.ensureCapacity(RESERVED_LENGTH_SIZE);
+    int lengthPosition = output.position;
+    output.position += RESERVED_LENGTH_SIZE;
+    content.accept(output);
+    int length = output.position - lengthPosition - RESERVED_LENGTH_SIZE;
+    byte[] buffer = output.buffer;
+    for (int i = 0; i < RESERVED_LENGTH_SIZE - 1; i++) {
+      buffer[lengthPosition + i] = (byte) ((length & 0x7F) | 0x80);
+      length >>>= 7;
+    }
+    buffer[lengthPosition + RESERVED_LENGTH_SIZE - 1] = (byte) length;
+  }
+
+  private void writeUnsignedVarInt(int value) {
+    output.ensureCapacity(5);
+    byte[] buffer = output.buffer;
+    int position = output.position;
+    while ((value & ~0x7F) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+    output.position = position;
+  }
+
+  private void writeFixedInt(int value) {
+    output.writeInt(value);
+  }
+}
@@ -25,6 +25,22 @@ public interface Codec {
 
   byte[] encode(Class<?>[] types, Object[] values);
 
+  /**
+   * Encodes the value at the current position of the output. Defaults to writing the result of
+   * {@link #encode(Class, Object)}, implementations should write to the output directly.
+   */
+  default void encode(Class<?> type, Object value, CodecOutput output) {
+    output.write(encode(type, value));
+  }
+
+  /**
+   * Encodes the values at the current position of the output. Defaults to writing the result of
+   * {@link #encode(Class[], Object[])}, implementations should write to the output directly.
+   */
+  default void encode(Class<?>[] types, Object[] values, CodecOutput output) {
+    output.write(encode(types, values));
+  }
+
   /**
    * Delegates to {@link #decode(Class, byte[], int, int)}
    */
@@ -0,0 +1,138 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable buffer a {@link Codec} encodes values into, after the envelope the {@link ProxyMessageCodec} already wrote
+ * in it, so that the encoded values are copied once, into the array returned by {@link #toByteArray()}.
+ * <p>
+ * The {@link ProxyMessageCodec} reuses one instance per thread, whose buffer is kept as long as it does not grow
+ * beyond {@value #MAX_POOLED_CAPACITY} bytes.
+ */
+public final class CodecOutput {
+
+  private static final int DEFAULT_CAPACITY = 256;
+  private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+  private static final ThreadLocal<CodecOutput> POOL = ThreadLocal.withInitial(CodecOutput::new);
+
+  byte[] buffer;
+  int position;
+  private boolean acquired;
+
+  public CodecOutput() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public CodecOutput(int capacity) {
+    this.buffer = new byte[capacity];
+  }
+
+  /**
+   * @return the output of the current thread, or a new one when it is already in use
+   */
+  static CodecOutput acquire() {
+    CodecOutput output = POOL.get();
+    if (output.acquired) {
+      return new CodecOutput();
+    }
+    output.acquired = true;
+    return output;
+  }
+
+  void release() {
+    position = 0;
+    if (acquired) {
+      acquired = false;
+      if (buffer.length > MAX_POOLED_CAPACITY) {
+        buffer = new byte[DEFAULT_CAPACITY];
+      }
+    }
+  }
+
+  public void writeByte(int value) {
+    ensureCapacity(1);
+    buffer[position++] = (byte) value;
+  }
+
+  /**
+   * Writes a big endian {@code int} on four bytes.
+   */
+  public void writeInt(int value) {
+    ensureCapacity(4);
+    setInt(position, value);
+    position += 4;
+  }
+
+  public void write(byte[] bytes) {
+    write(bytes, 0, bytes.length);
+  }
+
+  public void write(byte[] bytes, int offset, int length) {
+    ensureCapacity(length);
+    System.arraycopy(bytes, offset, buffer, position, length);
+    position += length;
+  }
+
+  /**
+   * @return the number of bytes written so far
+   */
+  public int position() {
+    return position;
+  }
+
+  /**
+   * @return a stream writing to this output, for codecs relying on {@link java.io.ObjectOutputStream} and the like
+   */
+  public OutputStream asOutputStream() {
+    return new OutputStream() {
+      @Override
+      public void write(int b) {
+        writeByte(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        CodecOutput.this.write(b, off, len);
+      }
+    };
+  }
+
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buffer, position);
+  }
+
+  /**
+   * Overwrites the four bytes at the given position, which must have been written already, with a big endian
+   * {@code int}.
+   */
+  void setInt(int at, int value) {
+    buffer[at] = (byte) (value >>> 24);
+    buffer[at + 1] = (byte) (value >>> 16);
+    buffer[at + 2] = (byte) (value >>> 8);
+    buffer[at + 3] = (byte) value;
+  }
+
+  void ensureCapacity(int length) {
+    if (buffer.length - position < length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+    }
+  }
+}
@@ -56,6 +56,18 @@ public class CommonProxyFactory {
     return map;
   }
 
+  /**
+   * Descriptors of the methods of a proxied type, keyed by method, for proxies to look them up on each invocation
+   * instead of creating them.
+   */
+  public static Map<Method, MethodDescriptor> createMethodDescriptors(final Class<?> proxyType) {
+    final HashMap<Method, MethodDescriptor> map = new HashMap<>();
+    for (MethodDescriptor method : getSortedMethods(proxyType)) {
+      map.put(method.getMethod(), method);
+    }
+    return unmodifiableMap(map);
+  }
+
   public static Map<Class<?>, Byte> createResponseTypeMappings(Class<?> proxyType) {
     return createResponseTypeMappings(proxyType, null);
   }
@@ -0,0 +1,47 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Derives the concurrency key of an invocation from the annotated argument instead of using the constant key of
+ * {@link ConcurrencyStrategy}, so that invocations on different arguments can run in parallel.
+ * <p>
+ * The argument is hashed with the {@link #hasher()} and mapped to one of {@link #buckets()} keys, from
+ * {@link #firstKey()} to {@code firstKey() + buckets() - 1}. These keys are also the ones synchronized to passives.
+ * <p>
+ * A method can have at most one {@code @ConcurrencyKey} parameter, and cannot be annotated with
+ * {@link ConcurrencyStrategy} as well.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface ConcurrencyKey {
+
+  int buckets() default 16;
+
+  /**
+   * Must be positive: {@link ConcurrencyStrategy#MANAGEMENT_KEY} cannot be used to synchronize data.
+   */
+  int firstKey() default 1;
+
+  Class<? extends ConcurrencyKeyHasher> hasher() default ConcurrencyKeyHasher.HashCode.class;
+
+}
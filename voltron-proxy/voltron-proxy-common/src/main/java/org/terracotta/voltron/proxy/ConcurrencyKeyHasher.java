@@ -0,0 +1,65 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+/**
+ * Hashes the {@link ConcurrencyKey} argument of an invocation. Implementations need a public no-arg constructor and
+ * must return the same hash for equal arguments on every server.
+ */
+public interface ConcurrencyKeyHasher {
+
+  int hash(Object argument);
+
+  /**
+   * Checked when the method is described, so that a parameter whose hash could differ between servers is rejected
+   * before any invocation is keyed with it.
+   *
+   * @return whether arguments of the given parameter type can be hashed
+   */
+  default boolean supports(Class<?> parameterType) {
+    return true;
+  }
+
+  /**
+   * Uses the {@link Object#hashCode()} of the types that specify it: strings and primitive wrappers. Enums are hashed
+   * by {@link Enum#name()} since their own hash code is an identity hash. {@code null} hashes to {@code 0}.
+   */
+  final class HashCode implements ConcurrencyKeyHasher {
+    @Override
+    public int hash(Object argument) {
+      if (argument == null) {
+        return 0;
+      }
+      return argument instanceof Enum<?> ? ((Enum<?>) argument).name().hashCode() : argument.hashCode();
+    }
+
+    @Override
+    public boolean supports(Class<?> parameterType) {
+      return parameterType.isPrimitive()
+          || parameterType == String.class
+          || parameterType == Boolean.class
+          || parameterType == Character.class
+          || parameterType == Byte.class
+          || parameterType == Short.class
+          || parameterType == Integer.class
+          || parameterType == Long.class
+          || parameterType == Float.class
+          || parameterType == Double.class
+          || Enum.class.isAssignableFrom(parameterType);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link MethodStatistics} of the methods of a proxied type, recorded by the codec, the client proxies and the
+ * server invokers it is given to. Nothing is recorded, nor allocated, when no instance is given to them.
+ */
+public final class InvocationStatistics {
+
+  private final Map<MethodDescriptor, MethodStatistics> methods = new ConcurrentHashMap<>();
+
+  public MethodStatistics of(MethodDescriptor method) {
+    MethodStatistics statistics = methods.get(method);
+    return statistics != null ? statistics : methods.computeIfAbsent(method, m -> new MethodStatistics(nameOf(m.getMethod())));
+  }
+
+  public Map<MethodDescriptor, MethodStatistics> getMethodStatistics() {
+    return Collections.unmodifiableMap(methods);
+  }
+
+  private static String nameOf(Method method) {
+    StringJoiner name = new StringJoiner(",", method.getName() + "(", ")");
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      name.add(parameterType.getSimpleName());
+    }
+    return name.toString();
+  }
+}
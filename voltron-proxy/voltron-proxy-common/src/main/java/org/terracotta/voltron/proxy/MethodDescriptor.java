@@ -17,30 +17,63 @@
 package org.terracotta.voltron.proxy;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 /**
+ * Everything the proxies need to know about a proxied method, computed once: its annotations, the positions of its
+ * {@link ClientId} parameters and a {@link MethodHandle} to invoke it without reflection.
+ *
  * @author Mathieu Carbou
  */
 public final class MethodDescriptor {
 
+  private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+  private static final MethodHandle WRAP_TARGET_EXCEPTION;
+
+  static {
+    try {
+      WRAP_TARGET_EXCEPTION = MethodHandles.publicLookup().findConstructor(InvocationTargetException.class, MethodType.methodType(void.class, Throwable.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   private final boolean async;
+  private final boolean completable;
   private final Class<?> messageType;
   private final Method method;
   private final ExecutionStrategy.Location location;
   private final int concurrencyKey;
-  
+  private final Class<?>[] parameterTypes;
+  private final int[] clientIdParameters;
+  private final MethodHandle invoker;
+  private final ArgumentConcurrencyKey argumentConcurrencyKey;
+
   private MethodDescriptor(Method method) {
     this.method = method;
+    this.parameterTypes = method.getParameterTypes();
+    this.clientIdParameters = findClientIdParameters(method);
+    this.invoker = createInvoker(method);
 
     // @Async
     async = method.getAnnotation(Async.class) != null;
@@ -49,6 +82,9 @@ public final class MethodDescriptor {
       if (method.getReturnType() != Future.class) {
         throw new IllegalStateException("@Async requires a Future as a return type on method: " + method);
       }
+    }
+    completable = method.getReturnType() == CompletionStage.class || method.getReturnType() == CompletableFuture.class;
+    if (async || completable) {
       Type returnType = method.getGenericReturnType();
       messageType = returnType instanceof Class<?> ?
           Object.class : // this is the case where a Future is returned with no given generic type
@@ -64,12 +100,35 @@ public final class MethodDescriptor {
     // @ConcurrencyStrategy
     ConcurrencyStrategy concurrencyStrategy = method.getAnnotation(ConcurrencyStrategy.class);
     concurrencyKey = concurrencyStrategy == null ? ConcurrencyStrategy.MANAGEMENT_KEY : concurrencyStrategy.key();
+
+    // @ConcurrencyKey
+    argumentConcurrencyKey = ArgumentConcurrencyKey.find(method);
+    if (argumentConcurrencyKey != null && concurrencyStrategy != null) {
+      throw new IllegalStateException("@ConcurrencyKey cannot be combined with @ConcurrencyStrategy on method: " + method);
+    }
   }
 
+  /**
+   * @return the concurrency key set with {@link ConcurrencyStrategy}, regardless of any {@link ConcurrencyKey} parameter
+   */
   public int getConcurrencyKey() {
     return concurrencyKey;
   }
 
+  /**
+   * @return the concurrency key of an invocation of this method with the given arguments
+   */
+  public int getConcurrencyKey(Object[] args) {
+    return argumentConcurrencyKey == null ? concurrencyKey : argumentConcurrencyKey.keyOf(args);
+  }
+
+  /**
+   * @return the keys a {@link ConcurrencyKey} parameter maps invocations to, or an empty set
+   */
+  public Set<Integer> getConcurrencyKeys() {
+    return argumentConcurrencyKey == null ? Collections.emptySet() : argumentConcurrencyKey.keys();
+  }
+
   public ExecutionStrategy.Location getExecutionLocation() {
     return location;
   }
@@ -78,6 +137,14 @@ public final class MethodDescriptor {
     return async;
   }
 
+  /**
+   * @return whether the method returns a {@link CompletionStage} or a {@link CompletableFuture}, which the client
+   * proxies complete when the response arrives instead of waiting for it
+   */
+  public boolean isCompletable() {
+    return completable;
+  }
+
   public Class<?> getMessageType() {
     return messageType;
   }
@@ -117,10 +184,26 @@ public final class MethodDescriptor {
   }
 
   public Object invoke(Object target, Object... args) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-    Object ret = method.invoke(target, args);
-    if (async) {
+    Object ret;
+    if (invoker == null) {
+      ret = method.invoke(target, args);
+    } else {
       try {
-        ret = ((Future<?>) ret).get();
+        ret = invoker.invokeExact(target, args);
+      } catch (InvocationTargetException e) {
+        throw e;
+      } catch (ClassCastException | NullPointerException | WrongMethodTypeException e) {
+        // the arguments could not be adapted to the parameter types, which Method.invoke reports the same way
+        throw new IllegalArgumentException("argument type mismatch", e);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new AssertionError(t);
+      }
+    }
+    if (async || (completable && ret != null)) {
+      try {
+        ret = completable ? ((CompletionStage<?>) ret).toCompletableFuture().get() : ((Future<?>) ret).get();
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
         throw new InvocationTargetException(e);
@@ -135,6 +218,126 @@ public final class MethodDescriptor {
     return method;
   }
 
+  /**
+   * Same as {@link #getParameterTypes()}, without the defensive copy.
+   */
+  Class<?>[] parameterTypes() {
+    return parameterTypes;
+  }
+
+  /**
+   * Sets all the {@link ClientId} annotated arguments to {@code clientId}.
+   */
+  void setClientIds(Object[] args, Object clientId) {
+    for (int clientIdParameter : clientIdParameters) {
+      args[clientIdParameter] = clientId;
+    }
+  }
+
+  private static int[] findClientIdParameters(Method method) {
+    Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+    int[] clientIdParameters = new int[parameterAnnotations.length];
+    int count = 0;
+    for (int i = 0; i < parameterAnnotations.length; i++) {
+      for (Annotation annotation : parameterAnnotations[i]) {
+        if (annotation.annotationType() == ClientId.class) {
+          clientIdParameters[count++] = i;
+          break;
+        }
+      }
+    }
+    return Arrays.copyOf(clientIdParameters, count);
+  }
+
+  /**
+   * Adapts the method to a {@code (Object target, Object[] args) -> Object} handle, or returns {@code null} when its
+   * declaring type is not public, in which case the method is invoked reflectively.
+   * <p>
+   * Like {@link Method#invoke}, the handle throws whatever the method throws wrapped in an
+   * {@link InvocationTargetException}, so that it can be told apart from failures to adapt the arguments.
+   */
+  private static MethodHandle createInvoker(Method method) {
+    try {
+      MethodHandle handle = MethodHandles.publicLookup().unreflect(method).asFixedArity();
+      MethodHandle wrap = MethodHandles.filterArguments(MethodHandles.throwException(handle.type().returnType(), InvocationTargetException.class), 0, WRAP_TARGET_EXCEPTION);
+      handle = MethodHandles.catchException(handle, Throwable.class, MethodHandles.dropArguments(wrap, 1, handle.type().parameterList()));
+      if (Modifier.isStatic(method.getModifiers())) {
+        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+      }
+      return handle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE);
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  private static final class ArgumentConcurrencyKey {
+
+    private final int parameter;
+    private final int buckets;
+    private final int firstKey;
+    private final ConcurrencyKeyHasher hasher;
+
+    private ArgumentConcurrencyKey(int parameter, ConcurrencyKey annotation, Method method) {
+      if (annotation.buckets() < 1) {
+        throw new IllegalStateException("@ConcurrencyKey requires at least one bucket on method: " + method);
+      }
+      if (annotation.firstKey() <= ConcurrencyStrategy.MANAGEMENT_KEY || annotation.firstKey() + (annotation.buckets() - 1) < annotation.firstKey()) {
+        throw new IllegalStateException("@ConcurrencyKey keys must be positive on method: " + method);
+      }
+      this.parameter = parameter;
+      this.buckets = annotation.buckets();
+      this.firstKey = annotation.firstKey();
+      try {
+        this.hasher = annotation.hasher().getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Unable to create the @ConcurrencyKey hasher of method: " + method, e);
+      }
+      if (!hasher.supports(method.getParameterTypes()[parameter])) {
+        throw new IllegalStateException("@ConcurrencyKey hasher " + annotation.hasher().getName() + " cannot hash a " + method.getParameterTypes()[parameter].getName() + " on method: " + method);
+      }
+    }
+
+    int keyOf(Object[] args) {
+      int hash = hasher.hash(args[parameter]);
+      return firstKey + Math.floorMod(hash ^ (hash >>> 16), buckets);
+    }
+
+    Set<Integer> keys() {
+      Set<Integer> keys = new TreeSet<>();
+      for (int i = 0; i < buckets; i++) {
+        keys.add(firstKey + i);
+      }
+      return Collections.unmodifiableSet(keys);
+    }
+
+    static ArgumentConcurrencyKey find(Method method) {
+      ArgumentConcurrencyKey found = null;
+      Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+      for (int i = 0; i < parameterAnnotations.length; i++) {
+        for (Annotation annotation : parameterAnnotations[i]) {
+          if (annotation.annotationType() == ConcurrencyKey.class) {
+            if (found != null) {
+              throw new IllegalStateException("Only one @ConcurrencyKey parameter is allowed on method: " + method);
+            }
+            found = new ArgumentConcurrencyKey(i, (ConcurrencyKey) annotation, method);
+          } else if (annotation.annotationType() == ClientId.class && hasAnnotation(parameterAnnotations[i], ConcurrencyKey.class)) {
+            throw new IllegalStateException("A @ClientId parameter cannot be a @ConcurrencyKey on method: " + method);
+          }
+        }
+      }
+      return found;
+    }
+
+    private static boolean hasAnnotation(Annotation[] annotations, Class<? extends Annotation> type) {
+      for (Annotation annotation : annotations) {
+        if (annotation.annotationType() == type) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
   private static Class<?> determineRawType(Type type) {
     if (type instanceof Class<?>) {
       return (Class<?>) type;
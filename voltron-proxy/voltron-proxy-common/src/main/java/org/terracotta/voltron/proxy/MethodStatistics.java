@@ -0,0 +1,98 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call, error and encoded size counters, and a latency histogram, of a proxied method. Recording is lock-free.
+ */
+public final class MethodStatistics {
+
+  private final String name;
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder requestBytes = new LongAdder();
+  private final LongAdder responses = new LongAdder();
+  private final LongAdder responseBytes = new LongAdder();
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  MethodStatistics(String name) {
+    this.name = name;
+  }
+
+  public void recordCall(long nanos, boolean error) {
+    calls.increment();
+    if (error) {
+      errors.increment();
+    }
+    latency.record(nanos);
+  }
+
+  public void recordRequestSize(int bytes) {
+    requests.increment();
+    requestBytes.add(bytes);
+  }
+
+  public void recordResponseSize(int bytes) {
+    responses.increment();
+    responseBytes.add(bytes);
+  }
+
+  /**
+   * @return the method name and parameter types, as in {@code put(String,Object)}
+   */
+  public String getName() {
+    return name;
+  }
+
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  public long getRequestBytes() {
+    return requestBytes.sum();
+  }
+
+  public long getAverageRequestSize() {
+    long count = requests.sum();
+    return count == 0 ? 0 : requestBytes.sum() / count;
+  }
+
+  public long getResponseBytes() {
+    return responseBytes.sum();
+  }
+
+  public long getAverageResponseSize() {
+    long count = responses.sum();
+    return count == 0 ? 0 : responseBytes.sum() / count;
+  }
+
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+
+  @Override
+  public String toString() {
+    return name + ": calls=" + getCalls() + ", errors=" + getErrors();
+  }
+}
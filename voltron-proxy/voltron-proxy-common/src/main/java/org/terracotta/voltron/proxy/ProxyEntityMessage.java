@@ -19,8 +19,9 @@ package org.terracotta.voltron.proxy;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.terracotta.entity.EntityMessage;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @author Alex Snaps
@@ -31,12 +32,64 @@ public class ProxyEntityMessage implements EntityMessage {
   private final Object[] args;
 
   private final MessageType type;
+  private final List<ProxyEntityMessage> batch;
+  private final SyncChunk chunk;
 
   @SuppressFBWarnings("EI_EXPOSE_REP")
   public ProxyEntityMessage(final MethodDescriptor method, final Object[] args, MessageType type) {
     this.method = method;
     this.args = args;
     this.type = type;
+    this.batch = null;
+    this.chunk = null;
+  }
+
+  private ProxyEntityMessage(List<ProxyEntityMessage> batch) {
+    this.method = null;
+    this.args = null;
+    this.type = MessageType.BATCH;
+    this.batch = Collections.unmodifiableList(batch);
+    this.chunk = null;
+  }
+
+  private ProxyEntityMessage(SyncChunk chunk) {
+    this.method = null;
+    this.args = null;
+    this.type = MessageType.SYNC_CHUNK;
+    this.batch = null;
+    this.chunk = chunk;
+  }
+
+  /**
+   * Creates a message carrying several invocations, to be executed in order. They must all share the same
+   * concurrency key and execution location, which become the ones of the batch.
+   */
+  public static ProxyEntityMessage batch(List<ProxyEntityMessage> messages) {
+    if (messages.isEmpty()) {
+      throw new IllegalArgumentException("Empty batch");
+    }
+    return new ProxyEntityMessage(messages);
+  }
+
+  /**
+   * Creates a passive synchronization message carrying a part of the state of a concurrency key.
+   */
+  public static ProxyEntityMessage syncChunk(SyncChunk chunk) {
+    return new ProxyEntityMessage(chunk);
+  }
+
+  /**
+   * @return the state of a {@link MessageType#SYNC_CHUNK} message
+   */
+  public SyncChunk getSyncChunk() {
+    return chunk;
+  }
+
+  /**
+   * @return the invocations of a {@link MessageType#BATCH} message
+   */
+  public List<ProxyEntityMessage> getBatch() {
+    return batch;
   }
 
   public MethodDescriptor getMethod() {
@@ -50,15 +103,7 @@ public class ProxyEntityMessage implements EntityMessage {
 
   public Object invoke(final Object target, final Object clientDescriptor) throws InvocationTargetException, IllegalAccessException {
     if (clientDescriptor != null) {
-      final Annotation[][] allAnnotations = method.getParameterAnnotations();
-      for (int i = 0; i < allAnnotations.length; i++) {
-        for (Annotation parameterAnnotation : allAnnotations[i]) {
-          if (parameterAnnotation.annotationType() == ClientId.class) {
-            args[i] = clientDescriptor;
-            break;
-          }
-        }
-      }
+      method.setClientIds(args, clientDescriptor);
     }
 
     return method.invoke(target, args);
@@ -73,11 +118,17 @@ public class ProxyEntityMessage implements EntityMessage {
   }
 
   public int getConcurrencyKey() {
-    return method.getConcurrencyKey();
+    if (chunk != null) {
+      return chunk.getConcurrencyKey();
+    }
+    return batch == null ? method.getConcurrencyKey(args) : batch.get(0).getConcurrencyKey();
   }
 
   public ExecutionStrategy.Location getExecutionLocation() {
-    return method.getExecutionLocation();
+    if (chunk != null) {
+      return ExecutionStrategy.Location.PASSIVE;
+    }
+    return batch == null ? method.getExecutionLocation() : batch.get(0).getExecutionLocation();
   }
 
   public MessageType getType() {
@@ -20,6 +20,9 @@ import com.tc.classloader.CommonComponent;
 import org.terracotta.entity.EntityResponse;
 import org.terracotta.entity.EntityUserException;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author cdennis
  */
@@ -46,10 +49,23 @@ public final class ProxyEntityResponse implements EntityResponse {
     return response(MessageType.ERROR, EntityUserException.class, error);
   }
 
+  /**
+   * The responses to the invocations of a {@link MessageType#BATCH} message, in the same order.
+   */
+  public static ProxyEntityResponse batchResponse(List<ProxyEntityResponse> responses) {
+    return response(MessageType.BATCH, List.class, Collections.unmodifiableList(responses));
+  }
+
   private final MessageType messageType;
   private final Class<?> responseType;
   private final Object response;
 
+  // an event fired to many clients is sent as the same response, encoded by the first of them
+  private volatile Encoded encoded;
+
+  private volatile int encodedSize = -1;
+  private volatile MethodStatistics sizeStatistics;
+
   private ProxyEntityResponse(MessageType messageType, Class<?> responseType, Object response) {
     this.messageType = messageType;
     this.responseType = responseType;
@@ -67,4 +83,52 @@ public final class ProxyEntityResponse implements EntityResponse {
   public Object getResponse() {
     return response;
   }
+
+  @SuppressWarnings("unchecked")
+  public List<ProxyEntityResponse> getBatch() {
+    return messageType == MessageType.BATCH ? (List<ProxyEntityResponse>) response : null;
+  }
+
+  /**
+   * @return the size of this response on the wire, once encoded or when decoded, or {@code -1} before that
+   */
+  public int getEncodedSize() {
+    return encodedSize;
+  }
+
+  /**
+   * Records the size of this response into the given statistics when it gets encoded.
+   */
+  public ProxyEntityResponse recordEncodedSizeTo(MethodStatistics statistics) {
+    this.sizeStatistics = statistics;
+    return this;
+  }
+
+  void setEncodedSize(int size) {
+    encodedSize = size;
+    MethodStatistics statistics = sizeStatistics;
+    if (statistics != null) {
+      statistics.recordResponseSize(size);
+    }
+  }
+
+  byte[] getEncoded(Object codec) {
+    Encoded e = encoded;
+    return e != null && e.codec == codec ? e.bytes : null;
+  }
+
+  void setEncoded(Object codec, byte[] bytes) {
+    encoded = new Encoded(codec, bytes);
+  }
+
+  private static final class Encoded {
+
+    private final Object codec;
+    private final byte[] bytes;
+
+    Encoded(Object codec, byte[] bytes) {
+      this.codec = codec;
+      this.bytes = bytes;
+    }
+  }
 }
@@ -20,10 +20,9 @@ import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.MessageCodec;
 import org.terracotta.entity.MessageCodecException;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,12 +30,16 @@ import java.util.Map;
  */
 public class ProxyMessageCodec implements MessageCodec<ProxyEntityMessage, ProxyEntityResponse> {
 
-  private final EnumMap<MessageType, Map<Byte, MethodDescriptor>> methodMappings = new EnumMap<>(MessageType.class);
+  private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+
+  // methods and response types are looked up by their byte identifier, used as an unsigned index
+  private final EnumMap<MessageType, MethodDescriptor[]> methodMappings = new EnumMap<>(MessageType.class);
   private final EnumMap<MessageType, Map<MethodDescriptor, Byte>> reverseMethodMappings = new EnumMap<>(MessageType.class);
   private final EnumMap<MessageType, Map<Class<?>, Byte>> responseMappings = new EnumMap<>(MessageType.class);
-  private final EnumMap<MessageType, Map<Byte, Class<?>>> reverseResponseMappings = new EnumMap<>(MessageType.class);
+  private final EnumMap<MessageType, Class<?>[]> reverseResponseMappings = new EnumMap<>(MessageType.class);
 
   private Codec codec = new SerializationCodec();
+  private volatile InvocationStatistics statistics;
 
   public ProxyMessageCodec(Class<?> proxyType) {
     this(proxyType, new Class<?>[0], null, null);
@@ -48,26 +51,29 @@ public class ProxyMessageCodec implements MessageCodec<ProxyEntityMessage, Proxy
 
   public ProxyMessageCodec(Class<?> proxyType, Class<?>[] eventTypes, Class<?> messengerType, Class<?> synchronizerType) {
     // type == message
-    this.methodMappings.put(MessageType.MESSAGE, CommonProxyFactory.createMethodMappings(proxyType));
-    this.reverseMethodMappings.put(MessageType.MESSAGE, CommonProxyFactory.invert(methodMappings.get(MessageType.MESSAGE)));
-    this.responseMappings.put(MessageType.MESSAGE, CommonProxyFactory.createResponseTypeMappings(proxyType, eventTypes));
-    this.reverseResponseMappings.put(MessageType.MESSAGE, CommonProxyFactory.invert(responseMappings.get(MessageType.MESSAGE)));
+    addMappings(MessageType.MESSAGE, CommonProxyFactory.createMethodMappings(proxyType), CommonProxyFactory.createResponseTypeMappings(proxyType, eventTypes));
     // type == sync
     if (synchronizerType != null) {
-      this.methodMappings.put(MessageType.SYNC, CommonProxyFactory.createMethodMappings(synchronizerType));
-      this.reverseMethodMappings.put(MessageType.SYNC, CommonProxyFactory.invert(methodMappings.get(MessageType.SYNC)));
-      this.responseMappings.put(MessageType.SYNC, CommonProxyFactory.createResponseTypeMappings(synchronizerType));
-      this.reverseResponseMappings.put(MessageType.SYNC, CommonProxyFactory.invert(responseMappings.get(MessageType.SYNC)));
+      addMappings(MessageType.SYNC, CommonProxyFactory.createMethodMappings(synchronizerType), CommonProxyFactory.createResponseTypeMappings(synchronizerType));
     }
     // type == messenger
     if (messengerType != null) {
-      this.methodMappings.put(MessageType.MESSENGER, CommonProxyFactory.createMethodMappings(messengerType));
-      this.reverseMethodMappings.put(MessageType.MESSENGER, CommonProxyFactory.invert(methodMappings.get(MessageType.MESSENGER)));
-      this.responseMappings.put(MessageType.MESSENGER, CommonProxyFactory.createResponseTypeMappings(messengerType));
-      this.reverseResponseMappings.put(MessageType.MESSENGER, CommonProxyFactory.invert(responseMappings.get(MessageType.MESSENGER)));
+      addMappings(MessageType.MESSENGER, CommonProxyFactory.createMethodMappings(messengerType), CommonProxyFactory.createResponseTypeMappings(messengerType));
     }
   }
 
+  private void addMappings(MessageType messageType, Map<Byte, MethodDescriptor> methods, Map<Class<?>, Byte> responseTypes) {
+    MethodDescriptor[] methodTable = new MethodDescriptor[256];
+    methods.forEach((id, method) -> methodTable[id & 0xFF] = method);
+    this.methodMappings.put(messageType, methodTable);
+    this.reverseMethodMappings.put(messageType, CommonProxyFactory.invert(methods));
+
+    Class<?>[] responseTable = new Class<?>[256];
+    responseTypes.forEach((responseType, id) -> responseTable[id & 0xFF] = responseType);
+    this.responseMappings.put(messageType, responseTypes);
+    this.reverseResponseMappings.put(messageType, responseTable);
+  }
+
   public void setCodec(Codec codec) {
     this.codec = codec;
   }
@@ -76,23 +82,61 @@ public class ProxyMessageCodec implements MessageCodec<ProxyEntityMessage, Proxy
     return codec;
   }
 
+  /**
+   * Records the encoded size of the requests into the given statistics, or stops doing so when {@code null}.
+   */
+  public void setStatistics(InvocationStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  public InvocationStatistics getStatistics() {
+    return statistics;
+  }
+
   @Override
   public byte[] encodeResponse(ProxyEntityResponse r) throws MessageCodecException {
     if (r == null) {
       return new byte[0];
     }
-    MessageType messageType = r.getMessageType();
-    ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-    DataOutputStream output = new DataOutputStream(byteOut);
+    byte[] encoded = r.getEncoded(this);
+    if (encoded != null) {
+      return encoded;
+    }
+    CodecOutput output = CodecOutput.acquire();
     try {
-      output.writeByte(messageType.ordinal());
-      output.writeByte(messageType == MessageType.ERROR ? 0 : getMessageTypeIdentifier(r));
-      output.write(codec.encode(r.getResponseType(), r.getResponse()));
-      output.close();
+      writeResponse(r, output);
+      encoded = output.toByteArray();
     } catch (Exception e) {
       throw new MessageCodecException("Error encoding ProxyEntityResponse", e);
+    } finally {
+      output.release();
     }
-    return byteOut.toByteArray();
+    r.setEncoded(this, encoded);
+    return encoded;
+  }
+
+  private void writeResponse(ProxyEntityResponse r, CodecOutput output) {
+    int start = output.position();
+    MessageType messageType = r.getMessageType();
+    output.writeByte(messageType.ordinal());
+    if (messageType == MessageType.BATCH) {
+      // then the length prefixed responses, in order, a null one being empty
+      output.writeByte(0);
+      List<ProxyEntityResponse> responses = r.getBatch();
+      output.writeInt(responses.size());
+      for (ProxyEntityResponse response : responses) {
+        int lengthPosition = output.position();
+        output.writeInt(0);
+        if (response != null) {
+          writeResponse(response, output);
+        }
+        output.setInt(lengthPosition, output.position() - lengthPosition - 4);
+      }
+    } else {
+      output.writeByte(messageType == MessageType.ERROR ? 0 : getMessageTypeIdentifier(r));
+      codec.encode(r.getResponseType(), r.getResponse(), output);
+    }
+    r.setEncodedSize(output.position() - start);
   }
 
   @Override
@@ -101,65 +145,132 @@ public class ProxyMessageCodec implements MessageCodec<ProxyEntityMessage, Proxy
       return null;
     }
     try {
-      MessageType messageType = MessageType.values()[buffer[0]];
-      Class<?> responseType = messageType == MessageType.ERROR ? EntityUserException.class : getResponseType(messageType, buffer[1]);
-      Object o = codec.decode(responseType, buffer, 2, buffer.length - 2);
-      return ProxyEntityResponse.response(messageType, responseType, o);
+      return decodeResponse(buffer, 0, buffer.length);
     } catch (Exception e) {
       throw new MessageCodecException("Error decoding ProxyEntityResponse", e);
     }
   }
 
+  private ProxyEntityResponse decodeResponse(byte[] buffer, int offset, int length) throws Exception {
+    if (length == 0) {
+      return null;
+    }
+    MessageType messageType = MESSAGE_TYPES[buffer[offset]];
+    if (messageType == MessageType.BATCH) {
+      int count = readInt(buffer, offset + 2);
+      List<ProxyEntityResponse> responses = new ArrayList<>(count);
+      int position = offset + 6;
+      for (int i = 0; i < count; i++) {
+        int subLength = readInt(buffer, position);
+        responses.add(decodeResponse(buffer, position + 4, subLength));
+        position += 4 + subLength;
+      }
+      return ProxyEntityResponse.batchResponse(responses);
+    }
+    Class<?> responseType = messageType == MessageType.ERROR ? EntityUserException.class : getResponseType(messageType, buffer[offset + 1]);
+    Object o = codec.decode(responseType, buffer, offset + 2, length - 2);
+    ProxyEntityResponse response = ProxyEntityResponse.response(messageType, responseType, o);
+    response.setEncodedSize(length);
+    return response;
+  }
+
   @Override
   public byte[] encodeMessage(ProxyEntityMessage message) throws MessageCodecException {
+    CodecOutput output = CodecOutput.acquire();
     try {
-      MessageType messageType = message.getType();
-      MethodDescriptor method = message.getMethod();
-      Byte methodIdentifier = getMethodIdentifier(message);
-
-      Object[] args = message.getArguments();
-      final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-      for (int i = 0, parameterAnnotationsLength = parameterAnnotations.length; i < parameterAnnotationsLength; i++) {
-        final Annotation[] parameterAnnotation = parameterAnnotations[i];
-        for (Annotation annotation : parameterAnnotation) {
-          if (annotation.annotationType() == ClientId.class) {
-            args[i] = null;
-          }
-        }
+      writeMessage(message, output);
+      return output.toByteArray();
+    } catch (Exception ex) {
+      throw new MessageCodecException("Error encoding ProxyEntityMessage", ex);
+    } finally {
+      output.release();
+    }
+  }
+
+  private void writeMessage(ProxyEntityMessage message, CodecOutput output) {
+    int start = output.position();
+    MessageType messageType = message.getType();
+    output.writeByte(messageType.ordinal()); // first, message type
+    if (messageType == MessageType.BATCH) {
+      // then the length prefixed invocations, in order
+      output.writeByte(0);
+      List<ProxyEntityMessage> messages = message.getBatch();
+      output.writeInt(messages.size());
+      for (ProxyEntityMessage m : messages) {
+        int lengthPosition = output.position();
+        output.writeInt(0);
+        writeMessage(m, output);
+        output.setInt(lengthPosition, output.position() - lengthPosition - 4);
       }
+      return;
+    }
+    if (messageType == MessageType.SYNC_CHUNK) {
+      output.writeByte(0);
+      message.getSyncChunk().writeTo(output);
+      return;
+    }
+
+    MethodDescriptor method = message.getMethod();
+    Byte methodIdentifier = getMethodIdentifier(message);
 
-      ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-      DataOutputStream output = new DataOutputStream(byteOut);
+    Object[] args = message.getArguments();
+    if (args != null) {
+      method.setClientIds(args, null);
+    }
 
-      output.writeByte(messageType.ordinal()); // first, message type
-      output.writeByte(methodIdentifier); // then method mapping
-      output.write(codec.encode(method.getParameterTypes(), args));
+    output.writeByte(methodIdentifier); // then method mapping
+    codec.encode(method.parameterTypes(), args, output);
 
-      output.close();
-      return byteOut.toByteArray();
-    } catch (Exception ex) {
-      throw new MessageCodecException("Error encoding ProxyEntityMessage", ex);
+    InvocationStatistics statistics = this.statistics;
+    if (statistics != null) {
+      statistics.of(method).recordRequestSize(output.position() - start);
     }
   }
 
   @Override
   public ProxyEntityMessage decodeMessage(final byte[] buffer) throws MessageCodecException {
     try {
-      MessageType messageType = MessageType.values()[buffer[0]];
-      MethodDescriptor method = getMethod(messageType, buffer[1]);
-      return new ProxyEntityMessage(method, codec.decode(method.getParameterTypes(), buffer, 2, buffer.length - 2), messageType);
+      return decodeMessage(buffer, 0, buffer.length);
     } catch (Exception ex) {
       throw new MessageCodecException("Error decoding ProxyEntityMessage", ex);
     }
   }
 
-  private MethodDescriptor getMethod(MessageType messageType, Byte b) {
-    Map<Byte, MethodDescriptor> mapping = methodMappings.get(messageType);
+  private ProxyEntityMessage decodeMessage(byte[] buffer, int offset, int length) throws Exception {
+    MessageType messageType = MESSAGE_TYPES[buffer[offset]];
+    if (messageType == MessageType.BATCH) {
+      int count = readInt(buffer, offset + 2);
+      List<ProxyEntityMessage> messages = new ArrayList<>(count);
+      int position = offset + 6;
+      for (int i = 0; i < count; i++) {
+        int subLength = readInt(buffer, position);
+        messages.add(decodeMessage(buffer, position + 4, subLength));
+        position += 4 + subLength;
+      }
+      return ProxyEntityMessage.batch(messages);
+    }
+    if (messageType == MessageType.SYNC_CHUNK) {
+      return ProxyEntityMessage.syncChunk(new SyncChunk(readInt(buffer, offset + 2), readInt(buffer, offset + 6), buffer, offset + 10, length - 10));
+    }
+    MethodDescriptor method = getMethod(messageType, buffer[offset + 1]);
+    InvocationStatistics statistics = this.statistics;
+    if (statistics != null) {
+      statistics.of(method).recordRequestSize(length);
+    }
+    return new ProxyEntityMessage(method, codec.decode(method.parameterTypes(), buffer, offset + 2, length - 2), messageType);
+  }
+
+  private static int readInt(byte[] buffer, int offset) {
+    return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16) | ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+  }
+
+  private MethodDescriptor getMethod(MessageType messageType, byte b) {
+    MethodDescriptor[] mapping = methodMappings.get(messageType);
     if (mapping == null) {
       throw new AssertionError("No mapping for " + messageType);
     }
 
-    MethodDescriptor method = mapping.get(b);
+    MethodDescriptor method = mapping[b & 0xFF];
     if (method == null) {
       throw new AssertionError("No mapping for method " + b + " for messageType " + messageType);
     }
@@ -167,13 +278,13 @@ public class ProxyMessageCodec implements MessageCodec<ProxyEntityMessage, Proxy
     return method;
   }
 
-  private Class<?> getResponseType(MessageType messageType, Byte b) {
-    Map<Byte, Class<?>> mapping = reverseResponseMappings.get(messageType);
+  private Class<?> getResponseType(MessageType messageType, byte b) {
+    Class<?>[] mapping = reverseResponseMappings.get(messageType);
     if (mapping == null) {
       throw new AssertionError("No mapping for " + messageType);
     }
 
-    Class<?> responseType = mapping.get(b);
+    Class<?> responseType = mapping[b & 0xFF];
     if (responseType == null) {
       throw new AssertionError("No mapping for method " + b + " for messageType " + messageType);
     }
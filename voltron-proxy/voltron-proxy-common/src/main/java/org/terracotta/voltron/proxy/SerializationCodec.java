@@ -26,6 +26,7 @@ import java.io.InvalidClassException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
+import java.io.OutputStream;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -54,6 +55,11 @@ public class SerializationCodec implements Codec {
     return serialize(value);
   }
 
+  @Override
+  public void encode(Class<?> type, Object value, CodecOutput output) {
+    serialize(value, output.asOutputStream());
+  }
+
   @Override
   public <T> T decode(final Class<T> type, final byte[] buffer) {
     return decode(type, buffer, 0, buffer.length);
@@ -67,13 +73,12 @@ public class SerializationCodec implements Codec {
 
   @Override
   public byte[] encode(Class<?>[] types, Object[] values) {
-    if (values == null) {
-      values = new Object[0];
-    }
-    if (types.length != values.length) {
-      throw new IllegalArgumentException();
-    }
-    return serialize(values);
+    return serialize(checkArguments(types, values));
+  }
+
+  @Override
+  public void encode(Class<?>[] types, Object[] values, CodecOutput output) {
+    serialize(checkArguments(types, values), output.asOutputStream());
   }
 
   @Override
@@ -90,13 +95,20 @@ public class SerializationCodec implements Codec {
     return oo;
   }
 
+  private static Object[] checkArguments(Class<?>[] types, Object[] values) {
+    if (values == null) {
+      values = new Object[0];
+    }
+    if (types.length != values.length) {
+      throw new IllegalArgumentException();
+    }
+    return values;
+  }
+
   private byte[] serialize(Object value) {
     ByteArrayOutputStream bout = new ByteArrayOutputStream();
     try {
-      ObjectOutputStream oout = new ObjectOutputStream(bout);
-      oout.writeObject(value);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+      serialize(value, bout);
     } finally {
       try {
         bout.close();
@@ -107,6 +119,16 @@ public class SerializationCodec implements Codec {
     return bout.toByteArray();
   }
 
+  private void serialize(Object value, OutputStream out) {
+    try {
+      ObjectOutputStream oout = new ObjectOutputStream(out);
+      oout.writeObject(value);
+      oout.flush();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private Object deserialize(byte[] buffer, int offset, int len) {
     if (len == 0 || buffer.length == 0) {
       return null;
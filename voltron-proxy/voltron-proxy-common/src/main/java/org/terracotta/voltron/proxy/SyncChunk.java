@@ -0,0 +1,125 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A bounded part of the state of a concurrency key, streamed from an active entity to a new passive one. It holds the
+ * entries already encoded with the entity {@link Codec}, each of them prefixed by its length.
+ */
+public final class SyncChunk {
+
+  private final int concurrencyKey;
+  private final int count;
+  private final byte[] buffer;
+  private final int offset;
+  private final int length;
+
+  SyncChunk(int concurrencyKey, int count, byte[] buffer, int offset, int length) {
+    this.concurrencyKey = concurrencyKey;
+    this.count = count;
+    this.buffer = buffer;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  public int getConcurrencyKey() {
+    return concurrencyKey;
+  }
+
+  /**
+   * @return the number of entries
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * @return the size of the encoded entries, in bytes
+   */
+  public int getEncodedSize() {
+    return length;
+  }
+
+  public List<Object> decode(Codec codec) {
+    List<Object> entries = new ArrayList<>(count);
+    int position = offset;
+    for (int i = 0; i < count; i++) {
+      int entryLength = ((buffer[position] & 0xFF) << 24) | ((buffer[position + 1] & 0xFF) << 16) | ((buffer[position + 2] & 0xFF) << 8) | (buffer[position + 3] & 0xFF);
+      entries.add(codec.decode(Object.class, buffer, position + 4, entryLength));
+      position += 4 + entryLength;
+    }
+    return Collections.unmodifiableList(entries);
+  }
+
+  void writeTo(CodecOutput output) {
+    output.writeInt(concurrencyKey);
+    output.writeInt(count);
+    output.write(buffer, offset, length);
+  }
+
+  /**
+   * Encodes entries until they reach the maximum size of a chunk. An entry larger than that makes a chunk on its own.
+   */
+  public static final class Builder {
+
+    private final Codec codec;
+    private final int concurrencyKey;
+    private final int maxSize;
+    private CodecOutput output;
+    private int count;
+
+    public Builder(Codec codec, int concurrencyKey, int maxSize) {
+      if (maxSize < 1) {
+        throw new IllegalArgumentException("Max size must be at least 1: " + maxSize);
+      }
+      this.codec = codec;
+      this.concurrencyKey = concurrencyKey;
+      this.maxSize = maxSize;
+      this.output = new CodecOutput();
+    }
+
+    /**
+     * @return true when the chunk is full and has to be built
+     */
+    public boolean add(Object entry) {
+      int lengthPosition = output.position();
+      output.writeInt(0);
+      codec.encode(Object.class, entry, output);
+      output.setInt(lengthPosition, output.position() - lengthPosition - 4);
+      count++;
+      return output.position() >= maxSize;
+    }
+
+    public boolean isEmpty() {
+      return count == 0;
+    }
+
+    /**
+     * @return the chunk of the entries added so far, after which the builder starts a new one
+     */
+    public SyncChunk build() {
+      SyncChunk chunk = new SyncChunk(concurrencyKey, count, output.buffer, 0, output.position());
+      output = new CodecOutput();
+      count = 0;
+      return chunk;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+/**
+ * Writes and reads the values of a type registered in a {@link BinaryCodec}.
+ * <p>
+ * Implementations must read back exactly what they wrote, in the same order, and must be thread-safe.
+ *
+ * @param <T> the registered type
+ */
+public interface TypeCodec<T> {
+
+  void encode(BinaryWriter writer, T value);
+
+  T decode(BinaryReader reader);
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.management;
+
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.registry.DefaultStatisticsExposedObject;
+import org.terracotta.management.registry.DefaultStatisticsManagementProvider;
+import org.terracotta.management.registry.Named;
+import org.terracotta.management.registry.RequiredContext;
+import org.terracotta.voltron.proxy.LatencyHistogram;
+import org.terracotta.voltron.proxy.MethodStatistics;
+
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.terracotta.statistics.ValueStatistics.counter;
+import static org.terracotta.statistics.ValueStatistics.gauge;
+
+/**
+ * Exposes the {@link MethodStatistics} registered into a management registry, one context per proxied method, so that
+ * they get collected by a {@code StatisticCollector}. Latencies are in nanoseconds.
+ */
+@Named("ProxyInvocationStatistics")
+@RequiredContext({@Named("method")})
+public class InvocationStatisticsManagementProvider extends DefaultStatisticsManagementProvider<MethodStatistics> {
+
+  public InvocationStatisticsManagementProvider(LongSupplier timeSource, Context parentContext) {
+    super(MethodStatistics.class, timeSource, parentContext);
+  }
+
+  public InvocationStatisticsManagementProvider(LongSupplier timeSource) {
+    this(timeSource, Context.empty());
+  }
+
+  @Override
+  protected DefaultStatisticsExposedObject<MethodStatistics> wrap(MethodStatistics statistics) {
+    return new ExposedMethodStatistics(statistics, timeSource, parentContext.with("method", statistics.getName()));
+  }
+
+  private static class ExposedMethodStatistics extends DefaultStatisticsExposedObject<MethodStatistics> {
+
+    ExposedMethodStatistics(MethodStatistics statistics, LongSupplier timeSource, Context context) {
+      super(statistics, timeSource, context);
+
+      LatencyHistogram latency = statistics.getLatency();
+      getStatisticRegistry().registerStatistic("Proxy:CallCount", counter(statistics::getCalls));
+      getStatisticRegistry().registerStatistic("Proxy:ErrorCount", counter(statistics::getErrors));
+      getStatisticRegistry().registerStatistic("Proxy:RequestBytes", counter(statistics::getRequestBytes));
+      getStatisticRegistry().registerStatistic("Proxy:ResponseBytes", counter(statistics::getResponseBytes));
+      getStatisticRegistry().registerStatistic("Proxy:LatencyP50", gauge(() -> latency.percentile(50, NANOSECONDS)));
+      getStatisticRegistry().registerStatistic("Proxy:LatencyP99", gauge(() -> latency.percentile(99, NANOSECONDS)));
+      getStatisticRegistry().registerStatistic("Proxy:LatencyMax", gauge(() -> latency.max(NANOSECONDS)));
+    }
+  }
+}
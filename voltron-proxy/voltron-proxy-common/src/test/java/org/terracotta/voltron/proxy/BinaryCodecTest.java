@@ -0,0 +1,200 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import org.junit.Test;
+import org.terracotta.AvailableClass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonMap;
+import static java.util.Collections.unmodifiableList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryCodecTest {
+
+  private final BinaryCodec codec = new BinaryCodec()
+      .registerEnum(TimeUnit.class)
+      .register(Point.class, new PointCodec());
+
+  @Test
+  public void testPrimitivesAndStrings() {
+    Object[] values = {true, false, (byte) -1, (short) 300, 'x', Integer.MIN_VALUE, Long.MAX_VALUE, 1.5f, -2.25d, "", "hello", "\u20AC\u00E9", new byte[]{1, 2, 3}, null};
+    for (Object value : values) {
+      assertThat(codec.decode(Object.class, codec.encode(Object.class, value)), is(value));
+    }
+  }
+
+  @Test
+  public void testArguments() {
+    Class<?>[] types = {int.class, long.class, String.class, Object.class, List.class};
+    Object[] args = {42, -7L, "name", null, Arrays.asList("a", "b")};
+
+    Object[] decoded = codec.decode(types, codec.encode(types, args));
+
+    assertThat(decoded, is(args));
+  }
+
+  @Test
+  public void testNoArguments() {
+    Class<?>[] types = {};
+
+    byte[] encoded = codec.encode(types, null);
+
+    assertThat(encoded.length, is(0));
+    assertThat(codec.decode(types, encoded).length, is(0));
+  }
+
+  @Test
+  public void testEmptyBufferDecodesAsNull() {
+    assertThat(codec.decode(String.class, new byte[0]), is(nullValue()));
+  }
+
+  @Test
+  public void testCollections() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("list", new ArrayList<>(Arrays.asList(1, 2, 3)));
+    map.put("set", new HashSet<>(Arrays.asList("x", "y")));
+    map.put("nested", singletonMap("key", unmodifiableList(Arrays.asList(1L, null))));
+
+    Map<?, ?> decoded = codec.decode(Map.class, codec.encode(Map.class, map));
+
+    assertThat(decoded, is(instanceOf(LinkedHashMap.class)));
+    assertThat(decoded, is((Object) map));
+    assertThat(decoded.get("set"), is(instanceOf(Set.class)));
+  }
+
+  @Test
+  public void testRegisteredTypes() {
+    Object[] values = {TimeUnit.SECONDS, new Point(-3, 4), Arrays.asList(new Point(1, 2), TimeUnit.DAYS)};
+    for (Object value : values) {
+      assertThat(codec.decode(Object.class, codec.encode(Object.class, value)), is(value));
+    }
+  }
+
+  @Test
+  public void testUnregisteredTypesUseFallback() {
+    TreeMap<String, Integer> sorted = new TreeMap<>(singletonMap("a", 1));
+    assertThat(codec.decode(TreeMap.class, codec.encode(TreeMap.class, sorted)), is(sorted));
+
+    AvailableClass serializable = codec.decode(AvailableClass.class, codec.encode(AvailableClass.class, new AvailableClass("foobar")));
+    assertThat(serializable.string, is("foobar"));
+
+    Exception exception = codec.decode(Exception.class, codec.encode(Exception.class, new IllegalStateException("boom")));
+    assertThat(exception, is(instanceOf(IllegalStateException.class)));
+    assertThat(exception.getMessage(), is("boom"));
+  }
+
+  @Test
+  public void testEncodeIntoOutput() {
+    Class<?>[] types = {byte[].class, TreeMap.class};
+    byte[] payload = new byte[100_000];
+    Arrays.fill(payload, (byte) 7);
+    Object[] args = {payload, new TreeMap<>(singletonMap("a", 1))};
+
+    CodecOutput output = new CodecOutput(16);
+    output.writeByte(42);
+    codec.encode(types, args, output);
+    byte[] encoded = output.toByteArray();
+
+    assertThat(encoded[0], is((byte) 42));
+    assertThat(Arrays.copyOfRange(encoded, 1, encoded.length), is(codec.encode(types, args)));
+    assertThat(codec.decode(types, encoded, 1, encoded.length - 1), is(args));
+  }
+
+  @Test
+  public void testSmallerThanSerialization() {
+    Class<?>[] types = {String.class, int.class, List.class};
+    Object[] args = {"cache-manager", 3, Arrays.asList("offheap", "disk")};
+
+    int binarySize = codec.encode(types, args).length;
+    int serializedSize = new SerializationCodec().encode(types, args).length;
+
+    assertTrue(binarySize + " vs " + serializedSize, binarySize * 4 < serializedSize);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuiltinTypeCannotBeRegistered() {
+    new BinaryCodec().register(String.class, new TypeCodec<String>() {
+      @Override
+      public void encode(BinaryWriter writer, String value) {
+      }
+
+      @Override
+      public String decode(BinaryReader reader) {
+        return null;
+      }
+    });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTypeRegisteredTwice() {
+    new BinaryCodec().registerEnum(TimeUnit.class).registerEnum(TimeUnit.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTruncatedBuffer() {
+    byte[] encoded = codec.encode(String.class, "hello");
+    codec.decode(String.class, encoded, 0, encoded.length - 1);
+  }
+
+  private static final class Point {
+    private final int x;
+    private final int y;
+
+    Point(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * x + y;
+    }
+  }
+
+  private static final class PointCodec implements TypeCodec<Point> {
+    @Override
+    public void encode(BinaryWriter writer, Point value) {
+      writer.writeInt(value.x);
+      writer.writeInt(value.y);
+    }
+
+    @Override
+    public Point decode(BinaryReader reader) {
+      return new Point(reader.readInt(), reader.readInt());
+    }
+  }
+}
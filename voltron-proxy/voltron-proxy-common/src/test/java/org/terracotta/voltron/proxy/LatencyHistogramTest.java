@@ -0,0 +1,66 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketBounds() {
+    for (long value : new long[] {0, 1, 7, 8, 9, 15, 16, 100, 1023, 1024, 123456789, Long.MAX_VALUE}) {
+      int bucket = LatencyHistogram.bucket(value);
+      assertThat(LatencyHistogram.upperBound(bucket), greaterThanOrEqualTo(value));
+      if (bucket > 0) {
+        assertThat(LatencyHistogram.upperBound(bucket - 1), lessThanOrEqualTo(value - 1));
+      }
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.percentile(99, NANOSECONDS), is(0L));
+
+    for (long i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000);
+    }
+
+    assertThat(histogram.count(), is(1000L));
+    assertThat(histogram.max(MICROSECONDS), is(1000L));
+    assertThat(histogram.percentile(100, NANOSECONDS), is(1000000L));
+    assertWithinError(histogram.percentile(50, NANOSECONDS), 500000L);
+    assertWithinError(histogram.percentile(99, NANOSECONDS), 990000L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPercentileOutOfRange() {
+    new LatencyHistogram().percentile(101, NANOSECONDS);
+  }
+
+  private static void assertWithinError(long actual, long expected) {
+    assertThat(actual, greaterThanOrEqualTo(expected));
+    assertThat(actual, lessThanOrEqualTo(expected + expected / 8));
+  }
+}
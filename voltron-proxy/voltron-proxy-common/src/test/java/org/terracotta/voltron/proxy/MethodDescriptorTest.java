@@ -0,0 +1,239 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.fail;
+
+public class MethodDescriptorTest {
+
+  @Test
+  public void testInvoke() throws Exception {
+    Calculator calculator = new Calculator() {
+
+      @Override
+      public void reset() {
+      }
+
+      @Override
+      public String whoAmI(Object clientId) {
+        return String.valueOf(clientId);
+      }
+    };
+
+    assertThat(descriptor(Calculator.class, "add").invoke(calculator, 1, 2), is((Object) 3));
+    assertThat(descriptor(Calculator.class, "reset").invoke(calculator), is(nullValue()));
+    assertThat(descriptor(Calculator.class, "reset").invoke(calculator, (Object[]) null), is(nullValue()));
+    assertThat(descriptor(Calculator.class, "zero").invoke(calculator), is((Object) 0));
+    assertThat(descriptor(PackagePrivateCalculator.class, "negate").invoke((PackagePrivateCalculator) a -> -a, 4), is((Object) (-4)));
+  }
+
+  @Test
+  public void testUserExceptionIsWrapped() throws Exception {
+    IllegalStateException failure = new IllegalStateException();
+    try {
+      descriptor(Runnable.class, "run").invoke((Runnable) () -> {
+        throw failure;
+      });
+      fail("Expected InvocationTargetException");
+    } catch (InvocationTargetException e) {
+      assertThat(e.getTargetException(), is(sameInstance((Throwable) failure)));
+    }
+  }
+
+  @Test
+  public void testArgumentMismatchIsNotWrapped() throws Exception {
+    MethodDescriptor add = descriptor(Calculator.class, "add");
+    Calculator calculator = clientId -> null;
+    for (Object[] args : new Object[][]{{1, "2"}, {1, null}, {1}}) {
+      try {
+        add.invoke(calculator, args);
+        fail("Expected IllegalArgumentException for " + Arrays.toString(args));
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testClientIds() throws Exception {
+    MethodDescriptor whoAmI = descriptor(Calculator.class, "whoAmI");
+    Object[] args = {"someone"};
+
+    ProxyEntityMessage message = new ProxyEntityMessage(whoAmI, args, MessageType.MESSAGE);
+    Object result = message.invoke((Calculator) clientId -> String.valueOf(clientId), "client-1");
+
+    assertThat(result, is((Object) "client-1"));
+    assertThat(args[0], is((Object) "client-1"));
+
+    whoAmI.setClientIds(args, null);
+    assertThat(args[0], is(nullValue()));
+  }
+
+  @Test
+  public void testMethodDescriptorsMatchProxiedMethods() throws Exception {
+    Map<Method, MethodDescriptor> descriptors = CommonProxyFactory.createMethodDescriptors(Calculator.class);
+    Calculator proxy = (Calculator) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Calculator.class},
+        (p, method, args) -> descriptors.get(method).invoke((Calculator) clientId -> "proxied", args));
+
+    assertThat(proxy.whoAmI(null), is("proxied"));
+    assertThat(proxy.add(1, 2), is(3));
+  }
+
+  @Test
+  public void testArgumentConcurrencyKey() throws Exception {
+    MethodDescriptor put = descriptor(Sharded.class, "put");
+
+    Set<Integer> keys = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      int key = put.getConcurrencyKey(new Object[]{"key-" + i, i});
+      assertThat(key, is(put.getConcurrencyKey(new Object[]{"key-" + i, -i})));
+      keys.add(key);
+    }
+    assertThat(keys, is(put.getConcurrencyKeys()));
+    assertThat(put.getConcurrencyKeys(), is((Object) new HashSet<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8))));
+    assertThat(put.getConcurrencyKey(new Object[]{null, 0}), is(1));
+    assertThat(put.getConcurrencyKey(), is(ConcurrencyStrategy.MANAGEMENT_KEY));
+  }
+
+  @Test
+  public void testDefaultHasherIsStable() throws Exception {
+    ConcurrencyKeyHasher hasher = new ConcurrencyKeyHasher.HashCode();
+
+    assertThat(hasher.hash(Color.RED), is("RED".hashCode()));
+    assertThat(hasher.hash("key"), is("key".hashCode()));
+    assertThat(hasher.hash(42L), is(Long.hashCode(42L)));
+    assertThat(hasher.hash(null), is(0));
+    assertThat(descriptor(Sharded.class, "paint").getConcurrencyKey(new Object[]{Color.GREEN}),
+        is(1 + Math.floorMod("GREEN".hashCode() ^ ("GREEN".hashCode() >>> 16), 16)));
+  }
+
+  @Test
+  public void testArgumentConcurrencyKeyWithHasher() throws Exception {
+    MethodDescriptor get = descriptor(Sharded.class, "get");
+
+    assertThat(get.getConcurrencyKey(new Object[]{3L}), is(103));
+    assertThat(get.getConcurrencyKey(new Object[]{4L}), is(100));
+    assertThat(get.getConcurrencyKeys(), contains(100, 101, 102, 103));
+  }
+
+  @Test
+  public void testConstantConcurrencyKey() throws Exception {
+    MethodDescriptor clear = descriptor(Sharded.class, "clear");
+
+    assertThat(clear.getConcurrencyKey(null), is(ConcurrencyStrategy.UNIVERSAL_KEY));
+    assertThat(clear.getConcurrencyKeys().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testInvalidConcurrencyKeys() throws Exception {
+    for (Method method : InvalidSharded.class.getDeclaredMethods()) {
+      try {
+        MethodDescriptor.of(method);
+        fail("Expected IllegalStateException for " + method);
+      } catch (IllegalStateException e) {
+        assertThat(e.getMessage(), containsString(method.getName()));
+      }
+    }
+  }
+
+  private static MethodDescriptor descriptor(Class<?> type, String name) {
+    for (Method method : type.getDeclaredMethods()) {
+      if (method.getName().equals(name)) {
+        return MethodDescriptor.of(method);
+      }
+    }
+    throw new AssertionError(name);
+  }
+
+  @FunctionalInterface
+  public interface Calculator {
+
+    default int add(int a, int b) {
+      return a + b;
+    }
+
+    default void reset() {
+    }
+
+    String whoAmI(@ClientId Object clientId);
+
+    static int zero() {
+      return 0;
+    }
+  }
+
+  interface PackagePrivateCalculator {
+    int negate(int a);
+  }
+
+  public interface Sharded {
+
+    void put(@ConcurrencyKey(buckets = 8) String key, int value);
+
+    long get(@ConcurrencyKey(buckets = 4, firstKey = 100, hasher = Modulo.class) long id);
+
+    void paint(@ConcurrencyKey Color color);
+
+    @ConcurrencyStrategy(key = ConcurrencyStrategy.UNIVERSAL_KEY)
+    void clear();
+  }
+
+  public enum Color {
+    RED, GREEN
+  }
+
+  public interface InvalidSharded {
+
+    void noBucket(@ConcurrencyKey(buckets = 0) String key);
+
+    void managementKey(@ConcurrencyKey(firstKey = 0) String key);
+
+    void overflow(@ConcurrencyKey(firstKey = Integer.MAX_VALUE, buckets = 2) String key);
+
+    void twoKeys(@ConcurrencyKey String key1, @ConcurrencyKey String key2);
+
+    void clientId(@ConcurrencyKey @ClientId Object clientId);
+
+    void identityHash(@ConcurrencyKey Object key);
+
+    @ConcurrencyStrategy(key = 1)
+    void withStrategy(@ConcurrencyKey String key);
+  }
+
+  public static final class Modulo implements ConcurrencyKeyHasher {
+    @Override
+    public int hash(Object argument) {
+      return (int) ((Long) argument % 4);
+    }
+  }
+}
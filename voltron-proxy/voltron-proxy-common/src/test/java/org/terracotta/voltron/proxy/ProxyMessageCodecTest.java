@@ -0,0 +1,113 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ProxyMessageCodecTest {
+
+  public interface Store {
+    byte[] put(String key, byte[] value);
+  }
+
+  private final MethodDescriptor put = methodDescriptor();
+
+  @Test
+  public void testLargeArgumentsRoundTrip() throws Exception {
+    ProxyMessageCodec messageCodec = new ProxyMessageCodec(Store.class);
+    messageCodec.setCodec(new BinaryCodec());
+    byte[] value = new byte[1 << 20];
+    Arrays.fill(value, (byte) 3);
+
+    ProxyEntityMessage message = messageCodec.decodeMessage(messageCodec.encodeMessage(new ProxyEntityMessage(put, new Object[] {"key", value}, MessageType.MESSAGE)));
+    assertThat(message.getMethod(), is(put));
+    assertThat(message.getArguments(), is(new Object[] {"key", value}));
+
+    // the pooled buffer, grown by the previous call, does not leak into smaller messages
+    byte[] small = messageCodec.encodeMessage(new ProxyEntityMessage(put, new Object[] {"key", new byte[] {1}}, MessageType.MESSAGE));
+    assertThat(messageCodec.decodeMessage(small).getArguments(), is(new Object[] {"key", new byte[] {1}}));
+
+    ProxyEntityResponse response = messageCodec.decodeResponse(messageCodec.encodeResponse(ProxyEntityResponse.messageResponse(byte[].class, value)));
+    assertThat(response.getResponse(), is(value));
+  }
+
+  @Test
+  public void testSyncChunksBoundedAndRoundTrip() throws Exception {
+    ProxyMessageCodec messageCodec = new ProxyMessageCodec(Store.class);
+    Codec codec = new BinaryCodec();
+    SyncChunk.Builder builder = new SyncChunk.Builder(codec, 7, 100);
+    int chunks = 0;
+    int entries = 0;
+    for (int i = 0; i < 50; i++) {
+      if (builder.add("entry-" + i)) {
+        SyncChunk chunk = builder.build();
+        assertThat(chunk.getEncodedSize() < 100 + 4 + codec.encode(String.class, "entry-" + i).length, is(true));
+
+        ProxyEntityMessage message = messageCodec.decodeMessage(messageCodec.encodeMessage(ProxyEntityMessage.syncChunk(chunk)));
+        assertThat(message.getType(), is(MessageType.SYNC_CHUNK));
+        assertThat(message.getConcurrencyKey(), is(7));
+        for (Object entry : message.getSyncChunk().decode(codec)) {
+          assertThat(entry, is("entry-" + entries++));
+        }
+        chunks++;
+      }
+    }
+    assertThat(builder.isEmpty(), is(false));
+    assertThat(chunks > 1, is(true));
+
+    // an entry larger than a chunk makes a chunk on its own
+    byte[] large = new byte[1000];
+    assertThat(new SyncChunk.Builder(codec, 7, 100).add(large), is(true));
+  }
+
+  @Test
+  public void testReentrantEncoding() throws Exception {
+    ProxyMessageCodec innerCodec = new ProxyMessageCodec(Store.class);
+    ProxyEntityMessage inner = new ProxyEntityMessage(put, new Object[] {"inner", new byte[] {1}}, MessageType.MESSAGE);
+    byte[] expected = innerCodec.encodeMessage(inner);
+    ProxyMessageCodec messageCodec = new ProxyMessageCodec(Store.class);
+    messageCodec.setCodec(new SerializationCodec() {
+      @Override
+      public void encode(Class<?>[] types, Object[] values, CodecOutput output) {
+        // a codec encoding another message while the outer one is being encoded gets its own buffer
+        try {
+          assertThat(innerCodec.encodeMessage(inner), is(expected));
+        } catch (Exception e) {
+          throw new AssertionError(e);
+        }
+        super.encode(types, values, output);
+      }
+    });
+
+    byte[] encoded = messageCodec.encodeMessage(new ProxyEntityMessage(put, new Object[] {"outer", new byte[] {2}}, MessageType.MESSAGE));
+
+    assertThat(messageCodec.decodeMessage(encoded).getArguments(), is(new Object[] {"outer", new byte[] {2}}));
+  }
+
+  private static MethodDescriptor methodDescriptor() {
+    try {
+      return MethodDescriptor.of(Store.class.getMethod("put", String.class, byte[].class));
+    } catch (NoSuchMethodException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
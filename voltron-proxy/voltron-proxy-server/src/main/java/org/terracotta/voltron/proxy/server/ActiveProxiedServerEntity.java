@@ -16,6 +16,8 @@
  */
 package org.terracotta.voltron.proxy.server;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.terracotta.entity.ActiveInvokeContext;
 import org.terracotta.entity.ActiveServerEntity;
 import org.terracotta.entity.ClientDescriptor;
@@ -25,26 +27,35 @@ import org.terracotta.entity.StateDumpCollector;
 import org.terracotta.voltron.proxy.Codec;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 import org.terracotta.voltron.proxy.ProxyEntityResponse;
+import org.terracotta.voltron.proxy.SyncChunk;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
  * @author Alex Snaps
  */
 public abstract class ActiveProxiedServerEntity<S, R, M extends Messenger> implements ActiveServerEntity<ProxyEntityMessage, ProxyEntityResponse> {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(ActiveProxiedServerEntity.class);
+
   private final ProxyInvoker<?> entityInvoker = new ProxyInvoker<>(this);
+  private final SyncProgress syncProgress = new SyncProgress();
 
   private S synchronizer;
   private M messenger;
   private Codec codec;
   private Class<R> reconnectDataType;
+  private Codec syncCodec;
+  private int syncChunkSize;
 
   @Override
   public ProxyEntityResponse invokeActive(ActiveInvokeContext<ProxyEntityResponse> context, ProxyEntityMessage message) throws EntityUserException {
     switch (message.getType()) {
       case MESSAGE:
       case MESSENGER:
+      case BATCH:
         return entityInvoker.invoke(context, message);
       default:
         throw new AssertionError(message.getType());
@@ -96,6 +107,33 @@ public abstract class ActiveProxiedServerEntity<S, R, M extends Messenger> imple
         SyncProxyFactory.removeCurrentChannel();
       }
     }
+    if (syncCodec != null) {
+      Iterator<?> state = getStateToSynchronize(concurrencyKey);
+      if (state != null) {
+        streamToPassive(channel, concurrencyKey, state);
+      }
+    }
+  }
+
+  private void streamToPassive(PassiveSynchronizationChannel<ProxyEntityMessage> channel, int concurrencyKey, Iterator<?> state) {
+    SyncChunk.Builder builder = new SyncChunk.Builder(syncCodec, concurrencyKey, syncChunkSize);
+    long entries = 0;
+    long bytes = 0;
+    long start = System.nanoTime();
+    long chunkStart = start;
+    while (state.hasNext()) {
+      entries++;
+      if (builder.add(state.next()) || !state.hasNext()) {
+        SyncChunk chunk = builder.build();
+        channel.synchronizeToPassive(ProxyEntityMessage.syncChunk(chunk));
+        long now = System.nanoTime();
+        syncProgress.chunk(chunk, now - chunkStart);
+        chunkStart = now;
+        bytes += chunk.getEncodedSize();
+      }
+    }
+    syncProgress.keyDone();
+    LOGGER.debug("Synchronized {} entries ({} bytes) of concurrency key {} to passive in {} ms", entries, bytes, concurrencyKey, (System.nanoTime() - start) / 1_000_000);
   }
 
   @Override
@@ -119,6 +157,17 @@ public abstract class ActiveProxiedServerEntity<S, R, M extends Messenger> imple
     Collection<ClientDescriptor> clients = getClients();
     stateDumpCollector.addState("clientCount", String.valueOf(clients.size()));
     stateDumpCollector.addState("clients", clients);
+    Map<ClientDescriptor, EventQueueStatistics> eventQueues = getEventQueueStatistics();
+    if (!eventQueues.isEmpty()) {
+      stateDumpCollector.addState("eventQueues", eventQueues);
+    }
+    long droppedForUnknownClients = entityInvoker.getEventsDroppedForUnknownClients();
+    if (droppedForUnknownClients > 0) {
+      stateDumpCollector.addState("eventsDroppedForUnknownClients", String.valueOf(droppedForUnknownClients));
+    }
+    if (syncProgress.getChunks() > 0) {
+      stateDumpCollector.addState("passiveSync", syncProgress.toString());
+    }
 
     // custom
     dumpState(stateDumpCollector);
@@ -133,6 +182,17 @@ public abstract class ActiveProxiedServerEntity<S, R, M extends Messenger> imple
   protected void synchronizeKeyToPassive(int concurrencyKey) {
   }
 
+  /**
+   * Streams the state of a concurrency key to a new passive entity, after {@link #synchronizeKeyToPassive(int)}: the
+   * entries are encoded with the entity codec into chunks of bounded size, and handed one chunk at a time to
+   * {@link PassiveProxiedServerEntity#applySynchronizedState(int, java.util.List)} on the passive side.
+   *
+   * @return the entries to stream, or null if there is nothing to stream for this key
+   */
+  protected Iterator<?> getStateToSynchronize(int concurrencyKey) {
+    return null;
+  }
+
   protected void onReconnect(ClientDescriptor clientDescriptor, R state) {
   }
 
@@ -142,6 +202,18 @@ public abstract class ActiveProxiedServerEntity<S, R, M extends Messenger> imple
 
   protected final Collection<ClientDescriptor> getClients() {return entityInvoker.getClients();}
 
+  /**
+   * @return the event queue figures of each client, empty unless events are delivered through an {@link EventDelivery}
+   */
+  protected final Map<ClientDescriptor, EventQueueStatistics> getEventQueueStatistics() {return entityInvoker.getEventQueueStatistics();}
+
+  /**
+   * @return the progress of the state streamed to passive entities by {@link #getStateToSynchronize(int)}
+   */
+  protected final SyncStatistics getSyncStatistics() {
+    return syncProgress;
+  }
+
   protected final S getSynchronizer() {
     return synchronizer;
   }
@@ -166,4 +238,9 @@ public abstract class ActiveProxiedServerEntity<S, R, M extends Messenger> imple
     this.reconnectDataType = reconnectDataType;
     this.codec = codec;
   }
+
+  final void setSyncChunks(Codec codec, int chunkSize) {
+    this.syncCodec = codec;
+    this.syncChunkSize = chunkSize;
+  }
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.entity.ClientCommunicator;
+import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.MessageCodecException;
+import org.terracotta.voltron.proxy.ProxyEntityResponse;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client bounded event queues, drained by a pool of threads shared by all the clients, as configured by an
+ * {@link EventDelivery}. Events of a client are sent in the order they were queued.
+ */
+class ClientEventQueues {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClientEventQueues.class);
+  private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+  private final ClientCommunicator clientCommunicator;
+  private final int queueCapacity;
+  private final EventDelivery.OverflowPolicy overflowPolicy;
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentMap<ClientDescriptor, ClientQueue> queues = new ConcurrentHashMap<>();
+  private final AtomicLong droppedForUnknownClients = new AtomicLong();
+
+  ClientEventQueues(ClientCommunicator clientCommunicator, EventDelivery eventDelivery) {
+    this.clientCommunicator = clientCommunicator;
+    this.queueCapacity = eventDelivery.getQueueCapacity();
+    this.overflowPolicy = eventDelivery.getOverflowPolicy();
+    String threadPrefix = "Event delivery " + POOL_COUNTER.incrementAndGet() + "-";
+    AtomicInteger threadCounter = new AtomicInteger();
+    // idle threads go away, so that no shutdown is needed when the entity does
+    this.executor = new ThreadPoolExecutor(eventDelivery.getThreads(), eventDelivery.getThreads(), 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread thread = new Thread(r, threadPrefix + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  void addClient(ClientDescriptor client) {
+    queues.computeIfAbsent(client, ClientQueue::new);
+  }
+
+  /**
+   * Queues an event for a client. Events sent to a client that is not connected, or not anymore, are dropped.
+   */
+  void send(ClientDescriptor client, ProxyEntityResponse event) {
+    ClientQueue queue = queues.get(client);
+    if (queue == null) {
+      droppedForUnknownClients.incrementAndGet();
+      LOGGER.debug("Dropping event {} for client {}: it is not connected", event.getResponseType(), client);
+    } else {
+      queue.offer(event);
+    }
+  }
+
+  /**
+   * Drops the queue of a client that disconnected. A client disconnected because its queue overflowed keeps its closed
+   * queue until then, so that events still sent to it are dropped instead of queued again.
+   */
+  void removeClient(ClientDescriptor client) {
+    ClientQueue queue = queues.remove(client);
+    if (queue != null) {
+      queue.close();
+    }
+  }
+
+  Map<ClientDescriptor, EventQueueStatistics> getStatistics() {
+    return Collections.unmodifiableMap(new HashMap<>(queues));
+  }
+
+  /**
+   * @return the number of events dropped because they were sent to a client that was not connected
+   */
+  long getDroppedForUnknownClients() {
+    return droppedForUnknownClients.get();
+  }
+
+  private final class ClientQueue implements EventQueueStatistics, Runnable {
+
+    private final ClientDescriptor client;
+
+    // guarded by this
+    private final ArrayDeque<ProxyEntityResponse> events = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+    private long delivered;
+    private long dropped;
+
+    ClientQueue(ClientDescriptor client) {
+      this.client = client;
+    }
+
+    void offer(ProxyEntityResponse event) {
+      boolean disconnect = false;
+      synchronized (this) {
+        if (closed) {
+          dropped++;
+          return;
+        }
+        if (events.size() >= queueCapacity) {
+          switch (overflowPolicy) {
+            case BLOCK:
+              boolean interrupted = false;
+              while (events.size() >= queueCapacity && !closed) {
+                try {
+                  wait();
+                } catch (InterruptedException e) {
+                  interrupted = true;
+                }
+              }
+              if (interrupted) {
+                Thread.currentThread().interrupt();
+              }
+              if (closed) {
+                dropped++;
+                return;
+              }
+              break;
+            case DROP_OLDEST:
+              events.poll();
+              dropped++;
+              break;
+            case DISCONNECT:
+              disconnect = true;
+              break;
+            default:
+              throw new AssertionError(overflowPolicy);
+          }
+        }
+        if (disconnect) {
+          close();
+          dropped++;
+        } else {
+          events.add(event);
+          if (!draining) {
+            draining = true;
+            try {
+              executor.execute(this);
+            } catch (RejectedExecutionException e) {
+              draining = false;
+              throw e;
+            }
+          }
+        }
+      }
+      if (disconnect) {
+        LOGGER.warn("Closing the connection of client {}: its event queue is full ({} events)", client, queueCapacity);
+        clientCommunicator.closeClientConnection(client);
+      }
+    }
+
+    synchronized void close() {
+      closed = true;
+      dropped += events.size();
+      events.clear();
+      notifyAll();
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        ProxyEntityResponse event;
+        synchronized (this) {
+          event = events.poll();
+          if (event == null) {
+            draining = false;
+            return;
+          }
+          notifyAll();
+        }
+        try {
+          clientCommunicator.sendNoResponse(client, event);
+          synchronized (this) {
+            delivered++;
+          }
+        } catch (MessageCodecException | RuntimeException e) {
+          LOGGER.warn("Error sending event {} to client {}: {}", event.getResponseType(), client, e.getMessage(), e);
+          synchronized (this) {
+            dropped++;
+          }
+        }
+      }
+    }
+
+    @Override
+    public synchronized int getQueueDepth() {
+      return events.size();
+    }
+
+    @Override
+    public synchronized long getDeliveredEvents() {
+      return delivered;
+    }
+
+    @Override
+    public synchronized long getDroppedEvents() {
+      return dropped;
+    }
+
+    @Override
+    public synchronized String toString() {
+      return "depth=" + events.size() + ", delivered=" + delivered + ", dropped=" + dropped;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.server;
+
+/**
+ * Opt-in configuration of the asynchronous delivery of the events fired by an active entity.
+ * <p>
+ * Each connected client gets a queue of at most {@code queueCapacity} events, drained in order by a pool of
+ * {@code threads} threads shared by all the clients of the entity, so that a slow client does not hold back the
+ * others, nor the thread firing the event. The {@link OverflowPolicy} decides what happens when a queue is full.
+ */
+public final class EventDelivery {
+
+  public enum OverflowPolicy {
+    /**
+     * The firing thread waits until the client queue has room.
+     */
+    BLOCK,
+    /**
+     * The oldest queued event of the client is dropped.
+     */
+    DROP_OLDEST,
+    /**
+     * The client connection is closed, and its queued events are dropped.
+     */
+    DISCONNECT
+  }
+
+  private final int queueCapacity;
+  private final OverflowPolicy overflowPolicy;
+  private final int threads;
+
+  public EventDelivery(int queueCapacity, OverflowPolicy overflowPolicy, int threads) {
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Queue capacity must be at least 1: " + queueCapacity);
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+    }
+    this.queueCapacity = queueCapacity;
+    this.overflowPolicy = overflowPolicy;
+    this.threads = threads;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  @Override
+  public String toString() {
+    return "EventDelivery{queueCapacity=" + queueCapacity + ", overflowPolicy=" + overflowPolicy + ", threads=" + threads + '}';
+  }
+}
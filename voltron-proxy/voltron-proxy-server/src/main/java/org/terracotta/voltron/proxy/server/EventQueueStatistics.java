@@ -14,29 +14,25 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.terracotta.runnel.encoding.dataholders;
-
-import org.terracotta.runnel.utils.WriteBuffer;
+package org.terracotta.voltron.proxy.server;
 
 /**
- * @author Ludovic Orban
+ * Event delivery figures of a client, when events are delivered through an {@link EventDelivery} queue.
  */
-public class BoolDataHolder extends AbstractDataHolder {
-
-  private final boolean value;
+public interface EventQueueStatistics {
 
-  public BoolDataHolder(boolean value, int index) {
-    super(index);
-    this.value = value;
-  }
+  /**
+   * @return the number of events waiting to be sent to the client
+   */
+  int getQueueDepth();
 
-  @Override
-  protected int valueSize() {
-    return 1;
-  }
+  /**
+   * @return the number of events sent to the client
+   */
+  long getDeliveredEvents();
 
-  @Override
-  protected void encodeValue(WriteBuffer writeBuffer) {
-    writeBuffer.putBoolean(value);
-  }
+  /**
+   * @return the number of events dropped because the queue of the client was full, or the client got disconnected
+   */
+  long getDroppedEvents();
 }
@@ -17,11 +17,14 @@
 package org.terracotta.voltron.proxy.server;
 
 import org.terracotta.entity.IEntityMessenger;
+import org.terracotta.voltron.proxy.CommonProxyFactory;
 import org.terracotta.voltron.proxy.MessageType;
 import org.terracotta.voltron.proxy.MethodDescriptor;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -31,11 +34,15 @@ class MessengerProxyFactory {
 
   static <T extends Messenger> T createProxy(Class<T> messengerType, IEntityMessenger<ProxyEntityMessage, ?> entityMessenger) {
     Objects.requireNonNull(messengerType);
+    Map<Method, MethodDescriptor> methodDescriptors = CommonProxyFactory.createMethodDescriptors(messengerType);
     return messengerType.cast(Proxy.newProxyInstance(
         messengerType.getClassLoader(),
         new Class<?>[]{messengerType},
         (proxy, method, args) -> {
-          MethodDescriptor methodDescriptor = MethodDescriptor.of(method);
+          MethodDescriptor methodDescriptor = methodDescriptors.get(method);
+          if (methodDescriptor == null) {
+            throw new IllegalArgumentException("Method '" + method.toGenericString() + "' isn't proxied");
+          }
           ProxyEntityMessage proxyEntityMessage = new ProxyEntityMessage(methodDescriptor, args, MessageType.MESSENGER);
           entityMessenger.messageSelf(proxyEntityMessage);
           return null;
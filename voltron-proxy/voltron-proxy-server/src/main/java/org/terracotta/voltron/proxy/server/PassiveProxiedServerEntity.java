@@ -20,8 +20,12 @@ import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.InvokeContext;
 import org.terracotta.entity.PassiveServerEntity;
 import org.terracotta.entity.StateDumpCollector;
+import org.terracotta.voltron.proxy.Codec;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 import org.terracotta.voltron.proxy.ProxyEntityResponse;
+import org.terracotta.voltron.proxy.SyncChunk;
+
+import java.util.List;
 
 /**
  * @author Mathieu Carbou
@@ -29,6 +33,13 @@ import org.terracotta.voltron.proxy.ProxyEntityResponse;
 public abstract class PassiveProxiedServerEntity implements PassiveServerEntity<ProxyEntityMessage, ProxyEntityResponse> {
 
   private final ProxyInvoker<?> entityInvoker = new ProxyInvoker<>(this);
+  private final SyncProgress syncProgress = new SyncProgress();
+
+  private Codec syncCodec;
+
+  final ProxyInvoker<?> getEntityInvoker() {
+    return entityInvoker;
+  }
 
   @Override
   public void invokePassive(InvokeContext context, ProxyEntityMessage message) throws EntityUserException {
@@ -36,13 +47,26 @@ public abstract class PassiveProxiedServerEntity implements PassiveServerEntity<
       case SYNC:
       case MESSENGER:
       case MESSAGE:
+      case BATCH:
         entityInvoker.invoke(message);
         break;
+      case SYNC_CHUNK:
+        applyChunk(message.getSyncChunk());
+        break;
       default:
         throw new AssertionError(message.getType());
     }
   }
 
+  private void applyChunk(SyncChunk chunk) {
+    if (syncCodec == null) {
+      throw new IllegalStateException("No codec to decode synchronized state");
+    }
+    long start = System.nanoTime();
+    applySynchronizedState(chunk.getConcurrencyKey(), chunk.decode(syncCodec));
+    syncProgress.chunk(chunk, System.nanoTime() - start);
+  }
+
   @Override
   public void startSyncEntity() {
 
@@ -60,7 +84,7 @@ public abstract class PassiveProxiedServerEntity implements PassiveServerEntity<
 
   @Override
   public void endSyncConcurrencyKey(int concurrencyKey) {
-
+    syncProgress.keyDone();
   }
 
   @Override
@@ -76,10 +100,31 @@ public abstract class PassiveProxiedServerEntity implements PassiveServerEntity<
   @Override
   public final void addStateTo(StateDumpCollector stateDumpCollector) {
     stateDumpCollector.addState("instance", this.toString());
+    if (syncProgress.getChunks() > 0) {
+      stateDumpCollector.addState("passiveSync", syncProgress.toString());
+    }
     dumpState(stateDumpCollector);
   }
 
   protected void dumpState(StateDumpCollector stateDumpCollector) {
   }
 
+  /**
+   * Applies a chunk of the state streamed by {@link ActiveProxiedServerEntity#getStateToSynchronize(int)}, in the
+   * order the active entity iterated over it.
+   */
+  protected void applySynchronizedState(int concurrencyKey, List<Object> entries) {
+  }
+
+  /**
+   * @return the progress of the state applied by {@link #applySynchronizedState(int, List)}
+   */
+  protected final SyncStatistics getSyncStatistics() {
+    return syncProgress;
+  }
+
+  final void setSyncCodec(Codec codec) {
+    this.syncCodec = codec;
+  }
+
 }
@@ -21,6 +21,9 @@ import org.terracotta.entity.ClientCommunicator;
 import org.terracotta.entity.ClientDescriptor;
 import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.MessageCodecException;
+import org.terracotta.voltron.proxy.InvocationStatistics;
+import org.terracotta.voltron.proxy.MessageType;
+import org.terracotta.voltron.proxy.MethodStatistics;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 import org.terracotta.voltron.proxy.ProxyEntityResponse;
 
@@ -30,6 +33,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -43,6 +48,8 @@ class ProxyInvoker<T> implements MessageFiring {
 
   private Set<Class<?>> messageTypes;
   private ClientCommunicator clientCommunicator;
+  private ClientEventQueues eventQueues;
+  private volatile InvocationStatistics statistics;
 
   ProxyInvoker(T target) {
     this.target = target;
@@ -50,6 +57,34 @@ class ProxyInvoker<T> implements MessageFiring {
 
   ProxyEntityResponse invoke(ActiveInvokeContext<ProxyEntityResponse> context, final ProxyEntityMessage message) {
     ClientDescriptor clientDescriptor = context.getClientDescriptor();
+    if (message.getType() == MessageType.BATCH) {
+      List<ProxyEntityMessage> batch = message.getBatch();
+      List<ProxyEntityResponse> responses = new ArrayList<>(batch.size());
+      for (ProxyEntityMessage m : batch) {
+        responses.add(invoke(clientDescriptor, m));
+      }
+      return ProxyEntityResponse.batchResponse(responses);
+    }
+    return invoke(clientDescriptor, message);
+  }
+
+  private ProxyEntityResponse invoke(ClientDescriptor clientDescriptor, final ProxyEntityMessage message) {
+    InvocationStatistics statistics = this.statistics;
+    if (statistics == null) {
+      return doInvoke(clientDescriptor, message);
+    }
+    MethodStatistics methodStatistics = statistics.of(message.getMethod());
+    long start = System.nanoTime();
+    ProxyEntityResponse response = null;
+    try {
+      response = doInvoke(clientDescriptor, message);
+      return response.recordEncodedSizeTo(methodStatistics);
+    } finally {
+      methodStatistics.recordCall(System.nanoTime() - start, response == null || response.getMessageType() == MessageType.ERROR);
+    }
+  }
+
+  private ProxyEntityResponse doInvoke(ClientDescriptor clientDescriptor, final ProxyEntityMessage message) {
     try {
       invocationContext.set(new InvocationContext(clientDescriptor));
       return ProxyEntityResponse.response(message.getType(), message.messageType(), message.invoke(target, clientDescriptor));
@@ -73,6 +108,42 @@ class ProxyInvoker<T> implements MessageFiring {
   }
 
   void invoke(final ProxyEntityMessage message) {
+    if (message.getType() == MessageType.BATCH) {
+      // every invocation is replayed, as on the active, and the first failure is reported last
+      RuntimeException failure = null;
+      for (ProxyEntityMessage m : message.getBatch()) {
+        try {
+          invoke(m);
+        } catch (RuntimeException e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return;
+    }
+    InvocationStatistics statistics = this.statistics;
+    if (statistics == null) {
+      doInvoke(message);
+      return;
+    }
+    MethodStatistics methodStatistics = statistics.of(message.getMethod());
+    long start = System.nanoTime();
+    boolean error = true;
+    try {
+      doInvoke(message);
+      error = false;
+    } finally {
+      methodStatistics.recordCall(System.nanoTime() - start, error);
+    }
+  }
+
+  private void doInvoke(final ProxyEntityMessage message) {
     try {
       message.invoke(target);
     } catch (IllegalAccessException e) {
@@ -96,13 +167,11 @@ class ProxyInvoker<T> implements MessageFiring {
     }
     final InvocationContext invocationContext = this.invocationContext.get();
     final ClientDescriptor caller = invocationContext == null ? null : invocationContext.caller;
-    for (ClientDescriptor client : clients) {
+    // the same response goes to every client, so that it only gets encoded once
+    final ProxyEntityResponse response = ProxyEntityResponse.messageResponse(type, message);
+    for (ClientDescriptor client : getClients()) {
       if (echo || !client.equals(caller)) {
-        try {
-          clientCommunicator.sendNoResponse(client, ProxyEntityResponse.messageResponse(type, message));
-        } catch (MessageCodecException ex) {
-          handleExceptionOnSend(ex);
-        }
+        send(client, response);
       }
     }
   }
@@ -112,9 +181,18 @@ class ProxyInvoker<T> implements MessageFiring {
     if (!messageTypes.contains(type)) {
       throw new IllegalArgumentException("Event type '" + type + "' isn't supported");
     }
+    final ProxyEntityResponse response = ProxyEntityResponse.messageResponse(type, message);
     for (ClientDescriptor client : clients) {
+      send(client, response);
+    }
+  }
+
+  private void send(ClientDescriptor client, ProxyEntityResponse response) {
+    if (eventQueues != null) {
+      eventQueues.send(client, response);
+    } else {
       try {
-        clientCommunicator.sendNoResponse(client, ProxyEntityResponse.messageResponse(type, message));
+        clientCommunicator.sendNoResponse(client, response);
       } catch (MessageCodecException ex) {
         handleExceptionOnSend(ex);
       }
@@ -122,11 +200,29 @@ class ProxyInvoker<T> implements MessageFiring {
   }
 
   void addClient(ClientDescriptor descriptor) {
+    if (eventQueues != null) {
+      eventQueues.addClient(descriptor);
+    }
     clients.add(descriptor);
   }
 
   void removeClient(ClientDescriptor descriptor) {
     clients.remove(descriptor);
+    if (eventQueues != null) {
+      eventQueues.removeClient(descriptor);
+    }
+  }
+
+  void setStatistics(InvocationStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  Map<ClientDescriptor, EventQueueStatistics> getEventQueueStatistics() {
+    return eventQueues == null ? Collections.<ClientDescriptor, EventQueueStatistics>emptyMap() : eventQueues.getStatistics();
+  }
+
+  long getEventsDroppedForUnknownClients() {
+    return eventQueues == null ? 0L : eventQueues.getDroppedForUnknownClients();
   }
 
   public Collection<ClientDescriptor> getClients() {
@@ -138,6 +234,10 @@ class ProxyInvoker<T> implements MessageFiring {
   }
 
   ProxyInvoker<T> activateEvents(ClientCommunicator clientCommunicator, Class<?>[] messageTypes) {
+    return activateEvents(clientCommunicator, messageTypes, null);
+  }
+
+  ProxyInvoker<T> activateEvents(ClientCommunicator clientCommunicator, Class<?>[] messageTypes, EventDelivery eventDelivery) {
     if (messageTypes == null) {
       messageTypes = new Class<?>[0];
     }
@@ -152,6 +252,10 @@ class ProxyInvoker<T> implements MessageFiring {
     } else {
       this.clientCommunicator = clientCommunicator;
     }
+    if (eventDelivery != null && clientCommunicator != null) {
+      this.eventQueues = new ClientEventQueues(clientCommunicator, eventDelivery);
+      getClients().forEach(eventQueues::addClient);
+    }
     return this;
   }
 
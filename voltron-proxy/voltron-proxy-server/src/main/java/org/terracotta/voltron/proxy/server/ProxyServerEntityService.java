@@ -33,6 +33,9 @@ import org.terracotta.entity.ServiceException;
 import org.terracotta.entity.ServiceRegistry;
 import org.terracotta.entity.SyncMessageCodec;
 import org.terracotta.voltron.proxy.Codec;
+import org.terracotta.voltron.proxy.CommonProxyFactory;
+import org.terracotta.voltron.proxy.InvocationStatistics;
+import org.terracotta.voltron.proxy.MethodDescriptor;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 import org.terracotta.voltron.proxy.ProxyEntityResponse;
 import org.terracotta.voltron.proxy.ProxyMessageCodec;
@@ -41,6 +44,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * @param <C> Entity config type
@@ -50,6 +54,11 @@ import java.util.Set;
  */
 public abstract class ProxyServerEntityService<C, S, R, M extends Messenger> implements EntityServerService<ProxyEntityMessage, ProxyEntityResponse> {
 
+  /**
+   * Default maximum size of the chunks of state streamed to passive entities, in bytes.
+   */
+  public static final int DEFAULT_SYNC_CHUNK_SIZE = 256 * 1024;
+
   private final Class<C> configType;
   private final Class<?>[] eventTypes;
   private final Class<R> reconnectDataType;
@@ -57,6 +66,10 @@ public abstract class ProxyServerEntityService<C, S, R, M extends Messenger> imp
   private final ProxyMessageCodec messageCodec;
   private final DelegatingSyncMessageCodec syncMessageCodec;
   private final Class<M> messengerType;
+  private final Set<Integer> argumentConcurrencyKeys;
+  private volatile EventDelivery eventDelivery;
+  private volatile InvocationStatistics statistics;
+  private volatile int syncChunkSize = DEFAULT_SYNC_CHUNK_SIZE;
   private final ExecutionStrategy<ProxyEntityMessage> executionStrategy = message -> ExecutionStrategy.Location.valueOf(message.getExecutionLocation().name());
   private final ConcurrencyStrategy<ProxyEntityMessage> concurrencyStrategy = new ConcurrencyStrategy<ProxyEntityMessage>() {
     @Override
@@ -79,13 +92,16 @@ public abstract class ProxyServerEntityService<C, S, R, M extends Messenger> imp
 
     // for passive sync
     this.synchronizerType = synchronizerType; // can be null
-    this.syncMessageCodec = synchronizerType == null ? null : new DelegatingSyncMessageCodec(messageCodec);
+    this.syncMessageCodec = new DelegatingSyncMessageCodec(messageCodec);
 
     // for reconnecting clients
     this.reconnectDataType = reconnectDataType; // can be null
 
     // for IEntityMessenger
     this.messengerType = messengerType; // can be null
+
+    // for @ConcurrencyKey
+    this.argumentConcurrencyKeys = findArgumentConcurrencyKeys(proxyType, messengerType);
   }
 
   @Override
@@ -103,11 +119,13 @@ public abstract class ProxyServerEntityService<C, S, R, M extends Messenger> imp
   public final ActiveProxiedServerEntity<S, R, M> createActiveEntity(ServiceRegistry registry, byte[] configuration) throws ConfigurationException {
     C config = decodeConfig(configuration);
     ActiveProxiedServerEntity<S, R, M> activeEntity = createActiveEntity(registry, config);
+    activeEntity.getEntityInvoker().setStatistics(statistics);
+    activeEntity.setSyncChunks(messageCodec.getCodec(), syncChunkSize);
 
     if (eventTypes != null && eventTypes.length > 0) {
       try {
         ClientCommunicator clientCommunicator = registry.getService(new BasicServiceConfiguration<>(ClientCommunicator.class));
-        activeEntity.getEntityInvoker().activateEvents(clientCommunicator, eventTypes);
+        activeEntity.getEntityInvoker().activateEvents(clientCommunicator, eventTypes, eventDelivery);
       } catch (ServiceException e) {
         throw new ConfigurationException("Unable to retrieve ClientCommunicator: " + e.getMessage());
       }
@@ -137,7 +155,10 @@ public abstract class ProxyServerEntityService<C, S, R, M extends Messenger> imp
   @Override
   public final PassiveProxiedServerEntity createPassiveEntity(ServiceRegistry registry, byte[] configuration) throws ConfigurationException {
     C config = decodeConfig(configuration);
-    return createPassiveEntity(registry, config);
+    PassiveProxiedServerEntity passiveEntity = createPassiveEntity(registry, config);
+    passiveEntity.getEntityInvoker().setStatistics(statistics);
+    passiveEntity.setSyncCodec(messageCodec.getCodec());
+    return passiveEntity;
   }
 
   @Override
@@ -168,6 +189,8 @@ public abstract class ProxyServerEntityService<C, S, R, M extends Messenger> imp
     Set<ClientDescriptor> clients = new HashSet<>(currentEntity.getEntityInvoker().getClients());
     currentEntity.destroy();
     ActiveProxiedServerEntity<S, R, M> entity = createActiveEntity(registry, config);
+    entity.getEntityInvoker().setStatistics(statistics);
+    entity.setSyncChunks(messageCodec.getCodec(), syncChunkSize);
     entity.createNew();
     for (ClientDescriptor clientDescriptor : clients) {
       entity.connected(clientDescriptor);
@@ -179,27 +202,82 @@ public abstract class ProxyServerEntityService<C, S, R, M extends Messenger> imp
     // by default, destroy the current entity and create a new one. But this behavior is up to the implementor and should be changed accordingly to your needs.
     currentEntity.destroy();
     PassiveProxiedServerEntity entity = createPassiveEntity(registry, config);
+    entity.getEntityInvoker().setStatistics(statistics);
+    entity.setSyncCodec(messageCodec.getCodec());
     entity.createNew();
     return entity;
   }
 
   protected final void setCodec(Codec codec) {
     messageCodec.setCodec(codec);
-    if (syncMessageCodec != null) {
-      syncMessageCodec.setCodec(codec);
+    syncMessageCodec.setCodec(codec);
+  }
+
+  /**
+   * Bounds the chunks of state streamed to the passive entities created afterwards, see
+   * {@link ActiveProxiedServerEntity#getStateToSynchronize(int)}. An entry larger than that is sent in a chunk on its
+   * own.
+   */
+  protected final void setSyncChunkSize(int maxBytes) {
+    if (maxBytes < 1) {
+      throw new IllegalArgumentException("Sync chunk size must be at least 1 byte: " + maxBytes);
     }
+    this.syncChunkSize = maxBytes;
+  }
+
+  /**
+   * Delivers the events fired by the active entities created afterwards through per-client queues, instead of on the
+   * firing thread.
+   */
+  protected final void setEventDelivery(EventDelivery eventDelivery) {
+    this.eventDelivery = eventDelivery;
+  }
+
+  /**
+   * Starts recording the call counts, errors, encoded sizes and latencies of the proxied methods, for the entities of
+   * this service created afterwards. Without this call, nothing is recorded.
+   *
+   * @return the statistics, to be exposed with an
+   * {@link org.terracotta.voltron.proxy.management.InvocationStatisticsManagementProvider} for instance
+   */
+  protected final synchronized InvocationStatistics enableStatistics() {
+    if (statistics == null) {
+      statistics = new InvocationStatistics();
+      messageCodec.setStatistics(statistics);
+    }
+    return statistics;
+  }
+
+  protected final InvocationStatistics getStatistics() {
+    return statistics;
   }
 
   // can be overridden / implemented
 
+  /**
+   * By default, the keys {@link org.terracotta.voltron.proxy.ConcurrencyKey} parameters map invocations to, so that
+   * passive synchronization is parallelized the same way the invocations are.
+   */
   protected Set<Integer> getKeysForSynchronization() {
-    return Collections.emptySet();
+    return argumentConcurrencyKeys;
   }
 
   protected abstract ActiveProxiedServerEntity<S, R, M> createActiveEntity(ServiceRegistry registry, C configuration) throws ConfigurationException;
 
   protected abstract PassiveProxiedServerEntity createPassiveEntity(ServiceRegistry registry, C configuration) throws ConfigurationException;
 
+  private static Set<Integer> findArgumentConcurrencyKeys(Class<?>... types) {
+    Set<Integer> keys = new TreeSet<>();
+    for (Class<?> type : types) {
+      if (type != null) {
+        for (MethodDescriptor method : CommonProxyFactory.createMethodDescriptors(type).values()) {
+          keys.addAll(method.getConcurrencyKeys());
+        }
+      }
+    }
+    return Collections.unmodifiableSet(keys);
+  }
+
   private C decodeConfig(byte[] configuration) {
     C config = null;
     if (configType == Void.TYPE) {
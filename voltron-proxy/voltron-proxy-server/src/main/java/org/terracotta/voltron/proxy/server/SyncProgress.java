@@ -0,0 +1,86 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.server;
+
+import org.terracotta.voltron.proxy.SyncChunk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency keys are synchronized in parallel, so the figures are accumulated without locking.
+ */
+class SyncProgress implements SyncStatistics {
+
+  private final LongAdder keys = new LongAdder();
+  private final LongAdder entries = new LongAdder();
+  private final LongAdder chunks = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder elapsedNanos = new LongAdder();
+
+  void chunk(SyncChunk chunk, long nanos) {
+    entries.add(chunk.size());
+    chunks.increment();
+    bytes.add(chunk.getEncodedSize());
+    elapsedNanos.add(nanos);
+  }
+
+  void keyDone() {
+    keys.increment();
+  }
+
+  @Override
+  public long getSynchronizedKeys() {
+    return keys.sum();
+  }
+
+  @Override
+  public long getEntries() {
+    return entries.sum();
+  }
+
+  @Override
+  public long getChunks() {
+    return chunks.sum();
+  }
+
+  @Override
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  @Override
+  public long getElapsedMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(elapsedNanos.sum());
+  }
+
+  @Override
+  public long getBytesPerSecond() {
+    long nanos = elapsedNanos.sum();
+    return nanos == 0 ? 0 : (long) (bytes.sum() * 1_000_000_000.0 / nanos);
+  }
+
+  @Override
+  public String toString() {
+    return "keys=" + getSynchronizedKeys() +
+        ", entries=" + getEntries() +
+        ", chunks=" + getChunks() +
+        ", bytes=" + getBytes() +
+        ", elapsedMillis=" + getElapsedMillis() +
+        ", bytesPerSecond=" + getBytesPerSecond();
+  }
+}
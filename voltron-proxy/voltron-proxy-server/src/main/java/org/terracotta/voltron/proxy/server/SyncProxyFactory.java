@@ -17,11 +17,14 @@
 package org.terracotta.voltron.proxy.server;
 
 import org.terracotta.entity.PassiveSynchronizationChannel;
+import org.terracotta.voltron.proxy.CommonProxyFactory;
 import org.terracotta.voltron.proxy.MessageType;
 import org.terracotta.voltron.proxy.MethodDescriptor;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -33,11 +36,15 @@ class SyncProxyFactory {
 
   static <T> T createProxy(Class<T> synchronizerType) {
     Objects.requireNonNull(synchronizerType);
+    Map<Method, MethodDescriptor> methodDescriptors = CommonProxyFactory.createMethodDescriptors(synchronizerType);
     return synchronizerType.cast(Proxy.newProxyInstance(
         synchronizerType.getClassLoader(),
         new Class<?>[]{synchronizerType},
         (proxy, method, args) -> {
-          final MethodDescriptor methodDescriptor = MethodDescriptor.of(method);
+          MethodDescriptor methodDescriptor = methodDescriptors.get(method);
+          if (methodDescriptor == null) {
+            throw new IllegalArgumentException("Method '" + method.toGenericString() + "' isn't proxied");
+          }
           ProxyEntityMessage proxyEntityMessage = new ProxyEntityMessage(methodDescriptor, args, MessageType.SYNC);
           PassiveSynchronizationChannel<ProxyEntityMessage> channel = currentChannel.get();
           if (channel == null) {
@@ -0,0 +1,54 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.server;
+
+/**
+ * Progress of the state streamed to passive entities in {@link org.terracotta.voltron.proxy.SyncChunk}s, as sent by an
+ * active entity or applied by a passive one.
+ */
+public interface SyncStatistics {
+
+  /**
+   * @return the number of concurrency keys completely synchronized
+   */
+  long getSynchronizedKeys();
+
+  /**
+   * @return the number of state entries streamed so far
+   */
+  long getEntries();
+
+  /**
+   * @return the number of chunks streamed so far
+   */
+  long getChunks();
+
+  /**
+   * @return the encoded size of the chunks streamed so far, in bytes
+   */
+  long getBytes();
+
+  /**
+   * @return the time spent streaming chunks, summed over the concurrency keys, in milliseconds
+   */
+  long getElapsedMillis();
+
+  /**
+   * @return the average streaming throughput of a concurrency key, in bytes per second
+   */
+  long getBytesPerSecond();
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.server;
+
+import org.junit.Test;
+import org.terracotta.entity.ClientCommunicator;
+import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.EntityResponse;
+import org.terracotta.voltron.proxy.CodecOutput;
+import org.terracotta.voltron.proxy.ProxyEntityResponse;
+import org.terracotta.voltron.proxy.ProxyMessageCodec;
+import org.terracotta.voltron.proxy.SerializationCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ClientEventQueuesTest {
+
+  @Test
+  public void testBroadcastEventEncodedOnce() throws Exception {
+    AtomicInteger encodings = new AtomicInteger();
+    ProxyMessageCodec messageCodec = new ProxyMessageCodec(Comparable.class, new Class<?>[] {String.class});
+    messageCodec.setCodec(new SerializationCodec() {
+      @Override
+      public void encode(Class<?> type, Object value, CodecOutput output) {
+        encodings.incrementAndGet();
+        super.encode(type, value, output);
+      }
+    });
+    List<byte[]> sent = Collections.synchronizedList(new ArrayList<>());
+    ProxyInvoker<Comparable<?>> invoker = new ProxyInvoker<Comparable<?>>(o -> 0)
+        .activateEvents(new RecordingCommunicator(response -> sent.add(messageCodec.encodeResponse((ProxyEntityResponse) response))), new Class<?>[] {String.class});
+    for (int i = 0; i < 3; i++) {
+      invoker.addClient(mock(ClientDescriptor.class));
+    }
+
+    invoker.fireMessage(String.class, "event", true);
+
+    assertThat(sent.size(), is(3));
+    assertThat(encodings.get(), is(1));
+    assertThat(Arrays.equals(sent.get(0), sent.get(2)), is(true));
+  }
+
+  @Test
+  public void testEventsDeliveredInOrder() throws Exception {
+    CountDownLatch delivered = new CountDownLatch(100);
+    List<Object> events = Collections.synchronizedList(new ArrayList<>());
+    ClientCommunicator communicator = new RecordingCommunicator(response -> {
+      events.add(((ProxyEntityResponse) response).getResponse());
+      delivered.countDown();
+    });
+    ClientEventQueues queues = new ClientEventQueues(communicator, new EventDelivery(10, EventDelivery.OverflowPolicy.BLOCK, 2));
+    ClientDescriptor client = mock(ClientDescriptor.class);
+    queues.addClient(client);
+
+    List<Object> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      queues.send(client, ProxyEntityResponse.messageResponse(Integer.class, i));
+      expected.add(i);
+    }
+
+    assertThat(delivered.await(5, TimeUnit.SECONDS), is(true));
+    assertThat(events, is(expected));
+    EventQueueStatistics statistics = queues.getStatistics().get(client);
+    // the count is updated once the send returns
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (statistics.getDeliveredEvents() < 100 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(statistics.getDeliveredEvents(), is(100L));
+    assertThat(statistics.getDroppedEvents(), is(0L));
+  }
+
+  @Test
+  public void testDropOldest() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch sending = new CountDownLatch(1);
+    List<Object> events = Collections.synchronizedList(new ArrayList<>());
+    ClientCommunicator communicator = new RecordingCommunicator(response -> {
+      sending.countDown();
+      release.await();
+      events.add(((ProxyEntityResponse) response).getResponse());
+    });
+    ClientEventQueues queues = new ClientEventQueues(communicator, new EventDelivery(2, EventDelivery.OverflowPolicy.DROP_OLDEST, 1));
+    ClientDescriptor client = mock(ClientDescriptor.class);
+    queues.addClient(client);
+
+    queues.send(client, ProxyEntityResponse.messageResponse(Integer.class, 0));
+    assertThat(sending.await(5, TimeUnit.SECONDS), is(true));
+    for (int i = 1; i <= 4; i++) {
+      queues.send(client, ProxyEntityResponse.messageResponse(Integer.class, i));
+    }
+    EventQueueStatistics statistics = queues.getStatistics().get(client);
+    assertThat(statistics.getQueueDepth(), is(2));
+    assertThat(statistics.getDroppedEvents(), is(2L));
+
+    release.countDown();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (statistics.getDeliveredEvents() < 3 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(events, is(Arrays.<Object>asList(0, 3, 4)));
+  }
+
+  @Test
+  public void testDisconnectOnOverflow() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch sending = new CountDownLatch(1);
+    List<ClientDescriptor> closed = Collections.synchronizedList(new ArrayList<>());
+    ClientCommunicator communicator = new RecordingCommunicator(response -> {
+      sending.countDown();
+      release.await();
+    }) {
+      @Override
+      public void closeClientConnection(ClientDescriptor clientDescriptor) {
+        closed.add(clientDescriptor);
+      }
+    };
+    ClientEventQueues queues = new ClientEventQueues(communicator, new EventDelivery(1, EventDelivery.OverflowPolicy.DISCONNECT, 1));
+    ClientDescriptor slow = mock(ClientDescriptor.class);
+    queues.addClient(slow);
+
+    queues.send(slow, ProxyEntityResponse.messageResponse(Integer.class, 0));
+    assertThat(sending.await(5, TimeUnit.SECONDS), is(true));
+    queues.send(slow, ProxyEntityResponse.messageResponse(Integer.class, 1));
+    queues.send(slow, ProxyEntityResponse.messageResponse(Integer.class, 2));
+
+    assertThat(closed, is(Collections.singletonList(slow)));
+    assertThat(queues.getStatistics().get(slow).getDroppedEvents(), is(2L));
+
+    // until the disconnection is notified, events keep being dropped rather than queued again
+    queues.send(slow, ProxyEntityResponse.messageResponse(Integer.class, 3));
+    assertThat(queues.getStatistics().get(slow).getQueueDepth(), is(0));
+    assertThat(queues.getStatistics().get(slow).getDroppedEvents(), is(3L));
+    assertThat(closed, is(Collections.singletonList(slow)));
+
+    queues.removeClient(slow);
+    assertThat(queues.getStatistics().containsKey(slow), is(false));
+    release.countDown();
+  }
+
+  @Test
+  public void testEventsToUnknownClientsDropped() throws Exception {
+    List<Object> events = Collections.synchronizedList(new ArrayList<>());
+    ClientEventQueues queues = new ClientEventQueues(new RecordingCommunicator(events::add), new EventDelivery(10, EventDelivery.OverflowPolicy.BLOCK, 1));
+    ClientDescriptor client = mock(ClientDescriptor.class);
+    queues.addClient(client);
+    queues.removeClient(client);
+
+    // e.g. a broadcast iterating over the clients while this one disconnects
+    queues.send(client, ProxyEntityResponse.messageResponse(Integer.class, 0));
+    queues.send(mock(ClientDescriptor.class), ProxyEntityResponse.messageResponse(Integer.class, 1));
+
+    assertThat(queues.getStatistics().isEmpty(), is(true));
+    assertThat(queues.getDroppedForUnknownClients(), is(2L));
+    assertThat(events.isEmpty(), is(true));
+  }
+
+  private interface Sender {
+    void send(EntityResponse response) throws Exception;
+  }
+
+  private static class RecordingCommunicator implements ClientCommunicator {
+
+    private final Sender sender;
+
+    RecordingCommunicator(Sender sender) {
+      this.sender = sender;
+    }
+
+    @Override
+    public void closeClientConnection(ClientDescriptor clientDescriptor) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void sendNoResponse(ClientDescriptor clientDescriptor, EntityResponse message) {
+      try {
+        sender.send(message);
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    public Future<Void> send(ClientDescriptor clientDescriptor, EntityResponse message) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
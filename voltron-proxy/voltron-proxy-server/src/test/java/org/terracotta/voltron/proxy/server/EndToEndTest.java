@@ -25,22 +25,33 @@ import org.terracotta.entity.ClientSourceId;
 import org.terracotta.entity.EndpointDelegate;
 import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.entity.EntityResponse;
+import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.Invocation;
 import org.terracotta.entity.InvocationCallback;
 import org.terracotta.entity.MessageCodec;
+import org.terracotta.voltron.proxy.Async;
 import org.terracotta.voltron.proxy.ClientId;
+import org.terracotta.voltron.proxy.InvocationStatistics;
 import org.terracotta.voltron.proxy.MessageListener;
+import org.terracotta.voltron.proxy.MessageType;
+import org.terracotta.voltron.proxy.MethodDescriptor;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 import org.terracotta.voltron.proxy.ProxyEntityResponse;
 import org.terracotta.voltron.proxy.ProxyMessageCodec;
 import org.terracotta.voltron.proxy.SerializationCodec;
+import org.terracotta.voltron.proxy.client.AsyncBatching;
 import org.terracotta.voltron.proxy.client.ClientProxyFactory;
 import org.terracotta.voltron.proxy.client.ServerMessageAware;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -52,7 +63,9 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -222,6 +235,199 @@ public class EndToEndTest {
     assertThat(proxy.much(12, 12), notNullValue());
   }
 
+  @Test
+  public void testAsyncBatching() throws Exception {
+    final ProxyMessageCodec messageCodec = new ProxyMessageCodec(Counter.class, null);
+    final AtomicInteger counter = new AtomicInteger();
+    final ProxyInvoker<Counter> proxyInvoker = new ProxyInvoker<Counter>(new Counter() {
+      @Override
+      public Future<Integer> increment(int delta) {
+        if (delta < 0) {
+          throw new IllegalArgumentException("negative");
+        }
+        return CompletableFuture.completedFuture(counter.addAndGet(delta));
+      }
+
+      @Override
+      public int get() {
+        return counter.get();
+      }
+    });
+    final List<MessageType> sent = new ArrayList<>();
+    final EntityClientEndpoint endpoint = mock(EntityClientEndpoint.class);
+    when(endpoint.message(any())).thenAnswer(invocation -> {
+      // go through the wire format, as the batch would
+      ProxyEntityMessage message = messageCodec.decodeMessage(messageCodec.encodeMessage(invocation.getArgument(0)));
+      sent.add(message.getType());
+      return new RecordingInvocation(proxyInvoker, messageCodec, message);
+    });
+
+    final Counter proxy = ClientProxyFactory.createProxy(Counter.class, Counter.class, endpoint, null, new SerializationCodec(),
+        new AsyncBatching(1, TimeUnit.HOURS, 3));
+    Future<Integer> first = proxy.increment(1);
+    Future<Integer> failing = proxy.increment(-1);
+    assertThat(sent.isEmpty(), is(true));
+    Future<Integer> third = proxy.increment(2);
+    assertThat(sent, equalTo(Collections.singletonList(MessageType.BATCH)));
+
+    assertThat(first.get(), is(1));
+    assertThat(third.get(), is(3));
+    try {
+      failing.get();
+      fail("Expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(EntityUserException.class));
+      assertThat(e.getCause().getCause(), instanceOf(IllegalArgumentException.class));
+    }
+
+    // a synchronous call sends whatever is pending first
+    Future<Integer> pending = proxy.increment(4);
+    assertThat(proxy.get(), is(7));
+    assertThat(sent, equalTo(Arrays.asList(MessageType.BATCH, MessageType.MESSAGE, MessageType.MESSAGE)));
+    assertThat(pending.get(), is(7));
+
+    // waiting on a pending invocation sends it without waiting for the window
+    Future<Integer> waited = proxy.increment(1);
+    assertThat(waited.get(5, TimeUnit.SECONDS), is(8));
+  }
+
+  @Test
+  public void testPassiveBatchReplaysAllInvocations() throws Exception {
+    final ProxyMessageCodec messageCodec = new ProxyMessageCodec(Counter.class, null);
+    final AtomicInteger counter = new AtomicInteger();
+    final ProxyInvoker<Counter> proxyInvoker = new ProxyInvoker<Counter>(new Counter() {
+      @Override
+      public Future<Integer> increment(int delta) {
+        if (delta < 0) {
+          throw new IllegalArgumentException("negative");
+        }
+        return CompletableFuture.completedFuture(counter.addAndGet(delta));
+      }
+
+      @Override
+      public int get() {
+        return counter.get();
+      }
+    });
+    final MethodDescriptor increment = MethodDescriptor.of(Counter.class.getMethod("increment", int.class));
+    final ProxyEntityMessage batch = ProxyEntityMessage.batch(Arrays.asList(
+        new ProxyEntityMessage(increment, new Object[] {1}, MessageType.MESSAGE),
+        new ProxyEntityMessage(increment, new Object[] {-1}, MessageType.MESSAGE),
+        new ProxyEntityMessage(increment, new Object[] {2}, MessageType.MESSAGE)));
+
+    try {
+      proxyInvoker.invoke(messageCodec.decodeMessage(messageCodec.encodeMessage(batch)));
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), is("negative"));
+    }
+    assertThat(counter.get(), is(3));
+  }
+
+  @Test
+  public void testBatchResponseRoundTrip() throws Exception {
+    final ProxyMessageCodec messageCodec = new ProxyMessageCodec(Counter.class, null);
+    final ProxyEntityResponse batch = ProxyEntityResponse.batchResponse(Arrays.asList(
+        ProxyEntityResponse.messageResponse(Integer.class, 1),
+        ProxyEntityResponse.error(new EntityUserException("boom")),
+        null));
+
+    ProxyEntityResponse decoded = messageCodec.decodeResponse(messageCodec.encodeResponse(batch));
+
+    assertThat(decoded.getMessageType(), is(MessageType.BATCH));
+    assertThat(decoded.getBatch().size(), is(3));
+    assertThat(decoded.getBatch().get(0).getResponse(), is(1));
+    assertThat(decoded.getBatch().get(1).getMessageType(), is(MessageType.ERROR));
+    assertThat(decoded.getBatch().get(2), nullValue());
+  }
+
+  @Test
+  public void testInvocationStatistics() throws Exception {
+    final ProxyMessageCodec messageCodec = new ProxyMessageCodec(Counter.class, null);
+    final InvocationStatistics serverStatistics = new InvocationStatistics();
+    messageCodec.setStatistics(serverStatistics);
+    final AtomicInteger counter = new AtomicInteger();
+    final ProxyInvoker<Counter> proxyInvoker = new ProxyInvoker<Counter>(new Counter() {
+      @Override
+      public Future<Integer> increment(int delta) {
+        if (delta < 0) {
+          throw new IllegalArgumentException("negative");
+        }
+        return CompletableFuture.completedFuture(counter.addAndGet(delta));
+      }
+
+      @Override
+      public int get() {
+        return counter.get();
+      }
+    });
+    proxyInvoker.setStatistics(serverStatistics);
+    final EntityClientEndpoint endpoint = mock(EntityClientEndpoint.class);
+    when(endpoint.message(any())).thenAnswer(invocation ->
+        new RecordingInvocation(proxyInvoker, messageCodec, messageCodec.decodeMessage(messageCodec.encodeMessage(invocation.getArgument(0)))));
+
+    final InvocationStatistics clientStatistics = new InvocationStatistics();
+    final Counter proxy = ClientProxyFactory.createProxy(Counter.class, Counter.class, endpoint, null, new SerializationCodec(),
+        null, null, clientStatistics);
+    assertThat(proxy.increment(1).get(), is(1));
+    try {
+      proxy.increment(-1).get();
+      fail("Expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(EntityUserException.class));
+    }
+    // not waited on: still recorded once the response arrives
+    proxy.increment(2);
+    assertThat(proxy.get(), is(3));
+
+    final MethodDescriptor increment = MethodDescriptor.of(Counter.class.getMethod("increment", int.class));
+    final MethodDescriptor get = MethodDescriptor.of(Counter.class.getMethod("get"));
+    for (InvocationStatistics statistics : Arrays.asList(serverStatistics, clientStatistics)) {
+      assertThat(statistics.of(increment).getName(), is("increment(int)"));
+      assertThat(statistics.of(increment).getCalls(), is(3L));
+      assertThat(statistics.of(increment).getErrors(), is(1L));
+      assertThat(statistics.of(increment).getLatency().count(), is(3L));
+      assertThat(statistics.of(get).getCalls(), is(1L));
+      assertThat(statistics.of(get).getErrors(), is(0L));
+    }
+    assertThat(serverStatistics.of(increment).getRequestBytes() > 0, is(true));
+
+    // responses are only sized once encoded, which the recording invocation does not do
+    byte[] response = messageCodec.encodeResponse(ProxyEntityResponse.messageResponse(Integer.class, 1).recordEncodedSizeTo(serverStatistics.of(get)));
+    assertThat(serverStatistics.of(get).getResponseBytes(), is((long) response.length));
+  }
+
+  @Test
+  public void testCompletableReturnTypes() throws Exception {
+    final ProxyMessageCodec messageCodec = new ProxyMessageCodec(Calculator.class, null);
+    final ProxyInvoker<Calculator> proxyInvoker = new ProxyInvoker<Calculator>(new Calculator() {
+      @Override
+      public CompletableFuture<Integer> add(int a, int b) {
+        return CompletableFuture.completedFuture(a + b);
+      }
+
+      @Override
+      public CompletionStage<Integer> divide(int a, int b) {
+        return CompletableFuture.supplyAsync(() -> a / b);
+      }
+    });
+    final EntityClientEndpoint endpoint = mock(EntityClientEndpoint.class);
+    when(endpoint.message(any())).thenAnswer(invocation ->
+        new RecordingInvocation(proxyInvoker, messageCodec, messageCodec.decodeMessage(messageCodec.encodeMessage(invocation.getArgument(0)))));
+
+    final Calculator proxy = ClientProxyFactory.createProxy(Calculator.class, Calculator.class, endpoint, null, new SerializationCodec());
+
+    assertThat(proxy.add(1, 2).thenApply(sum -> sum * 2).get(), is(6));
+    assertThat(proxy.divide(6, 3).toCompletableFuture().get(), is(2));
+    try {
+      proxy.divide(1, 0).toCompletableFuture().get();
+      fail("Expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(EntityUserException.class));
+      assertThat(e.getCause().getCause(), instanceOf(ArithmeticException.class));
+    }
+  }
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   private static class RecordingInvocation implements Invocation<ProxyEntityResponse> {
     private final ProxyInvoker<?> proxyInvoker;
@@ -322,6 +528,23 @@ public class EndToEndTest {
 
   }
 
+  public interface Counter {
+
+    @Async
+    Future<Integer> increment(int delta);
+
+    int get();
+
+  }
+
+  public interface Calculator {
+
+    CompletableFuture<Integer> add(int a, int b);
+
+    CompletionStage<Integer> divide(int a, int b);
+
+  }
+
   public interface ComparableEntity extends ServerMessageAware, Entity, Comparable {
 
   }
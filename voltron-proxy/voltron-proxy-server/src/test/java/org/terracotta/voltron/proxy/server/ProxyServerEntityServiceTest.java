@@ -0,0 +1,149 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright Super iPaaS Integration LLC, an IBM Company 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy.server;
+
+import org.junit.Test;
+import org.terracotta.entity.ConcurrencyStrategy;
+import org.terracotta.entity.ServiceRegistry;
+import org.terracotta.entity.SyncMessageCodec;
+import org.terracotta.voltron.proxy.ConcurrencyKey;
+import org.terracotta.voltron.proxy.MessageType;
+import org.terracotta.voltron.proxy.MethodDescriptor;
+import org.terracotta.voltron.proxy.ProxyEntityMessage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.Is.is;
+
+public class ProxyServerEntityServiceTest {
+
+  @Test
+  public void testArgumentConcurrencyKeys() throws Exception {
+    ConcurrencyStrategy<ProxyEntityMessage> concurrencyStrategy = new Service().getConcurrencyStrategy(null);
+
+    assertThat(concurrencyStrategy.getKeysForSynchronization(), contains(1, 2, 3, 4, 5, 6));
+
+    MethodDescriptor put = MethodDescriptor.of(Sharded.class.getMethod("put", String.class, String.class));
+    ProxyEntityMessage message = new ProxyEntityMessage(put, new Object[]{"key", "value"}, MessageType.MESSAGE);
+    assertThat(concurrencyStrategy.concurrencyKey(message), is(put.getConcurrencyKey(new Object[]{"key", null})));
+
+    MethodDescriptor size = MethodDescriptor.of(Sharded.class.getMethod("size"));
+    assertThat(concurrencyStrategy.concurrencyKey(new ProxyEntityMessage(size, null, MessageType.MESSAGE)), is(ConcurrencyStrategy.MANAGEMENT_KEY));
+  }
+
+  @Test
+  public void testStateStreamedToPassiveInChunks() throws Exception {
+    List<String> state = IntStream.range(0, 100).mapToObj(i -> "entry-" + i).collect(Collectors.toList());
+    List<Integer> chunkSizes = new ArrayList<>();
+    List<Object> applied = new ArrayList<>();
+    Service service = new Service(new ActiveProxiedServerEntity<Void, Void, Messenger>() {
+      @Override
+      protected Iterator<?> getStateToSynchronize(int concurrencyKey) {
+        return concurrencyKey == 2 ? state.iterator() : null;
+      }
+    }, new PassiveProxiedServerEntity() {
+      @Override
+      protected void applySynchronizedState(int concurrencyKey, List<Object> entries) {
+        assertThat(concurrencyKey, is(2));
+        chunkSizes.add(entries.size());
+        applied.addAll(entries);
+      }
+    });
+    service.setSyncChunkSize(512);
+    ActiveProxiedServerEntity<Void, Void, Messenger> active = service.createActiveEntity(null, (byte[]) null);
+    PassiveProxiedServerEntity passive = service.createPassiveEntity(null, (byte[]) null);
+    SyncMessageCodec<ProxyEntityMessage> syncCodec = service.getSyncMessageCodec();
+
+    active.synchronizeKeyToPassive(message -> {
+      try {
+        passive.invokePassive(null, syncCodec.decode(2, syncCodec.encode(2, message)));
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      }
+    }, 2);
+    active.synchronizeKeyToPassive(message -> {
+      throw new AssertionError("Nothing to synchronize");
+    }, 1);
+    passive.endSyncConcurrencyKey(2);
+
+    assertThat(applied, is(new ArrayList<Object>(state)));
+    assertThat(chunkSizes.size() > 1, is(true));
+    assertThat(active.getSyncStatistics().getEntries(), is(100L));
+    assertThat(active.getSyncStatistics().getChunks(), is((long) chunkSizes.size()));
+    assertThat(active.getSyncStatistics().getSynchronizedKeys(), is(1L));
+    assertThat(passive.getSyncStatistics().getEntries(), is(100L));
+    assertThat(passive.getSyncStatistics().getBytes(), is(active.getSyncStatistics().getBytes()));
+    assertThat(passive.getSyncStatistics().getSynchronizedKeys(), is(1L));
+  }
+
+  public interface Sharded {
+
+    void put(@ConcurrencyKey(buckets = 4) String key, String value);
+
+    String get(@ConcurrencyKey(buckets = 6) String key);
+
+    int size();
+  }
+
+  private static class Service extends ProxyServerEntityService<Void, Void, Void, Messenger> {
+
+    private final ActiveProxiedServerEntity<Void, Void, Messenger> active;
+    private final PassiveProxiedServerEntity passive;
+
+    Service() {
+      this(null, null);
+    }
+
+    Service(ActiveProxiedServerEntity<Void, Void, Messenger> active, PassiveProxiedServerEntity passive) {
+      super(Sharded.class, Void.TYPE, null, null, null, null);
+      this.active = active;
+      this.passive = passive;
+    }
+
+    @Override
+    public long getVersion() {
+      return 1;
+    }
+
+    @Override
+    public boolean handlesEntityType(String typeName) {
+      return true;
+    }
+
+    @Override
+    protected ActiveProxiedServerEntity<Void, Void, Messenger> createActiveEntity(ServiceRegistry registry, Void configuration) {
+      if (active == null) {
+        throw new UnsupportedOperationException();
+      }
+      return active;
+    }
+
+    @Override
+    protected PassiveProxiedServerEntity createPassiveEntity(ServiceRegistry registry, Void configuration) {
+      if (passive == null) {
+        throw new UnsupportedOperationException();
+      }
+      return passive;
+    }
+  }
+}